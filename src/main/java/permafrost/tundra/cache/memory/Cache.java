@@ -0,0 +1,970 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2026 Lachlan Dowding
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package permafrost.tundra.cache.memory;
+
+import com.wm.data.IData;
+import com.wm.data.IDataCursor;
+import com.wm.data.IDataFactory;
+import com.wm.util.coder.IDataCodable;
+import java.io.IOException;
+import java.text.NumberFormat;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A single named in-memory cache which optionally bounds its size by entry count and estimated bytes, evicting the
+ * least recently used entries when either bound is exceeded, and which indexes entries by expiry time so that expired
+ * entries can be removed without sweeping the whole cache.
+ *
+ * @param <K>   The class of the cache keys.
+ * @param <V>   The class of the cache values.
+ */
+public class Cache<K, V> implements IDataCodable {
+    /**
+     * The granularity in milliseconds of the expiry index buckets.
+     */
+    protected static final long EXPIRY_INDEX_RESOLUTION_MILLISECONDS = 1000L;
+    /**
+     * The maximum number of recorded accesses buffered before further accesses are dropped.
+     */
+    protected static final int ACCESS_BUFFER_CAPACITY = 128;
+    /**
+     * The number of recorded accesses buffered before the buffer is drained into the eviction policy.
+     */
+    protected static final int ACCESS_BUFFER_DRAIN_THRESHOLD = 32;
+    /**
+     * The maximum depth of nested values visited when estimating the size of a value.
+     */
+    protected static final int ESTIMATE_MAXIMUM_DEPTH = 16;
+    /**
+     * The name of this cache.
+     */
+    protected final String name;
+    /**
+     * The cached entries.
+     */
+    protected final ConcurrentMap<K, CacheManager.ExpiringValue<V>> entries = new ConcurrentHashMap<K, CacheManager.ExpiringValue<V>>();
+    /**
+     * The maximum number of entries and estimated bytes this cache may hold, where zero means unbounded.
+     */
+    protected volatile long maximumEntries, maximumBytes;
+    /**
+     * The estimated total size in bytes of the cached entries.
+     */
+    protected final AtomicLong estimatedBytes = new AtomicLong();
+    /**
+     * Counters for cache hits, misses, evictions and expirations.
+     */
+    protected final AtomicLong hits = new AtomicLong(), misses = new AtomicLong(), evictions = new AtomicLong(), expirations = new AtomicLong();
+    /**
+     * Counters for values computed by loaders, loaders which failed, and background refreshes scheduled.
+     */
+    protected final AtomicLong loads = new AtomicLong(), loadFailures = new AtomicLong(), refreshes = new AtomicLong();
+    /**
+     * Counters for values restored from the persistent store, and values which could not be stored or restored.
+     */
+    protected final AtomicLong restorations = new AtomicLong(), storeFailures = new AtomicLong();
+    /**
+     * The optional persistent store behind this cache.
+     */
+    protected volatile MappedCacheStore<V> store;
+    /**
+     * The in-flight loads, used to collapse concurrent loads of the same key into a single computation.
+     */
+    protected final ConcurrentMap<K, FutureTask<CacheManager.ExpiringValue<V>>> inflight = new ConcurrentHashMap<K, FutureTask<CacheManager.ExpiringValue<V>>>();
+    /**
+     * The keys whose loaders are currently running on each thread, used to detect a loader loading its own key.
+     */
+    protected final ThreadLocal<Set<K>> loading = new ThreadLocal<Set<K>>() {
+        @Override
+        protected Set<K> initialValue() {
+            return new HashSet<K>();
+        }
+    };
+    /**
+     * The keys of entries which expire, indexed by the expiry bucket they fall in.
+     */
+    protected final ConcurrentSkipListMap<Long, Set<K>> expiryIndex = new ConcurrentSkipListMap<Long, Set<K>>();
+    /**
+     * Lock used to ensure only one thread at a time removes expired entries.
+     */
+    protected final ReentrantLock expiryLock = new ReentrantLock();
+    /**
+     * The least recently used ordering of keys, used to choose which entries to evict when this cache is bounded.
+     */
+    protected final LinkedHashMap<K, Boolean> policy = new LinkedHashMap<K, Boolean>(16, 0.75f, true);
+    /**
+     * Lock used to guard the eviction policy.
+     */
+    protected final ReentrantLock policyLock = new ReentrantLock();
+    /**
+     * Buffer of recently read keys, which is drained into the eviction policy in batches so that reads do not
+     * contend on the policy lock.
+     */
+    protected final ConcurrentLinkedQueue<K> accessBuffer = new ConcurrentLinkedQueue<K>();
+    /**
+     * The number of keys in the access buffer.
+     */
+    protected final AtomicInteger accessBufferSize = new AtomicInteger();
+
+    /**
+     * Creates a new unbounded Cache.
+     *
+     * @param name  The name of the cache.
+     */
+    public Cache(String name) {
+        this(name, 0, 0);
+    }
+
+    /**
+     * Creates a new Cache.
+     *
+     * @param name              The name of the cache.
+     * @param maximumEntries    The maximum number of entries the cache may hold, or zero for unbounded.
+     * @param maximumBytes      The maximum estimated bytes the cache may hold, or zero for unbounded.
+     */
+    public Cache(String name, long maximumEntries, long maximumBytes) {
+        this.name = name;
+        setBounds(maximumEntries, maximumBytes);
+    }
+
+    /**
+     * Returns the name of this cache.
+     *
+     * @return the name of this cache.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Sets the maximum number of entries and estimated bytes this cache may hold, evicting the least recently used
+     * entries if the cache now exceeds the new bounds.
+     *
+     * @param maximumEntries    The maximum number of entries the cache may hold, or zero for unbounded.
+     * @param maximumBytes      The maximum estimated bytes the cache may hold, or zero for unbounded.
+     */
+    public void setBounds(long maximumEntries, long maximumBytes) {
+        if (maximumEntries < 0) throw new IllegalArgumentException("maximumEntries must not be negative");
+        if (maximumBytes < 0) throw new IllegalArgumentException("maximumBytes must not be negative");
+
+        policyLock.lock();
+        try {
+            boolean wasBounded = isBounded();
+            boolean wasWeighed = this.maximumBytes > 0;
+
+            this.maximumEntries = maximumEntries;
+            this.maximumBytes = maximumBytes;
+
+            if (maximumBytes > 0 && !wasWeighed) {
+                // values are only weighed while a byte bound is set, so weigh the existing values now
+                for (CacheManager.ExpiringValue<V> value : entries.values()) {
+                    long weight = value.weight;
+                    weigh(value);
+                    estimatedBytes.addAndGet(value.weight - weight);
+                }
+            }
+
+            if (isBounded()) {
+                if (!wasBounded) {
+                    // seed the policy with the existing keys, in no particular order
+                    for (K key : entries.keySet()) {
+                        policy.put(key, Boolean.TRUE);
+                    }
+                }
+                evict();
+            } else {
+                policy.clear();
+                accessBuffer.clear();
+                accessBufferSize.set(0);
+            }
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the maximum number of entries this cache may hold, or zero if unbounded.
+     *
+     * @return the maximum number of entries this cache may hold, or zero if unbounded.
+     */
+    public long getMaximumEntries() {
+        return maximumEntries;
+    }
+
+    /**
+     * Returns the maximum estimated bytes this cache may hold, or zero if unbounded.
+     *
+     * @return the maximum estimated bytes this cache may hold, or zero if unbounded.
+     */
+    public long getMaximumBytes() {
+        return maximumBytes;
+    }
+
+    /**
+     * Returns true if this cache is bounded by either entry count or estimated bytes.
+     *
+     * @return true if this cache is bounded.
+     */
+    public boolean isBounded() {
+        return maximumEntries > 0 || maximumBytes > 0;
+    }
+
+    /**
+     * Sets the persistent store behind this cache. Every value subsequently cached is also written to the store, and
+     * values evicted from or never loaded into memory are restored from the store on demand. Only entries with String
+     * keys are stored, as other keys cannot be identified exactly in the store, so entries with other keys are kept in
+     * memory only.
+     *
+     * @param store The persistent store, or null to detach any existing store.
+     * @return      The previous persistent store, if any, which the caller is responsible for closing.
+     */
+    public MappedCacheStore<V> setStore(MappedCacheStore<V> store) {
+        MappedCacheStore<V> previousStore = this.store;
+        this.store = store;
+        return previousStore;
+    }
+
+    /**
+     * Returns the persistent store behind this cache, if any.
+     *
+     * @return the persistent store behind this cache, or null if there is none.
+     */
+    public MappedCacheStore<V> getStore() {
+        return store;
+    }
+
+    /**
+     * Returns true if this cache has a persistent store.
+     *
+     * @return true if this cache has a persistent store.
+     */
+    public boolean isPersistent() {
+        return store != null;
+    }
+
+    /**
+     * Returns the number of entries in this cache, including expired entries not yet removed.
+     *
+     * @return the number of entries in this cache.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the estimated total size in bytes of the entries in this cache. Values are only weighed while the cache
+     * is bounded by estimated bytes, so this is zero for caches which have never had a byte bound.
+     *
+     * @return the estimated total size in bytes of the entries in this cache.
+     */
+    public long getEstimatedBytes() {
+        return estimatedBytes.get();
+    }
+
+    /**
+     * Returns an unmodifiable view of the entries in this cache, including expired entries not yet removed.
+     *
+     * @return an unmodifiable view of the entries in this cache.
+     */
+    public Set<Map.Entry<K, CacheManager.ExpiringValue<V>>> entrySet() {
+        return Collections.unmodifiableSet(entries.entrySet());
+    }
+
+    /**
+     * Returns the unexpired value associated with the given key, recording the lookup as a hit or a miss.
+     *
+     * @param key   The key whose associated value is to be returned.
+     * @return      The unexpired value associated with the given key, or null if there is none.
+     */
+    public CacheManager.ExpiringValue<V> get(K key) {
+        CacheManager.ExpiringValue<V> value = entries.get(key);
+        if (value == null) value = restore(key);
+
+        if (value == null) {
+            misses.incrementAndGet();
+        } else if (value.isExpired()) {
+            misses.incrementAndGet();
+            if (entries.remove(key, value)) {
+                expirations.incrementAndGet();
+                removed(key, value);
+            }
+            value = null;
+        } else {
+            hits.incrementAndGet();
+            accessed(key);
+        }
+
+        return value;
+    }
+
+    /**
+     * Restores the value for the given key from the persistent store into memory, if there is a store and it holds an
+     * unexpired value for the key.
+     *
+     * @param key   The key whose value is to be restored.
+     * @return      The restored value, or null if there is none.
+     */
+    protected CacheManager.ExpiringValue<V> restore(K key) {
+        MappedCacheStore<V> store = this.store;
+        if (store == null || !(key instanceof String)) return null;
+
+        CacheManager.ExpiringValue<V> value = null;
+        try {
+            value = store.get((String)key);
+        } catch(IOException ex) {
+            storeFailures.incrementAndGet();
+        }
+
+        if (value != null) {
+            weigh(value);
+            CacheManager.ExpiringValue<V> existingValue = entries.putIfAbsent(key, value);
+            if (existingValue == null) {
+                restorations.incrementAndGet();
+                added(key, value, false);
+            } else {
+                value = existingValue;
+            }
+        }
+
+        return value;
+    }
+
+    /**
+     * Returns the value associated with the given key regardless of whether it has expired, without recording a hit
+     * or miss.
+     *
+     * @param key   The key whose associated value is to be returned.
+     * @return      The value associated with the given key, or null if there is none.
+     */
+    public CacheManager.ExpiringValue<V> peek(K key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Associates the given key with the given value.
+     *
+     * @param key   The key.
+     * @param value The value.
+     * @return      The value previously associated with the key, if any.
+     */
+    public CacheManager.ExpiringValue<V> put(K key, CacheManager.ExpiringValue<V> value) {
+        weigh(value);
+        CacheManager.ExpiringValue<V> previousValue = entries.put(key, value);
+        if (previousValue != null) {
+            removed(key, previousValue, false);
+        }
+        added(key, value);
+        return previousValue;
+    }
+
+    /**
+     * Associates the given key with the given value only if the key is not already associated with a value.
+     *
+     * @param key   The key.
+     * @param value The value.
+     * @return      The value already associated with the key, or null if the given value was associated.
+     */
+    public CacheManager.ExpiringValue<V> putIfAbsent(K key, CacheManager.ExpiringValue<V> value) {
+        weigh(value);
+        CacheManager.ExpiringValue<V> existingValue = entries.putIfAbsent(key, value);
+        if (existingValue == null) {
+            added(key, value);
+        }
+        return existingValue;
+    }
+
+    /**
+     * Replaces the value associated with the given key only if it is currently associated with a value.
+     *
+     * @param key   The key.
+     * @param value The new value.
+     * @return      The value previously associated with the key, or null if the key was not replaced.
+     */
+    public CacheManager.ExpiringValue<V> replace(K key, CacheManager.ExpiringValue<V> value) {
+        weigh(value);
+        CacheManager.ExpiringValue<V> previousValue = entries.replace(key, value);
+        if (previousValue != null) {
+            removed(key, previousValue, false);
+            added(key, value);
+        }
+        return previousValue;
+    }
+
+    /**
+     * Replaces the value associated with the given key only if it is currently associated with the given old value.
+     *
+     * @param key       The key.
+     * @param oldValue  The value expected to be currently associated with the key.
+     * @param newValue  The new value.
+     * @return          True if the value was replaced.
+     */
+    public boolean replace(K key, CacheManager.ExpiringValue<V> oldValue, CacheManager.ExpiringValue<V> newValue) {
+        CacheManager.ExpiringValue<V> currentValue = entries.get(key);
+        boolean replaced = false;
+        if (currentValue != null && currentValue.equals(oldValue)) {
+            weigh(newValue);
+            replaced = entries.replace(key, currentValue, newValue);
+            if (replaced) {
+                removed(key, currentValue, false);
+                added(key, newValue);
+            }
+        }
+        return replaced;
+    }
+
+    /**
+     * Removes the given key.
+     *
+     * @param key   The key to be removed.
+     * @return      The value the key was associated with, if any.
+     */
+    public CacheManager.ExpiringValue<V> remove(K key) {
+        CacheManager.ExpiringValue<V> value = entries.remove(key);
+        if (value != null) {
+            removed(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * Removes the given key only if it is currently associated with the given value.
+     *
+     * @param key   The key to be removed.
+     * @param value The value expected to be currently associated with the key.
+     * @return      True if the key was removed.
+     */
+    public boolean remove(K key, CacheManager.ExpiringValue<V> value) {
+        CacheManager.ExpiringValue<V> currentValue = entries.get(key);
+        boolean removed = currentValue != null && currentValue.equals(value) && entries.remove(key, currentValue);
+        if (removed) {
+            removed(key, currentValue);
+        }
+        return removed;
+    }
+
+    /**
+     * Loads and caches the value for the given key with the given loader on the current thread, unless a load for the
+     * same key is already in flight, in which case the in-flight load is returned instead.
+     *
+     * @param key       The key whose value is to be loaded.
+     * @param loader    Computes the value to be cached.
+     * @param force     If false, and by the time the load runs the key is associated with an unexpired value, that
+     *                  value is returned rather than invoking the loader.
+     * @return          The load which will provide the value.
+     * @throws IllegalStateException If called from within a loader for the same key, which would otherwise wait
+     *                               forever for its own result.
+     */
+    public Future<CacheManager.ExpiringValue<V>> load(K key, Callable<CacheManager.ExpiringValue<V>> loader, boolean force) {
+        if (loading.get().contains(key)) throw new IllegalStateException("Recursive load of cache key detected: " + key);
+
+        FutureTask<CacheManager.ExpiringValue<V>> task = newLoad(key, loader, force);
+        FutureTask<CacheManager.ExpiringValue<V>> existingTask = inflight.putIfAbsent(key, task);
+
+        if (existingTask == null) {
+            try {
+                task.run();
+            } finally {
+                inflight.remove(key, task);
+            }
+        } else {
+            task = existingTask;
+        }
+
+        return task;
+    }
+
+    /**
+     * Loads and caches the value for the given key with the given loader on the given executor, unless a load for the
+     * same key is already in flight. If the executor rejects the load it is abandoned, and will be attempted again by
+     * a subsequent refresh.
+     *
+     * @param key       The key whose value is to be refreshed.
+     * @param loader    Computes the value to be cached.
+     * @param executor  The executor to run the load on.
+     */
+    public void refresh(final K key, Callable<CacheManager.ExpiringValue<V>> loader, Executor executor) {
+        final FutureTask<CacheManager.ExpiringValue<V>> task = newLoad(key, loader, true);
+
+        if (inflight.putIfAbsent(key, task) == null) {
+            try {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            task.run();
+                        } finally {
+                            inflight.remove(key, task);
+                        }
+                    }
+                });
+                refreshes.incrementAndGet();
+            } catch(RejectedExecutionException ex) {
+                inflight.remove(key, task);
+            }
+        }
+    }
+
+    /**
+     * Returns a new task which loads and caches the value for the given key with the given loader.
+     *
+     * @param key       The key whose value is to be loaded.
+     * @param loader    Computes the value to be cached.
+     * @param force     If false, and the key is associated with an unexpired value when the task runs, that value is
+     *                  returned rather than invoking the loader.
+     * @return          The new load task.
+     */
+    protected FutureTask<CacheManager.ExpiringValue<V>> newLoad(final K key, final Callable<CacheManager.ExpiringValue<V>> loader, final boolean force) {
+        return new FutureTask<CacheManager.ExpiringValue<V>>(new Callable<CacheManager.ExpiringValue<V>>() {
+            @Override
+            public CacheManager.ExpiringValue<V> call() throws Exception {
+                CacheManager.ExpiringValue<V> value = force ? null : entries.get(key);
+
+                if (value == null || value.isExpired()) {
+                    Set<K> keys = loading.get();
+                    keys.add(key);
+                    try {
+                        value = loader.call();
+                    } catch(Exception ex) {
+                        loadFailures.incrementAndGet();
+                        throw ex;
+                    } finally {
+                        keys.remove(key);
+                    }
+                    loads.incrementAndGet();
+                    put(key, value);
+                }
+
+                return value;
+            }
+        });
+    }
+
+    /**
+     * Removes all entries from this cache.
+     */
+    public void clear() {
+        policyLock.lock();
+        try {
+            entries.clear();
+            expiryIndex.clear();
+            policy.clear();
+            accessBuffer.clear();
+            accessBufferSize.set(0);
+            estimatedBytes.set(0);
+
+            MappedCacheStore<V> store = this.store;
+            if (store != null) store.clear();
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    /**
+     * Removes all expired entries from this cache. Only the expiry index buckets which have elapsed are visited, so
+     * the cost is proportional to the number of expired entries rather than the size of the cache. If another thread
+     * is already removing expired entries this method returns immediately.
+     */
+    public void expire() {
+        Map.Entry<Long, Set<K>> bucket = expiryIndex.firstEntry();
+        if (bucket == null || bucket.getKey() > currentBucket()) return;
+
+        if (expiryLock.tryLock()) {
+            try {
+                long now = currentBucket();
+                while ((bucket = expiryIndex.firstEntry()) != null && bucket.getKey() <= now) {
+                    if (expiryIndex.remove(bucket.getKey(), bucket.getValue())) {
+                        for (K key : bucket.getValue()) {
+                            CacheManager.ExpiringValue<V> value = entries.get(key);
+                            if (value != null && value.isExpired() && entries.remove(key, value)) {
+                                expirations.incrementAndGet();
+                                removed(key, value);
+                            }
+                        }
+                    }
+                }
+            } finally {
+                expiryLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Returns the expiry index bucket for the current time.
+     *
+     * @return the expiry index bucket for the current time.
+     */
+    protected static long currentBucket() {
+        return System.currentTimeMillis() / EXPIRY_INDEX_RESOLUTION_MILLISECONDS;
+    }
+
+    /**
+     * Returns the expiry index bucket for the given value, which is the first bucket in which the value is expired.
+     *
+     * @param value The value.
+     * @return      The expiry index bucket for the given value.
+     */
+    protected static long bucket(CacheManager.ExpiringValue<?> value) {
+        long expiryTime = value.getExpiryTime();
+        long bucket = expiryTime / EXPIRY_INDEX_RESOLUTION_MILLISECONDS;
+        if (expiryTime % EXPIRY_INDEX_RESOLUTION_MILLISECONDS != 0) bucket++;
+        return bucket;
+    }
+
+    /**
+     * Adds the given key to the expiry index if the given value expires.
+     *
+     * @param key   The key.
+     * @param value The value associated with the key.
+     */
+    protected void schedule(K key, CacheManager.ExpiringValue<V> value) {
+        if (value.getExpiry() == null) return;
+
+        Long bucket = bucket(value);
+        while (true) {
+            Set<K> keys = expiryIndex.get(bucket);
+            if (keys == null) {
+                Set<K> newKeys = Collections.newSetFromMap(new ConcurrentHashMap<K, Boolean>());
+                keys = expiryIndex.putIfAbsent(bucket, newKeys);
+                if (keys == null) keys = newKeys;
+            }
+            keys.add(key);
+            // if the bucket was concurrently removed by expire(), add the key to a new bucket instead
+            if (expiryIndex.get(bucket) == keys) break;
+        }
+    }
+
+    /**
+     * Removes the given key from the expiry index bucket of the given value.
+     *
+     * @param key   The key.
+     * @param value The value which was associated with the key.
+     */
+    protected void unschedule(K key, CacheManager.ExpiringValue<V> value) {
+        if (value.getExpiry() == null) return;
+
+        Set<K> keys = expiryIndex.get(bucket(value));
+        if (keys != null) {
+            keys.remove(key);
+        }
+    }
+
+    /**
+     * Records the estimated size of the given value on the value, if this cache is bounded by estimated bytes.
+     * Estimating walks the value's object graph, so unbounded caches skip it.
+     *
+     * @param value The value to be weighed.
+     */
+    protected void weigh(CacheManager.ExpiringValue<V> value) {
+        if (maximumBytes > 0) value.weight = estimate(value.getValue(), 0);
+    }
+
+    /**
+     * Updates the bookkeeping for this cache after the given key is associated with the given value.
+     *
+     * @param key   The key.
+     * @param value The value now associated with the key.
+     */
+    protected void added(K key, CacheManager.ExpiringValue<V> value) {
+        added(key, value, true);
+    }
+
+    /**
+     * Updates the bookkeeping for this cache after the given key is associated with the given value.
+     *
+     * @param key       The key.
+     * @param value     The value now associated with the key.
+     * @param persist   Whether to write the value to the persistent store, if there is one.
+     */
+    protected void added(K key, CacheManager.ExpiringValue<V> value, boolean persist) {
+        estimatedBytes.addAndGet(value.weight);
+        schedule(key, value);
+
+        MappedCacheStore<V> store = this.store;
+        if (persist && store != null && key instanceof String) {
+            try {
+                if (!store.put((String)key, value)) storeFailures.incrementAndGet();
+            } catch(IOException ex) {
+                storeFailures.incrementAndGet();
+            } catch(RuntimeException ex) {
+                // values which cannot be serialized are simply kept in memory only
+                storeFailures.incrementAndGet();
+            }
+        }
+
+        if (isBounded()) {
+            policyLock.lock();
+            try {
+                drain();
+                policy.put(key, Boolean.TRUE);
+                evict();
+            } finally {
+                policyLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Updates the bookkeeping for this cache after the given key's association with the given value is removed.
+     *
+     * @param key   The key.
+     * @param value The value which was associated with the key.
+     */
+    protected void removed(K key, CacheManager.ExpiringValue<V> value) {
+        removed(key, value, true);
+    }
+
+    /**
+     * Updates the bookkeeping for this cache after the given key's association with the given value is removed.
+     *
+     * @param key       The key.
+     * @param value     The value which was associated with the key.
+     * @param discarded Whether the key itself was removed, rather than associated with a different value.
+     */
+    protected void removed(K key, CacheManager.ExpiringValue<V> value, boolean discarded) {
+        estimatedBytes.addAndGet(-value.weight);
+        unschedule(key, value);
+
+        MappedCacheStore<V> store = this.store;
+        if (discarded && store != null && key instanceof String && !entries.containsKey(key)) {
+            store.remove((String)key);
+        }
+
+        if (discarded && isBounded()) {
+            policyLock.lock();
+            try {
+                if (!entries.containsKey(key)) policy.remove(key);
+            } finally {
+                policyLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Records a read of the given key for the eviction policy. Reads are buffered and applied in batches, and are
+     * dropped if the buffer is full, so that reads remain cheap under contention.
+     *
+     * @param key   The key which was read.
+     */
+    protected void accessed(K key) {
+        if (!isBounded()) return;
+
+        if (accessBufferSize.incrementAndGet() <= ACCESS_BUFFER_CAPACITY) {
+            accessBuffer.offer(key);
+        } else {
+            accessBufferSize.decrementAndGet();
+        }
+
+        if (accessBufferSize.get() >= ACCESS_BUFFER_DRAIN_THRESHOLD && policyLock.tryLock()) {
+            try {
+                drain();
+            } finally {
+                policyLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Applies all buffered reads to the eviction policy. Must be called while holding the policy lock.
+     */
+    protected void drain() {
+        K key;
+        while ((key = accessBuffer.poll()) != null) {
+            accessBufferSize.decrementAndGet();
+            policy.get(key); // moves the key to the most recently used position
+        }
+    }
+
+    /**
+     * Evicts the least recently used entries until this cache is within its bounds. Must be called while holding the
+     * policy lock.
+     */
+    protected void evict() {
+        long maximumEntries = this.maximumEntries, maximumBytes = this.maximumBytes;
+        Iterator<K> iterator = policy.keySet().iterator();
+
+        while (iterator.hasNext() && ((maximumEntries > 0 && policy.size() > maximumEntries) || (maximumBytes > 0 && estimatedBytes.get() > maximumBytes))) {
+            K key = iterator.next();
+            iterator.remove();
+
+            CacheManager.ExpiringValue<V> value = entries.remove(key);
+            if (value != null) {
+                evictions.incrementAndGet();
+                estimatedBytes.addAndGet(-value.weight);
+                unschedule(key, value);
+            }
+        }
+    }
+
+    /**
+     * Returns a rough estimate of the heap size in bytes of the given object and the objects it references.
+     *
+     * @param object    The object to estimate the size of.
+     * @param depth     The current nesting depth.
+     * @return          A rough estimate of the size of the given object in bytes.
+     */
+    protected static long estimate(Object object, int depth) {
+        long size;
+
+        if (object == null) {
+            size = 0;
+        } else if (depth > ESTIMATE_MAXIMUM_DEPTH) {
+            size = 16;
+        } else if (object instanceof String) {
+            size = 40 + 2L * ((String)object).length();
+        } else if (object instanceof byte[]) {
+            size = 16 + ((byte[])object).length;
+        } else if (object instanceof char[]) {
+            size = 16 + 2L * ((char[])object).length;
+        } else if (object instanceof Object[]) {
+            Object[] array = (Object[])object;
+            size = 16 + 4L * array.length;
+            for (Object item : array) {
+                size += estimate(item, depth + 1);
+            }
+        } else if (object instanceof IData) {
+            size = 16;
+            IDataCursor cursor = ((IData)object).getCursor();
+            try {
+                while (cursor.next()) {
+                    size += 32 + estimate(cursor.getKey(), depth + 1) + estimate(cursor.getValue(), depth + 1);
+                }
+            } finally {
+                cursor.destroy();
+            }
+        } else if (object instanceof Collection) {
+            size = 32;
+            for (Object item : (Collection<?>)object) {
+                size += 16 + estimate(item, depth + 1);
+            }
+        } else if (object instanceof Map) {
+            size = 48;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>)object).entrySet()) {
+                size += 32 + estimate(entry.getKey(), depth + 1) + estimate(entry.getValue(), depth + 1);
+            }
+        } else {
+            size = 16;
+        }
+
+        return size;
+    }
+
+    /**
+     * Returns an IData representation of the statistics of this cache.
+     *
+     * @return An IData representation of the statistics of this cache.
+     */
+    @Override
+    public IData getIData() {
+        NumberFormat integerFormat = NumberFormat.getIntegerInstance();
+        NumberFormat decimalFormat = NumberFormat.getInstance();
+        decimalFormat.setMinimumFractionDigits(3);
+        decimalFormat.setMaximumFractionDigits(3);
+
+        long hits = this.hits.get(), misses = this.misses.get();
+        double ratio = hits + misses == 0 ? 0.0 : (double)hits / (hits + misses);
+
+        IData output = IDataFactory.create();
+        IDataCursor cursor = output.getCursor();
+        try {
+            cursor.insertAfter("name", name);
+            cursor.insertAfter("entries", (long)size());
+            cursor.insertAfter("entries.formatted", integerFormat.format(size()));
+            if (maximumEntries > 0) {
+                cursor.insertAfter("entries.maximum", maximumEntries);
+                cursor.insertAfter("entries.maximum.formatted", integerFormat.format(maximumEntries));
+            }
+            if (maximumBytes > 0) {
+                cursor.insertAfter("bytes.estimated", getEstimatedBytes());
+                cursor.insertAfter("bytes.estimated.formatted", integerFormat.format(getEstimatedBytes()));
+                cursor.insertAfter("bytes.maximum", maximumBytes);
+                cursor.insertAfter("bytes.maximum.formatted", integerFormat.format(maximumBytes));
+            }
+            cursor.insertAfter("hits", hits);
+            cursor.insertAfter("hits.formatted", integerFormat.format(hits));
+            cursor.insertAfter("misses", misses);
+            cursor.insertAfter("misses.formatted", integerFormat.format(misses));
+            cursor.insertAfter("ratio.hit", ratio);
+            cursor.insertAfter("ratio.hit.formatted", decimalFormat.format(ratio));
+            cursor.insertAfter("evictions", evictions.get());
+            cursor.insertAfter("evictions.formatted", integerFormat.format(evictions.get()));
+            cursor.insertAfter("expirations", expirations.get());
+            cursor.insertAfter("expirations.formatted", integerFormat.format(expirations.get()));
+            cursor.insertAfter("loads", loads.get());
+            cursor.insertAfter("loads.formatted", integerFormat.format(loads.get()));
+            cursor.insertAfter("loads.failed", loadFailures.get());
+            cursor.insertAfter("loads.failed.formatted", integerFormat.format(loadFailures.get()));
+            cursor.insertAfter("refreshes", refreshes.get());
+            cursor.insertAfter("refreshes.formatted", integerFormat.format(refreshes.get()));
+
+            MappedCacheStore<V> store = this.store;
+            if (store != null) {
+                cursor.insertAfter("store.file", store.getFile().getAbsolutePath());
+                cursor.insertAfter("store.entries", (long)store.size());
+                cursor.insertAfter("store.entries.formatted", integerFormat.format(store.size()));
+                cursor.insertAfter("store.bytes.used", (long)store.getUsed());
+                cursor.insertAfter("store.bytes.used.formatted", integerFormat.format(store.getUsed()));
+                cursor.insertAfter("store.bytes.capacity", (long)store.getCapacity());
+                cursor.insertAfter("store.bytes.capacity.formatted", integerFormat.format(store.getCapacity()));
+                cursor.insertAfter("store.restorations", restorations.get());
+                cursor.insertAfter("store.restorations.formatted", integerFormat.format(restorations.get()));
+                cursor.insertAfter("store.failures", storeFailures.get());
+                cursor.insertAfter("store.failures.formatted", integerFormat.format(storeFailures.get()));
+            }
+        } finally {
+            cursor.destroy();
+        }
+
+        return output;
+    }
+
+    /**
+     * This method has not been implemented.
+     *
+     * @param document                          An IData document.
+     * @throws UnsupportedOperationException    This exception is always thrown.
+     */
+    @Override
+    public void setIData(IData document) {
+        throw new UnsupportedOperationException("setIData not implemented");
+    }
+}
@@ -24,13 +24,25 @@
 
 package permafrost.tundra.cache.memory;
 
+import com.wm.data.IData;
 import permafrost.tundra.data.MapIData;
+import permafrost.tundra.server.ServerThreadPoolExecutor;
 import permafrost.tundra.time.DateTimeHelper;
 import javax.xml.datatype.Duration;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -41,17 +53,29 @@ import java.util.concurrent.atomic.AtomicLong;
  */
 public class CacheManager<K, V> {
     /**
-     * Amortization schedule for removing expired cache entries.
+     * The number of threads used to refresh cached values in the background.
      */
-    protected static final long REMOVE_EXPIRED_ENTRIES_AFTER_CACHE_ACCESS_COUNT = 100;
+    protected static final int DEFAULT_REFRESH_THREAD_POOL_SIZE = 4;
+    /**
+     * The maximum number of background refreshes queued before further refreshes are rejected.
+     */
+    protected static final int DEFAULT_REFRESH_QUEUE_CAPACITY = 256;
+    /**
+     * How long to wait for in-flight background refreshes to finish when shutting down.
+     */
+    protected static final long DEFAULT_REFRESH_SHUTDOWN_TIMEOUT_SECONDS = 5;
     /**
      * The container for all caches.
      */
-    protected final ConcurrentMap<String, ConcurrentMap<K, ExpiringValue<V>>> caches = new ConcurrentHashMap<String, ConcurrentMap<K, ExpiringValue<V>>>();
+    protected final ConcurrentMap<String, Cache<K, V>> caches = new ConcurrentHashMap<String, Cache<K, V>>();
     /**
-     * Counter used for amortizing the sweeping of expired values across cache accesses.
+     * The executor used to refresh cached values in the background, created on first use.
      */
-    protected final AtomicLong cacheAccessCounter = new AtomicLong();
+    protected volatile ExecutorService refreshExecutor;
+    /**
+     * When all caches are next swept for expired values, in milliseconds since the epoch.
+     */
+    protected final AtomicLong nextSweepTime = new AtomicLong();
 
     /**
      * Initialization on demand holder idiom.
@@ -84,7 +108,7 @@ public class CacheManager<K, V> {
      * @return          The contents of the cache with the given name.
      */
     public MapIData<K, V> all(String cacheName) {
-        ConcurrentMap<K, ExpiringValue<V>> cache = getCache(cacheName);
+        Cache<K, V> cache = getCache(cacheName);
         MapIData<K, V> map = new MapIData<K, V>();
 
         for (Map.Entry<K, ExpiringValue<V>> entry : cache.entrySet()) {
@@ -100,17 +124,132 @@ public class CacheManager<K, V> {
     }
 
     /**
-     * Removes all cached values from the cache with the given name.
+     * Removes all cached values from the cache with the given name, including any values in its persistent store.
+     * Unbounded in-memory only caches are discarded entirely, whereas bounded or persistent caches are emptied but
+     * retain their configuration and statistics.
      *
      * @param cacheName The name of the cache to use.
      */
     public void clear(String cacheName) {
-        ConcurrentMap<K, ExpiringValue<V>> cache = caches.remove(cacheName);
+        Cache<K, V> cache = caches.get(cacheName);
         if (cache != null) {
+            if (!cache.isBounded() && !cache.isPersistent()) caches.remove(cacheName, cache);
             cache.clear();
         }
     }
 
+    /**
+     * Removes all caches, including any values in their persistent stores, and shuts down the executor used to refresh
+     * cached values in the background.
+     */
+    public void clear() {
+        for (String cacheName : caches.keySet()) {
+            Cache<K, V> cache = caches.remove(cacheName);
+            if (cache != null) cache.clear();
+        }
+        shutdown();
+    }
+
+    /**
+     * Shuts down the executor used to refresh cached values in the background, waiting briefly for in-flight
+     * refreshes to finish, and writes any persistent stores to disk. This should be called when the package using
+     * this manager is unloaded, so that the refresh threads do not outlive it. A subsequent refresh creates a new
+     * executor.
+     */
+    public void shutdown() {
+        ExecutorService executor;
+        synchronized (this) {
+            executor = refreshExecutor;
+            refreshExecutor = null;
+        }
+
+        if (executor != null) {
+            try {
+                executor.shutdown();
+                executor.awaitTermination(DEFAULT_REFRESH_SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch(InterruptedException ex) {
+                // ignore interruption to this thread
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        for (Cache<K, V> cache : caches.values()) {
+            MappedCacheStore<V> store = cache.getStore();
+            if (store != null) store.flush();
+        }
+    }
+
+    /**
+     * Adds a persistent, memory-mapped file store behind the cache with the given name. Values cached from then on are
+     * also written to the store, and values not in memory, such as those evicted from a bounded cache or cached before
+     * a restart, are restored from the store on demand. Values are serialized as IData documents, so only values
+     * supported by the IData XML encoding are persisted, and only entries with String keys are persisted.
+     *
+     * @param cacheName     The name of the cache to use.
+     * @param file          The file backing the store, which is created if it does not exist.
+     * @param capacity      The capacity in bytes of the store.
+     * @throws IOException  If the store file cannot be opened.
+     */
+    public void persist(String cacheName, File file, int capacity) throws IOException {
+        MappedCacheStore<V> previousStore = getCache(cacheName).setStore(new MappedCacheStore<V>(file, capacity));
+        if (previousStore != null) previousStore.close();
+    }
+
+    /**
+     * Removes and closes the persistent store behind the cache with the given name, if any. The store file is left
+     * intact so that it can be persisted again later.
+     *
+     * @param cacheName     The name of the cache to use.
+     * @throws IOException  If the store file cannot be closed.
+     */
+    public void unpersist(String cacheName) throws IOException {
+        Cache<K, V> cache = caches.get(cacheName);
+        if (cache != null) {
+            MappedCacheStore<V> previousStore = cache.setStore(null);
+            if (previousStore != null) previousStore.close();
+        }
+    }
+
+    /**
+     * Bounds the cache with the given name to the given maximum number of entries and estimated bytes. When either
+     * bound is exceeded the least recently used entries are evicted.
+     *
+     * @param cacheName         The name of the cache to use.
+     * @param maximumEntries    The maximum number of entries the cache may hold, or zero for unbounded.
+     * @param maximumBytes      The maximum estimated bytes the cache may hold, or zero for unbounded.
+     */
+    public void bound(String cacheName, long maximumEntries, long maximumBytes) {
+        getCache(cacheName).setBounds(maximumEntries, maximumBytes);
+    }
+
+    /**
+     * Returns the statistics of the cache with the given name, including entry count, estimated bytes, bounds, and
+     * hit, miss, eviction and expiration counters.
+     *
+     * @param cacheName The name of the cache to use.
+     * @return          The statistics of the cache with the given name.
+     */
+    public IData statistics(String cacheName) {
+        return getCache(cacheName).getIData();
+    }
+
+    /**
+     * Returns the statistics of all caches.
+     *
+     * @return The statistics of all caches.
+     */
+    public IData[] statistics() {
+        expire();
+
+        List<IData> output = new ArrayList<IData>(caches.size());
+        for (Cache<K, V> cache : caches.values()) {
+            output.add(cache.getIData());
+        }
+
+        return output.toArray(new IData[0]);
+    }
+
     /**
      * Returns true if the cache with the given name contains the given key.
      *
@@ -131,16 +270,73 @@ public class CacheManager<K, V> {
      *                  does not exist.
      */
     public ExpiringValue<V> get(String cacheName, K cacheKey) {
-        ConcurrentMap<K, ExpiringValue<V>> cache = getCache(cacheName);
+        return getCache(cacheName).get(cacheKey);
+    }
+
+    /**
+     * Returns the value associated with the given key from the cache with the given name, computing and caching it
+     * with the given loader if the key does not exist. Concurrent misses for the same key are collapsed into a single
+     * invocation of the loader, with all other callers waiting for and sharing its result.
+     *
+     * If a refresh duration is specified, once a cached value is older than that duration it is still returned but
+     * a single background refresh is scheduled, so that the value is replaced before it expires and callers continue
+     * to be served the stale value while the refresh runs.
+     *
+     * @param cacheName The name of the cache to use.
+     * @param cacheKey  The key whose associated value is to be returned.
+     * @param loader    Computes the value to be cached when the key does not exist or is due to be refreshed.
+     * @param expiry    How long from when it is computed before a value expires, or null if it never expires.
+     * @param refresh   How long from when it is computed before a value is refreshed in the background, or null if
+     *                  the value is never refreshed ahead of its expiry.
+     * @return          The value associated with the given key in the cache with the given name.
+     * @throws ExecutionException   If the loader throws an exception.
+     * @throws InterruptedException If the current thread is interrupted while waiting for another thread's loader.
+     * @throws IllegalStateException If the loader recursively gets its own key.
+     */
+    public ExpiringValue<V> get(String cacheName, K cacheKey, Callable<? extends V> loader, Duration expiry, Duration refresh) throws ExecutionException, InterruptedException {
+        if (loader == null) throw new NullPointerException("loader must not be null");
+
+        Cache<K, V> cache = getCache(cacheName);
         ExpiringValue<V> expiringValue = cache.get(cacheKey);
 
-        if (expiringValue != null && expiringValue.isExpired()) {
-            expiringValue = null;
+        if (expiringValue == null) {
+            expiringValue = cache.load(cacheKey, new Loader<V>(loader, expiry, refresh), false).get();
+        } else if (expiringValue.isRefreshDue()) {
+            cache.refresh(cacheKey, new Loader<V>(loader, expiry, refresh), getRefreshExecutor());
         }
 
         return expiringValue;
     }
 
+    /**
+     * Sets the executor used to refresh cached values in the background. The executor should be bounded, and should
+     * reject rather than silently discard refreshes when saturated. The executor is shut down by shutdown().
+     *
+     * @param executor  The executor to use for background refreshes.
+     */
+    public void setRefreshExecutor(ExecutorService executor) {
+        if (executor == null) throw new NullPointerException("executor must not be null");
+        this.refreshExecutor = executor;
+    }
+
+    /**
+     * Returns the executor used to refresh cached values in the background, creating it if required.
+     *
+     * @return the executor used to refresh cached values in the background.
+     */
+    protected ExecutorService getRefreshExecutor() {
+        ExecutorService executor = refreshExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = refreshExecutor;
+                if (executor == null) {
+                    refreshExecutor = executor = new ServerThreadPoolExecutor(DEFAULT_REFRESH_THREAD_POOL_SIZE, "Tundra/Cache Refresh", "", Thread.NORM_PRIORITY, new ArrayBlockingQueue<Runnable>(DEFAULT_REFRESH_QUEUE_CAPACITY), new ThreadPoolExecutor.AbortPolicy());
+                }
+            }
+        }
+        return executor;
+    }
+
     /**
      * Caches the given key and value in the cache with the given name.
      *
@@ -179,7 +375,7 @@ public class CacheManager<K, V> {
      * @return              The value that was previously associated with the key, if any.
      */
     private ExpiringValue<V> put(String cacheName, K cacheKey, ExpiringValue<V> cacheValue, boolean onlyIfAbsent) {
-        ConcurrentMap<K, ExpiringValue<V>> cache = getCache(cacheName);
+        Cache<K, V> cache = getCache(cacheName);
 
         ExpiringValue<V> previousValue;
 
@@ -209,7 +405,7 @@ public class CacheManager<K, V> {
      * @return              The value the key was associated with, or null if the key was not removed.
      */
     public V remove(String cacheName, K cacheKey, V cacheValue) {
-        ConcurrentMap<K, ExpiringValue<V>> cache = getCache(cacheName);
+        Cache<K, V> cache = getCache(cacheName);
 
         if (cacheValue == null) {
             ExpiringValue<V> expiringValue = cache.remove(cacheKey);
@@ -251,7 +447,7 @@ public class CacheManager<K, V> {
      * @return          True if the key was already associated with a value and that value was replaced.
      */
     public boolean replace(String cacheName, K cacheKey, V oldValue, V newValue, Calendar expiry) {
-        ConcurrentMap<K, ExpiringValue<V>> cache = getCache(cacheName);
+        Cache<K, V> cache = getCache(cacheName);
 
         ExpiringValue<V> newExpiringValue = new ExpiringValue<V>(newValue, expiry);
 
@@ -274,47 +470,90 @@ public class CacheManager<K, V> {
     }
 
     /**
-     * Removes all expired values from all caches.
+     * Removes all expired values from all caches. Each cache indexes its entries by expiry time, so this only visits
+     * entries which have actually expired.
      */
-    private void removeExpired() {
-        for (ConcurrentMap<K, ExpiringValue<V>> cache : caches.values()) {
-            for (Map.Entry<K, ExpiringValue<V>> entry : cache.entrySet()) {
-                K key = entry.getKey();
-                ExpiringValue<V> value = entry.getValue();
-                if (value != null && value.isExpired()) {
-                    cache.remove(key, value);
-                }
-            }
+    private void expire() {
+        for (Cache<K, V> cache : caches.values()) {
+            cache.expire();
+        }
+    }
+
+    /**
+     * Removes all expired values from all caches, if they have not been swept within the granularity of the expiry
+     * index. Only one of any concurrent callers performs the sweep, and the others return immediately.
+     */
+    private void sweep() {
+        long now = System.currentTimeMillis();
+        long sweepTime = nextSweepTime.get();
+        if (now >= sweepTime && nextSweepTime.compareAndSet(sweepTime, now + Cache.EXPIRY_INDEX_RESOLUTION_MILLISECONDS)) {
+            expire();
         }
     }
 
     /**
-     * Returns the cache with the given name.
+     * Returns the cache with the given name, after removing its expired values. Other caches, which may not be
+     * accessed again for some time, are swept at most once per expiry index bucket rather than on every access.
      *
      * @param cacheName The name of the cache to be returned.
      * @return          The cache with the given name.
      */
-    private ConcurrentMap<K, ExpiringValue<V>> getCache(String cacheName) {
-        long cacheAccessCount = cacheAccessCounter.incrementAndGet();
-        if (cacheAccessCount % REMOVE_EXPIRED_ENTRIES_AFTER_CACHE_ACCESS_COUNT == 0) {
-            removeExpired();
-        }
-
-        ConcurrentMap<K, ExpiringValue<V>> cache = null;
-
-        if (caches.containsKey(cacheName)) {
-            cache = caches.get(cacheName);
-        }
+    private Cache<K, V> getCache(String cacheName) {
+        Cache<K, V> cache = caches.get(cacheName);
 
         if (cache == null) {
-            cache = new ConcurrentHashMap<K, ExpiringValue<V>>();
-            ConcurrentMap<K, ExpiringValue<V>> existingCache = caches.putIfAbsent(cacheName, cache);
+            cache = new Cache<K, V>(cacheName);
+            Cache<K, V> existingCache = caches.putIfAbsent(cacheName, cache);
             if (existingCache != null) cache = existingCache;
         }
 
+        cache.expire();
+        sweep();
+
         return cache;
     }
 
+    /**
+     * Adapts a value loader to return values wrapped with their expiry and refresh times.
+     *
+     * @param <V>   The class of the loaded value.
+     */
+    protected static class Loader<V> implements Callable<ExpiringValue<V>> {
+        /**
+         * The loader which computes the value.
+         */
+        protected final Callable<? extends V> loader;
+        /**
+         * How long from when it is computed before the value expires and is refreshed.
+         */
+        protected final Duration expiry, refresh;
+
+        /**
+         * Creates a new Loader.
+         *
+         * @param loader    The loader which computes the value.
+         * @param expiry    How long from when it is computed before the value expires, or null if it never expires.
+         * @param refresh   How long from when it is computed before the value is refreshed, or null if never.
+         */
+        public Loader(Callable<? extends V> loader, Duration expiry, Duration refresh) {
+            this.loader = loader;
+            this.expiry = expiry;
+            this.refresh = refresh;
+        }
+
+        /**
+         * Computes the value and wraps it with its expiry and refresh times.
+         *
+         * @return              The computed value.
+         * @throws Exception    If the loader throws an exception.
+         */
+        @Override
+        public ExpiringValue<V> call() throws Exception {
+            V value = loader.call();
+            return new ExpiringValue<V>(value, expiry == null ? null : DateTimeHelper.later(expiry), refresh == null ? null : DateTimeHelper.later(refresh));
+        }
+    }
+
     /**
      * A value wrapper that supports time-based expiration.
      *
@@ -325,10 +564,22 @@ public class CacheManager<K, V> {
          * When the value expires.
          */
         Calendar expiry;
+        /**
+         * When the value expires in milliseconds since the epoch, or Long.MAX_VALUE if it never expires.
+         */
+        long expiryTime;
+        /**
+         * When the value is due to be refreshed in milliseconds since the epoch, or Long.MAX_VALUE if never.
+         */
+        long refreshTime;
         /**
          * The wrapped value.
          */
         V value;
+        /**
+         * The estimated size in bytes of the wrapped value, as recorded by the cache holding this value.
+         */
+        long weight;
 
         /**
          * Create a new ExpirableValue that never expires.
@@ -346,8 +597,21 @@ public class CacheManager<K, V> {
          * @param expiry    When the value expires, or null if it never expires.
          */
         public ExpiringValue(V value, Calendar expiry) {
+            this(value, expiry, null);
+        }
+
+        /**
+         * Create a new ExpirableValue that expires at the given time, and is due to be refreshed at the given time.
+         *
+         * @param value     The wrapped value.
+         * @param expiry    When the value expires, or null if it never expires.
+         * @param refresh   When the value is due to be refreshed, or null if it is never refreshed.
+         */
+        public ExpiringValue(V value, Calendar expiry, Calendar refresh) {
             this.value = value;
             this.expiry = expiry;
+            this.expiryTime = expiry == null ? Long.MAX_VALUE : expiry.getTimeInMillis();
+            this.refreshTime = refresh == null ? Long.MAX_VALUE : refresh.getTimeInMillis();
         }
 
         /**
@@ -368,13 +632,31 @@ public class CacheManager<K, V> {
             return expiry;
         }
 
+        /**
+         * Returns when this value expires in milliseconds since the epoch, or Long.MAX_VALUE if it never expires.
+         *
+         * @return when this value expires in milliseconds since the epoch.
+         */
+        public long getExpiryTime() {
+            return expiryTime;
+        }
+
         /**
          * Returns true if this value is expired.
          *
          * @return true if this value is expired.
          */
         public boolean isExpired() {
-            return expiry != null && DateTimeHelper.compare(expiry, DateTimeHelper.now()) <= 0;
+            return expiry != null && expiryTime <= System.currentTimeMillis();
+        }
+
+        /**
+         * Returns true if this value is due to be refreshed.
+         *
+         * @return true if this value is due to be refreshed.
+         */
+        public boolean isRefreshDue() {
+            return refreshTime != Long.MAX_VALUE && refreshTime <= System.currentTimeMillis();
         }
 
         /**
@@ -0,0 +1,654 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2026 Lachlan Dowding
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package permafrost.tundra.cache.memory;
+
+import com.wm.data.IData;
+import com.wm.data.IDataCursor;
+import com.wm.data.IDataFactory;
+import permafrost.tundra.data.IDataParser;
+import permafrost.tundra.data.IDataXMLParser;
+import permafrost.tundra.io.CloseableHelper;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A persistent, off-heap store of cache entries backed by a memory-mapped file, used as a second tier behind an
+ * in-memory Cache. Entries are appended to the file as records, with values serialized as IData documents using an
+ * IDataParser, and the file is compacted in place when it fills up. Only an index of keys to record offsets is held on
+ * the heap: values are decoded from the file on demand, so a store reopened after a restart is reloaded lazily.
+ *
+ * Before the file is compacted, the surviving records are first written to a separate compaction journal file, which
+ * is completed and synced to disk before the store file is modified. If the process stops while the store file is
+ * being compacted, the journal is replayed over the store file when it is next opened, so a crash never leaves the
+ * store half compacted. The journal is replayed rather than renamed over the store file because the store file stays
+ * memory-mapped, and cannot be replaced, until its mapping is garbage collected.
+ *
+ * @param <V>   The class of the stored values.
+ */
+public class MappedCacheStore<V> implements Closeable {
+    /**
+     * The default capacity in bytes of a store file.
+     */
+    public static final int DEFAULT_CAPACITY = 64 * 1024 * 1024;
+    /**
+     * Identifies a file as a cache store file.
+     */
+    protected static final int MAGIC_NUMBER = 0x54434353;
+    /**
+     * The version of the file format.
+     */
+    protected static final int FORMAT_VERSION = 1;
+    /**
+     * The length of the file header: the magic number and format version.
+     */
+    protected static final int FILE_HEADER_LENGTH = 8;
+    /**
+     * The length of a record header: record length, record type, expiry time, refresh time and key length.
+     */
+    protected static final int RECORD_HEADER_LENGTH = 4 + 1 + 8 + 8 + 4;
+    /**
+     * The record types: an entry being stored, and an entry being removed.
+     */
+    protected static final byte RECORD_TYPE_PUT = 1, RECORD_TYPE_REMOVE = 2;
+    /**
+     * The size of the buffer used when moving records during compaction.
+     */
+    protected static final int COMPACTION_BUFFER_SIZE = 8192;
+    /**
+     * The suffix appended to the store file name to name its compaction journal file.
+     */
+    protected static final String COMPACTION_JOURNAL_SUFFIX = ".compact";
+    /**
+     * The length of the compaction journal header: the magic number, format version and length of the records.
+     */
+    protected static final int COMPACTION_JOURNAL_HEADER_LENGTH = 12;
+    /**
+     * The key used to wrap values in an IData document for serialization.
+     */
+    protected static final String VALUE_KEY = "value";
+    /**
+     * The character set used to encode keys.
+     */
+    protected static final Charset KEY_CHARSET = Charset.forName("UTF-8");
+    /**
+     * The file backing this store.
+     */
+    protected final File file;
+    /**
+     * The random access file and channel used to map the file.
+     */
+    protected final RandomAccessFile randomAccessFile;
+    /**
+     * The memory-mapped contents of the file.
+     */
+    protected final MappedByteBuffer buffer;
+    /**
+     * The parser used to serialize and deserialize values.
+     */
+    protected final IDataParser parser;
+    /**
+     * The offset of the most recent record for each key in the store.
+     */
+    protected final Map<String, Integer> index = new HashMap<String, Integer>();
+    /**
+     * The offset at which the next record will be written.
+     */
+    protected int position;
+
+    /**
+     * Opens the given store file with the default capacity, creating it if it does not exist.
+     *
+     * @param file          The file backing the store.
+     * @throws IOException  If the file cannot be opened or is not a cache store file.
+     */
+    public MappedCacheStore(File file) throws IOException {
+        this(file, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Opens the given store file, creating it if it does not exist.
+     *
+     * @param file          The file backing the store.
+     * @param capacity      The capacity in bytes of the store file. An existing file larger than this capacity keeps
+     *                      its existing size.
+     * @throws IOException  If the file cannot be opened or is not a cache store file.
+     */
+    public MappedCacheStore(File file, int capacity) throws IOException {
+        this(file, capacity, new IDataXMLParser());
+    }
+
+    /**
+     * Opens the given store file, creating it if it does not exist.
+     *
+     * @param file          The file backing the store.
+     * @param capacity      The capacity in bytes of the store file. An existing file larger than this capacity keeps
+     *                      its existing size.
+     * @param parser        The parser used to serialize and deserialize values.
+     * @throws IOException  If the file cannot be opened or is not a cache store file.
+     */
+    public MappedCacheStore(File file, int capacity, IDataParser parser) throws IOException {
+        if (file == null) throw new NullPointerException("file must not be null");
+        if (parser == null) throw new NullPointerException("parser must not be null");
+        if (capacity <= FILE_HEADER_LENGTH + RECORD_HEADER_LENGTH) throw new IllegalArgumentException("capacity must be greater than " + (FILE_HEADER_LENGTH + RECORD_HEADER_LENGTH));
+
+        this.file = file;
+        this.parser = parser;
+
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists()) parent.mkdirs();
+
+        boolean created = !file.exists() || file.length() == 0;
+        long length = Math.max(file.length(), capacity);
+        if (length > Integer.MAX_VALUE) throw new IOException("Cache store file is too large: " + file);
+
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            randomAccessFile.setLength(length);
+            this.buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, length);
+            this.randomAccessFile = randomAccessFile;
+
+            if (created) {
+                buffer.putInt(0, MAGIC_NUMBER);
+                buffer.putInt(4, FORMAT_VERSION);
+                position = FILE_HEADER_LENGTH;
+                buffer.putInt(position, 0);
+            } else if (buffer.getInt(0) != MAGIC_NUMBER || buffer.getInt(4) != FORMAT_VERSION) {
+                throw new IOException("File is not a supported cache store: " + file);
+            } else {
+                recover();
+                scan();
+            }
+        } catch(IOException ex) {
+            CloseableHelper.close(randomAccessFile);
+            throw ex;
+        }
+    }
+
+    /**
+     * Replays a complete compaction journal left behind by an interrupted compaction over the store file, and discards
+     * an incomplete one, which was abandoned before the store file was modified.
+     *
+     * @throws IOException If the journal cannot be read.
+     */
+    protected void recover() throws IOException {
+        File journal = getCompactionJournal();
+        if (!journal.exists()) return;
+
+        RandomAccessFile input = new RandomAccessFile(journal, "r");
+        try {
+            long journalLength = input.length();
+            if (journalLength >= COMPACTION_JOURNAL_HEADER_LENGTH + 4 && input.readInt() == MAGIC_NUMBER && input.readInt() == FORMAT_VERSION) {
+                int length = input.readInt();
+                if (length >= 0 && journalLength == COMPACTION_JOURNAL_HEADER_LENGTH + length + 4 && FILE_HEADER_LENGTH + (long)length + 4 <= buffer.capacity()) {
+                    input.seek(COMPACTION_JOURNAL_HEADER_LENGTH + length);
+                    if (input.readInt() == MAGIC_NUMBER) {
+                        input.seek(COMPACTION_JOURNAL_HEADER_LENGTH);
+                        byte[] chunk = new byte[COMPACTION_BUFFER_SIZE];
+                        for (int i = 0; i < length; i += chunk.length) {
+                            int count = Math.min(chunk.length, length - i);
+                            input.readFully(chunk, 0, count);
+                            write(FILE_HEADER_LENGTH + i, chunk, count);
+                        }
+                        buffer.putInt(FILE_HEADER_LENGTH + length, 0);
+                        buffer.force();
+                    }
+                }
+            }
+        } finally {
+            CloseableHelper.close(input);
+        }
+
+        if (!discardCompactionJournal(journal)) throw new IOException("Cache store compaction journal could not be discarded: " + journal);
+    }
+
+    /**
+     * Deletes the given compaction journal file, or if it cannot be deleted, truncates it so that it is no longer
+     * complete and will not be replayed.
+     *
+     * @param journal   The compaction journal file.
+     * @return          True if the journal was deleted or truncated.
+     */
+    protected static boolean discardCompactionJournal(File journal) {
+        if (journal.delete() || !journal.exists()) return true;
+
+        RandomAccessFile output = null;
+        try {
+            output = new RandomAccessFile(journal, "rw");
+            output.setLength(0);
+            return true;
+        } catch(IOException ex) {
+            return false;
+        } finally {
+            CloseableHelper.close(output);
+        }
+    }
+
+    /**
+     * Returns the compaction journal file for this store.
+     *
+     * @return the compaction journal file for this store.
+     */
+    protected File getCompactionJournal() {
+        return new File(file.getPath() + COMPACTION_JOURNAL_SUFFIX);
+    }
+
+    /**
+     * Rebuilds the index by reading every record in the file, stopping at the first incomplete record.
+     */
+    protected void scan() {
+        int offset = FILE_HEADER_LENGTH;
+        int capacity = buffer.capacity();
+
+        while (offset + RECORD_HEADER_LENGTH <= capacity) {
+            int length = buffer.getInt(offset);
+            if (length < RECORD_HEADER_LENGTH || offset + length > capacity) break;
+
+            byte type = buffer.get(offset + 4);
+            String key = readKey(offset);
+
+            if (type == RECORD_TYPE_PUT) {
+                index.put(key, offset);
+            } else if (type == RECORD_TYPE_REMOVE) {
+                index.remove(key);
+            } else {
+                break;
+            }
+
+            offset += length;
+        }
+
+        position = offset;
+    }
+
+    /**
+     * Returns the file backing this store.
+     *
+     * @return the file backing this store.
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the capacity in bytes of this store.
+     *
+     * @return the capacity in bytes of this store.
+     */
+    public int getCapacity() {
+        return buffer.capacity();
+    }
+
+    /**
+     * Returns the number of bytes currently used by this store, including records not yet compacted away.
+     *
+     * @return the number of bytes currently used by this store.
+     */
+    public synchronized int getUsed() {
+        return position;
+    }
+
+    /**
+     * Returns the number of entries in this store, including expired entries not yet compacted away.
+     *
+     * @return the number of entries in this store.
+     */
+    public synchronized int size() {
+        return index.size();
+    }
+
+    /**
+     * Returns the unexpired value stored against the given key.
+     *
+     * @param key           The key whose value is to be returned.
+     * @return              The unexpired value stored against the given key, or null if there is none.
+     * @throws IOException  If the stored value cannot be deserialized.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized CacheManager.ExpiringValue<V> get(String key) throws IOException {
+        Integer offset = index.get(key);
+        if (offset == null) return null;
+
+        long expiryTime = buffer.getLong(offset + 5);
+        if (expiryTime <= System.currentTimeMillis()) {
+            index.remove(key);
+            return null;
+        }
+
+        long refreshTime = buffer.getLong(offset + 13);
+        int keyLength = buffer.getInt(offset + 21);
+        int valueOffset = offset + RECORD_HEADER_LENGTH + keyLength;
+        byte[] bytes = new byte[buffer.getInt(valueOffset)];
+        read(valueOffset + 4, bytes);
+
+        IData document = parser.decode(new ByteArrayInputStream(bytes));
+        V value = null;
+        if (document != null) {
+            IDataCursor cursor = document.getCursor();
+            try {
+                if (cursor.first(VALUE_KEY)) value = (V)cursor.getValue();
+            } finally {
+                cursor.destroy();
+            }
+        }
+
+        return new CacheManager.ExpiringValue<V>(value, toCalendar(expiryTime), toCalendar(refreshTime));
+    }
+
+    /**
+     * Stores the given value against the given key, replacing any existing value.
+     *
+     * @param key           The key.
+     * @param value         The value to be stored.
+     * @return              True if the value was stored, or false if it was too large for this store.
+     * @throws IOException  If the value cannot be serialized.
+     */
+    public boolean put(String key, CacheManager.ExpiringValue<V> value) throws IOException {
+        IData document = IDataFactory.create();
+        IDataCursor cursor = document.getCursor();
+        try {
+            cursor.insertAfter(VALUE_KEY, value.getValue());
+        } finally {
+            cursor.destroy();
+        }
+
+        byte[] keyBytes = key.getBytes(KEY_CHARSET);
+        byte[] valueBytes = parser.encodeToBytes(document);
+
+        synchronized (this) {
+            // if the record does not fit, compaction will have discarded the superseded record for this key as well
+            index.remove(key);
+            int offset = append(RECORD_TYPE_PUT, value.getExpiryTime(), value.refreshTime, keyBytes, valueBytes);
+            if (offset >= 0) index.put(key, offset);
+            return offset >= 0;
+        }
+    }
+
+    /**
+     * Removes the value stored against the given key.
+     *
+     * @param key   The key to be removed.
+     */
+    public synchronized void remove(String key) {
+        if (index.remove(key) != null) {
+            append(RECORD_TYPE_REMOVE, Long.MAX_VALUE, Long.MAX_VALUE, key.getBytes(KEY_CHARSET), new byte[0]);
+        }
+    }
+
+    /**
+     * Removes all values from this store.
+     */
+    public synchronized void clear() {
+        index.clear();
+        position = FILE_HEADER_LENGTH;
+        buffer.putInt(position, 0);
+    }
+
+    /**
+     * Writes any changes to this store to disk.
+     */
+    public synchronized void flush() {
+        buffer.force();
+    }
+
+    /**
+     * Writes any changes to this store to disk and closes the backing file.
+     *
+     * @throws IOException If the file cannot be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        randomAccessFile.close();
+    }
+
+    /**
+     * Appends a record to the file, compacting the file first if there is insufficient space.
+     *
+     * @param type          The record type.
+     * @param expiryTime    When the value expires, in milliseconds since the epoch.
+     * @param refreshTime   When the value is due to be refreshed, in milliseconds since the epoch.
+     * @param keyBytes      The encoded key.
+     * @param valueBytes    The encoded value.
+     * @return              The offset of the appended record, or -1 if there is insufficient space even after
+     *                      compaction.
+     */
+    protected int append(byte type, long expiryTime, long refreshTime, byte[] keyBytes, byte[] valueBytes) {
+        int length = RECORD_HEADER_LENGTH + keyBytes.length + 4 + valueBytes.length;
+
+        if (!fits(length)) {
+            if (!compact() || !fits(length)) return -1;
+        }
+
+        int offset = position;
+
+        // write the end of file marker and the record body before the record length, so that a partially written
+        // record is never read back
+        buffer.putInt(offset + length, 0);
+        buffer.put(offset + 4, type);
+        buffer.putLong(offset + 5, expiryTime);
+        buffer.putLong(offset + 13, refreshTime);
+        buffer.putInt(offset + 21, keyBytes.length);
+        write(offset + RECORD_HEADER_LENGTH, keyBytes);
+        buffer.putInt(offset + RECORD_HEADER_LENGTH + keyBytes.length, valueBytes.length);
+        write(offset + RECORD_HEADER_LENGTH + keyBytes.length + 4, valueBytes);
+        buffer.putInt(offset, length);
+
+        position = offset + length;
+
+        return offset;
+    }
+
+    /**
+     * Returns true if a record of the given length and the following end of file marker fit in the remaining space.
+     *
+     * @param length    The record length.
+     * @return          True if the record fits.
+     */
+    protected boolean fits(int length) {
+        return (long)position + length + 4 <= buffer.capacity();
+    }
+
+    /**
+     * Compacts the file in place by sliding every live, unexpired record down over superseded, removed and expired
+     * records. The surviving records are first written to the compaction journal and synced to disk, so that an
+     * interrupted compaction can be completed from the journal when the store is next opened.
+     *
+     * @return True if the file was compacted, or false if the compaction journal could not be written, in which case
+     *         the file is left unchanged.
+     */
+    protected boolean compact() {
+        long now = System.currentTimeMillis();
+        List<Integer> offsets = new ArrayList<Integer>();
+        int compactedLength = 0;
+
+        for (int source = FILE_HEADER_LENGTH; source < position; source += buffer.getInt(source)) {
+            String key = readKey(source);
+            Integer offset = index.get(key);
+            if (offset != null && offset == source) {
+                if (buffer.getLong(source + 5) <= now) {
+                    index.remove(key);
+                } else {
+                    offsets.add(source);
+                    compactedLength += buffer.getInt(source);
+                }
+            }
+        }
+
+        byte[] chunk = new byte[COMPACTION_BUFFER_SIZE];
+        File journal = getCompactionJournal();
+
+        try {
+            writeCompactionJournal(journal, offsets, compactedLength, chunk);
+        } catch(IOException ex) {
+            discardCompactionJournal(journal);
+            return false;
+        }
+
+        int target = FILE_HEADER_LENGTH;
+        for (int source : offsets) {
+            int length = buffer.getInt(source);
+            if (target != source) {
+                // target is always below source, so copying forwards in chunks never overwrites unread bytes
+                for (int i = 0; i < length; i += chunk.length) {
+                    int count = Math.min(chunk.length, length - i);
+                    read(source + i, chunk, count);
+                    write(target + i, chunk, count);
+                }
+                index.put(readKey(target), target);
+            }
+            target += length;
+        }
+
+        position = target;
+        buffer.putInt(position, 0);
+        buffer.force();
+
+        // a journal left behind would be replayed over records appended after this compaction
+        discardCompactionJournal(journal);
+
+        return true;
+    }
+
+    /**
+     * Writes the records at the given offsets to the given compaction journal file and syncs it to disk. The journal
+     * ends with the magic number, which marks it as complete.
+     *
+     * @param journal       The compaction journal file.
+     * @param offsets       The offsets of the records to be written.
+     * @param length        The total length of the records to be written.
+     * @param chunk         A buffer used to copy the records.
+     * @throws IOException  If the journal cannot be written.
+     */
+    protected void writeCompactionJournal(File journal, List<Integer> offsets, int length, byte[] chunk) throws IOException {
+        FileOutputStream fileOutputStream = new FileOutputStream(journal);
+        try {
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(fileOutputStream, COMPACTION_BUFFER_SIZE));
+            output.writeInt(MAGIC_NUMBER);
+            output.writeInt(FORMAT_VERSION);
+            output.writeInt(length);
+            for (int offset : offsets) {
+                int recordLength = buffer.getInt(offset);
+                for (int i = 0; i < recordLength; i += chunk.length) {
+                    int count = Math.min(chunk.length, recordLength - i);
+                    read(offset + i, chunk, count);
+                    output.write(chunk, 0, count);
+                }
+            }
+            output.writeInt(MAGIC_NUMBER);
+            output.flush();
+            fileOutputStream.getFD().sync();
+        } finally {
+            CloseableHelper.close(fileOutputStream);
+        }
+    }
+
+    /**
+     * Returns the key of the record at the given offset.
+     *
+     * @param offset    The record offset.
+     * @return          The key of the record.
+     */
+    protected String readKey(int offset) {
+        byte[] keyBytes = new byte[buffer.getInt(offset + 21)];
+        read(offset + RECORD_HEADER_LENGTH, keyBytes);
+        return new String(keyBytes, KEY_CHARSET);
+    }
+
+    /**
+     * Reads bytes from the file at the given offset.
+     *
+     * @param offset    The offset to read from.
+     * @param bytes     The array to read into.
+     */
+    protected void read(int offset, byte[] bytes) {
+        read(offset, bytes, bytes.length);
+    }
+
+    /**
+     * Reads bytes from the file at the given offset.
+     *
+     * @param offset    The offset to read from.
+     * @param bytes     The array to read into.
+     * @param length    The number of bytes to read.
+     */
+    protected void read(int offset, byte[] bytes, int length) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset);
+        view.get(bytes, 0, length);
+    }
+
+    /**
+     * Writes bytes to the file at the given offset.
+     *
+     * @param offset    The offset to write to.
+     * @param bytes     The bytes to write.
+     */
+    protected void write(int offset, byte[] bytes) {
+        write(offset, bytes, bytes.length);
+    }
+
+    /**
+     * Writes bytes to the file at the given offset.
+     *
+     * @param offset    The offset to write to.
+     * @param bytes     The bytes to write.
+     * @param length    The number of bytes to write.
+     */
+    protected void write(int offset, byte[] bytes, int length) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset);
+        view.put(bytes, 0, length);
+    }
+
+    /**
+     * Returns a Calendar for the given time, or null if the given time is Long.MAX_VALUE which represents never.
+     *
+     * @param time  The time in milliseconds since the epoch.
+     * @return      A Calendar for the given time, or null.
+     */
+    protected static Calendar toCalendar(long time) {
+        Calendar calendar = null;
+        if (time != Long.MAX_VALUE) {
+            calendar = Calendar.getInstance();
+            calendar.setTimeInMillis(time);
+        }
+        return calendar;
+    }
+}
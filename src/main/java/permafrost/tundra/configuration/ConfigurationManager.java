@@ -29,7 +29,6 @@ import com.wm.app.b2b.server.ServerAPI;
 import com.wm.app.b2b.server.ServiceException;
 import com.wm.data.IData;
 import com.wm.data.IDataFactory;
-import com.wm.data.IDataUtil;
 import permafrost.tundra.data.IDataHelper;
 import permafrost.tundra.data.IDataHjsonParser;
 import permafrost.tundra.data.IDataJSONParser;
@@ -57,6 +56,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Pattern;
 
 /**
@@ -79,9 +79,19 @@ public class ConfigurationManager {
     private static final Pattern PACKAGE_CONFIGURATION_PATTERN = Pattern.compile("package\\." + PACKAGE_CONFIGURATION_EXTENSIONS_PATTERN);
 
     /**
-     * Cache of package configurations.
+     * Regular expression filter to match package level configuration files.
      */
-    private static final ConcurrentMap<String, IData> CONFIGURATIONS = new ConcurrentHashMap<String, IData>();
+    private static final AndFilenameFilter PACKAGE_CONFIGURATION_FILTER = new AndFilenameFilter(new RegularExpressionFilenameFilter(PACKAGE_CONFIGURATION_PATTERN), FileFilenameFilter.getInstance());
+
+    /**
+     * Cache of package configuration snapshots.
+     */
+    private static final ConcurrentMap<String, ConfigurationSnapshot> CONFIGURATIONS = new ConcurrentHashMap<String, ConfigurationSnapshot>();
+
+    /**
+     * The version assigned to the most recently created configuration snapshot.
+     */
+    private static final AtomicLong VERSION = new AtomicLong();
 
     /**
      * Disallow instantiation of this class.
@@ -103,9 +113,9 @@ public class ConfigurationManager {
     public static void refresh() throws ServiceException {
         List<Throwable> exceptions = new ArrayList<Throwable>();
 
-        for(Map.Entry<String, IData> entry : CONFIGURATIONS.entrySet()) {
+        for(String packageName : CONFIGURATIONS.keySet()) {
             try {
-                get(entry.getKey(), true);
+                snapshot(packageName, true, true);
             } catch(Throwable ex) {
                 exceptions.add(ex);
             }
@@ -162,31 +172,79 @@ public class ConfigurationManager {
      * @throws ServiceException If an error occurs when substituting global variables.
      */
     public static IData get(String packageName, boolean refresh, boolean updateCache) throws IOException, ServiceException {
-        IData configuration;
+        return snapshot(packageName, refresh, updateCache).duplicate();
+    }
+
+    /**
+     * Returns a read-only snapshot of the configuration settings for the package with the given name, which is shared
+     * rather than copied and therefore must not be modified.
+     *
+     * @param packageName       The name of the package whose configuration is to be returned.
+     * @return                  A read-only snapshot of the configuration settings associated with the named package.
+     * @throws IOException      If an error occurs reading the configuration files.
+     * @throws ServiceException If an error occurs when substituting global variables.
+     */
+    public static ConfigurationSnapshot snapshot(String packageName) throws IOException, ServiceException {
+        return snapshot(packageName, false, true);
+    }
+
+    /**
+     * Returns a read-only snapshot of the configuration settings for the package with the given name, which is shared
+     * rather than copied and therefore must not be modified. When refreshed, configuration files are only parsed
+     * again if they have been added, removed, or modified since the current snapshot was created, but substitution is
+     * always performed again as global variables and system properties may have changed.
+     *
+     * @param packageName       The name of the package whose configuration is to be returned.
+     * @param refresh           If true, the package configuration is refreshed from disk.
+     * @param updateCache       If true, and package configuration is refreshed from disk, the cache is updated with
+     *                          the refreshed configuration.
+     * @return                  A read-only snapshot of the configuration settings associated with the named package.
+     * @throws IOException      If an error occurs reading the configuration files.
+     * @throws ServiceException If an error occurs when substituting global variables.
+     */
+    public static ConfigurationSnapshot snapshot(String packageName, boolean refresh, boolean updateCache) throws IOException, ServiceException {
+        ConfigurationSnapshot snapshot;
 
         if (PackageHelper.isEnabled(packageName)) {
-            configuration = CONFIGURATIONS.get(packageName);
+            snapshot = CONFIGURATIONS.get(packageName);
 
-            if (refresh || configuration == null) {
-                File[] packageConfigFiles = ServerAPI.getPackageConfigDir(packageName).listFiles(new AndFilenameFilter(new RegularExpressionFilenameFilter(PACKAGE_CONFIGURATION_PATTERN), FileFilenameFilter.getInstance()));
+            if (refresh || snapshot == null) {
+                File[] packageConfigFiles = ServerAPI.getPackageConfigDir(packageName).listFiles(PACKAGE_CONFIGURATION_FILTER);
 
                 // sanitize packageName for file system access
                 String sanitizedPackageName = packageName.replaceAll("\\W", "_");
                 Pattern serverPackagePattern = Pattern.compile(Pattern.quote(sanitizedPackageName) + "\\." + PACKAGE_CONFIGURATION_EXTENSIONS_PATTERN);
                 File[] serverConfigFiles = SERVER_PACKAGE_CONFIGURATION_DIRECTORY.listFiles(new AndFilenameFilter(new RegularExpressionFilenameFilter(serverPackagePattern), FileFilenameFilter.getInstance()));
 
-                configuration = merge(ArrayHelper.concatenate(packageConfigFiles, serverConfigFiles));
+                File[] configFiles = ArrayHelper.concatenate(packageConfigFiles, serverConfigFiles);
 
-                if (IDataHelper.size(configuration) > 0) {
+                // stamp files before parsing them, so that any modified while being parsed are parsed again next time
+                Map<String, long[]> stamps = ConfigurationSnapshot.stamp(configFiles);
+
+                IData parsedConfiguration;
+                if (snapshot != null && snapshot.isCurrent(stamps)) {
+                    // unchanged files do not need to be parsed again
+                    parsedConfiguration = snapshot.getParsedConfiguration();
+                } else {
+                    parsedConfiguration = merge(configFiles);
+                }
+
+                IData configuration = parsedConfiguration;
+
+                if (IDataHelper.size(parsedConfiguration) > 0) {
                     // support substituting system environment and java properties using the $system structure
                     IDataMap scope = new IDataMap();
                     scope.put("$system", SystemHelper.reflect(refresh));
 
                     // substitute %key% strings with the associated global variable or other configuration values if they exist
-                    configuration = SubstitutionHelper.substitute(configuration, null, true, true, null, scope, configuration);
+                    configuration = SubstitutionHelper.substitute(parsedConfiguration, null, true, true, null, scope, parsedConfiguration);
+                }
 
+                snapshot = new ConfigurationSnapshot(packageName, VERSION.incrementAndGet(), configuration, parsedConfiguration, stamps);
+
+                if (IDataHelper.size(configuration) > 0) {
                     // cache the configuration in-memory to optimise performance
-                    if (updateCache) CONFIGURATIONS.put(packageName, configuration);
+                    if (updateCache) CONFIGURATIONS.put(packageName, snapshot);
                 } else {
                     // remove old configuration from cache as it has been replaced with an empty configuration
                     CONFIGURATIONS.remove(packageName);
@@ -198,7 +256,7 @@ public class ConfigurationManager {
             throw new ServiceException("package does not exist or is disabled: " + packageName);
         }
 
-        return IDataUtil.deepClone(configuration);
+        return snapshot;
     }
 
     /**
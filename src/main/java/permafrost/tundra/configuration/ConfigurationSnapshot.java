@@ -0,0 +1,163 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2026 Lachlan Dowding
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package permafrost.tundra.configuration;
+
+import com.wm.data.IData;
+import permafrost.tundra.data.ImmutableIData;
+import permafrost.tundra.data.PersistentIData;
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An immutable, versioned snapshot of a package's configuration, which can be shared by all readers without
+ * copying. A new snapshot with a higher version replaces the current snapshot whenever the configuration is
+ * refreshed.
+ */
+public final class ConfigurationSnapshot {
+    /**
+     * The name of the package this configuration belongs to.
+     */
+    private final String packageName;
+    /**
+     * The version of this snapshot, which increases every time a package configuration is refreshed.
+     */
+    private final long version;
+    /**
+     * The read-only view of the configuration handed out to callers.
+     */
+    private final IData immutableConfiguration;
+    /**
+     * A persistent snapshot of the configuration, which is duplicated to give callers their own mutable copy.
+     */
+    private final PersistentIData persistentConfiguration;
+    /**
+     * The merged configuration as parsed from the source files, prior to substitution.
+     */
+    private final IData parsedConfiguration;
+    /**
+     * The last modified datetime and length of each source file at the time it was parsed, keyed by path.
+     */
+    private final Map<String, long[]> sources;
+
+    /**
+     * Constructs a new ConfigurationSnapshot.
+     *
+     * @param packageName           The name of the package this configuration belongs to.
+     * @param version               The version of this snapshot.
+     * @param configuration         The configuration after substitution.
+     * @param parsedConfiguration   The merged configuration as parsed from the source files, prior to substitution.
+     * @param sources               The stamps of the source files taken before they were parsed.
+     */
+    ConfigurationSnapshot(String packageName, long version, IData configuration, IData parsedConfiguration, Map<String, long[]> sources) {
+        this.packageName = packageName;
+        this.version = version;
+        this.immutableConfiguration = ImmutableIData.of(configuration);
+        // duplicating relinquishes ownership of the snapshot's nodes, so that they are never modified in place and
+        // can be duplicated concurrently
+        this.persistentConfiguration = PersistentIData.of(configuration).duplicate();
+        this.parsedConfiguration = parsedConfiguration;
+        this.sources = sources;
+    }
+
+    /**
+     * Returns the name of the package this configuration belongs to.
+     *
+     * @return The name of the package this configuration belongs to.
+     */
+    public String getPackageName() {
+        return packageName;
+    }
+
+    /**
+     * Returns the version of this snapshot, which increases every time a package configuration is refreshed.
+     *
+     * @return The version of this snapshot.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the read-only configuration, which is shared by all callers and therefore must not be modified.
+     *
+     * @return The read-only configuration.
+     */
+    public IData getConfiguration() {
+        return immutableConfiguration;
+    }
+
+    /**
+     * Returns a new mutable copy of the configuration, which is created in constant time by sharing the snapshot's
+     * nodes until either is modified.
+     *
+     * @return A new mutable copy of the configuration.
+     */
+    public IData duplicate() {
+        return persistentConfiguration.duplicate();
+    }
+
+    /**
+     * Returns the merged configuration as parsed from the source files, prior to substitution.
+     *
+     * @return The merged configuration as parsed from the source files.
+     */
+    IData getParsedConfiguration() {
+        return parsedConfiguration;
+    }
+
+    /**
+     * Returns true if the given source file stamps match those this snapshot was parsed from.
+     *
+     * @param stamps    The current stamps of the source files.
+     * @return          True if the source files are unchanged since this snapshot was parsed.
+     */
+    boolean isCurrent(Map<String, long[]> stamps) {
+        if (stamps.size() != sources.size()) return false;
+
+        for (Map.Entry<String, long[]> entry : stamps.entrySet()) {
+            long[] stamp = sources.get(entry.getKey());
+            if (stamp == null || stamp[0] != entry.getValue()[0] || stamp[1] != entry.getValue()[1]) return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the last modified datetime and length of each of the given files, keyed by path.
+     *
+     * @param files The files to stamp.
+     * @return      The last modified datetime and length of each of the given files, keyed by path.
+     */
+    static Map<String, long[]> stamp(File[] files) {
+        Map<String, long[]> stamps = new HashMap<String, long[]>();
+        if (files != null) {
+            for (File file : files) {
+                stamps.put(file.getAbsolutePath(), new long[] { file.lastModified(), file.length() });
+            }
+        }
+        return stamps;
+    }
+}
@@ -27,7 +27,6 @@ package permafrost.tundra.data;
 import com.wm.data.DataException;
 import com.wm.data.IData;
 import com.wm.data.IDataCursor;
-import com.wm.data.IDataFactory;
 import com.wm.data.IDataHashCursor;
 import com.wm.data.IDataIndexCursor;
 import com.wm.data.IDataPortable;
@@ -43,7 +42,8 @@ import java.util.Queue;
 
 /**
  * Wraps an IData in an IData and Map compatible wrapper that makes copies of the wrapped IData and its
- * nested IData children when they are written to.
+ * nested IData children when they are written to. Wrapped PersistentIData documents are duplicated in constant time
+ * rather than copied.
  */
 public class CopyOnWriteIDataMap extends IDataMap implements Cloneable, Serializable {
     private static final long serialVersionUID = 1;
@@ -211,18 +211,22 @@ public class CopyOnWriteIDataMap extends IDataMap implements Cloneable, Serializ
     private synchronized boolean copyOnWrite() {
         if (this.copied) return false;
 
-        IData clone = IDataFactory.create();
-        IDataCursor documentCursor = this.document.getCursor();
-        IDataCursor cloneCursor = clone.getCursor();
+        if (this.document instanceof PersistentIData) {
+            // persistent documents only copy the nodes that are subsequently written to, so a duplicate is sufficient
+            this.document = ((PersistentIData)this.document).duplicate();
+        } else {
+            // nested wrappers are appended unowned, so that a later clone shares them rather than snapshotting them
+            PersistentIData clone = new PersistentIData();
+            IDataCursor documentCursor = this.document.getCursor();
 
-        while(documentCursor.next()) {
-            cloneCursor.insertAfter(documentCursor.getKey(), normalize(documentCursor.getValue()));
-        }
+            while(documentCursor.next()) {
+                clone.append(documentCursor.getKey(), normalize(documentCursor.getValue()));
+            }
 
-        documentCursor.destroy();
-        cloneCursor.destroy();
+            documentCursor.destroy();
 
-        this.document = clone;
+            this.document = clone;
+        }
         this.copied = true;
 
         return this.copied;
@@ -304,7 +308,9 @@ public class CopyOnWriteIDataMap extends IDataMap implements Cloneable, Serializ
      * @return A clone of this IData object.
      */
     @Override
-    public IDataMap clone() {
+    public synchronized IDataMap clone() {
+        IData document = this.document;
+        if (document instanceof PersistentIData) document = ((PersistentIData)document).duplicate();
         return new CopyOnWriteIDataMap(document);
     }
 
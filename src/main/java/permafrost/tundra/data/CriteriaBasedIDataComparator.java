@@ -32,6 +32,7 @@ import permafrost.tundra.time.DateTimeHelper;
 import permafrost.tundra.time.DurationHelper;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.Calendar;
 import java.util.List;
 
 /**
@@ -102,90 +103,206 @@ public class CriteriaBasedIDataComparator implements IDataComparator {
      *                          after the second document according to the comparison criteria the IDataComparator was
      *                          constructed with.
      */
-    @SuppressWarnings("unchecked")
     public int compare(IData firstDocument, IData secondDocument) {
         int result = 0;
 
         for (IDataComparisonCriterion criterion : criteria) {
-            Object firstValue = IDataHelper.get(firstDocument, criterion.getKey());
-            Object secondValue = IDataHelper.get(secondDocument, criterion.getKey());
+            Object firstKey = key(criterion, IDataHelper.get(firstDocument, criterion.getKey()));
+            Object secondKey = key(criterion, IDataHelper.get(secondDocument, criterion.getKey()));
+
+            result = compare(criterion, firstKey, secondKey);
+            if (result != 0) break;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the sort keys for the given IData document, one per comparison criterion, with each key's value already
+     * converted to the criterion's type. Sorting many documents by first extracting their sort keys once and then
+     * comparing the keys using compare(Object[], Object[]) avoids resolving and parsing each document's values again
+     * for every comparison.
+     *
+     * @param document          The IData document whose sort keys are to be returned.
+     * @return                  The sort keys for the given IData document.
+     */
+    public Object[] keys(IData document) {
+        Object[] keys = new Object[criteria.size()];
+
+        int i = 0;
+        for (IDataComparisonCriterion criterion : criteria) {
+            keys[i++] = key(criterion, IDataHelper.get(document, criterion.getKey()));
+        }
+        return keys;
+    }
 
-            if (firstValue == null) {
-                if (secondValue != null) {
-                    result = normalize(-1, criterion.isDescending());
+    /**
+     * Compares two sets of sort keys previously returned by keys(IData).
+     *
+     * @param firstKeys         The sort keys of the first IData document to be compared.
+     * @param secondKeys        The sort keys of the second IData document to be compared.
+     * @return                  A value less than zero if the first document comes before the second document, a value
+     *                          of zero if they are equal, or a value of greater than zero if the first document comes
+     *                          after the second document according to the comparison criteria the IDataComparator was
+     *                          constructed with.
+     */
+    public int compare(Object[] firstKeys, Object[] secondKeys) {
+        int result = 0;
+
+        int i = 0;
+        for (IDataComparisonCriterion criterion : criteria) {
+            result = compare(criterion, firstKeys[i], secondKeys[i]);
+            if (result != 0) break;
+            i++;
+        }
+        return result;
+    }
+
+    /**
+     * Returns a hash code for the given sort keys previously returned by keys(IData), which is consistent with
+     * compare(Object[], Object[]): sort keys which compare as equal always have the same hash code, so documents can
+     * be grouped or de-duplicated using a hash table rather than by sorting.
+     *
+     * @param keys              The sort keys to be hashed.
+     * @return                  A hash code for the given sort keys.
+     */
+    public int hashCode(Object[] keys) {
+        int hash = 1;
+
+        int i = 0;
+        for (IDataComparisonCriterion criterion : criteria) {
+            hash = 31 * hash + hashCode(criterion, keys[i++]);
+        }
+        return hash;
+    }
+
+    /**
+     * Returns a hash code for the given converted value which is consistent with compare(IDataComparisonCriterion,
+     * Object, Object).
+     *
+     * @param criterion         The comparison criterion.
+     * @param value             The converted value to be hashed.
+     * @return                  A hash code for the given value.
+     */
+    private static int hashCode(IDataComparisonCriterion criterion, Object value) {
+        int hash;
+
+        // values which failed to parse compare equal to the maximum, so must hash the same as it
+        if (value instanceof Unparseable) value = maximum(criterion);
+
+        if (value == null) {
+            hash = 0;
+        } else if (value instanceof BigDecimal) {
+            // decimals which differ only in scale, such as 1.0 and 1.00, compare as equal
+            BigDecimal decimal = (BigDecimal)value;
+            hash = decimal.signum() == 0 ? 0 : decimal.stripTrailingZeros().hashCode();
+        } else if (value instanceof Calendar) {
+            // calendars compare by instant only, regardless of time zone
+            long instant = ((Calendar)value).getTimeInMillis();
+            hash = (int)(instant ^ (instant >>> 32));
+        } else if (value instanceof Comparable) {
+            hash = value.hashCode();
+        } else {
+            // incomparable values are compared by identity
+            hash = System.identityHashCode(value);
+        }
+
+        return hash;
+    }
+
+    /**
+     * Converts the given value to the type required by the given criterion.
+     *
+     * @param criterion         The comparison criterion.
+     * @param value             The value to be converted.
+     * @return                  The converted value, or an Unparseable wrapping the original value if it could not be
+     *                          parsed as an INTEGER or DECIMAL.
+     */
+    private static Object key(IDataComparisonCriterion criterion, Object value) {
+        if (value == null) return null;
+
+        switch (criterion.getType()) {
+            case INTEGER:
+                try {
+                    value = BigIntegerHelper.parse(value.toString());
+                } catch(NumberFormatException ex) {
+                    value = new Unparseable(value);
                 }
-            } else if (secondValue == null) {
-                result = normalize(1, criterion.isDescending());
-            } else {
-                boolean firstParse = true, secondParse = true;
-
-                switch (criterion.getType()) {
-                    case INTEGER:
-                        try {
-                            firstValue = BigIntegerHelper.parse(firstValue.toString());
-                        } catch(NumberFormatException ex) {
-                            firstParse = false;
-                        }
-                        try {
-                            secondValue = BigIntegerHelper.parse(secondValue.toString());
-                        } catch(NumberFormatException ex) {
-                            secondParse = false;
-                        }
-
-                        // handle failed parses
-                        if (firstParse && !secondParse) {
-                            secondValue = BigInteger.valueOf(Long.MAX_VALUE);
-                        } else if (!firstParse && secondParse) {
-                            firstValue = BigInteger.valueOf(Long.MAX_VALUE);
-                        }
-                        break;
-                    case DECIMAL:
-                        try {
-                            firstValue = BigDecimalHelper.parse(firstValue.toString());
-                        } catch(NumberFormatException ex) {
-                            firstParse = false;
-                        }
-                        try {
-                            secondValue = BigDecimalHelper.parse(secondValue.toString());
-                        } catch(NumberFormatException ex) {
-                            secondParse = false;
-                        }
-
-                        // handle failed parses
-                        if (firstParse && !secondParse) {
-                            secondValue = BigDecimal.valueOf(Double.MAX_VALUE);
-                        } else if (!firstParse && secondParse) {
-                            firstValue = BigDecimal.valueOf(Double.MAX_VALUE);
-                        }
-                        break;
-                    case DATETIME:
-                        firstValue = DateTimeHelper.parse(firstValue.toString(), criterion.getPattern());
-                        secondValue = DateTimeHelper.parse(secondValue.toString(), criterion.getPattern());
-                        break;
-                    case DURATION:
-                        firstValue = BigIntegerHelper.parse(DurationHelper.format(firstValue.toString(), criterion.getPattern(), "milliseconds"));
-                        secondValue = BigIntegerHelper.parse(DurationHelper.format(secondValue.toString(), criterion.getPattern(), "milliseconds"));
-                        break;
-                    case STRING:
-                        firstValue = firstValue.toString();
-                        secondValue = secondValue.toString();
-                        break;
+                break;
+            case DECIMAL:
+                try {
+                    value = BigDecimalHelper.parse(value.toString());
+                } catch(NumberFormatException ex) {
+                    value = new Unparseable(value);
                 }
-                if (firstValue instanceof Comparable && secondValue instanceof Comparable) {
-                    try {
-                        result = normalize(((Comparable)firstValue).compareTo(secondValue), criterion.isDescending());
-                    } catch (Exception ex) {
-                        result = normalize(compareObjectIdentity(firstValue, secondValue), criterion.isDescending());
-                    }
-                } else {
+                break;
+            case DATETIME:
+                value = DateTimeHelper.parse(value.toString(), criterion.getPattern());
+                break;
+            case DURATION:
+                value = BigIntegerHelper.parse(DurationHelper.format(value.toString(), criterion.getPattern(), "milliseconds"));
+                break;
+            case STRING:
+                value = value.toString();
+                break;
+        }
+        return value;
+    }
+
+    /**
+     * Compares two values previously converted by key(IDataComparisonCriterion, Object).
+     *
+     * @param criterion         The comparison criterion.
+     * @param firstValue        The first converted value to be compared.
+     * @param secondValue       The second converted value to be compared.
+     * @return                  The result of the comparison.
+     */
+    @SuppressWarnings("unchecked")
+    private int compare(IDataComparisonCriterion criterion, Object firstValue, Object secondValue) {
+        int result = 0;
+
+        if (firstValue == null) {
+            if (secondValue != null) {
+                result = normalize(-1, criterion.isDescending());
+            }
+        } else if (secondValue == null) {
+            result = normalize(1, criterion.isDescending());
+        } else {
+            boolean firstParse = !(firstValue instanceof Unparseable), secondParse = !(secondValue instanceof Unparseable);
+
+            // handle failed parses: values that failed to parse sort after those that did not, and two values that
+            // both failed to parse are compared as they were originally
+            if (firstParse && !secondParse) {
+                secondValue = maximum(criterion);
+            } else if (!firstParse && secondParse) {
+                firstValue = maximum(criterion);
+            } else if (!firstParse) {
+                firstValue = ((Unparseable)firstValue).value;
+                secondValue = ((Unparseable)secondValue).value;
+            }
+
+            if (firstValue instanceof Comparable && secondValue instanceof Comparable) {
+                try {
+                    result = normalize(((Comparable)firstValue).compareTo(secondValue), criterion.isDescending());
+                } catch (Exception ex) {
                     result = normalize(compareObjectIdentity(firstValue, secondValue), criterion.isDescending());
                 }
+            } else {
+                result = normalize(compareObjectIdentity(firstValue, secondValue), criterion.isDescending());
             }
-            if (result != 0) break;
         }
         return result;
     }
 
+    /**
+     * Returns the value substituted for values which failed to parse according to the given criterion.
+     *
+     * @param criterion         The comparison criterion.
+     * @return                  The value substituted for values which failed to parse.
+     */
+    private static Object maximum(IDataComparisonCriterion criterion) {
+        return criterion.getType() == IDataComparisonType.DECIMAL ? BigDecimal.valueOf(Double.MAX_VALUE) : BigInteger.valueOf(Long.MAX_VALUE);
+    }
+
     /**
      * Fallback comparison for incomparable objects using the Java object identity.
      *
@@ -196,4 +313,23 @@ public class CriteriaBasedIDataComparator implements IDataComparator {
     private int compareObjectIdentity(Object firstValue, Object secondValue) {
         return firstValue == secondValue ? 0 : Integer.valueOf(System.identityHashCode(firstValue)).compareTo(System.identityHashCode(secondValue));
     }
+
+    /**
+     * Wraps a value which could not be parsed as the type required by a comparison criterion.
+     */
+    private static class Unparseable {
+        /**
+         * The original value.
+         */
+        final Object value;
+
+        /**
+         * Constructs a new Unparseable.
+         *
+         * @param value The original value.
+         */
+        Unparseable(Object value) {
+            this.value = value;
+        }
+    }
 }
@@ -36,7 +36,9 @@ import org.apache.commons.csv.CSVRecord;
 import org.apache.commons.csv.QuoteMode;
 import permafrost.tundra.io.CloseableHelper;
 import permafrost.tundra.io.InputOutputHelper;
+import permafrost.tundra.lang.BatchIterator;
 import permafrost.tundra.lang.CharsetHelper;
+import permafrost.tundra.lang.CloseableIterator;
 import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -48,8 +50,10 @@ import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 
 /**
  * Deserializes and serializes IData objects from and to CSV.
@@ -179,48 +183,164 @@ public class IDataCSVParser extends IDataParser {
     public IData parse(InputStream inputStream, Charset charset) throws IOException, ServiceException {
         if (inputStream == null) return null;
 
-        String[] columns = this.columns;
         IData output = IDataFactory.create();
         IDataCursor outputCursor = output.getCursor();
-        Reader reader = new InputStreamReader(inputStream, CharsetHelper.normalize(charset));
+        CloseableIterator<IData> records = iterate(inputStream, charset);
 
         try {
-            CSVParser parser = getRecordsFormatter(hasHeader, columns).parse(reader);
-
-            Map<Integer, String> keys = flip(parser.getHeaderMap());
             List<IData> list = new ArrayList<IData>();
+            while (records.hasNext()) {
+                list.add(records.next());
+            }
+            IDataUtil.put(outputCursor, "recordWithNoID", list.toArray(new IData[0]));
+        } finally {
+            CloseableHelper.close(records);
+            outputCursor.destroy();
+        }
 
-            for (CSVRecord record : parser) {
-                IData document = IDataFactory.create();
-                IDataCursor cursor = document.getCursor();
+        return output;
+    }
 
-                try {
-                    for (int i = 0; i < record.size(); i++) {
-                        String value = record.get(i);
-                        String key;
+    /**
+     * Returns an iterator over the CSV records in the given input stream, which parses one record at a time so that
+     * arbitrarily large content can be processed in constant memory. The given stream is closed when the iterator is
+     * exhausted or closed.
+     *
+     * @param inputStream       The input stream to be decoded.
+     * @param charset           The character set to use.
+     * @return                  An iterator over IData representations of the CSV records in the given input stream.
+     * @throws IOException      If there is a problem reading from the stream.
+     */
+    public CloseableIterator<IData> iterate(InputStream inputStream, Charset charset) throws IOException {
+        if (inputStream == null) return null;
 
-                        if (keys != null) {
-                            key = keys.get(i);
-                            if (key == null) key = "";
-                        } else {
-                            key = Integer.toString(i + 1);
-                        }
-                        cursor.insertAfter(key, value);
+        Reader reader = new InputStreamReader(inputStream, CharsetHelper.normalize(charset));
+        try {
+            return new RecordIterator(getRecordsFormatter(hasHeader, columns).parse(reader), reader);
+        } catch (IOException ex) {
+            CloseableHelper.close(reader);
+            throw ex;
+        } catch (RuntimeException ex) {
+            CloseableHelper.close(reader);
+            throw ex;
+        }
+    }
+
+    /**
+     * Returns an iterator over batches of the CSV records in the given input stream, where each batch contains at most
+     * the given number of records. The given stream is closed when the iterator is exhausted or closed.
+     *
+     * @param inputStream       The input stream to be decoded.
+     * @param charset           The character set to use.
+     * @param batchSize         The maximum number of records in each batch.
+     * @return                  An iterator over batches of IData representations of the CSV records.
+     * @throws IOException      If there is a problem reading from the stream.
+     */
+    public CloseableIterator<IData[]> iterate(InputStream inputStream, Charset charset, int batchSize) throws IOException {
+        CloseableIterator<IData> records = iterate(inputStream, charset);
+        return records == null ? null : new BatchIterator<IData>(records, IData.class, batchSize);
+    }
+
+    /**
+     * Iterates over the records parsed by a CSVParser, converting each record to an IData document.
+     */
+    private static class RecordIterator implements CloseableIterator<IData> {
+        /**
+         * The parser whose records are iterated over.
+         */
+        private final Iterator<CSVRecord> records;
+        /**
+         * The column names keyed by column index, or null if there is no header.
+         */
+        private final Map<Integer, String> keys;
+        /**
+         * The reader the parser is reading from.
+         */
+        private final Reader reader;
+        /**
+         * Whether this iterator has been closed.
+         */
+        private boolean closed;
+
+        /**
+         * Constructs a new RecordIterator.
+         *
+         * @param parser    The parser whose records are to be iterated over.
+         * @param reader    The reader the parser is reading from.
+         */
+        RecordIterator(CSVParser parser, Reader reader) {
+            this.records = parser.iterator();
+            this.keys = flip(parser.getHeaderMap());
+            this.reader = reader;
+        }
+
+        /**
+         * Returns true if there are more records.
+         *
+         * @return True if there are more records.
+         */
+        @Override
+        public boolean hasNext() {
+            if (closed) return false;
+            boolean hasNext = records.hasNext();
+            if (!hasNext) close();
+            return hasNext;
+        }
+
+        /**
+         * Returns the next record as an IData document.
+         *
+         * @return The next record as an IData document.
+         * @throws NoSuchElementException If there are no more records.
+         */
+        @Override
+        public IData next() {
+            if (!hasNext()) throw new NoSuchElementException();
+
+            CSVRecord record = records.next();
+            IData document = IDataFactory.create();
+            IDataCursor cursor = document.getCursor();
+
+            try {
+                for (int i = 0; i < record.size(); i++) {
+                    String value = record.get(i);
+                    String key;
+
+                    if (keys != null) {
+                        key = keys.get(i);
+                        if (key == null) key = "";
+                    } else {
+                        key = Integer.toString(i + 1);
                     }
-                } finally {
-                    cursor.destroy();
+                    cursor.insertAfter(key, value);
                 }
-
-                list.add(document);
+            } finally {
+                cursor.destroy();
             }
 
-            IDataUtil.put(outputCursor, "recordWithNoID", list.toArray(new IData[0]));
-        } finally {
-            CloseableHelper.close(reader);
-            outputCursor.destroy();
+            return document;
         }
 
-        return output;
+        /**
+         * Removing records is not supported.
+         *
+         * @throws UnsupportedOperationException This method is not implemented by this class.
+         */
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("remove method is not supported");
+        }
+
+        /**
+         * Closes the underlying reader.
+         */
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                CloseableHelper.close(reader);
+            }
+        }
     }
 
     /**
@@ -241,22 +361,14 @@ public class IDataCSVParser extends IDataParser {
             Object values = IDataUtil.get(cursor, "recordWithNoID");
             cursor.destroy();
 
-            if (values instanceof IData[]) {
+            if (values instanceof Iterator) {
+                emit(printStream, (Iterator<?>)values);
+            } else if (values instanceof IData[]) {
                 IData[] table = (IData[])values;
 
-                String[] columns = this.columns;
                 String[] keys = IDataHelper.getKeys(table);
 
-                if (columns == null || columns.length == 0) {
-                    columns = keys;
-                } else if (columns.length < keys.length) {
-                    List<String> columnList = new ArrayList<String>(keys.length);
-                    columnList.addAll(Arrays.asList(columns));
-                    columnList.addAll(Arrays.asList(keys).subList(columns.length, keys.length));
-                    columns = columnList.toArray(new String[0]);
-                }
-
-                CSVPrinter printer = new CSVPrinter(printStream, getRecordsFormatter(hasHeader, columns));
+                CSVPrinter printer = new CSVPrinter(printStream, getRecordsFormatter(hasHeader, getColumns(keys)));
 
                 for (IData row : table) {
                     if (row != null) printer.printRecord(IDataHelper.getValues(row, keys));
@@ -283,6 +395,85 @@ public class IDataCSVParser extends IDataParser {
         }
     }
 
+    /**
+     * Encodes the records returned by the given iterator as CSV to the given output stream, writing each record as it
+     * is returned rather than first materializing all records in memory.
+     *
+     * @param outputStream      The stream to write the encoded records to.
+     * @param records           The records to be encoded.
+     * @param charset           The character set to use.
+     * @throws IOException      If there is a problem writing to the stream.
+     */
+    public void emit(OutputStream outputStream, Iterator<?> records, Charset charset) throws IOException {
+        PrintStream printStream = new PrintStream(new BufferedOutputStream(outputStream, InputOutputHelper.DEFAULT_BUFFER_SIZE), false, CharsetHelper.normalize(charset).displayName());
+        try {
+            emit(printStream, records);
+        } finally {
+            CloseableHelper.close(printStream);
+        }
+    }
+
+    /**
+     * Encodes the records returned by the given iterator as CSV to the given stream. Records may be IData documents,
+     * arrays of IData documents such as those returned by a batching iterator, or Object[] rows. As records are not
+     * materialized up front, the keys of the first IData record determine the columns written, and any other keys in
+     * later records are ignored.
+     *
+     * @param printStream       The stream to write the encoded records to.
+     * @param records           The records to be encoded.
+     * @throws IOException      If there is a problem writing to the stream.
+     */
+    protected void emit(PrintStream printStream, Iterator<?> records) throws IOException {
+        CSVPrinter printer = null;
+        String[] keys = null;
+
+        try {
+            while (records.hasNext()) {
+                Object record = records.next();
+                IData[] rows = record instanceof IData[] ? (IData[])record : record instanceof IData ? new IData[] { (IData)record } : null;
+
+                if (rows != null) {
+                    for (IData row : rows) {
+                        if (row == null) continue;
+                        if (printer == null) {
+                            keys = IDataHelper.getKeys(row);
+                            printer = new CSVPrinter(printStream, getRecordsFormatter(hasHeader, getColumns(keys)));
+                        }
+                        printer.printRecord(IDataHelper.getValues(row, keys));
+                    }
+                } else if (record instanceof Object[]) {
+                    if (printer == null) printer = new CSVPrinter(printStream, getRecordsFormatter(hasHeader, this.columns));
+                    printer.printRecord((Object[])record);
+                }
+            }
+        } finally {
+            if (printer != null) printer.flush();
+            if (records instanceof CloseableIterator) CloseableHelper.close((CloseableIterator)records);
+        }
+    }
+
+    /**
+     * Returns the column names to use for the given record keys: the configured column names, extended with any
+     * record keys beyond the number of configured column names.
+     *
+     * @param keys  The keys of the records being emitted.
+     * @return      The column names to use.
+     */
+    protected String[] getColumns(String[] keys) {
+        String[] columns = this.columns;
+
+        if (columns == null || columns.length == 0) {
+            columns = keys;
+        } else if (columns.length < keys.length) {
+            List<String> columnList = new ArrayList<String>(keys.length);
+            columnList.addAll(Arrays.asList(columns));
+            columnList.addAll(Arrays.asList(keys).subList(columns.length, keys.length));
+            columns = columnList.toArray(new String[0]);
+        }
+
+        return columns;
+    }
+
     /**
      * Flips the given map.
      *
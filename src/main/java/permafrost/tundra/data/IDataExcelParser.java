@@ -30,29 +30,60 @@ import com.wm.data.IDataCursor;
 import com.wm.data.IDataFactory;
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.poifs.filesystem.FileMagic;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.ss.usermodel.CellType;
 import org.apache.poi.ss.usermodel.DataFormat;
 import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.FormulaError;
 import org.apache.poi.ss.usermodel.FormulaEvaluator;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.xml.sax.SAXException;
 import permafrost.tundra.content.MalformedException;
+import permafrost.tundra.io.CloseableHelper;
+import permafrost.tundra.io.FileHelper;
+import permafrost.tundra.io.InputOutputHelper;
+import permafrost.tundra.lang.CloseableIterator;
 import permafrost.tundra.lang.ObjectHelper;
 import permafrost.tundra.math.BigDecimalHelper;
 import permafrost.tundra.time.DateTimeHelper;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 /**
  * Deserializes and serializes IData objects from and to Microsoft Excel spreadsheets.
@@ -78,11 +109,28 @@ public class IDataExcelParser extends IDataParser {
      * The default Excel time pattern used.
      */
     protected static final String DEFAULT_EXCEL_TIME_PATTERN = "hh:mm:ss";
+    /**
+     * The default number of rows held in memory per sheet when streaming XLSX files.
+     */
+    public static final int DEFAULT_ROW_WINDOW_SIZE = SXSSFWorkbook.DEFAULT_WINDOW_SIZE;
+    /**
+     * The factory used to create streaming XML readers for XLSX worksheet parts.
+     */
+    private static final XMLInputFactory XML_INPUT_FACTORY = XMLInputFactory.newInstance();
+
+    static {
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+    }
 
     /**
      * Whether this parser emits XLSX or XLS.
      */
     protected boolean emitXSLX;
+    /**
+     * The number of rows held in memory per sheet when streaming XLSX files, or 0 if XLSX files are not streamed.
+     */
+    protected int rowWindowSize;
 
     /**
      * Constructs a new parser.
@@ -97,8 +145,30 @@ public class IDataExcelParser extends IDataParser {
      * @param emitXSLX If true, emits XLSX formatted files, otherwise XLS formatted.
      */
     public IDataExcelParser(boolean emitXSLX) {
+        this(emitXSLX, 0);
+    }
+
+    /**
+     * Constructs a new parser.
+     *
+     * @param emitXSLX      If true, emits XLSX formatted files, otherwise XLS formatted.
+     * @param rowWindowSize If greater than 0, XLSX files are streamed rather than loaded in full: parsing reads each
+     *                      worksheet part incrementally without building a workbook, and emitting holds at most this
+     *                      many rows per sheet in memory, flushing older rows to temporary storage.
+     */
+    public IDataExcelParser(boolean emitXSLX, int rowWindowSize) {
         super(emitXSLX ? XLSX_MIME_TYPE : XLS_MIME_TYPE);
         this.emitXSLX = emitXSLX;
+        this.rowWindowSize = rowWindowSize < 0 ? 0 : rowWindowSize;
+    }
+
+    /**
+     * Returns true if this parser streams XLSX files.
+     *
+     * @return True if this parser streams XLSX files.
+     */
+    public boolean isStreaming() {
+        return rowWindowSize > 0;
     }
 
     /**
@@ -113,7 +183,7 @@ public class IDataExcelParser extends IDataParser {
     @Override
     public void emit(OutputStream outputStream, IData document, Charset charset) throws IOException, ServiceException {
         IDataCursor cursor = document.getCursor();
-        Workbook workbook = emitXSLX ? new XSSFWorkbook() : new HSSFWorkbook();
+        Workbook workbook = emitXSLX ? (isStreaming() ? new SXSSFWorkbook(rowWindowSize) : new XSSFWorkbook()) : new HSSFWorkbook();
 
         try {
             while(cursor.next()) {
@@ -121,32 +191,55 @@ public class IDataExcelParser extends IDataParser {
                 Object value = cursor.getValue();
 
                 if (value instanceof IData[]) {
-                    IData[] table = (IData[])value;
-
-                    Sheet sheet = workbook.createSheet(key);
-                    for (int i = 0; i < table.length; i++) {
-                        if (table[i] != null) {
-                            Row row = sheet.createRow(i);
-                            IDataCursor rowCursor = table[i].getCursor();
-
-                            try {
-                                int index = 0;
-                                while(rowCursor.next()) {
-                                    setValue(row.createCell(index), rowCursor.getValue());
-                                    index++;
-                                }
-                            } finally {
-                                rowCursor.destroy();
+                    emit(workbook.createSheet(key), Arrays.asList((IData[])value).iterator());
+                } else if (value instanceof Iterator) {
+                    emit(workbook.createSheet(key), (Iterator<?>)value);
+                }
+            }
+
+            workbook.write(outputStream);
+        } finally {
+            cursor.destroy();
+            if (workbook instanceof SXSSFWorkbook) ((SXSSFWorkbook)workbook).dispose();
+        }
+    }
+
+    /**
+     * Writes the given rows to the given sheet. Rows may be returned by the iterator individually as IData documents,
+     * or in batches as IData[] arrays, and null rows are left empty in the sheet. The given iterator is closed once
+     * all rows are written if it is a CloseableIterator.
+     *
+     * @param sheet The sheet to write the rows to.
+     * @param rows  The rows to be written.
+     */
+    protected static void emit(Sheet sheet, Iterator<?> rows) {
+        try {
+            int index = 0;
+            while (rows.hasNext()) {
+                Object item = rows.next();
+                IData[] batch = item instanceof IData[] ? (IData[])item : new IData[] { item instanceof IData ? (IData)item : null };
+
+                for (IData document : batch) {
+                    if (document != null) {
+                        Row row = sheet.createRow(index);
+                        IDataCursor rowCursor = document.getCursor();
+
+                        try {
+                            int cellIndex = 0;
+                            while(rowCursor.next()) {
+                                setValue(row.createCell(cellIndex), rowCursor.getValue());
+                                cellIndex++;
                             }
+                        } finally {
+                            rowCursor.destroy();
                         }
                     }
+                    index++;
                 }
             }
         } finally {
-            cursor.destroy();
+            if (rows instanceof CloseableIterator) CloseableHelper.close((CloseableIterator)rows);
         }
-
-        workbook.write(outputStream);
     }
 
     /**
@@ -160,6 +253,87 @@ public class IDataExcelParser extends IDataParser {
      */
     @Override
     public IData parse(InputStream inputStream, Charset charset) throws IOException, ServiceException {
+        if (!isStreaming()) return parseWorkbook(inputStream);
+
+        File file = spool(inputStream);
+        try {
+            if (isXLSX(file)) return parseWorksheets(file);
+
+            InputStream fileStream = new BufferedInputStream(new FileInputStream(file));
+            try {
+                return parseWorkbook(fileStream);
+            } finally {
+                CloseableHelper.close(fileStream);
+            }
+        } finally {
+            FileHelper.remove(file);
+        }
+    }
+
+    /**
+     * Returns an iterator over the rows of the given sheet in the XLSX spreadsheet read from the given input stream.
+     * Rows are parsed from the worksheet part as they are requested, without building a workbook, so that sheets with
+     * a large number of rows can be processed in bounded memory. Each row is returned as an IData document whose keys
+     * are the Excel-style column names, and rows missing from the sheet are returned as empty IData documents. The
+     * given input stream is read in full to a temporary file and closed before this method returns, and the temporary
+     * file is deleted when the iterator is exhausted or closed.
+     *
+     * @param inputStream       The input stream to be decoded.
+     * @param charset           The character set to use.
+     * @param sheetName         The name of the sheet whose rows are to be returned, or null for the first sheet.
+     * @return                  An iterator over the rows of the given sheet, or null if the sheet does not exist.
+     * @throws IOException      If there is a problem reading from the stream.
+     * @throws ServiceException If the stream does not contain an XLSX spreadsheet.
+     */
+    public CloseableIterator<IData> iterate(InputStream inputStream, Charset charset, String sheetName) throws IOException, ServiceException {
+        if (inputStream == null) return null;
+
+        File file;
+        try {
+            file = spool(inputStream);
+        } finally {
+            CloseableHelper.close(inputStream);
+        }
+
+        StreamingWorkbook workbook = null;
+        CloseableIterator<IData> rows = null;
+
+        try {
+            if (!isXLSX(file)) throw new MalformedException("Microsoft Excel spreadsheet rows can only be streamed from XLSX files");
+
+            workbook = new StreamingWorkbook(file);
+            XSSFReader.SheetIterator sheets = workbook.getSheets();
+            while (rows == null && sheets.hasNext()) {
+                InputStream sheetStream = sheets.next();
+                if (sheetName == null || sheetName.equals(sheets.getSheetName())) {
+                    rows = new RowIterator(workbook, sheetStream, true);
+                } else {
+                    CloseableHelper.close(sheetStream);
+                }
+            }
+        } finally {
+            if (rows == null) {
+                if (workbook == null) {
+                    FileHelper.remove(file);
+                } else {
+                    workbook.close();
+                }
+            }
+        }
+
+        return rows;
+    }
+
+    /**
+     * Returns an IData representation of the Microsoft Excel spreadsheet data in the given input stream, by loading
+     * the full workbook into memory.
+     *
+     * @param inputStream       The input stream to be decoded.
+     * @return                  An IData representation of the given input stream data.
+     * @throws IOException      If there is a problem reading from the stream.
+     * @throws ServiceException If any other error occurs.
+     */
+    private static IData parseWorkbook(InputStream inputStream) throws IOException, ServiceException {
         IData output = IDataFactory.create();
         IDataCursor cursor = output.getCursor();
 
@@ -212,6 +386,87 @@ public class IDataExcelParser extends IDataParser {
         return output;
     }
 
+    /**
+     * Returns an IData representation of the XLSX spreadsheet in the given file, by streaming each worksheet part
+     * rather than loading the full workbook into memory.
+     *
+     * @param file              The XLSX file to be decoded.
+     * @return                  An IData representation of the given file.
+     * @throws IOException      If there is a problem reading from the file.
+     * @throws ServiceException If any other error occurs.
+     */
+    private static IData parseWorksheets(File file) throws IOException, ServiceException {
+        IData output = IDataFactory.create();
+        IDataCursor cursor = output.getCursor();
+        StreamingWorkbook workbook = new StreamingWorkbook(file);
+
+        try {
+            XSSFReader.SheetIterator sheets = workbook.getSheets();
+            while (sheets.hasNext()) {
+                InputStream sheetStream = sheets.next();
+                String sheetName = sheets.getSheetName();
+                RowIterator rows = new RowIterator(workbook, sheetStream, false);
+
+                try {
+                    List<IData> outputRows = new ArrayList<IData>();
+                    while (rows.fetch()) {
+                        outputRows.add(rows.next());
+                    }
+                    cursor.insertAfter(sheetName, outputRows.toArray(new IData[0]));
+                } catch(XMLStreamException ex) {
+                    throw new MalformedException(ex);
+                } finally {
+                    rows.close();
+                }
+            }
+        } finally {
+            cursor.destroy();
+            workbook.close();
+        }
+
+        return output;
+    }
+
+    /**
+     * Writes the given input stream to a new temporary file, so that it can be opened for random access.
+     *
+     * @param inputStream   The input stream to be written.
+     * @return              The temporary file containing the stream data.
+     * @throws IOException  If there is a problem reading from the stream or writing to the file.
+     */
+    private static File spool(InputStream inputStream) throws IOException {
+        File file = FileHelper.create();
+        OutputStream outputStream = null;
+
+        try {
+            outputStream = new BufferedOutputStream(new FileOutputStream(file));
+            InputOutputHelper.copy(inputStream, outputStream, false);
+        } catch(IOException ex) {
+            CloseableHelper.close(outputStream);
+            FileHelper.remove(file);
+            throw ex;
+        }
+
+        outputStream.close();
+        return file;
+    }
+
+    /**
+     * Returns true if the given file is an Office Open XML package, such as an XLSX spreadsheet.
+     *
+     * @param file          The file to check.
+     * @return              True if the given file is an Office Open XML package.
+     * @throws IOException  If there is a problem reading from the file.
+     */
+    private static boolean isXLSX(File file) throws IOException {
+        InputStream inputStream = new BufferedInputStream(new FileInputStream(file));
+        try {
+            return FileMagic.valueOf(inputStream) == FileMagic.OOXML;
+        } finally {
+            CloseableHelper.close(inputStream);
+        }
+    }
+
     /**
      * Returns an Excel-style column name for a given zero-based index.
      *
@@ -357,8 +612,23 @@ public class IDataExcelParser extends IDataParser {
      */
     protected static void setDataFormat(Cell cell, String format) {
         Workbook workbook = cell.getRow().getSheet().getWorkbook();
-        CellStyle style = workbook.createCellStyle();
-        style.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat(format));
+        short index = workbook.getCreationHelper().createDataFormat().getFormat(format);
+
+        // reuse an existing style with the same format, as workbooks support a limited number of cell styles
+        CellStyle style = null;
+        for (int i = 0, count = workbook.getNumCellStyles(); i < count; i++) {
+            CellStyle candidate = workbook.getCellStyleAt(i);
+            if (candidate != null && candidate.getDataFormat() == index) {
+                style = candidate;
+                break;
+            }
+        }
+
+        if (style == null) {
+            style = workbook.createCellStyle();
+            style.setDataFormat(index);
+        }
+
         cell.setCellStyle(style);
     }
 
@@ -373,13 +643,416 @@ public class IDataExcelParser extends IDataParser {
 
         if (!isDateTime) {
             DataFormat formats = cell.getRow().getSheet().getWorkbook().createDataFormat();
-            String format = formats.getFormat(cell.getCellStyle().getDataFormat()).replaceAll("General|\\[Red\\]", "");
-
-            isDateTime = format.contains("y") || format.contains("m") || format.contains("d") ||
-                         format.contains("h") || format.contains("s") || format.contains("AM/PM") ||
-                         format.contains("A/P");
+            isDateTime = isDateTimeFormat(formats.getFormat(cell.getCellStyle().getDataFormat()));
         }
 
         return isDateTime;
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns true if the given format is a date and/or time format. Supports internal and custom formats.
+     *
+     * @param index   The index of the format.
+     * @param format  The format string.
+     * @return        True if the given format is a date and/or time format.
+     */
+    protected static boolean isDateTime(int index, String format) {
+        return DateUtil.isADateFormat(index, format) || isDateTimeFormat(format);
+    }
+
+    /**
+     * Returns true if the given custom format string contains any date or time components.
+     *
+     * @param format  The format string.
+     * @return        True if the given format string contains any date or time components.
+     */
+    private static boolean isDateTimeFormat(String format) {
+        if (format == null) return false;
+
+        format = format.replaceAll("General|\\[Red\\]", "");
+
+        return format.contains("y") || format.contains("m") || format.contains("d") ||
+               format.contains("h") || format.contains("s") || format.contains("AM/PM") ||
+               format.contains("A/P");
+    }
+
+    /**
+     * An XLSX package opened for streaming its worksheet parts.
+     */
+    private static class StreamingWorkbook implements Closeable {
+        /**
+         * The temporary file containing the package, which is deleted when this workbook is closed.
+         */
+        private final File file;
+        /**
+         * The opened package.
+         */
+        private OPCPackage container;
+        /**
+         * The reader used to access the parts of the package.
+         */
+        private XSSFReader reader;
+        /**
+         * The shared strings referenced by cells in the package.
+         */
+        private ReadOnlySharedStringsTable strings;
+        /**
+         * The cell styles referenced by cells in the package.
+         */
+        private StylesTable styles;
+        /**
+         * Whether each cell style index referenced so far is a date and/or time format.
+         */
+        private final Map<Integer, Boolean> dateTimeStyles = new HashMap<Integer, Boolean>();
+
+        /**
+         * Opens the given XLSX file for streaming.
+         *
+         * @param file              The temporary file to be opened, which is deleted when this workbook is closed.
+         * @throws IOException      If there is a problem reading from the file.
+         * @throws ServiceException If the file is not a valid XLSX package.
+         */
+        StreamingWorkbook(File file) throws IOException, ServiceException {
+            this.file = file;
+
+            try {
+                container = OPCPackage.open(file, PackageAccess.READ);
+                reader = new XSSFReader(container);
+                strings = new ReadOnlySharedStringsTable(container);
+                styles = reader.getStylesTable();
+            } catch(OpenXML4JException ex) {
+                close();
+                throw new MalformedException(ex);
+            } catch(SAXException ex) {
+                close();
+                throw new MalformedException(ex);
+            } catch(IOException ex) {
+                close();
+                throw ex;
+            }
+        }
+
+        /**
+         * Returns an iterator over the worksheet parts in this package, in workbook order.
+         *
+         * @return                  An iterator over the worksheet parts in this package.
+         * @throws IOException      If there is a problem reading from the file.
+         * @throws ServiceException If the package is not a valid XLSX package.
+         */
+        XSSFReader.SheetIterator getSheets() throws IOException, ServiceException {
+            try {
+                return (XSSFReader.SheetIterator)reader.getSheetsData();
+            } catch(InvalidFormatException ex) {
+                throw new MalformedException(ex);
+            }
+        }
+
+        /**
+         * Returns the shared string at the given index.
+         *
+         * @param index The index of the shared string.
+         * @return      The shared string at the given index.
+         */
+        String getString(int index) {
+            return strings.getEntryAt(index);
+        }
+
+        /**
+         * Returns true if the cell style at the given index is a date and/or time format.
+         *
+         * @param index The index of the cell style.
+         * @return      True if the cell style is a date and/or time format.
+         */
+        boolean isDateTime(int index) {
+            Boolean isDateTime = dateTimeStyles.get(index);
+            if (isDateTime == null) {
+                XSSFCellStyle style = styles == null || index >= styles.getNumCellStyles() ? null : styles.getStyleAt(index);
+                isDateTime = style != null && IDataExcelParser.isDateTime(style.getDataFormat(), style.getDataFormatString());
+                dateTimeStyles.put(index, isDateTime);
+            }
+            return isDateTime;
+        }
+
+        /**
+         * Closes the package without saving, and deletes the temporary file.
+         *
+         * @throws IOException If the temporary file could not be deleted.
+         */
+        @Override
+        public void close() throws IOException {
+            if (container != null) {
+                container.revert();
+                container = null;
+            }
+            FileHelper.remove(file);
+        }
+    }
+
+    /**
+     * Iterates over the rows of a worksheet part, parsing each row as it is requested.
+     */
+    private static class RowIterator implements CloseableIterator<IData> {
+        /**
+         * The workbook the worksheet belongs to.
+         */
+        private final StreamingWorkbook workbook;
+        /**
+         * Whether the workbook is closed when this iterator is closed.
+         */
+        private final boolean closeWorkbook;
+        /**
+         * The stream the worksheet part is read from.
+         */
+        private final InputStream inputStream;
+        /**
+         * The reader the worksheet part is parsed with.
+         */
+        private final XMLStreamReader reader;
+        /**
+         * The next row read from the worksheet part, if any.
+         */
+        private IData pendingRow;
+        /**
+         * The zero-based index of the pending row.
+         */
+        private int pendingIndex = -1;
+        /**
+         * The zero-based index of the next row to be returned.
+         */
+        private int nextIndex;
+        /**
+         * Whether this iterator has been closed.
+         */
+        private boolean closed;
+
+        /**
+         * Constructs a new RowIterator.
+         *
+         * @param workbook          The workbook the worksheet belongs to.
+         * @param inputStream       The stream the worksheet part is read from.
+         * @param closeWorkbook     Whether the workbook is closed when this iterator is closed.
+         * @throws ServiceException If the worksheet part reader could not be created.
+         */
+        RowIterator(StreamingWorkbook workbook, InputStream inputStream, boolean closeWorkbook) throws ServiceException {
+            this.workbook = workbook;
+            this.inputStream = inputStream;
+            this.closeWorkbook = closeWorkbook;
+
+            try {
+                this.reader = XML_INPUT_FACTORY.createXMLStreamReader(inputStream);
+            } catch(XMLStreamException ex) {
+                CloseableHelper.close(inputStream);
+                throw new MalformedException(ex);
+            }
+        }
+
+        /**
+         * Reads the next row from the worksheet part, if it has not already been read.
+         *
+         * @return                      True if there are more rows.
+         * @throws XMLStreamException   If an XML parsing error occurs.
+         */
+        boolean fetch() throws XMLStreamException {
+            if (pendingRow == null && !closed) {
+                while (reader.hasNext()) {
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT && "row".equals(reader.getLocalName())) {
+                        String reference = reader.getAttributeValue(null, "r");
+                        pendingIndex = reference == null ? pendingIndex + 1 : Integer.parseInt(reference) - 1;
+                        pendingRow = readRow();
+                        break;
+                    } else if (event == XMLStreamConstants.END_ELEMENT && "sheetData".equals(reader.getLocalName())) {
+                        break;
+                    }
+                }
+            }
+            return pendingRow != null;
+        }
+
+        /**
+         * Reads the cells of the row the reader is positioned at, through to the end of the row.
+         *
+         * @return                      The row as an IData document keyed by Excel-style column names.
+         * @throws XMLStreamException   If an XML parsing error occurs.
+         */
+        private IData readRow() throws XMLStreamException {
+            IData row = IDataFactory.create();
+            IDataCursor cursor = row.getCursor();
+
+            try {
+                int cellIndex = -1;
+                while (reader.hasNext()) {
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT && "c".equals(reader.getLocalName())) {
+                        String reference = reader.getAttributeValue(null, "r");
+                        int index = reference == null ? cellIndex + 1 : getColumnIndex(reference);
+
+                        Object value = readCell(reader.getAttributeValue(null, "t"), reader.getAttributeValue(null, "s"));
+
+                        // missing cells are returned as nulls, consistent with parsing the full workbook
+                        while (++cellIndex < index) {
+                            cursor.insertAfter(getKey(cellIndex), null);
+                        }
+                        cursor.insertAfter(getKey(cellIndex), value);
+                    } else if (event == XMLStreamConstants.END_ELEMENT && "row".equals(reader.getLocalName())) {
+                        break;
+                    }
+                }
+            } finally {
+                cursor.destroy();
+            }
+
+            return row;
+        }
+
+        /**
+         * Reads the cell the reader is positioned at, through to the end of the cell, and returns its value. Cells
+         * containing formulas return the result cached in the worksheet when it was last calculated, as formulas are
+         * not evaluated when streaming, or the formula itself if the worksheet has no cached result.
+         *
+         * @param type                  The cell type attribute.
+         * @param style                 The cell style index attribute.
+         * @return                      The value of the cell.
+         * @throws XMLStreamException   If an XML parsing error occurs.
+         */
+        private Object readCell(String type, String style) throws XMLStreamException {
+            String content = null, formula = null;
+            StringBuilder inlineContent = null;
+            boolean phonetic = false;
+
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    String name = reader.getLocalName();
+                    if ("v".equals(name)) {
+                        content = reader.getElementText();
+                    } else if ("f".equals(name)) {
+                        formula = reader.getElementText();
+                    } else if ("t".equals(name) && !phonetic) {
+                        if (inlineContent == null) inlineContent = new StringBuilder();
+                        inlineContent.append(reader.getElementText());
+                    } else if ("rPh".equals(name)) {
+                        phonetic = true;
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    String name = reader.getLocalName();
+                    if ("rPh".equals(name)) {
+                        phonetic = false;
+                    } else if ("c".equals(name)) {
+                        break;
+                    }
+                }
+            }
+
+            Object value;
+
+            if ("inlineStr".equals(type)) {
+                value = inlineContent == null ? "" : inlineContent.toString();
+            } else if (content == null || content.length() == 0) {
+                value = formula == null || formula.length() == 0 ? "" : "=" + formula;
+            } else if ("s".equals(type)) {
+                value = workbook.getString(Integer.parseInt(content.trim()));
+            } else if ("str".equals(type)) {
+                value = content;
+            } else if ("b".equals(type)) {
+                value = "1".equals(content.trim()) || "true".equalsIgnoreCase(content.trim());
+            } else if ("e".equals(type)) {
+                try {
+                    value = FormulaError.forString(content).getCode();
+                } catch(IllegalArgumentException ex) {
+                    value = content;
+                }
+            } else {
+                double number = Double.parseDouble(content);
+                if (workbook.isDateTime(style == null ? 0 : Integer.parseInt(style))) {
+                    value = DateUtil.getJavaDate(number);
+                } else {
+                    value = number;
+                }
+            }
+
+            return value;
+        }
+
+        /**
+         * Returns the zero-based column index of the given cell reference.
+         *
+         * @param reference A cell reference, such as "AB12".
+         * @return          The zero-based column index of the given cell reference.
+         */
+        private static int getColumnIndex(String reference) {
+            int length = 0;
+            while (length < reference.length() && Character.isLetter(reference.charAt(length))) {
+                length++;
+            }
+            return CellReference.convertColStringToIndex(reference.substring(0, length));
+        }
+
+        /**
+         * Returns true if there are more rows.
+         *
+         * @return True if there are more rows.
+         */
+        @Override
+        public boolean hasNext() {
+            boolean hasNext;
+            try {
+                hasNext = fetch();
+            } catch(XMLStreamException ex) {
+                close();
+                throw new RuntimeException(ex);
+            }
+            if (!hasNext) close();
+            return hasNext;
+        }
+
+        /**
+         * Returns the next row, or an empty IData document if the next row is missing from the worksheet.
+         *
+         * @return The next row.
+         * @throws NoSuchElementException If there are no more rows.
+         */
+        @Override
+        public IData next() {
+            if (pendingRow == null && !hasNext()) throw new NoSuchElementException();
+
+            IData row;
+            if (nextIndex < pendingIndex) {
+                row = IDataFactory.create();
+            } else {
+                row = pendingRow;
+                pendingRow = null;
+            }
+            nextIndex++;
+
+            return row;
+        }
+
+        /**
+         * Removing rows is not supported.
+         *
+         * @throws UnsupportedOperationException This method is not implemented by this class.
+         */
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("remove method is not supported");
+        }
+
+        /**
+         * Closes the underlying reader and stream, and the workbook if owned by this iterator.
+         */
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                try {
+                    reader.close();
+                } catch(XMLStreamException ex) {
+                    // do nothing
+                }
+                CloseableHelper.close(inputStream);
+                if (closeWorkbook) CloseableHelper.close(workbook);
+            }
+        }
+    }
+}
@@ -0,0 +1,387 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2026 Lachlan Dowding
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package permafrost.tundra.data;
+
+import com.wm.data.IData;
+import permafrost.tundra.util.concurrent.FutureHelper;
+import permafrost.tundra.util.concurrent.SharedExecutor;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Groups the documents in an IData[] by the values associated with a set of comparison criteria using a hash table,
+ * rather than by sorting every document. Each document's group key values are resolved and converted to the criterion
+ * types once, and only the distinct groups are sorted afterwards if required. Large arrays can be grouped in parallel,
+ * by converting the keys of contiguous ranges of the array concurrently and then grouping hash partitions of the keys
+ * concurrently.
+ */
+public final class IDataGrouper {
+    /**
+     * The minimum length of an array before it is grouped in parallel.
+     */
+    public static final int MINIMUM_PARALLEL_GROUP_LENGTH = 8192;
+
+    /**
+     * Disallow instantiation of this class.
+     */
+    private IDataGrouper() {}
+
+    /**
+     * Groups the given IData[] by the criteria of the given comparator.
+     *
+     * @param array         The IData[] to be grouped.
+     * @param comparator    The comparator whose criteria the items are grouped by.
+     * @param sortType      The type of sorting to apply to the resulting groups, defaults to ascending order if null.
+     *                      If NONE, groups are returned in the order they first occur in the given array.
+     * @param parallelism   The maximum number of threads used to group the array, which is also bounded by the number
+     *                      of processors; arrays shorter than MINIMUM_PARALLEL_GROUP_LENGTH are always grouped by
+     *                      the calling thread.
+     * @return              The resulting groups. Null items in the given array are not included in any group.
+     */
+    public static List<Group> group(IData[] array, CriteriaBasedIDataComparator comparator, IDataHelper.IDataArrayGroupSortType sortType, int parallelism) {
+        if (comparator == null) throw new NullPointerException("comparator must not be null");
+        if (array == null) return new ArrayList<Group>(0);
+
+        Object[][] keys = new Object[array.length][];
+        int[] hashes = new int[array.length];
+        List<Group> groups;
+
+        int partitions = Math.min(Math.min(parallelism, SharedExecutor.getParallelism()), array.length / (MINIMUM_PARALLEL_GROUP_LENGTH / 2));
+        if (partitions <= 1 || array.length < MINIMUM_PARALLEL_GROUP_LENGTH) {
+            int[] indexes = new KeyCallable(array, comparator, keys, hashes, 0, array.length, 1).call()[0];
+            groups = new PartitionCallable(array, comparator, keys, hashes, indexes).call();
+        } else {
+            ExecutorService executor = SharedExecutor.getInstance();
+            List<Future<int[][]>> keyFutures = new ArrayList<Future<int[][]>>(partitions);
+            List<Future<List<Group>>> partitionFutures = new ArrayList<Future<List<Group>>>(partitions);
+            try {
+                for (int i = 0; i < partitions; i++) {
+                    int from = (int)((long)array.length * i / partitions);
+                    int to = (int)((long)array.length * (i + 1) / partitions);
+                    keyFutures.add(executor.submit(new KeyCallable(array, comparator, keys, hashes, from, to, partitions)));
+                }
+                List<int[][]> ranges = FutureHelper.await(keyFutures);
+
+                for (int i = 0; i < partitions; i++) {
+                    partitionFutures.add(executor.submit(new PartitionCallable(array, comparator, keys, hashes, concatenate(ranges, i))));
+                }
+                groups = new ArrayList<Group>();
+                for (List<Group> partition : FutureHelper.await(partitionFutures)) {
+                    groups.addAll(partition);
+                }
+            } finally {
+                // cancel any tasks still queued on the shared executor if this grouping failed
+                for (Future<int[][]> future : keyFutures) {
+                    future.cancel(true);
+                }
+                for (Future<List<Group>> future : partitionFutures) {
+                    future.cancel(true);
+                }
+            }
+
+            if (sortType == IDataHelper.IDataArrayGroupSortType.NONE) {
+                // restore the order in which the groups first occur, which is lost by partitioning
+                Collections.sort(groups, new Comparator<Group>() {
+                    public int compare(Group first, Group second) {
+                        return first.index < second.index ? -1 : (first.index == second.index ? 0 : 1);
+                    }
+                });
+            }
+        }
+
+        if (sortType == null || sortType == IDataHelper.IDataArrayGroupSortType.ASCENDING) {
+            Collections.sort(groups, new GroupComparator(comparator, false));
+        } else if (sortType == IDataHelper.IDataArrayGroupSortType.DESCENDING) {
+            Collections.sort(groups, new GroupComparator(comparator, true));
+        }
+
+        return groups;
+    }
+
+    /**
+     * Returns the indexes of the documents in the given hash partition, gathered from the slices produced for each
+     * contiguous range of the grouped array, in ascending order.
+     *
+     * @param ranges    The per-partition document indexes of each range, in range order.
+     * @param partition The hash partition whose indexes are returned.
+     * @return          The indexes of the documents in the given hash partition.
+     */
+    private static int[] concatenate(List<int[][]> ranges, int partition) {
+        int length = 0;
+        for (int[][] range : ranges) {
+            length += range[partition].length;
+        }
+
+        int[] indexes = new int[length];
+        int offset = 0;
+        for (int[][] range : ranges) {
+            System.arraycopy(range[partition], 0, indexes, offset, range[partition].length);
+            offset += range[partition].length;
+        }
+
+        return indexes;
+    }
+
+    /**
+     * A group of IData documents whose group key values compare as equal.
+     */
+    public static class Group {
+        /**
+         * The comparator used to compare group keys.
+         */
+        private final CriteriaBasedIDataComparator comparator;
+        /**
+         * The converted group key values.
+         */
+        private final Object[] keys;
+        /**
+         * The cached hash code of the group key values.
+         */
+        private final int hash;
+        /**
+         * The index in the grouped array of the first document in this group.
+         */
+        private final int index;
+        /**
+         * The first document in this group, from which the group key values were taken.
+         */
+        private final IData document;
+        /**
+         * The documents in this group.
+         */
+        private List<IData> items;
+
+        /**
+         * Constructs a new Group.
+         *
+         * @param comparator    The comparator used to compare group keys.
+         * @param keys          The converted group key values.
+         * @param hash          The hash code of the group key values.
+         * @param index         The index in the grouped array of the first document in this group.
+         * @param document      The first document in this group.
+         */
+        private Group(CriteriaBasedIDataComparator comparator, Object[] keys, int hash, int index, IData document) {
+            this.comparator = comparator;
+            this.keys = keys;
+            this.hash = hash;
+            this.index = index;
+            this.document = document;
+        }
+
+        /**
+         * Returns the first document in this group, from which the group key values were taken.
+         *
+         * @return The first document in this group.
+         */
+        public IData getDocument() {
+            return document;
+        }
+
+        /**
+         * Returns the documents in this group, in the order they occur in the grouped array.
+         *
+         * @return The documents in this group.
+         */
+        public List<IData> getItems() {
+            return items;
+        }
+
+        /**
+         * Returns true if the given object is a group whose key values compare as equal to this group's.
+         *
+         * @param other The object to compare with.
+         * @return      True if the given object is a group whose key values compare as equal to this group's.
+         */
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) return true;
+            if (!(other instanceof Group)) return false;
+            Group group = (Group)other;
+            return hash == group.hash && comparator.compare(keys, group.keys) == 0;
+        }
+
+        /**
+         * Returns the cached hash code of this group's key values.
+         *
+         * @return The cached hash code of this group's key values.
+         */
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Orders groups by their key values.
+     */
+    private static class GroupComparator implements Comparator<Group> {
+        private final CriteriaBasedIDataComparator comparator;
+        private final boolean descending;
+
+        /**
+         * Constructs a new GroupComparator.
+         *
+         * @param comparator    The comparator used to compare group keys.
+         * @param descending    Whether to order groups in descending order.
+         */
+        GroupComparator(CriteriaBasedIDataComparator comparator, boolean descending) {
+            this.comparator = comparator;
+            this.descending = descending;
+        }
+
+        public int compare(Group first, Group second) {
+            return descending ? comparator.compare(second.keys, first.keys) : comparator.compare(first.keys, second.keys);
+        }
+    }
+
+    /**
+     * Converts the group key values of a contiguous range of documents, and splits the range's document indexes into
+     * hash partitions.
+     */
+    private static class KeyCallable implements Callable<int[][]> {
+        private final IData[] array;
+        private final CriteriaBasedIDataComparator comparator;
+        private final Object[][] keys;
+        private final int[] hashes;
+        private final int from, to, partitions;
+
+        /**
+         * Constructs a new KeyCallable.
+         *
+         * @param array         The IData[] being grouped.
+         * @param comparator    The comparator whose criteria the items are grouped by.
+         * @param keys          The array the converted key values of each document are written to.
+         * @param hashes        The array the hash code of each document's key values is written to.
+         * @param from          The index of the first document in the range, inclusive.
+         * @param to            The index of the last document in the range, exclusive.
+         * @param partitions    The total number of hash partitions.
+         */
+        KeyCallable(IData[] array, CriteriaBasedIDataComparator comparator, Object[][] keys, int[] hashes, int from, int to, int partitions) {
+            this.array = array;
+            this.comparator = comparator;
+            this.keys = keys;
+            this.hashes = hashes;
+            this.from = from;
+            this.to = to;
+            this.partitions = partitions;
+        }
+
+        /**
+         * Converts the group key values of each non-null document in the range.
+         *
+         * @return The indexes of the non-null documents in the range, in ascending order, for each hash partition.
+         */
+        public int[][] call() {
+            int[] counts = new int[partitions];
+            for (int i = from; i < to; i++) {
+                if (array[i] != null) {
+                    keys[i] = comparator.keys(array[i]);
+                    hashes[i] = comparator.hashCode(keys[i]);
+                    counts[partition(hashes[i], partitions)]++;
+                }
+            }
+
+            int[][] indexes = new int[partitions][];
+            for (int i = 0; i < partitions; i++) {
+                indexes[i] = new int[counts[i]];
+                counts[i] = 0;
+            }
+            for (int i = from; i < to; i++) {
+                if (array[i] != null) {
+                    int partition = partition(hashes[i], partitions);
+                    indexes[partition][counts[partition]++] = i;
+                }
+            }
+
+            return indexes;
+        }
+    }
+
+    /**
+     * Returns the hash partition for the given key hash code.
+     *
+     * @param hash          The hash code of a document's key values.
+     * @param partitions    The total number of hash partitions.
+     * @return              The hash partition for the given key hash code.
+     */
+    private static int partition(int hash, int partitions) {
+        return (hash & Integer.MAX_VALUE) % partitions;
+    }
+
+    /**
+     * Groups the documents in one hash partition.
+     */
+    private static class PartitionCallable implements Callable<List<Group>> {
+        private final IData[] array;
+        private final CriteriaBasedIDataComparator comparator;
+        private final Object[][] keys;
+        private final int[] hashes;
+        private final int[] indexes;
+
+        /**
+         * Constructs a new PartitionCallable.
+         *
+         * @param array         The IData[] being grouped.
+         * @param comparator    The comparator whose criteria the items are grouped by.
+         * @param keys          The converted key values of each document.
+         * @param hashes        The hash code of each document's key values.
+         * @param indexes       The indexes of the documents in this hash partition, in ascending order.
+         */
+        PartitionCallable(IData[] array, CriteriaBasedIDataComparator comparator, Object[][] keys, int[] hashes, int[] indexes) {
+            this.array = array;
+            this.comparator = comparator;
+            this.keys = keys;
+            this.hashes = hashes;
+            this.indexes = indexes;
+        }
+
+        public List<Group> call() {
+            Map<Group, Group> index = new HashMap<Group, Group>();
+            List<Group> groups = new ArrayList<Group>();
+
+            for (int i : indexes) {
+                Group group = new Group(comparator, keys[i], hashes[i], i, array[i]);
+                Group existing = index.get(group);
+                if (existing == null) {
+                    group.items = new ArrayList<IData>();
+                    group.items.add(array[i]);
+                    index.put(group, group);
+                    groups.add(group);
+                } else {
+                    existing.items.add(array[i]);
+                }
+            }
+
+            return groups;
+        }
+    }
+}
@@ -44,7 +44,6 @@ import permafrost.tundra.flow.ConditionEvaluator;
 import permafrost.tundra.flow.variable.SubstitutionHelper;
 import permafrost.tundra.lang.ArrayHelper;
 import permafrost.tundra.lang.ObjectHelper;
-import permafrost.tundra.lang.ReverseNaturalComparator;
 import permafrost.tundra.lang.Sanitization;
 import permafrost.tundra.lang.TableHelper;
 import permafrost.tundra.server.ServiceHelper;
@@ -62,12 +61,12 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.TreeMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -769,7 +768,7 @@ public final class IDataHelper {
                 size++;
                 while (cursor.next(key)) size++;
             } else if (IDataKey.isFullyQualified(key, literal)) {
-                size = size(document, IDataKey.of(key, literal));
+                size = size(document, IDataKeyPath.compile(key, literal).parts, 0);
             }
 
             cursor.destroy();
@@ -777,20 +776,46 @@ public final class IDataHelper {
         return size;
     }
 
+    /**
+     * Returns the number of occurrences of the given compiled path in the given IData document.
+     *
+     * @param document  An IData document.
+     * @param path      The compiled path whose occurrences are to be counted.
+     * @return          The number of occurrences of the given path in the given IData document.
+     */
+    static int size(IData document, IDataKeyPath path) {
+        int size = 0;
+        if (document != null && path != null) {
+            IDataCursor cursor = document.getCursor();
+            try {
+                if (cursor.first(path.getKey())) {
+                    size++;
+                    while (cursor.next(path.getKey())) size++;
+                } else if (path.isFullyQualified()) {
+                    size = size(document, path.parts, 0);
+                }
+            } finally {
+                cursor.destroy();
+            }
+        }
+        return size;
+    }
+
     /**
      * Returns the number of occurrences of the given fully-qualified key in the given IData document.
      *
      * @param document  An IData document.
-     * @param key       The parsed fully-qualified key whose occurrences are to be counted.
+     * @param parts     The parsed fully-qualified key whose occurrences are to be counted.
+     * @param index     The index of the key part to be resolved against the given IData document.
      * @return          The number of occurrences of the given parsed fully-qualified key in the given IData document.
      */
-    private static int size(IData document, IDataKey key) {
+    private static int size(IData document, IDataKey.Part[] parts, int index) {
         int size = 0;
-        if (document != null && key != null && !key.isEmpty()) {
+        if (document != null && parts != null && index < parts.length) {
             IDataCursor cursor = document.getCursor();
             try {
-                IDataKey.Part keyPart = key.remove();
-                if (key.isEmpty()) {
+                IDataKey.Part keyPart = parts[index];
+                if (index == parts.length - 1) {
                     if (keyPart.hasArrayIndex()) {
                         Object[] array = IDataUtil.getObjectArray(cursor, keyPart.getKey());
                         if (array != null && array.length > keyPart.getIndex()) {
@@ -805,11 +830,11 @@ public final class IDataHelper {
                     }
                 } else {
                     if (keyPart.hasArrayIndex()) {
-                        size = size(ArrayHelper.get(toIDataArray(IDataUtil.get(cursor, keyPart.getKey())), keyPart.getIndex()), key);
+                        size = size(ArrayHelper.get(toIDataArray(IDataUtil.get(cursor, keyPart.getKey())), keyPart.getIndex()), parts, index + 1);
                     } else if (keyPart.hasKeyIndex()) {
-                        size = size(toIData(get(document, keyPart.getKey(), keyPart.getIndex())), key);
+                        size = size(toIData(get(document, keyPart.getKey(), keyPart.getIndex())), parts, index + 1);
                     } else {
-                        size = size(toIData(IDataUtil.get(cursor, keyPart.getKey())), key);
+                        size = size(toIData(IDataUtil.get(cursor, keyPart.getKey())), parts, index + 1);
                     }
                 }
             } finally {
@@ -859,7 +884,31 @@ public final class IDataHelper {
                 if (cursor.first(key)) {
                     exists = true;
                 } else if (IDataKey.isFullyQualified(key, literal)) {
-                    exists = exists(document, IDataKey.of(key, literal));
+                    exists = exists(document, IDataKeyPath.compile(key, literal).parts, 0);
+                }
+            } finally {
+                cursor.destroy();
+            }
+        }
+        return exists;
+    }
+
+    /**
+     * Returns true if the given compiled path exists in the given IData document.
+     *
+     * @param document  An IData document.
+     * @param path      The compiled path to check the existence of.
+     * @return          True if the given path exists in the given IData document.
+     */
+    static boolean exists(IData document, IDataKeyPath path) {
+        boolean exists = false;
+        if (document != null && path != null) {
+            IDataCursor cursor = document.getCursor();
+            try {
+                if (cursor.first(path.getKey())) {
+                    exists = true;
+                } else if (path.isFullyQualified()) {
+                    exists = exists(document, path.parts, 0);
                 }
             } finally {
                 cursor.destroy();
@@ -872,16 +921,17 @@ public final class IDataHelper {
      * Returns true if the given fully-qualified key exists in the given IData document.
      *
      * @param document  An IData document.
-     * @param key       The parsed fully-qualified key to check the existence of.
+     * @param parts     The parsed fully-qualified key to check the existence of.
+     * @param index     The index of the key part to be resolved against the given IData document.
      * @return          True if the given key exists in the given IData document.
      */
-    private static boolean exists(IData document, IDataKey key) {
+    private static boolean exists(IData document, IDataKey.Part[] parts, int index) {
         boolean exists = false;
-        if (document != null && key != null && !key.isEmpty()) {
+        if (document != null && parts != null && index < parts.length) {
             IDataCursor cursor = document.getCursor();
             try {
-                IDataKey.Part keyPart = key.remove();
-                if (key.isEmpty()) {
+                IDataKey.Part keyPart = parts[index];
+                if (index == parts.length - 1) {
                     if (keyPart.hasArrayIndex()) {
                         Object[] array = IDataUtil.getObjectArray(cursor, keyPart.getKey());
                         if (array != null && array.length > keyPart.getIndex()) {
@@ -892,11 +942,11 @@ public final class IDataHelper {
                     }
                 } else {
                     if (keyPart.hasArrayIndex()) {
-                        exists = exists(ArrayHelper.get(toIDataArray(IDataUtil.get(cursor, keyPart.getKey())), keyPart.getIndex()), key);
+                        exists = exists(ArrayHelper.get(toIDataArray(IDataUtil.get(cursor, keyPart.getKey())), keyPart.getIndex()), parts, index + 1);
                     } else if (keyPart.hasKeyIndex()) {
-                        exists = exists(toIData(get(document, keyPart.getKey(), keyPart.getIndex())), key);
+                        exists = exists(toIData(get(document, keyPart.getKey(), keyPart.getIndex())), parts, index + 1);
                     } else {
-                        exists = exists(toIData(IDataUtil.get(cursor, keyPart.getKey())), key);
+                        exists = exists(toIData(IDataUtil.get(cursor, keyPart.getKey())), parts, index + 1);
                     }
                 }
             } finally {
@@ -1058,6 +1108,7 @@ public final class IDataHelper {
     @SuppressWarnings("deprecation")
     public static IData duplicate(IData document, boolean recurse) {
         if (document == null) return null;
+        if (recurse && document instanceof PersistentIData) return ((PersistentIData)document).duplicate();
 
         IData output = IDataFactory.create();
         IDataCursor inputCursor = document.getCursor();
@@ -1444,7 +1495,7 @@ public final class IDataHelper {
             if (cursor.first(key)) {
                 cursor.delete();
             } else if (IDataKey.isFullyQualified(key, literal)) {
-                drop(document, IDataKey.of(key, literal));
+                drop(document, IDataKeyPath.compile(key, literal).parts, 0);
             }
 
             cursor.destroy();
@@ -1452,33 +1503,57 @@ public final class IDataHelper {
         return document;
     }
 
+    /**
+     * Removes the value with the given compiled path from the given IData document.
+     *
+     * @param document An IData document.
+     * @param path     A compiled path identifying the value to be removed from the given IData document.
+     * @return         The given IData document.
+     */
+    static IData drop(IData document, IDataKeyPath path) {
+        if (document != null && path != null) {
+            IDataCursor cursor = document.getCursor();
+            try {
+                if (cursor.first(path.getKey())) {
+                    cursor.delete();
+                } else if (path.isFullyQualified()) {
+                    drop(document, path.parts, 0);
+                }
+            } finally {
+                cursor.destroy();
+            }
+        }
+        return document;
+    }
+
     /**
      * Removes the value with the given key from the given IData document.
      *
      * @param document An IData document.
-     * @param key      A fully-qualified key identifying the value to be removed from the given IData document.
+     * @param parts    A parsed fully-qualified key identifying the value to be removed from the given IData document.
+     * @param index    The index of the key part to be resolved against the given IData document.
      * @return         The given IData document.
      */
-    private static IData drop(IData document, IDataKey key) {
-        if (document != null && key != null && key.size() > 0) {
+    private static IData drop(IData document, IDataKey.Part[] parts, int index) {
+        if (document != null && parts != null && index < parts.length) {
             IDataCursor cursor = document.getCursor();
-            IDataKey.Part keyPart = key.remove();
+            IDataKey.Part keyPart = parts[index];
 
-            if (key.size() > 0) {
+            if (index < parts.length - 1) {
                 if (keyPart.hasArrayIndex()) {
-                    drop(ArrayHelper.get(toIDataArray(IDataUtil.get(cursor, keyPart.getKey())), keyPart.getIndex()), key);
+                    drop(ArrayHelper.get(toIDataArray(IDataUtil.get(cursor, keyPart.getKey())), keyPart.getIndex()), parts, index + 1);
                 } else if (keyPart.hasKeyIndex()) {
-                    drop(toIData(get(document, keyPart.getKey(), keyPart.getIndex())), key);
+                    drop(toIData(get(document, keyPart.getKey(), keyPart.getIndex())), parts, index + 1);
                 } else {
                     Object value = IDataUtil.get(cursor, keyPart.getKey());
                     IData[] array = toIDataArray(value);
                     if (array != null) {
                         // if we are referencing an IData[], drop the key from all items in the array
                         for (IData item : array) {
-                            drop(item, key.clone());
+                            drop(item, parts, index + 1);
                         }
                     } else {
-                        drop(toIData(value), key);
+                        drop(toIData(value), parts, index + 1);
                     }
                 }
             } else {
@@ -1542,7 +1617,7 @@ public final class IDataHelper {
                     cursor.delete();
                 } while (cursor.next(key));
             } else if (IDataKey.isFullyQualified(key, literal)) {
-                dropAll(document, IDataKey.of(key, literal));
+                dropAll(document, IDataKeyPath.compile(key, literal).parts, 0);
             }
 
             cursor.destroy();
@@ -1554,21 +1629,23 @@ public final class IDataHelper {
      * Removes all occurrences of the given key from the given IData document.
      *
      * @param document  An IData document.
-     * @param key       A fully-qualified key identifying the values to be removed from the given IData document.
+     * @param parts     A parsed fully-qualified key identifying the values to be removed from the given IData
+     *                  document.
+     * @param index     The index of the key part to be resolved against the given IData document.
      * @return          The given IData document.
      */
-    private static IData dropAll(IData document, IDataKey key) {
-        if (document != null && key != null && key.size() > 0) {
+    private static IData dropAll(IData document, IDataKey.Part[] parts, int index) {
+        if (document != null && parts != null && index < parts.length) {
             IDataCursor cursor = document.getCursor();
-            IDataKey.Part keyPart = key.remove();
+            IDataKey.Part keyPart = parts[index];
 
-            if (key.size() > 0) {
+            if (index < parts.length - 1) {
                 if (keyPart.hasArrayIndex()) {
-                    dropAll(ArrayHelper.get(toIDataArray(IDataUtil.get(cursor, keyPart.getKey())), keyPart.getIndex()), key);
+                    dropAll(ArrayHelper.get(toIDataArray(IDataUtil.get(cursor, keyPart.getKey())), keyPart.getIndex()), parts, index + 1);
                 } else if (keyPart.hasKeyIndex()) {
-                    dropAll(toIData(get(document, keyPart.getKey(), keyPart.getIndex())), key);
+                    dropAll(toIData(get(document, keyPart.getKey(), keyPart.getIndex())), parts, index + 1);
                 } else {
-                    dropAll(toIData(IDataUtil.get(cursor, keyPart.getKey())), key);
+                    dropAll(toIData(IDataUtil.get(cursor, keyPart.getKey())), parts, index + 1);
                 }
             } else {
                 if (keyPart.hasArrayIndex()) {
@@ -2657,10 +2734,10 @@ public final class IDataHelper {
                             // do nothing, assume a normal IData fully-qualified key was specified rather than an XPath expression
                         }
                     } else {
-                        value = get(scope, IDataKey.of(key, literal), klass);
+                        value = get(scope, IDataKeyPath.compile(key, literal).parts, 0, klass);
                     }
                 } else {
-                    value = get(scope, IDataKey.of(key, literal), klass);
+                    value = get(scope, IDataKeyPath.compile(key, literal).parts, 0, klass);
                 }
             }
         } finally {
@@ -2671,52 +2748,71 @@ public final class IDataHelper {
     }
 
     /**
-     * Returns the value associated with the given fully-qualified key from the given IData document.
+     * Returns the value associated with the given compiled path from the given IData document.
      *
-     * @param document An IData document.
-     * @param key      A fully-qualified key identifying the value in the given IData document to be returned.
-     * @return         The value associated with the given key in the given IData document.
+     * @param document  An IData document.
+     * @param path      A compiled path identifying the value in the given IData document to be returned.
+     * @param klass     The class of the value to be returned.
+     * @param <T>       The type of value to be returned.
+     * @return          The value associated with the given path in the given IData document.
      */
-    private static Object get(IData document, IDataKey key) {
-        return get(document, key, Object.class);
+    @SuppressWarnings("unchecked")
+    static <T> T get(IData document, IDataKeyPath path, Class<T> klass) {
+        if (klass == null) throw new NullPointerException("class must not be null");
+        if (document == null || path == null) return null;
+
+        Object value = null;
+        IDataCursor cursor = document.getCursor();
+        try {
+            if (cursor.first(path.getKey())) {
+                value = cursor.getValue();
+            } else if (path.isFullyQualified()) {
+                value = get(document, path.parts, 0, klass);
+            }
+        } finally {
+            cursor.destroy();
+        }
+
+        return klass.isInstance(value) ? (T)value : null;
     }
 
     /**
      * Returns the value associated with the given fully-qualified key from the given IData document.
      *
      * @param document An IData document.
-     * @param key      A fully-qualified key identifying the value in the given IData document to be returned.
+     * @param parts    A parsed fully-qualified key identifying the value in the given IData document to be returned.
+     * @param index    The index of the key part to be resolved against the given IData document.
      * @param klass     The class of the value to be returned.
      * @param <T>       The type of value to be returned.
      * @return         The value associated with the given key in the given IData document.
      */
     @SuppressWarnings("unchecked")
-    private static <T> T get(IData document, IDataKey key, Class<T> klass) {
+    private static <T> T get(IData document, IDataKey.Part[] parts, int index, Class<T> klass) {
         if (klass == null) throw new NullPointerException("class must not be null");
 
         Object value = null;
 
-        if (document != null && key != null && key.size() > 0) {
+        if (document != null && parts != null && index < parts.length) {
             IDataCursor cursor = document.getCursor();
-            IDataKey.Part keyPart = key.remove();
+            IDataKey.Part keyPart = parts[index];
 
-            if (key.size() > 0) {
+            if (index < parts.length - 1) {
                 if (keyPart.hasArrayIndex()) {
-                    value = get(ArrayHelper.get(toIDataArray(IDataUtil.get(cursor, keyPart.getKey())), keyPart.getIndex()), key, klass);
+                    value = get(ArrayHelper.get(toIDataArray(IDataUtil.get(cursor, keyPart.getKey())), keyPart.getIndex()), parts, index + 1, klass);
                 } else if (keyPart.hasKeyIndex()) {
-                    value = get(toIData(get(document, keyPart.getKey(), keyPart.getIndex())), key, klass);
+                    value = get(toIData(get(document, keyPart.getKey(), keyPart.getIndex())), parts, index + 1, klass);
                 } else {
                     Object object = IDataUtil.get(cursor, keyPart.getKey());
                     IData parent = toIData(object);
                     if (parent != null) {
-                        value = get(parent, key, klass);
+                        value = get(parent, parts, index + 1, klass);
                     } else {
                         IData[] array = toIDataArray(object);
                         if (array != null) {
                             List<Object> values = new ArrayList<Object>(array.length);
                             // if we are referencing an IData[], create a new array of values from the individual values in each IData
                             for (IData item : array) {
-                                values.add(get(item, key.clone(), klass));
+                                values.add(get(item, parts, index + 1, klass));
                             }
                             value = ArrayHelper.normalize(values);
                         }
@@ -2821,7 +2917,7 @@ public final class IDataHelper {
             } while (cursor.next(key));
             output = ArrayHelper.of(list);
         } else if (IDataKey.isFullyQualified(key, literal)) {
-            output = getAsArray(document, IDataKey.of(key, literal));
+            output = getAsArray(document, IDataKeyPath.compile(key, literal).parts, 0);
         }
 
         cursor.destroy();
@@ -2833,23 +2929,24 @@ public final class IDataHelper {
      * Returns the value associated with the given fully-qualified key from the given IData document as an array.
      *
      * @param document  An IData document.
-     * @param key       A fully-qualified key identifying the value in the given IData document to be returned.
+     * @param parts     A parsed fully-qualified key identifying the value in the given IData document to be returned.
+     * @param index     The index of the key part to be resolved against the given IData document.
      * @return          The value associated with the given key in the given IData document as an array.
      */
-    private static Object[] getAsArray(IData document, IDataKey key) {
+    private static Object[] getAsArray(IData document, IDataKey.Part[] parts, int index) {
         Object[] output = null;
 
-        if (document != null && key != null && key.size() > 0) {
+        if (document != null && parts != null && index < parts.length) {
             IDataCursor cursor = document.getCursor();
-            IDataKey.Part keyPart = key.remove();
+            IDataKey.Part keyPart = parts[index];
 
-            if (key.size() > 0) {
+            if (index < parts.length - 1) {
                 if (keyPart.hasArrayIndex()) {
-                    output = getAsArray(ArrayHelper.get(toIDataArray(IDataUtil.get(cursor, keyPart.getKey())), keyPart.getIndex()), key);
+                    output = getAsArray(ArrayHelper.get(toIDataArray(IDataUtil.get(cursor, keyPart.getKey())), keyPart.getIndex()), parts, index + 1);
                 } else if (keyPart.hasKeyIndex()) {
-                    output = getAsArray(toIData(get(document, keyPart.getKey(), keyPart.getIndex())), key);
+                    output = getAsArray(toIData(get(document, keyPart.getKey(), keyPart.getIndex())), parts, index + 1);
                 } else {
-                    output = getAsArray(IDataUtil.getIData(cursor, keyPart.getKey()), key);
+                    output = getAsArray(IDataUtil.getIData(cursor, keyPart.getKey()), parts, index + 1);
                 }
             } else {
                 List<Object> list = new ArrayList<Object>();
@@ -3403,7 +3500,23 @@ public final class IDataHelper {
      * @return              The input IData document with the value set.
      */
     public static IData put(IData document, String key, Object value, boolean literal, boolean includeNull) {
-        return put(document, IDataKey.of(key, literal), value, includeNull);
+        return put(document, IDataKeyPath.compile(key, literal), value, includeNull);
+    }
+
+    /**
+     * Sets the value associated with the given compiled path in the given IData document. Note that this method
+     * mutates the given IData document in place.
+     *
+     * @param document      An IData document.
+     * @param path          A compiled path identifying the value to be set.
+     * @param value         The value to be set.
+     * @param includeNull   When true the value is set even when null, otherwise the value is only set when it is
+     *                      not null.
+     * @return              The input IData document with the value set.
+     */
+    static IData put(IData document, IDataKeyPath path, Object value, boolean includeNull) {
+        if (path == null) return document;
+        return put(document, path.parts, 0, value, includeNull);
     }
 
     /**
@@ -3411,22 +3524,23 @@ public final class IDataHelper {
      * IData document in place.
      *
      * @param document      An IData document.
-     * @param key           A fully-qualified key identifying the value to be set.
+     * @param parts         A parsed fully-qualified key identifying the value to be set.
+     * @param index         The index of the key part to be resolved against the given IData document.
      * @param value         The value to be set.
      * @param includeNull   When true the value is set even when null, otherwise the value is only set when it is
      *                      not null.
      * @return              The input IData document with the value set.
      */
-    private static IData put(IData document, IDataKey key, Object value, boolean includeNull) {
+    private static IData put(IData document, IDataKey.Part[] parts, int index, Object value, boolean includeNull) {
         if (!includeNull && value == null) return document;
 
-        if (key != null && key.size() > 0) {
+        if (parts != null && index < parts.length) {
             if (document == null) document = IDataFactory.create();
 
             IDataCursor cursor = document.getCursor();
-            IDataKey.Part keyPart = key.remove();
+            IDataKey.Part keyPart = parts[index];
 
-            if (key.size() > 0) {
+            if (index < parts.length - 1) {
                 if (keyPart.hasArrayIndex()) {
                     IData[] array = IDataUtil.getIDataArray(cursor, keyPart.getKey());
                     IData child = null;
@@ -3435,11 +3549,11 @@ public final class IDataHelper {
                     } catch(ArrayIndexOutOfBoundsException ex) {
                         // ignore exception
                     }
-                    value = ArrayHelper.put(array, put(child, key, value, includeNull), keyPart.getIndex(), IData.class);
+                    value = ArrayHelper.put(array, put(child, parts, index + 1, value, includeNull), keyPart.getIndex(), IData.class);
                 } else if (keyPart.hasKeyIndex()) {
-                    value = put(toIData(get(document, keyPart.getKey(), keyPart.getIndex())), key, value, includeNull);
+                    value = put(toIData(get(document, keyPart.getKey(), keyPart.getIndex())), parts, index + 1, value, includeNull);
                 } else {
-                    value = put(IDataUtil.getIData(cursor, keyPart.getKey()), key, value, includeNull);
+                    value = put(IDataUtil.getIData(cursor, keyPart.getKey()), parts, index + 1, value, includeNull);
                 }
             } else if (keyPart.hasArrayIndex()) {
                 Class klass = Object.class;
@@ -3957,7 +4071,8 @@ public final class IDataHelper {
         if (array == null || pivotKeys == null || pivotKeys.length == 0) return null;
         if (delimiter == null) delimiter = "/";
 
-        IData output = IDataFactory.create();
+        // pivoting can produce thousands of top-level keys, each of which is looked up before it is added
+        IData output = new IndexedIData();
 
         outer:
         for (IData item : array) {
@@ -3972,14 +4087,42 @@ public final class IDataHelper {
                     }
                     if (i < (pivotKeys.length - 1)) buffer.append(delimiter);
                 }
-                String key = buffer.toString();
-                if (get(output, key) == null) put(output, key, item);
+                IDataKeyPath path = IDataKeyPath.compile(buffer.toString());
+                if (get(output, path, Object.class) == null) {
+                    createIndexedParents(output, path);
+                    put(output, path, item, true);
+                }
             }
         }
 
         return output;
     }
 
+    /**
+     * Creates any missing nested documents along the given fully-qualified path as IndexedIData documents, as the
+     * nested levels of a pivot on multiple keys can be just as large as the top level. Nesting stops at the first
+     * part of the path with an array or key index, and the remaining levels are created as usual by put.
+     *
+     * @param document  The document the path is relative to.
+     * @param path      The fully-qualified path whose parent documents are to be created.
+     */
+    private static void createIndexedParents(IData document, IDataKeyPath path) {
+        IDataKey.Part[] parts = path.parts;
+        for (int i = 0; i < parts.length - 1 && !parts[i].hasArrayIndex() && !parts[i].hasKeyIndex(); i++) {
+            IDataCursor cursor = document.getCursor();
+            try {
+                IData child = IDataUtil.getIData(cursor, parts[i].getKey());
+                if (child == null) {
+                    child = new IndexedIData();
+                    IDataUtil.put(cursor, parts[i].getKey(), child);
+                }
+                document = child;
+            } finally {
+                cursor.destroy();
+            }
+        }
+    }
+
     /**
      * Returns a new IData document containing all denormalized items from the given input IData document.
      *
@@ -4266,10 +4409,36 @@ public final class IDataHelper {
      * @return          A new IData[] array sorted by the given criteria.
      */
     public static IData[] sort(IData[] array, IDataComparisonCriterion... criteria) {
+        return sort(array, 1, criteria);
+    }
+
+    /**
+     * Returns a new IData[] array with all elements sorted according to the specified criteria. The sort key values
+     * are resolved and converted to the criterion types once per element rather than once per comparison, and large
+     * arrays are sorted using up to the given number of threads.
+     *
+     * @param array         An IData[] array to be sorted.
+     * @param parallelism   The maximum number of threads used to sort the array.
+     * @param criteria      One or more sort criteria.
+     * @return              A new IData[] array sorted by the given criteria.
+     */
+    public static IData[] sort(IData[] array, int parallelism, IDataComparisonCriterion... criteria) {
         if (array == null) return null;
 
         if (criteria != null && criteria.length > 0) {
-            array = ArrayHelper.sort(array, new CriteriaBasedIDataComparator(criteria));
+            CriteriaBasedIDataComparator comparator = new CriteriaBasedIDataComparator(criteria);
+
+            SortKey[] keys = new SortKey[array.length];
+            for (int i = 0; i < array.length; i++) {
+                keys[i] = new SortKey(array[i], comparator.keys(array[i]));
+            }
+
+            keys = ArrayHelper.sort(keys, new SortKeyComparator(comparator), parallelism);
+
+            array = Arrays.copyOf(array, array.length);
+            for (int i = 0; i < keys.length; i++) {
+                array[i] = keys[i].document;
+            }
         } else {
             array = Arrays.copyOf(array, array.length);
         }
@@ -4516,26 +4685,26 @@ public final class IDataHelper {
      * @return         A Map containing the groups and their items.
      */
     public static Map<CompoundKey, List<IData>> group(IData[] array, IDataComparisonCriterion[] criteria, IDataArrayGroupSortType sortType) {
-        Map<CompoundKey, List<IData>> groups;
-        if (sortType == null || sortType == IDataArrayGroupSortType.ASCENDING) {
-            groups = new TreeMap<CompoundKey, List<IData>>();
-        } else if (sortType == IDataArrayGroupSortType.DESCENDING) {
-            groups = new TreeMap<CompoundKey, List<IData>>(new ReverseNaturalComparator<CompoundKey>());
-        } else {
-            groups = new LinkedHashMap<CompoundKey, List<IData>>();
-        }
+        return group(array, criteria, sortType, 1);
+    }
+
+    /**
+     * Groups the given IData[] by the given keys, using up to the given number of threads for large arrays.
+     *
+     * @param array         The IData[] to be grouped.
+     * @param criteria      The criteria to group items by.
+     * @param sortType      The type or sorting to apply to the results, defaults to ascending order if null.
+     * @param parallelism   The maximum number of threads used to group the array.
+     * @return              A Map containing the groups and their items, iterated in the order specified by the given
+     *                      sort type.
+     */
+    public static Map<CompoundKey, List<IData>> group(IData[] array, IDataComparisonCriterion[] criteria, IDataArrayGroupSortType sortType, int parallelism) {
+        Map<CompoundKey, List<IData>> groups = new LinkedHashMap<CompoundKey, List<IData>>();
 
         if (array != null && criteria != null && criteria.length > 0) {
-            for (IData item : array) {
-                if (item != null) {
-                    CompoundKey key = new CompoundKey(criteria, item);
-                    List<IData> list = groups.get(key);
-                    if (list == null) {
-                        list = new ArrayList<IData>();
-                        groups.put(key, list);
-                    }
-                    list.add(item);
-                }
+            CriteriaBasedIDataComparator comparator = new CriteriaBasedIDataComparator(criteria);
+            for (IDataGrouper.Group group : IDataGrouper.group(array, comparator, sortType, parallelism)) {
+                groups.put(new CompoundKey(comparator, group.getDocument()), group.getItems());
             }
         }
 
@@ -4572,6 +4741,22 @@ public final class IDataHelper {
      *              set of values associated with the given list of keys.
      */
     public static IData[] unique(IData[] array, String... keys) {
+        return unique(array, 1, keys);
+    }
+
+    /**
+     * Returns a new IData[] document list that only contains unique IData objects from the input IData[] document list,
+     * where uniqueness is determined by the values associated with the given list of keys, using up to the given
+     * number of threads for large arrays.
+     *
+     * @param array         The IData[] document list to find the unique set of.
+     * @param parallelism   The maximum number of threads used to find the unique set.
+     * @param keys          The keys whose associated values will be used to determine uniqueness. If not specified,
+     *                      all keys will be used to determine uniqueness.
+     * @return              A new IData[] document list only containing the first occurrence of each IData containing
+     *                      a distinct set of values associated with the given list of keys.
+     */
+    public static IData[] unique(IData[] array, int parallelism, String... keys) {
         IData[] output = null;
 
         if (array != null) {
@@ -4580,15 +4765,11 @@ public final class IDataHelper {
             } else {
                 if (keys == null || keys.length == 0) keys = getKeys(array);
 
-                Map<CompoundKey, IData> set = new TreeMap<CompoundKey, IData>();
-                for (IData item : array) {
-                    if (item != null) {
-                        CompoundKey key = new CompoundKey(keys, item);
-                        if (!set.containsKey(key)) set.put(key, item);
-                    }
+                List<IDataGrouper.Group> groups = IDataGrouper.group(array, new CriteriaBasedIDataComparator(IDataComparisonCriterion.of(keys)), IDataArrayGroupSortType.ASCENDING, parallelism);
+                output = new IData[groups.size()];
+                for (int i = 0; i < output.length; i++) {
+                    output[i] = groups.get(i).getDocument();
                 }
-
-                output = set.values().toArray(new IData[0]);
             }
         }
 
@@ -4767,6 +4948,54 @@ public final class IDataHelper {
         }
     }
 
+    /**
+     * An IData document decorated with its precomputed sort keys.
+     */
+    private static class SortKey {
+        /**
+         * The IData document being sorted.
+         */
+        final IData document;
+        /**
+         * The document's sort keys, one per comparison criterion.
+         */
+        final Object[] keys;
+
+        /**
+         * Constructs a new SortKey.
+         *
+         * @param document  The IData document being sorted.
+         * @param keys      The document's sort keys, one per comparison criterion.
+         */
+        SortKey(IData document, Object[] keys) {
+            this.document = document;
+            this.keys = keys;
+        }
+    }
+
+    /**
+     * Compares decorated IData documents using their precomputed sort keys.
+     */
+    private static class SortKeyComparator implements Comparator<SortKey> {
+        /**
+         * The comparator which produced the sort keys.
+         */
+        private final CriteriaBasedIDataComparator comparator;
+
+        /**
+         * Constructs a new SortKeyComparator.
+         *
+         * @param comparator    The comparator which produced the sort keys.
+         */
+        SortKeyComparator(CriteriaBasedIDataComparator comparator) {
+            this.comparator = comparator;
+        }
+
+        public int compare(SortKey first, SortKey second) {
+            return comparator.compare(first.keys, second.keys);
+        }
+    }
+
     /**
      * Represents a compound key which can be used for grouping IData documents together.
      */
@@ -4922,14 +5151,8 @@ public final class IDataHelper {
          */
         @Override
         public int hashCode() {
-            int hash;
-            IDataJSONParser parser = new IDataJSONParser(false);
-            try {
-                hash = parser.emit(getIData(), String.class).hashCode();
-            } catch(Exception ex) {
-                throw new RuntimeException(ex);
-            }
-            return hash;
+            // hashes the converted values, so that keys which compare as equal have the same hash code
+            return comparator.hashCode(comparator.keys(document));
         }
     }
 }
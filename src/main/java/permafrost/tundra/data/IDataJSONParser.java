@@ -34,53 +34,63 @@ import com.wm.util.Table;
 import com.wm.util.coder.IDataCodable;
 import com.wm.util.coder.ValuesCodable;
 import org.glassfish.json.JsonProviderImpl;
-import permafrost.tundra.io.InputOutputHelper;
-import permafrost.tundra.io.InputStreamHelper;
+import permafrost.tundra.io.CloseableHelper;
 import permafrost.tundra.lang.ArrayHelper;
 import permafrost.tundra.lang.CharsetHelper;
+import permafrost.tundra.lang.CloseableIterator;
+import java.io.Closeable;
+import java.io.FilterWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.StringWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Method;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 import javax.json.JsonArray;
 import javax.json.JsonArrayBuilder;
 import javax.json.JsonNumber;
 import javax.json.JsonObject;
 import javax.json.JsonObjectBuilder;
-import javax.json.JsonReader;
-import javax.json.JsonReaderFactory;
 import javax.json.JsonString;
-import javax.json.JsonStructure;
 import javax.json.JsonValue;
-import javax.json.JsonWriter;
-import javax.json.JsonWriterFactory;
 import javax.json.spi.JsonProvider;
 import javax.json.stream.JsonGenerator;
+import javax.json.stream.JsonGeneratorFactory;
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParserFactory;
 
 /**
  * Deserializes and serializes IData objects from and to JSON.
  */
 public class IDataJSONParser extends IDataParser {
     /**
-     * Factory for creating JSON readers.
+     * Factory for creating streaming JSON parsers.
      */
-    private JsonReaderFactory jsonReaderFactory;
+    private JsonParserFactory jsonParserFactory;
     /**
-     * Factory for created JSON writers.
+     * Factory for creating streaming JSON generators.
      */
-    private JsonWriterFactory jsonWriterFactory;
+    private JsonGeneratorFactory jsonGeneratorFactory;
     /**
      * Implementation class used for JSON parsing and emitting.
      */
     private JsonProvider provider;
+    /**
+     * Whether this class overrides any of the fromJson conversion hooks, in which case parsed values are converted
+     * through them rather than directly from the streaming parser events.
+     */
+    private final boolean convertsFromJsonValues;
 
     /**
      * Construct a new pretty printing IData JSON parser/emitter.
@@ -101,13 +111,34 @@ public class IDataJSONParser extends IDataParser {
         // contention caused by the class loading in the javax.json.spi.JsonProvider.provider() method
         provider = new JsonProviderImpl();
 
-        // create reader factory
-        jsonReaderFactory = provider.createReaderFactory(null);
+        // create parser factory
+        jsonParserFactory = provider.createParserFactory(null);
 
-        // create pretty printing writer factory
+        // create pretty printing generator factory
         Map<String, Object> properties = new HashMap<String, Object>(1);
         if (prettyPrinting) properties.put(JsonGenerator.PRETTY_PRINTING, prettyPrinting);
-        jsonWriterFactory = provider.createWriterFactory(properties);
+        jsonGeneratorFactory = provider.createGeneratorFactory(properties);
+
+        convertsFromJsonValues = overridesFromJsonHooks(getClass());
+    }
+
+    /**
+     * Returns true if the given class, or any superclass below this class, overrides one of the fromJsonValue,
+     * fromJsonObject, fromJsonArray, fromJsonString, or fromJsonNumber conversion hooks.
+     *
+     * @param type  The class to check.
+     * @return      True if any of the conversion hooks are overridden.
+     */
+    private static boolean overridesFromJsonHooks(Class<?> type) {
+        for (; type != null && type != IDataJSONParser.class; type = type.getSuperclass()) {
+            for (Method method : type.getDeclaredMethods()) {
+                Class<?>[] parameters = method.getParameterTypes();
+                if (method.getName().startsWith("fromJson") && parameters.length == 1 && JsonValue.class.isAssignableFrom(parameters[0])) {
+                    return true;
+                }
+            }
+        }
+        return false;
     }
 
     /**
@@ -121,11 +152,15 @@ public class IDataJSONParser extends IDataParser {
      */
     @Override
     public IData parse(InputStream inputStream, Charset charset) throws IOException, ServiceException {
-        JsonReader reader = jsonReaderFactory.createReader(inputStream, CharsetHelper.normalize(charset));
-        JsonStructure structure = reader.read();
-        reader.close();
+        JsonParser parser = jsonParserFactory.createParser(inputStream, CharsetHelper.normalize(charset));
+        Object object;
+
+        try {
+            object = parser.hasNext() ? readValue(parser, parser.next()) : null;
+        } finally {
+            parser.close();
+        }
 
-        Object object = fromJsonValue(structure);
         IData output = null;
 
         if (object instanceof IData) {
@@ -141,7 +176,29 @@ public class IDataJSONParser extends IDataParser {
     }
 
     /**
-     * Encodes the given IData document as JSON to the given output stream.
+     * Returns an iterator over the elements of the JSON array found at the given path in the given input stream. The
+     * elements are parsed one at a time as they are requested, and the rest of the content is skipped without being
+     * materialized, so that very large payloads can be processed in constant memory. The given stream is closed when
+     * the iterator is exhausted or closed.
+     *
+     * @param inputStream       The input stream to be decoded.
+     * @param charset           The character set to use.
+     * @param path              A "/" separated list of object keys identifying the array whose elements are to be
+     *                          returned, or null to return the elements of a top-level array.
+     * @return                  An iterator over the array elements, which is empty if no array exists at the path.
+     * @throws IOException      If there is a problem reading from the stream.
+     */
+    public CloseableIterator<Object> iterate(InputStream inputStream, Charset charset, String path) throws IOException {
+        if (inputStream == null) return null;
+        String[] keys = path == null || path.length() == 0 ? new String[0] : path.split("/");
+        return new ElementIterator(jsonParserFactory.createParser(inputStream, CharsetHelper.normalize(charset)), keys);
+    }
+
+    /**
+     * Encodes the given IData document as JSON to the given output stream. The document is written directly to a
+     * streaming JSON generator, rather than first being converted to an intermediate JSON structure. If the document
+     * contains a recordWithNoID key whose value is an iterator, the returned elements are written as a top-level
+     * array as they are iterated over.
      *
      * @param outputStream      The stream to write the encoded IData to.
      * @param document          The IData document to be encoded.
@@ -152,27 +209,270 @@ public class IDataJSONParser extends IDataParser {
     @Override
     public void emit(OutputStream outputStream, IData document, Charset charset) throws IOException, ServiceException {
         IDataCursor cursor = document.getCursor();
+        JsonGenerator generator = jsonGeneratorFactory.createGenerator(new LeadingWhitespaceTrimmingWriter(new OutputStreamWriter(outputStream, CharsetHelper.normalize(charset))));
 
         try {
-            StringWriter stringWriter = new StringWriter();
-            JsonWriter writer = jsonWriterFactory.createWriter(stringWriter);
+            Object records = IDataUtil.get(cursor, "recordWithNoID");
+            if (records instanceof Iterator) {
+                Iterator<?> iterator = (Iterator<?>)records;
+                try {
+                    generator.writeStartArray();
+                    while (iterator.hasNext()) {
+                        writeValue(generator, null, iterator.next());
+                    }
+                    generator.writeEnd();
+                } finally {
+                    if (iterator instanceof Closeable) CloseableHelper.close((Closeable)iterator);
+                }
+            } else {
+                Object[] array = IDataUtil.getObjectArray(cursor, "recordWithNoID");
+                if (array != null) {
+                    writeArray(generator, null, array);
+                } else {
+                    writeObject(generator, null, document);
+                }
+            }
+        } finally {
+            generator.close();
+            cursor.destroy();
+        }
+    }
+
+    /**
+     * Reads the JSON value starting with the given event from the given parser, and returns an appropriate webMethods
+     * compatible representation. If a subclass overrides any of the fromJson conversion hooks, the value is read as a
+     * JsonValue and converted with fromJsonValue, so that the overridden hooks are honoured.
+     *
+     * @param parser    The parser to read from.
+     * @param event     The event which starts the value.
+     * @return          The converted Object.
+     */
+    protected Object readValue(JsonParser parser, JsonParser.Event event) {
+        if (convertsFromJsonValues) return fromJsonValue(parser.getValue());
 
-            Object[] array = IDataUtil.getObjectArray(cursor, "recordWithNoID");
-            JsonStructure structure;
+        Object output;
 
-            if (array != null) {
-                structure = toJsonArray(provider, array);
+        switch (event) {
+            case START_OBJECT:
+                output = readObject(parser);
+                break;
+            case START_ARRAY:
+                output = readArray(parser);
+                break;
+            case VALUE_STRING:
+                output = parser.getString();
+                break;
+            case VALUE_NUMBER:
+                if (parser.isIntegralNumber()) {
+                    output = parser.getLong();
+                } else {
+                    output = parser.getBigDecimal().doubleValue();
+                }
+                break;
+            case VALUE_TRUE:
+                output = Boolean.TRUE;
+                break;
+            case VALUE_FALSE:
+                output = Boolean.FALSE;
+                break;
+            case VALUE_NULL:
+                output = null;
+                break;
+            default:
+                throw new IllegalArgumentException("Unexpected JSON parser event: " + event.toString());
+        }
+
+        return output;
+    }
+
+    /**
+     * Reads the remainder of a JSON object from the given parser, following its START_OBJECT event, and returns it as
+     * an IData document.
+     *
+     * @param parser    The parser to read from.
+     * @return          The converted IData document.
+     */
+    protected IData readObject(JsonParser parser) {
+        IData output = IDataFactory.create();
+        IDataCursor cursor = output.getCursor();
+
+        try {
+            JsonParser.Event event;
+            while ((event = parser.next()) != JsonParser.Event.END_OBJECT) {
+                if (event != JsonParser.Event.KEY_NAME) throw new IllegalArgumentException("Unexpected JSON parser event: " + event.toString());
+                String key = parser.getString();
+                IDataUtil.put(cursor, key, readValue(parser, parser.next()));
+            }
+        } finally {
+            cursor.destroy();
+        }
+
+        return output;
+    }
+
+    /**
+     * Reads the remainder of a JSON array from the given parser, following its START_ARRAY event, and returns it as
+     * an Object[].
+     *
+     * @param parser    The parser to read from.
+     * @return          The converted Object[].
+     */
+    protected Object[] readArray(JsonParser parser) {
+        List<Object> output = new ArrayList<Object>();
+
+        JsonParser.Event event;
+        while ((event = parser.next()) != JsonParser.Event.END_ARRAY) {
+            output.add(readValue(parser, event));
+        }
+
+        return ArrayHelper.normalize(output);
+    }
+
+    /**
+     * Skips the JSON value starting with the given event from the given parser.
+     *
+     * @param parser    The parser to read from.
+     * @param event     The event which starts the value.
+     */
+    protected static void skipValue(JsonParser parser, JsonParser.Event event) {
+        if (event == JsonParser.Event.START_OBJECT || event == JsonParser.Event.START_ARRAY) {
+            int depth = 1;
+            while (depth > 0) {
+                event = parser.next();
+                if (event == JsonParser.Event.START_OBJECT || event == JsonParser.Event.START_ARRAY) {
+                    depth++;
+                } else if (event == JsonParser.Event.END_OBJECT || event == JsonParser.Event.END_ARRAY) {
+                    depth--;
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the given IData document as a JSON object to the given generator.
+     *
+     * @param generator The generator to write to.
+     * @param key       The key to write the object against, or null if writing an array element or top-level value.
+     * @param input     The IData document to be written.
+     */
+    protected void writeObject(JsonGenerator generator, String key, IData input) {
+        if (input != null && hasDuplicateKeys(input)) {
+            // JSON object keys are unique, so defer to the builder which keeps the last value for a duplicated key
+            JsonObject object = toJsonObject(provider, input);
+            if (key == null) {
+                generator.write(object);
             } else {
-                structure = toJsonObject(provider, document);
+                generator.write(key, object);
             }
+            return;
+        }
+
+        if (key == null) {
+            generator.writeStartObject();
+        } else {
+            generator.writeStartObject(key);
+        }
 
-            writer.write(structure);
-            writer.close();
+        if (input != null) {
+            IDataCursor cursor = input.getCursor();
+            try {
+                while (cursor.next()) {
+                    writeValue(generator, cursor.getKey(), cursor.getValue());
+                }
+            } finally {
+                cursor.destroy();
+            }
+        }
+
+        generator.writeEnd();
+    }
 
-            InputOutputHelper.copy(InputStreamHelper.normalize(stringWriter.toString().trim(), charset), outputStream);
+    /**
+     * Writes the given Object[] as a JSON array to the given generator.
+     *
+     * @param generator The generator to write to.
+     * @param key       The key to write the array against, or null if writing an array element or top-level value.
+     * @param input     The Object[] to be written.
+     */
+    protected void writeArray(JsonGenerator generator, String key, Object[] input) {
+        if (key == null) {
+            generator.writeStartArray();
+        } else {
+            generator.writeStartArray(key);
+        }
+
+        if (input != null) {
+            for (Object value : input) {
+                writeValue(generator, null, value);
+            }
+        }
+
+        generator.writeEnd();
+    }
+
+    /**
+     * Writes the given value to the given generator.
+     *
+     * @param generator The generator to write to.
+     * @param key       The key to write the value against, or null if writing an array element.
+     * @param value     The value to be written.
+     */
+    @SuppressWarnings("deprecation")
+    protected void writeValue(JsonGenerator generator, String key, Object value) {
+        if (value == null) {
+            if (key == null) generator.writeNull(); else generator.writeNull(key);
+        } else if (value instanceof IData[] || value instanceof Table || value instanceof IDataCodable[] || value instanceof IDataPortable[] || value instanceof ValuesCodable[]) {
+            writeArray(generator, key, IDataHelper.toIDataArray(value));
+        } else if (value instanceof IData || value instanceof IDataCodable || value instanceof IDataPortable || value instanceof ValuesCodable) {
+            writeObject(generator, key, IDataHelper.toIData(value));
+        } else if (value instanceof Object[]) {
+            writeArray(generator, key, (Object[])value);
+        } else if (value instanceof Boolean) {
+            if (key == null) generator.write((Boolean)value); else generator.write(key, (Boolean)value);
+        } else if (value instanceof Integer) {
+            if (key == null) generator.write((Integer)value); else generator.write(key, (Integer)value);
+        } else if (value instanceof Long) {
+            if (key == null) generator.write((Long)value); else generator.write(key, (Long)value);
+        } else if (value instanceof BigInteger) {
+            if (key == null) generator.write((BigInteger)value); else generator.write(key, (BigInteger)value);
+        } else if (value instanceof Float) {
+            if (key == null) generator.write((Float)value); else generator.write(key, (Float)value);
+        } else if (value instanceof Double) {
+            if (key == null) generator.write((Double)value); else generator.write(key, (Double)value);
+        } else if (value instanceof BigDecimal) {
+            if (key == null) generator.write((BigDecimal)value); else generator.write(key, (BigDecimal)value);
+        } else {
+            if (key == null) generator.write(value.toString()); else generator.write(key, value.toString());
+        }
+    }
+
+    /**
+     * Returns true if the given IData document contains any key more than once.
+     *
+     * @param document  The IData document to check.
+     * @return          True if the given IData document contains any key more than once.
+     */
+    private static boolean hasDuplicateKeys(IData document) {
+        Set<String> keys = null;
+        IDataCursor cursor = document.getCursor();
+        try {
+            String first = null;
+            while (cursor.next()) {
+                String key = cursor.getKey();
+                if (first == null) {
+                    first = key;
+                } else {
+                    if (keys == null) {
+                        keys = new HashSet<String>();
+                        keys.add(first);
+                    }
+                    if (!keys.add(key)) return true;
+                }
+            }
         } finally {
             cursor.destroy();
         }
+        return false;
     }
 
     /**
@@ -367,4 +667,168 @@ public class IDataJSONParser extends IDataParser {
 
         return builder.build();
     }
+
+    /**
+     * Iterates over the elements of a JSON array at a given path, parsing each element as it is requested.
+     */
+    private class ElementIterator implements CloseableIterator<Object> {
+        /**
+         * The parser being read from.
+         */
+        private final JsonParser parser;
+        /**
+         * The event which starts the next element, or null if not yet read.
+         */
+        private JsonParser.Event pending;
+        /**
+         * Whether this iterator has been closed.
+         */
+        private boolean closed;
+
+        /**
+         * Constructs a new ElementIterator, positioning the given parser at the start of the array at the given path.
+         *
+         * @param parser    The parser to read from.
+         * @param keys      The object keys identifying the array to iterate over.
+         */
+        ElementIterator(JsonParser parser, String[] keys) {
+            this.parser = parser;
+            try {
+                if (!seek(keys)) close();
+            } catch (RuntimeException ex) {
+                close();
+                throw ex;
+            }
+        }
+
+        /**
+         * Advances the parser to the start of the array at the given path.
+         *
+         * @param keys  The object keys identifying the array.
+         * @return      True if an array was found at the given path.
+         */
+        private boolean seek(String[] keys) {
+            if (!parser.hasNext()) return false;
+            JsonParser.Event event = parser.next();
+
+            for (String key : keys) {
+                if (event != JsonParser.Event.START_OBJECT) return false;
+
+                boolean found = false;
+                while (!found) {
+                    event = parser.next();
+                    if (event == JsonParser.Event.END_OBJECT) return false;
+                    found = key.equals(parser.getString());
+                    event = parser.next();
+                    if (!found) skipValue(parser, event);
+                }
+            }
+
+            return event == JsonParser.Event.START_ARRAY;
+        }
+
+        /**
+         * Returns true if there are more elements.
+         *
+         * @return True if there are more elements.
+         */
+        @Override
+        public boolean hasNext() {
+            if (pending == null && !closed) {
+                JsonParser.Event event = parser.next();
+                if (event == JsonParser.Event.END_ARRAY) {
+                    close();
+                } else {
+                    pending = event;
+                }
+            }
+            return pending != null;
+        }
+
+        /**
+         * Returns the next element.
+         *
+         * @return The next element.
+         * @throws NoSuchElementException If there are no more elements.
+         */
+        @Override
+        public Object next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            JsonParser.Event event = pending;
+            pending = null;
+            return readValue(parser, event);
+        }
+
+        /**
+         * Removing elements is not supported.
+         *
+         * @throws UnsupportedOperationException This method is not implemented by this class.
+         */
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("remove method is not supported");
+        }
+
+        /**
+         * Closes the underlying parser.
+         */
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                parser.close();
+            }
+        }
+    }
+
+    /**
+     * Drops leading whitespace, which pretty printing generators emit before the first value.
+     */
+    private static class LeadingWhitespaceTrimmingWriter extends FilterWriter {
+        /**
+         * Whether a non-whitespace character has been written.
+         */
+        private boolean started;
+
+        /**
+         * Constructs a new LeadingWhitespaceTrimmingWriter.
+         *
+         * @param writer    The writer to delegate to.
+         */
+        LeadingWhitespaceTrimmingWriter(Writer writer) {
+            super(writer);
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            if (started || c > ' ') {
+                started = true;
+                out.write(c);
+            }
+        }
+
+        @Override
+        public void write(char[] buffer, int offset, int length) throws IOException {
+            if (!started) {
+                while (length > 0 && buffer[offset] <= ' ') {
+                    offset++;
+                    length--;
+                }
+                started = length > 0;
+            }
+            if (length > 0) out.write(buffer, offset, length);
+        }
+
+        @Override
+        public void write(String string, int offset, int length) throws IOException {
+            if (!started) {
+                while (length > 0 && string.charAt(offset) <= ' ') {
+                    offset++;
+                    length--;
+                }
+                started = length > 0;
+            }
+            if (length > 0) out.write(string, offset, length);
+        }
+    }
 }
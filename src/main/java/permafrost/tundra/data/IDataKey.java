@@ -31,7 +31,8 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
- * Convenience class for fully qualified IData keys.
+ * Convenience class for fully qualified IData keys. Key parts are immutable, and can therefore be shared between
+ * keys, such as by the cached parts of an {@link IDataKeyPath}.
  */
 public class IDataKey extends ArrayDeque<IDataKey.Part> {
     /**
@@ -61,10 +62,18 @@ public class IDataKey extends ArrayDeque<IDataKey.Part> {
      *                fully-qualified key.
      */
     public IDataKey(String key, boolean literal) {
-        if (key == null) throw new NullPointerException("key must not be null");
+        this(parse(key, literal));
+    }
 
-        for (String part : literal ? new String[] { key } : key.split(SEPARATOR)) {
-            add(new Part(part, literal));
+    /**
+     * Creates a new IDataKey from the given parts.
+     *
+     * @param parts A list of key parts.
+     */
+    IDataKey(Part[] parts) {
+        super(parts.length == 0 ? 1 : parts.length);
+        for (Part part : parts) {
+            add(part);
         }
     }
 
@@ -101,6 +110,25 @@ public class IDataKey extends ArrayDeque<IDataKey.Part> {
         return new IDataKey(key, literal);
     }
 
+    /**
+     * Parses the given key string such as 'a/b[0]/c' into its individual key parts.
+     *
+     * @param key     A fully-qualified key string such as 'a/b[0]/c'.
+     * @param literal If true, the key will be treated as a literal key, rather than potentially as a
+     *                fully-qualified key.
+     * @return        The individual key parts of the given key string.
+     */
+    static Part[] parse(String key, boolean literal) {
+        if (key == null) throw new NullPointerException("key must not be null");
+
+        String[] tokens = literal ? new String[] { key } : key.split(SEPARATOR);
+        Part[] parts = new Part[tokens.length];
+        for (int i = 0; i < tokens.length; i++) {
+            parts[i] = new Part(tokens[i], literal);
+        }
+        return parts;
+    }
+
     /**
      * Returns a clone of this object.
      *
@@ -154,7 +182,21 @@ public class IDataKey extends ArrayDeque<IDataKey.Part> {
      * @return True if the given key is considered fully-qualified.
      */
     public static boolean isFullyQualified(String key, boolean literal) {
-        return !literal && key != null && (key.contains(SEPARATOR) || INDEX_PATTERN.matcher(key).find());
+        return !literal && key != null && (key.contains(SEPARATOR) || hasIndex(key));
+    }
+
+    /**
+     * Returns true if the given key string ends with an array or key index, checking the last character before
+     * resorting to the regular expression, as most keys are simple keys without an index.
+     *
+     * @param key An IData key string.
+     * @return    True if the given key ends with an array or key index.
+     */
+    private static boolean hasIndex(String key) {
+        int length = key.length();
+        if (length < 3) return false;
+        char last = key.charAt(length - 1);
+        return (last == ']' || last == ')') && INDEX_PATTERN.matcher(key).find();
     }
 
     /**
@@ -171,9 +213,9 @@ public class IDataKey extends ArrayDeque<IDataKey.Part> {
      * Represents an individual key part of a fully-qualified key.
      */
     public static class Part {
-        protected boolean hasArrayIndex = false, hasKeyIndex = false;
-        protected int index = 0;
-        protected String key = null;
+        protected final boolean hasArrayIndex, hasKeyIndex;
+        protected final int index;
+        protected final String key;
 
         /**
          * Constructs a new key object given a key string.
@@ -194,7 +236,10 @@ public class IDataKey extends ArrayDeque<IDataKey.Part> {
         public Part(String key, boolean literal) {
             if (key == null) throw new NullPointerException("key must not be null");
 
-            if (literal) {
+            boolean hasArrayIndex = false, hasKeyIndex = false;
+            int index = 0;
+
+            if (literal || !hasIndex(key)) {
                 this.key = key;
             } else {
                 StringBuffer buffer = new StringBuffer();
@@ -217,6 +262,10 @@ public class IDataKey extends ArrayDeque<IDataKey.Part> {
 
                 this.key = buffer.toString();
             }
+
+            this.hasArrayIndex = hasArrayIndex;
+            this.hasKeyIndex = hasKeyIndex;
+            this.index = index;
         }
 
         /**
@@ -0,0 +1,270 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2026 Lachlan Dowding
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package permafrost.tundra.data;
+
+import com.wm.data.IData;
+import permafrost.tundra.util.BoundedCache;
+
+/**
+ * A fully-qualified IData key such as 'a/b[0]/c' which has been parsed once into its individual key parts, and can
+ * then be used repeatedly to get, put, check the existence of, count, or drop values in IData documents without the
+ * key string being parsed again. Unlike {@link IDataKey}, which is consumed as it is used, a compiled path is
+ * immutable and safe to share between threads.
+ */
+public final class IDataKeyPath {
+    /**
+     * The maximum number of compiled paths cached, after which the cache is cleared.
+     */
+    public static final int DEFAULT_CACHE_CAPACITY = 4096;
+    /**
+     * The cache of compiled fully-qualified paths keyed by key string.
+     */
+    private static final BoundedCache<String, IDataKeyPath> CACHE = new BoundedCache<String, IDataKeyPath>(DEFAULT_CACHE_CAPACITY);
+    /**
+     * The key string this path was compiled from.
+     */
+    private final String key;
+    /**
+     * Whether the key string was treated as a literal key.
+     */
+    private final boolean literal;
+    /**
+     * Whether the key string is considered fully-qualified.
+     */
+    private final boolean fullyQualified;
+    /**
+     * The parsed individual key parts.
+     */
+    final IDataKey.Part[] parts;
+
+    /**
+     * Constructs a new IDataKeyPath.
+     *
+     * @param key     A fully-qualified key string such as 'a/b[0]/c'.
+     * @param literal If true, the key will be treated as a literal key, rather than potentially as a
+     *                fully-qualified key.
+     */
+    private IDataKeyPath(String key, boolean literal) {
+        this.key = key;
+        this.literal = literal;
+        this.fullyQualified = IDataKey.isFullyQualified(key, literal);
+        this.parts = IDataKey.parse(key, literal);
+    }
+
+    /**
+     * Returns a compiled path for the given key string.
+     *
+     * @param key A fully-qualified key string such as 'a/b[0]/c'.
+     * @return    A compiled path for the given key string.
+     */
+    public static IDataKeyPath compile(String key) {
+        return compile(key, false);
+    }
+
+    /**
+     * Returns a compiled path for the given key string. Fully-qualified paths are interned in a bounded cache, so
+     * that the same key string used repeatedly is only parsed once.
+     *
+     * @param key     A fully-qualified key string such as 'a/b[0]/c'.
+     * @param literal If true, the key will be treated as a literal key, rather than potentially as a
+     *                fully-qualified key.
+     * @return        A compiled path for the given key string.
+     */
+    public static IDataKeyPath compile(String key, boolean literal) {
+        if (key == null) return null;
+        if (literal) return new IDataKeyPath(key, true);
+
+        IDataKeyPath path = CACHE.get(key);
+        if (path == null) {
+            path = new IDataKeyPath(key, false);
+            IDataKeyPath existing = CACHE.putIfAbsent(key, path);
+            if (existing != null) path = existing;
+        }
+        return path;
+    }
+
+    /**
+     * Returns the key string this path was compiled from.
+     *
+     * @return The key string this path was compiled from.
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Returns true if the key string was treated as a literal key.
+     *
+     * @return True if the key string was treated as a literal key.
+     */
+    public boolean isLiteral() {
+        return literal;
+    }
+
+    /**
+     * Returns true if this path is considered fully-qualified (because it contains either an array index, key index,
+     * or path separated components).
+     *
+     * @return True if this path is considered fully-qualified.
+     */
+    public boolean isFullyQualified() {
+        return fullyQualified;
+    }
+
+    /**
+     * Returns the number of individual key parts in this path.
+     *
+     * @return The number of individual key parts in this path.
+     */
+    public int length() {
+        return parts.length;
+    }
+
+    /**
+     * Returns a new IDataKey for this path.
+     *
+     * @return A new IDataKey for this path.
+     */
+    public IDataKey toKey() {
+        return new IDataKey(parts);
+    }
+
+    /**
+     * Returns the value associated with this path in the given IData document. Unlike
+     * {@link IDataHelper#get(IData, String)}, XPath expressions against nodes are not resolved.
+     *
+     * @param document An IData document.
+     * @return         The value associated with this path in the given IData document.
+     */
+    public Object get(IData document) {
+        return get(document, Object.class);
+    }
+
+    /**
+     * Returns the value associated with this path in the given IData document. Unlike
+     * {@link IDataHelper#get(IData, String)}, XPath expressions against nodes are not resolved.
+     *
+     * @param document An IData document.
+     * @param klass    The class of the value to be returned.
+     * @param <T>      The type of value to be returned.
+     * @return         The value associated with this path in the given IData document, or null if the value is not
+     *                 an instance of the given class.
+     */
+    public <T> T get(IData document, Class<T> klass) {
+        return IDataHelper.get(document, this, klass);
+    }
+
+    /**
+     * Returns true if this path exists in the given IData document.
+     *
+     * @param document An IData document.
+     * @return         True if this path exists in the given IData document.
+     */
+    public boolean exists(IData document) {
+        return IDataHelper.exists(document, this);
+    }
+
+    /**
+     * Returns the number of occurrences of this path in the given IData document.
+     *
+     * @param document An IData document.
+     * @return         The number of occurrences of this path in the given IData document.
+     */
+    public int size(IData document) {
+        return IDataHelper.size(document, this);
+    }
+
+    /**
+     * Sets the value associated with this path in the given IData document. Note that this method mutates the given
+     * IData document in place.
+     *
+     * @param document An IData document.
+     * @param value    The value to be set.
+     * @return         The given IData document with the value set, or a new IData document if the given document
+     *                 was null.
+     */
+    public IData put(IData document, Object value) {
+        return put(document, value, true);
+    }
+
+    /**
+     * Sets the value associated with this path in the given IData document. Note that this method mutates the given
+     * IData document in place.
+     *
+     * @param document    An IData document.
+     * @param value       The value to be set.
+     * @param includeNull When true the value is set even when null, otherwise the value is only set when it is not
+     *                    null.
+     * @return            The given IData document with the value set, or a new IData document if the given document
+     *                    was null.
+     */
+    public IData put(IData document, Object value, boolean includeNull) {
+        return IDataHelper.put(document, this, value, includeNull);
+    }
+
+    /**
+     * Removes the value associated with this path from the given IData document.
+     *
+     * @param document An IData document.
+     * @return         The given IData document.
+     */
+    public IData drop(IData document) {
+        return IDataHelper.drop(document, this);
+    }
+
+    /**
+     * Returns true if the given object is a path compiled from the same key string.
+     *
+     * @param other The object to compare with.
+     * @return      True if the given object is a path compiled from the same key string.
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) return true;
+        if (!(other instanceof IDataKeyPath)) return false;
+        IDataKeyPath path = (IDataKeyPath)other;
+        return literal == path.literal && key.equals(path.key);
+    }
+
+    /**
+     * Returns a hash code for this path.
+     *
+     * @return A hash code for this path.
+     */
+    @Override
+    public int hashCode() {
+        return key.hashCode() * 31 + (literal ? 1 : 0);
+    }
+
+    /**
+     * Returns the key string this path was compiled from.
+     *
+     * @return The key string this path was compiled from.
+     */
+    @Override
+    public String toString() {
+        return key;
+    }
+}
@@ -26,19 +26,29 @@ package permafrost.tundra.data;
 
 import com.wm.app.b2b.server.ServiceException;
 import com.wm.data.IData;
+import com.wm.data.IDataCursor;
 import com.wm.util.coder.IDataXMLCoder;
 import com.wm.util.coder.XMLCoder;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
 import permafrost.tundra.io.CloseableHelper;
-import permafrost.tundra.io.InputStreamHelper;
+import permafrost.tundra.io.ReaderHelper;
+import permafrost.tundra.io.RecordingInputStream;
 import permafrost.tundra.lang.CharsetHelper;
-import permafrost.tundra.xml.dom.DocumentHelper;
-import permafrost.tundra.xml.dom.NodeHelper;
+import permafrost.tundra.lang.CloseableIterator;
+import permafrost.tundra.lang.ExceptionHelper;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.Reader;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 /**
  * Deserializes and serializes IData objects from and to XML.
@@ -54,6 +64,20 @@ public final class IDataXMLParser extends IDataParser {
      */
     private static final String IDATA_XML_ROOT_NODE_NAME = "IDataXMLCoder";
 
+    /**
+     * The factory used to create streaming XML readers, which is not namespace aware so that element and attribute
+     * names are returned as qualified in the XML content, consistent with the DOM-based NodeHelper.parse, and which
+     * does not process DTDs or external entities, so that parsed content cannot read local files or remote resources.
+     */
+    private static final XMLInputFactory XML_INPUT_FACTORY = XMLInputFactory.newInstance();
+
+    static {
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.FALSE);
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_REPLACING_ENTITY_REFERENCES, Boolean.TRUE);
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+    }
+
     /**
      * Construct a new IDataXMLParser.
      */
@@ -72,39 +96,203 @@ public final class IDataXMLParser extends IDataParser {
      */
     @Override
     public IData parse(InputStream inputStream, Charset charset) throws IOException, ServiceException {
-        // convert inputStream to resettable ByteArrayInputStream
-        inputStream = InputStreamHelper.memoize(inputStream);
+        // record the bytes read while peeking the root element, so they can be replayed to the webMethods coders
+        RecordingInputStream recordingStream = new RecordingInputStream(inputStream);
+        XMLStreamReader reader = null;
         IData output = null;
 
         try {
-            Document document = DocumentHelper.parse(inputStream, charset, false);
-            String rootNodeName = null;
-
-            if (document != null) {
-                Element rootNode = document.getDocumentElement();
-                if (rootNode != null) {
-                    rootNodeName = rootNode.getNodeName();
-                }
-            }
+            reader = createReader(recordingStream, charset);
+            String rootNodeName = seekElement(reader, null);
 
             if (rootNodeName != null && rootNodeName.equals(IDATA_XML_ROOT_NODE_NAME)) {
                 IDataXMLCoder parser = new IDataXMLCoder(CharsetHelper.normalize(charset).displayName());
-                inputStream.reset();
-                output = parser.decode(inputStream);
+                output = parser.decode(recordingStream.replay());
             } else if (rootNodeName != null && rootNodeName.equals(VALUES_XML_ROOT_NODE_NAME)) {
                 XMLCoder parser = new XMLCoder(true);
-                inputStream.reset();
-                output = parser.decode(inputStream);
-            } else if (document != null) {
-               output = NodeHelper.parse(document);
+                output = parser.decode(recordingStream.replay());
+            } else if (rootNodeName != null) {
+                recordingStream.stop();
+                IDataMap document = new IDataMap();
+                document.put(rootNodeName, toIData(readElement(reader)), false);
+                output = document;
             }
+        } catch (XMLStreamException ex) {
+            ExceptionHelper.raise(ex);
         } finally {
+            close(reader);
+            CloseableHelper.close(recordingStream);
+        }
+
+        return output;
+    }
+
+    /**
+     * Returns an iterator over every element with the given qualified name in the XML content read from the given
+     * input stream, in document order. Each element is parsed to IData in a single pass as it is requested, and all
+     * other content is skipped without being materialized, so that large batches of repeating elements can be
+     * processed in bounded memory. Matching elements nested within another matching element are returned as part of
+     * the outer element. The given stream is closed when the iterator is exhausted or closed.
+     *
+     * @param inputStream       The input stream to be decoded.
+     * @param charset           The character set to use.
+     * @param elementName       The qualified name of the repeating element to be returned.
+     * @return                  An iterator over IData representations of the matching elements.
+     * @throws IOException      If there is a problem reading from the stream.
+     * @throws ServiceException If the XML reader could not be created.
+     */
+    public CloseableIterator<IData> iterate(InputStream inputStream, Charset charset, String elementName) throws IOException, ServiceException {
+        if (inputStream == null) return null;
+        if (elementName == null) throw new NullPointerException("elementName must not be null");
+
+        try {
+            return new ElementIterator(createReader(inputStream, charset), inputStream, elementName);
+        } catch (XMLStreamException ex) {
             CloseableHelper.close(inputStream);
+            ExceptionHelper.raise(ex);
+            return null;
+        }
+    }
+
+    /**
+     * Returns a new streaming XML reader for the given input stream.
+     *
+     * @param inputStream           The input stream to be read.
+     * @param charset               The character set to use.
+     * @return                      A new streaming XML reader.
+     * @throws XMLStreamException   If the reader could not be created.
+     */
+    private static XMLStreamReader createReader(InputStream inputStream, Charset charset) throws XMLStreamException {
+        Reader reader = ReaderHelper.normalize(inputStream, CharsetHelper.normalize(charset));
+        return XML_INPUT_FACTORY.createXMLStreamReader(reader);
+    }
+
+    /**
+     * Closes the given streaming XML reader, ignoring any errors.
+     *
+     * @param reader The reader to be closed.
+     */
+    private static void close(XMLStreamReader reader) {
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (XMLStreamException ex) {
+                // do nothing
+            }
+        }
+    }
+
+    /**
+     * Advances the given reader to the start of the next element with the given qualified name.
+     *
+     * @param reader                The reader to advance.
+     * @param elementName           The qualified name of the element to seek, or null to seek the next element.
+     * @return                      The qualified name of the element found, or null if the end of the document was
+     *                              reached.
+     * @throws XMLStreamException   If an XML parsing error occurs.
+     */
+    private static String seekElement(XMLStreamReader reader, String elementName) throws XMLStreamException {
+        while (reader.hasNext()) {
+            if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+                String name = getName(reader.getPrefix(), reader.getLocalName());
+                if (elementName == null || elementName.equals(name)) return name;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the qualified name for the given prefix and local name.
+     *
+     * @param prefix    The prefix, if any.
+     * @param localName The local name.
+     * @return          The qualified name.
+     */
+    private static String getName(String prefix, String localName) {
+        if (prefix == null || prefix.length() == 0 || localName.indexOf(':') >= 0) return localName;
+        return prefix + ":" + localName;
+    }
+
+    /**
+     * Reads the element the given reader is positioned at, through to its end, and returns the same representation
+     * as NodeHelper.parse: an IData document containing the element's attributes (prefixed with "@", and sorted by
+     * name as they are in a DOM), its text content (as "*body"), and its child elements, if it has any attributes or
+     * child elements, otherwise its text content.
+     *
+     * @param reader                The reader positioned at the START_ELEMENT event of the element to be read.
+     * @return                      An IData document or String representing the element.
+     * @throws XMLStreamException   If an XML parsing error occurs.
+     */
+    private static Object readElement(XMLStreamReader reader) throws XMLStreamException {
+        Map<String, String> attributes = null;
+        int attributeCount = reader.getAttributeCount();
+        if (attributeCount > 0) {
+            attributes = new TreeMap<String, String>();
+            for (int i = 0; i < attributeCount; i++) {
+                attributes.put(getName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i)), reader.getAttributeValue(i));
+            }
+        }
+
+        StringBuilder text = null;
+        List<String> childNames = null;
+        List<Object> childValues = null;
+
+        while (true) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                if (childNames == null) {
+                    childNames = new ArrayList<String>();
+                    childValues = new ArrayList<Object>();
+                }
+                childNames.add(getName(reader.getPrefix(), reader.getLocalName()));
+                childValues.add(readElement(reader));
+            } else if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA || event == XMLStreamConstants.SPACE) {
+                if (text == null) text = new StringBuilder();
+                text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                break;
+            }
+        }
+
+        String content = text == null ? null : text.toString();
+        if (childNames != null && content != null && content.trim().equals("")) content = null;
+
+        if (attributes == null && childNames == null) return content;
+
+        IDataMap output = new IDataMap();
+        if (attributes != null) {
+            for (Map.Entry<String, String> attribute : attributes.entrySet()) {
+                output.put("@" + attribute.getKey(), attribute.getValue(), false);
+            }
+        }
+
+        output.put("*body", content, false);
+
+        if (childNames != null) {
+            IDataCursor cursor = output.getCursor();
+            for (int i = 0; i < childNames.size(); i++) {
+                cursor.insertAfter(childNames.get(i), childValues.get(i));
+            }
+            cursor.destroy();
         }
 
         return output;
     }
 
+    /**
+     * Normalizes the representation of an element returned by readElement to an IData document.
+     *
+     * @param element   The element representation.
+     * @return          The element as an IData document.
+     */
+    private static IData toIData(Object element) {
+        if (element instanceof IData) return (IData)element;
+
+        IDataMap output = new IDataMap();
+        output.put("*body", element, false);
+        return output;
+    }
+
     /**
      * Serializes the given IData document as XML to the given output stream.
      *
@@ -119,4 +307,102 @@ public final class IDataXMLParser extends IDataParser {
         IDataXMLCoder parser = new IDataXMLCoder(CharsetHelper.normalize(charset).displayName());
         parser.encode(outputStream, document);
     }
+
+    /**
+     * Iterates over every element with a given qualified name, parsing each element as it is requested.
+     */
+    private static class ElementIterator implements CloseableIterator<IData> {
+        /**
+         * The reader being read from.
+         */
+        private final XMLStreamReader reader;
+        /**
+         * The stream being read from.
+         */
+        private final InputStream inputStream;
+        /**
+         * The qualified name of the elements to be returned.
+         */
+        private final String elementName;
+        /**
+         * Whether the reader is positioned at the start of the next matching element.
+         */
+        private boolean positioned;
+        /**
+         * Whether this iterator has been closed.
+         */
+        private boolean closed;
+
+        /**
+         * Constructs a new ElementIterator.
+         *
+         * @param reader        The reader to read from.
+         * @param inputStream   The stream being read from.
+         * @param elementName   The qualified name of the elements to be returned.
+         */
+        ElementIterator(XMLStreamReader reader, InputStream inputStream, String elementName) {
+            this.reader = reader;
+            this.inputStream = inputStream;
+            this.elementName = elementName;
+        }
+
+        /**
+         * Returns true if there are more matching elements.
+         *
+         * @return True if there are more matching elements.
+         */
+        @Override
+        public boolean hasNext() {
+            if (!positioned && !closed) {
+                try {
+                    positioned = seekElement(reader, elementName) != null;
+                } catch (XMLStreamException ex) {
+                    close();
+                    throw new RuntimeException(ex);
+                }
+                if (!positioned) close();
+            }
+            return positioned;
+        }
+
+        /**
+         * Returns the next matching element as an IData document.
+         *
+         * @return The next matching element as an IData document.
+         * @throws NoSuchElementException If there are no more matching elements.
+         */
+        @Override
+        public IData next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            positioned = false;
+            try {
+                return toIData(readElement(reader));
+            } catch (XMLStreamException ex) {
+                close();
+                throw new RuntimeException(ex);
+            }
+        }
+
+        /**
+         * Removing elements is not supported.
+         *
+         * @throws UnsupportedOperationException This method is not implemented by this class.
+         */
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("remove method is not supported");
+        }
+
+        /**
+         * Closes the underlying reader and stream.
+         */
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                IDataXMLParser.close(reader);
+                CloseableHelper.close(inputStream);
+            }
+        }
+    }
 }
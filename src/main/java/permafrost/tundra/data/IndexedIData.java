@@ -0,0 +1,777 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2026 Lachlan Dowding
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package permafrost.tundra.data;
+
+import com.wm.data.DataException;
+import com.wm.data.IData;
+import com.wm.data.IDataCursor;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An IData implementation for large documents, such as lookup tables with thousands of top-level keys, which
+ * preserves insertion order and duplicate keys like other IData implementations, but maintains a hash index from
+ * each key to its elements, so that keyed cursor lookups do not have to scan every element.
+ *
+ * The index is built lazily on the first keyed lookup once the document reaches the indexing threshold, and is then
+ * maintained as elements are inserted, removed, or renamed. Each indexed element records its own position, so
+ * inserting or removing an element renumbers only the elements which follow it, in a single pass over the element
+ * array like the one the array itself makes to shift them, rather than rebuilding the index. Cursors remain positioned
+ * on their current element when the document is modified through other cursors, and use the recorded position to find
+ * it again. Like other IData implementations, this class is not thread-safe.
+ */
+public class IndexedIData extends AbstractIData implements Serializable {
+    /**
+     * The serialization identity of this class version.
+     */
+    private static final long serialVersionUID = 1;
+    /**
+     * The minimum number of elements before keyed lookups use the hash index rather than a linear scan.
+     */
+    public static final int DEFAULT_INDEX_THRESHOLD = 16;
+    /**
+     * The elements of this document in order.
+     */
+    protected final List<IndexedElement> elements;
+    /**
+     * The elements associated with each key in ascending position order, or null if the index needs to be built.
+     */
+    protected transient Map<String, Positions> index;
+    /**
+     * The number of structural modifications made to this document, used by cursors to detect insertions and
+     * deletions made by other cursors.
+     */
+    protected transient int modifications;
+
+    /**
+     * Constructs a new empty IndexedIData.
+     */
+    public IndexedIData() {
+        this(10);
+    }
+
+    /**
+     * Constructs a new empty IndexedIData.
+     *
+     * @param capacity  The initial number of elements the document can hold before it needs to grow.
+     */
+    public IndexedIData(int capacity) {
+        elements = new ArrayList<IndexedElement>(capacity);
+    }
+
+    /**
+     * Constructs a new IndexedIData seeded with a shallow copy of the elements in the given IData document.
+     *
+     * @param document  The IData document to seed the IndexedIData with.
+     */
+    public IndexedIData(IData document) {
+        this();
+        if (document != null) {
+            IDataCursor cursor = document.getCursor();
+            try {
+                while (cursor.next()) {
+                    insert(elements.size(), cursor.getKey(), cursor.getValue());
+                }
+            } finally {
+                cursor.destroy();
+            }
+        }
+    }
+
+    /**
+     * Returns a new IndexedIData seeded with a shallow copy of the elements in the given IData document.
+     *
+     * @param document  The IData document to seed the IndexedIData with.
+     * @return          A new IndexedIData seeded with the elements in the given IData document.
+     */
+    public static IndexedIData of(IData document) {
+        return new IndexedIData(document);
+    }
+
+    /**
+     * Static factory method used by IData XML deserialization.
+     *
+     * @return A new IndexedIData instance.
+     */
+    public static IData create() {
+        return new IndexedIData();
+    }
+
+    /**
+     * Returns the number of elements in this document.
+     *
+     * @return The number of elements in this document.
+     */
+    public int size() {
+        return elements.size();
+    }
+
+    /**
+     * Returns an IDataCursor for this IData object. An IDataCursor contains the basic methods you use to traverse an
+     * IData object and get or set elements within it.
+     *
+     * @return An IDataCursor for this object.
+     */
+    @Override
+    public IDataCursor getCursor() {
+        return new IndexedIDataCursor(-1, null, null);
+    }
+
+    /**
+     * Inserts a new element at the given position.
+     *
+     * @param position  The position to insert the element at.
+     * @param key       The key of the new element.
+     * @param value     The value of the new element.
+     * @return          The new element.
+     */
+    protected Element<String, Object> insert(int position, String key, Object value) {
+        IndexedElement element = new IndexedElement(key, value);
+        elements.add(position, element);
+        modifications++;
+
+        if (index != null) {
+            renumber(position);
+            Positions positions = index.get(key);
+            if (positions == null) {
+                positions = new Positions();
+                index.put(key, positions);
+            }
+            positions.insert(element);
+        }
+
+        return element;
+    }
+
+    /**
+     * Removes the element at the given position.
+     *
+     * @param position  The position of the element to be removed.
+     */
+    protected void delete(int position) {
+        IndexedElement element = elements.remove(position);
+        modifications++;
+
+        if (index != null) {
+            // the element is removed from its key's positions before the following elements are renumbered, while
+            // all recorded positions are still consistent with each other
+            Positions positions = index.get(element.getKey());
+            positions.remove(element);
+            if (positions.size == 0) index.remove(element.getKey());
+            renumber(position);
+        }
+    }
+
+    /**
+     * Changes the key of the element at the given position.
+     *
+     * @param position  The position of the element to be renamed.
+     * @param key       The new key.
+     */
+    protected void rename(int position, String key) {
+        IndexedElement element = elements.get(position);
+        String oldKey = element.setKey(key);
+
+        if (index != null) {
+            Positions positions = index.get(oldKey);
+            positions.remove(element);
+            if (positions.size == 0) index.remove(oldKey);
+
+            positions = index.get(key);
+            if (positions == null) {
+                positions = new Positions();
+                index.put(key, positions);
+            }
+            positions.insert(element);
+        }
+    }
+
+    /**
+     * Records the current position of each element from the given position to the end of the document.
+     *
+     * @param position  The position of the first element to be renumbered.
+     */
+    protected void renumber(int position) {
+        for (int size = elements.size(); position < size; position++) {
+            elements.get(position).position = position;
+        }
+    }
+
+    /**
+     * Returns the hash index of this document, building it if required, or null if the document is too small to
+     * benefit from an index.
+     *
+     * @return The hash index of this document, or null if the document is not indexed.
+     */
+    protected Map<String, Positions> index() {
+        int size = elements.size();
+
+        if (index == null && size >= DEFAULT_INDEX_THRESHOLD) {
+            renumber(0);
+            index = new HashMap<String, Positions>((int)(size / 0.75f) + 1);
+            for (IndexedElement element : elements) {
+                Positions positions = index.get(element.getKey());
+                if (positions == null) {
+                    positions = new Positions();
+                    index.put(element.getKey(), positions);
+                }
+                positions.add(element);
+            }
+        }
+
+        return index;
+    }
+
+    /**
+     * Returns the current position of the given element.
+     *
+     * @param element   The element to be located.
+     * @return          The current position of the element, or -1 if it is no longer in this document.
+     */
+    protected int locate(Element<String, Object> element) {
+        int size = elements.size();
+
+        if (index() != null) {
+            int position = ((IndexedElement)element).position;
+            return position < size && elements.get(position) == element ? position : -1;
+        }
+
+        for (int i = 0; i < size; i++) {
+            if (elements.get(i) == element) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the position of the nearest element with the given key after or before the given position.
+     *
+     * @param key       The key to search for.
+     * @param position  The position to search from, exclusive.
+     * @param forward   If true, searches for the next element after the given position, otherwise searches for the
+     *                  previous element before the given position.
+     * @return          The position of the element found, or -1 if there is no such element.
+     */
+    protected int find(String key, int position, boolean forward) {
+        int size = elements.size();
+        Map<String, Positions> index = index();
+
+        if (index != null) {
+            Positions positions = index.get(key);
+            return positions == null ? -1 : (forward ? positions.after(position) : positions.before(position));
+        }
+
+        if (forward) {
+            for (int i = position + 1; i < size; i++) {
+                if (elements.get(i).keyEquals(key)) return i;
+            }
+        } else {
+            for (int i = Math.min(position, size) - 1; i >= 0; i--) {
+                if (elements.get(i).keyEquals(key)) return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * An element which records its own position in the document while the document is indexed.
+     */
+    protected static class IndexedElement extends Element<String, Object> {
+        /**
+         * The serialization identity of this class version.
+         */
+        private static final long serialVersionUID = 1;
+        /**
+         * The position of this element in the document, which is only maintained while the document is indexed.
+         */
+        protected transient int position;
+
+        /**
+         * Constructs a new IndexedElement.
+         *
+         * @param key   The element's key.
+         * @param value The element's value.
+         */
+        public IndexedElement(String key, Object value) {
+            super(key, value);
+        }
+    }
+
+    /**
+     * The elements associated with a single key, in ascending position order.
+     */
+    protected static class Positions {
+        /**
+         * The elements, of which only the first size are used.
+         */
+        private IndexedElement[] values = new IndexedElement[2];
+        /**
+         * The number of elements.
+         */
+        private int size;
+
+        /**
+         * Appends an element, which must be positioned after all existing elements.
+         *
+         * @param element The element to be appended.
+         */
+        void add(IndexedElement element) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = element;
+        }
+
+        /**
+         * Inserts an element in ascending position order.
+         *
+         * @param element The element to be inserted.
+         */
+        void insert(IndexedElement element) {
+            int i = search(element.position);
+            i = i < 0 ? -(i + 1) : i;
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            System.arraycopy(values, i, values, i + 1, size - i);
+            values[i] = element;
+            size++;
+        }
+
+        /**
+         * Removes an element, if present.
+         *
+         * @param element The element to be removed.
+         */
+        void remove(IndexedElement element) {
+            int i = search(element.position);
+            if (i < 0 || values[i] != element) return;
+            System.arraycopy(values, i + 1, values, i, size - i - 1);
+            values[--size] = null;
+        }
+
+        /**
+         * Returns the first position greater than the given position.
+         *
+         * @param position  The position to search from.
+         * @return          The first position greater than the given position, or -1 if there is none.
+         */
+        int after(int position) {
+            int i = search(position);
+            i = i < 0 ? -(i + 1) : i + 1;
+            return i < size ? values[i].position : -1;
+        }
+
+        /**
+         * Returns the last position less than the given position.
+         *
+         * @param position  The position to search from.
+         * @return          The last position less than the given position, or -1 if there is none.
+         */
+        int before(int position) {
+            int i = search(position);
+            i = (i < 0 ? -(i + 1) : i) - 1;
+            return i >= 0 ? values[i].position : -1;
+        }
+
+        /**
+         * Searches for the element at the given position, with the same result as Arrays.binarySearch.
+         *
+         * @param position  The position to search for.
+         * @return          The index of the element at the given position, or if there is none, (-(insertion point)
+         *                  - 1).
+         */
+        private int search(int position) {
+            int low = 0, high = size - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int value = values[middle].position;
+                if (value < position) {
+                    low = middle + 1;
+                } else if (value > position) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -(low + 1);
+        }
+    }
+
+    /**
+     * IDataCursor implementation for an IndexedIData object.
+     */
+    protected class IndexedIDataCursor implements IDataCursor {
+        /**
+         * The position of the cursor's current element, or when there is no current element, the position of the
+         * element before the cursor, which is -1 when the cursor is before the first element.
+         */
+        protected int position;
+        /**
+         * The element at the cursor's current position, or null if the cursor is not positioned on an element.
+         */
+        protected Element<String, Object> element;
+        /**
+         * When the cursor is not positioned on an element, the element before the cursor, or null if the cursor is
+         * before the first element.
+         */
+        protected Element<String, Object> anchor;
+        /**
+         * The document's modification count when this cursor's position was last known to be correct.
+         */
+        protected int expectedModifications;
+
+        /**
+         * Constructs a new cursor.
+         *
+         * @param position  The initial position of the cursor.
+         * @param element   The element at the initial position of the cursor, or null if not positioned on an element.
+         * @param anchor    The element before the cursor, if not positioned on an element.
+         */
+        protected IndexedIDataCursor(int position, Element<String, Object> element, Element<String, Object> anchor) {
+            this.position = position;
+            this.element = element;
+            this.anchor = anchor;
+            this.expectedModifications = modifications;
+        }
+
+        /**
+         * Repositions this cursor relative to its current element, or the element before it, if elements have been
+         * inserted or removed by other cursors since it was last used.
+         */
+        protected void synchronize() {
+            if (expectedModifications != modifications) {
+                Element<String, Object> target = element == null ? anchor : element;
+                if (target == null) {
+                    position = -1;
+                } else {
+                    int found = locate(target);
+                    if (found >= 0) {
+                        position = found;
+                    } else {
+                        // the element was removed, so position the cursor where it was
+                        gap(Math.min(position, elements.size()) - 1);
+                    }
+                }
+                expectedModifications = modifications;
+            }
+        }
+
+        /**
+         * Positions this cursor on the element at the given position, or if there is no such element, before the
+         * first element or after the last element.
+         *
+         * @param position  The position to move to.
+         * @return          True if the cursor was positioned on an element.
+         */
+        protected boolean move(int position) {
+            int size = elements.size();
+            if (position >= 0 && position < size) {
+                this.position = position;
+                this.element = elements.get(position);
+                this.anchor = null;
+            } else {
+                gap(position < 0 ? -1 : size - 1);
+            }
+            return element != null;
+        }
+
+        /**
+         * Positions this cursor between the element at the given position and the element after it.
+         *
+         * @param position  The position of the element before the cursor, or -1 for before the first element.
+         */
+        protected void gap(int position) {
+            this.position = position;
+            this.element = null;
+            this.anchor = position >= 0 ? elements.get(position) : null;
+        }
+
+        /**
+         * Not implemented, does nothing.
+         *
+         * @param mode Not used.
+         */
+        public void setErrorMode(int mode) {}
+
+        /**
+         * Not implemented, does nothing.
+         *
+         * @return Null.
+         */
+        public DataException getLastError() {
+            return null;
+        }
+
+        /**
+         * Not implemented, does nothing.
+         *
+         * @return False.
+         */
+        public boolean hasMoreErrors() {
+            return false;
+        }
+
+        /**
+         * Resets this cursor to before the first element.
+         */
+        public void home() {
+            move(-1);
+            expectedModifications = modifications;
+        }
+
+        /**
+         * Returns the key at the cursor's current position.
+         *
+         * @return The key at the cursor's current position.
+         */
+        public String getKey() {
+            synchronize();
+            return element == null ? null : element.getKey();
+        }
+
+        /**
+         * Sets the key at the cursor's current position.
+         *
+         * @param key The key to be set.
+         */
+        public void setKey(String key) {
+            synchronize();
+            if (element != null) rename(position, key);
+        }
+
+        /**
+         * Returns the value at the cursor's current position.
+         *
+         * @return The value at the cursor's current position.
+         */
+        public Object getValue() {
+            synchronize();
+            return element == null ? null : element.getValue();
+        }
+
+        /**
+         * Sets the value at the cursor's current position.
+         *
+         * @param value The value to be set.
+         */
+        public void setValue(Object value) {
+            synchronize();
+            if (element != null) element.setValue(value);
+        }
+
+        /**
+         * Deletes the element at the cursor's current position. The cursor is then positioned between the elements
+         * either side of the deleted element, so that next() moves to the element after it.
+         *
+         * @return True if the element was deleted.
+         */
+        public boolean delete() {
+            synchronize();
+            if (element == null) return false;
+
+            IndexedIData.this.delete(position);
+            gap(position - 1);
+            expectedModifications = modifications;
+            return true;
+        }
+
+        /**
+         * Inserts the key value pair before the cursor's current position, and positions the cursor on the inserted
+         * element.
+         *
+         * @param key               The key to be inserted.
+         * @param value             The value to be inserted.
+         */
+        public void insertBefore(String key, Object value) {
+            synchronize();
+            insertAt(element == null ? position + 1 : position, key, value);
+        }
+
+        /**
+         * Inserts the key value pair after the cursor's current position, and positions the cursor on the inserted
+         * element.
+         *
+         * @param key               The key to be inserted.
+         * @param value             The value to be inserted.
+         */
+        public void insertAfter(String key, Object value) {
+            synchronize();
+            insertAt(position + 1, key, value);
+        }
+
+        /**
+         * Inserts the key value pair at the given position, and positions the cursor on the inserted element.
+         *
+         * @param position          The position to insert the element at.
+         * @param key               The key to be inserted.
+         * @param value             The value to be inserted.
+         */
+        private void insertAt(int position, String key, Object value) {
+            this.position = Math.max(0, Math.min(position, elements.size()));
+            this.element = insert(this.position, key, value);
+            this.anchor = null;
+            this.expectedModifications = modifications;
+        }
+
+        /**
+         * Inserts the key with a new IData document before the cursor's current position.
+         *
+         * @param key               The key to be inserted.
+         * @return                  The new IData document inserted.
+         */
+        public IData insertDataBefore(String key) {
+            IData data = new IndexedIData();
+            insertBefore(key, data);
+            return data;
+        }
+
+        /**
+         * Inserts the key with a new IData document after the cursor's current position.
+         *
+         * @param key               The key to be inserted.
+         * @return                  The new IData document inserted.
+         */
+        public IData insertDataAfter(String key) {
+            IData data = new IndexedIData();
+            insertAfter(key, data);
+            return data;
+        }
+
+        /**
+         * Repositions this cursor on the next element.
+         *
+         * @return    True if the cursor was repositioned.
+         */
+        public boolean next() {
+            synchronize();
+            return move(position + 1);
+        }
+
+        /**
+         * Repositions this cursor on the next occurrence of the given key.
+         *
+         * @param key The key to reposition the cursor to.
+         * @return    True if the key existed and the cursor was repositioned.
+         */
+        public boolean next(String key) {
+            synchronize();
+            int found = find(key, position, true);
+            return move(found < 0 ? elements.size() : found);
+        }
+
+        /**
+         * Repositions this cursor on the previous element.
+         *
+         * @return    True if the cursor was repositioned.
+         */
+        public boolean previous() {
+            synchronize();
+            return move(element == null ? position : position - 1);
+        }
+
+        /**
+         * Repositions this cursor on the previous occurrence of the given key.
+         *
+         * @param key The key to reposition the cursor to.
+         * @return    True if the key existed and the cursor was repositioned.
+         */
+        public boolean previous(String key) {
+            synchronize();
+            return move(find(key, element == null ? position + 1 : position, false));
+        }
+
+        /**
+         * Repositions this cursor on the first element.
+         *
+         * @return    True if the cursor was repositioned.
+         */
+        public boolean first() {
+            home();
+            return next();
+        }
+
+        /**
+         * Repositions this cursor on the first occurrence of the given key.
+         *
+         * @param key The key to reposition the cursor to.
+         * @return    True if the key existed and the cursor was repositioned.
+         */
+        public boolean first(String key) {
+            home();
+            return next(key);
+        }
+
+        /**
+         * Repositions this cursor on the last element.
+         *
+         * @return    True if the cursor was repositioned.
+         */
+        public boolean last() {
+            move(elements.size());
+            expectedModifications = modifications;
+            return previous();
+        }
+
+        /**
+         * Repositions this cursor on the last occurrence of the given key.
+         *
+         * @param key The key to reposition the cursor to.
+         * @return    True if the key existed and the cursor was repositioned.
+         */
+        public boolean last(String key) {
+            move(elements.size());
+            expectedModifications = modifications;
+            return previous(key);
+        }
+
+        /**
+         * Returns true if this cursor has more data to be iterated over.
+         *
+         * @return True if this cursor has more data to be iterated over.
+         */
+        public boolean hasMoreData() {
+            synchronize();
+            return position + 1 < elements.size();
+        }
+
+        /**
+         * Destroys this cursor.
+         */
+        public void destroy() {
+            element = null;
+            anchor = null;
+        }
+
+        /**
+         * Returns a clone of this cursor.
+         *
+         * @return A clone of this cursor.
+         */
+        public IDataCursor getCursorClone() {
+            synchronize();
+            return new IndexedIDataCursor(position, element, anchor);
+        }
+    }
+}
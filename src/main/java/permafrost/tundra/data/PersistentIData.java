@@ -0,0 +1,732 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2026 Lachlan Dowding
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package permafrost.tundra.data;
+
+import com.wm.data.DataException;
+import com.wm.data.IData;
+import com.wm.data.IDataCursor;
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * A persistent IData implementation, whose elements are held in an array node that is shared between a document and
+ * its duplicates rather than copied, which makes duplicate() a constant time operation for documents whose nested
+ * documents have not been set or read since they were last duplicated.
+ *
+ * A document only modifies a node in place when it has exclusive ownership of it: the first modification after a
+ * duplicate copies the node, and nested IData documents and IData[] document lists are in turn duplicated when they
+ * are first read from a shared node. A modification to a nested document therefore only copies the nodes on the path
+ * from the top-level document down to the changed key, and all other nodes remain shared.
+ *
+ * Nested documents which were set on or read from a document may still be referenced and modified by the caller, so
+ * they remain the document's own, and a duplicate is instead given snapshots of them, which copies the top-level node.
+ * Foreign IData documents are snapshotted in full, because unlike a PersistentIData they cannot be duplicated in
+ * constant time. Like other IData implementations, this class is not thread-safe, and because reads can detach
+ * nested documents this includes concurrent reads.
+ */
+public class PersistentIData extends AbstractIData implements Serializable {
+    /**
+     * The serialization identity of this class version.
+     */
+    private static final long serialVersionUID = 1;
+    /**
+     * The default initial capacity of a new document.
+     */
+    private static final int DEFAULT_CAPACITY = 10;
+    /**
+     * The node holding the elements of this document.
+     */
+    protected Node root;
+    /**
+     * The token identifying the nodes this document has exclusive ownership of, or null if it does not yet own any.
+     */
+    protected transient Object edit;
+
+    /**
+     * Constructs a new empty PersistentIData.
+     */
+    public PersistentIData() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a new empty PersistentIData.
+     *
+     * @param capacity  The initial number of elements the document can hold before it needs to grow.
+     */
+    public PersistentIData(int capacity) {
+        root = new Node(edit(), capacity);
+    }
+
+    /**
+     * Constructs a new PersistentIData seeded with a snapshot of the elements in the given IData document, including
+     * its nested documents, so that subsequent changes to the given document are not visible through the snapshot.
+     *
+     * @param document  The IData document to seed the PersistentIData with.
+     */
+    public PersistentIData(IData document) {
+        this();
+        if (document instanceof PersistentIData) {
+            root = ((PersistentIData)document).share();
+        } else if (document != null) {
+            IDataCursor cursor = document.getCursor();
+            try {
+                while (cursor.next()) {
+                    root.insert(root.size, cursor.getKey(), snapshot(cursor.getValue()), false);
+                }
+            } finally {
+                cursor.destroy();
+            }
+        }
+    }
+
+    /**
+     * Constructs a new PersistentIData which shares the given node.
+     *
+     * @param root      The node to be shared.
+     */
+    protected PersistentIData(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * Returns a new PersistentIData representation of the given IData document.
+     *
+     * @param document  The IData document to be represented.
+     * @return          A duplicate of the given document if it is a PersistentIData, otherwise a new PersistentIData
+     *                  seeded with a snapshot of the elements in the given document.
+     */
+    public static PersistentIData of(IData document) {
+        if (document instanceof PersistentIData) {
+            return ((PersistentIData)document).duplicate();
+        } else {
+            return new PersistentIData(document);
+        }
+    }
+
+    /**
+     * Static factory method used by IData XML deserialization.
+     *
+     * @return A new PersistentIData instance.
+     */
+    public static IData create() {
+        return new PersistentIData();
+    }
+
+    /**
+     * Returns a duplicate of this document, which shares this document's node unless this document owns nested
+     * documents the caller may still reference. Neither document is affected by subsequent modifications to the
+     * other, including modifications to nested documents through references obtained before the duplicate was made.
+     *
+     * @return A duplicate of this document.
+     */
+    public PersistentIData duplicate() {
+        return new PersistentIData(share());
+    }
+
+    /**
+     * Returns a node holding this document's elements which can be shared with another document. If this document
+     * owns nested documents, which the caller may still reference and modify, the returned node is a copy holding
+     * snapshots of them, and this document keeps its own node. Otherwise this document relinquishes ownership of its
+     * node, so that it copies the node on its next modification, and returns it.
+     *
+     * @return A node holding this document's elements which can be shared with another document.
+     */
+    protected Node share() {
+        Node node = root;
+        if (edit != null && node.owner == edit) {
+            if (node.exposed()) return node.snapshot();
+            node.owner = null;
+        }
+        return node;
+    }
+
+    /**
+     * Returns the number of elements in this document.
+     *
+     * @return The number of elements in this document.
+     */
+    public int size() {
+        return root.size;
+    }
+
+    /**
+     * Returns an IDataCursor for this IData object. An IDataCursor contains the basic methods you use to traverse an
+     * IData object and get or set elements within it.
+     *
+     * @return An IDataCursor for this object.
+     */
+    @Override
+    public IDataCursor getCursor() {
+        return new PersistentIDataCursor(-1, false);
+    }
+
+    /**
+     * Returns the token identifying the nodes this document has exclusive ownership of.
+     *
+     * @return The token identifying the nodes this document has exclusive ownership of.
+     */
+    protected Object edit() {
+        if (edit == null) edit = new Object();
+        return edit;
+    }
+
+    /**
+     * Returns this document's root node, copying it first if this document does not have exclusive ownership of it.
+     *
+     * @return This document's root node, which can be modified in place.
+     */
+    protected Node editable() {
+        Object edit = edit();
+        if (root.owner != edit) root = root.copy(edit);
+        return root;
+    }
+
+    /**
+     * Appends the given element, whose value is not referenced outside of this document, so that it is shared
+     * rather than snapshotted when this document is duplicated, and is only duplicated when it is first read.
+     *
+     * @param key       The key of the element to be appended.
+     * @param value     The value of the element to be appended.
+     */
+    void append(String key, Object value) {
+        editable().insert(root.size, key, value, false);
+    }
+
+    /**
+     * Returns the value at the given position. If the value is a nested IData document or IData[] document list this
+     * document does not have exclusive ownership of, it is first replaced with a duplicate.
+     *
+     * @param position  The position of the value to be returned.
+     * @return          The value at the given position.
+     */
+    protected Object get(int position) {
+        Node node = root;
+        Object value = node.values[position];
+        if ((value instanceof IData || value instanceof IData[]) && (edit == null || node.owner != edit || !node.owned[position])) {
+            value = snapshot(value);
+            node = editable();
+            node.values[position] = value;
+            node.owned[position] = true;
+        }
+        return value;
+    }
+
+    /**
+     * Returns a snapshot of the given value, which is not affected by subsequent changes to the value.
+     *
+     * @param value Any value.
+     * @return      A snapshot of the given value if it is an IData document, a new IData[] document list containing
+     *              snapshots of the items if it is an IData[] document list, otherwise the given value itself.
+     */
+    private static Object snapshot(Object value) {
+        if (value instanceof IData) {
+            return snapshot((IData)value);
+        } else if (value instanceof IData[]) {
+            IData[] array = (IData[])value;
+            IData[] output = array instanceof CopyOnWriteIDataMap[] ? new CopyOnWriteIDataMap[array.length] : new IData[array.length];
+            for (int i = 0; i < array.length; i++) {
+                if (array[i] != null) output[i] = snapshot(array[i]);
+            }
+            return output;
+        } else {
+            return value;
+        }
+    }
+
+    /**
+     * Returns a snapshot of the given IData document which does not own its node, so that it is never modified in
+     * place, including when it is itself duplicated. A CopyOnWriteIDataMap is snapshotted by cloning it, which
+     * already copies on write.
+     *
+     * @param document  An IData document.
+     * @return          A snapshot of the given IData document.
+     */
+    private static IData snapshot(IData document) {
+        if (document instanceof PersistentIData) {
+            return ((PersistentIData)document).duplicate();
+        } else if (document instanceof CopyOnWriteIDataMap) {
+            return ((CopyOnWriteIDataMap)document).clone();
+        } else {
+            return new PersistentIData(document).duplicate();
+        }
+    }
+
+    /**
+     * An array of elements which is modified in place only by the document that owns it.
+     */
+    protected static class Node implements Serializable {
+        /**
+         * The serialization identity of this class version.
+         */
+        private static final long serialVersionUID = 1;
+        /**
+         * The token of the document which has exclusive ownership of this node, if any.
+         */
+        transient Object owner;
+        /**
+         * The keys of the elements, of which only the first size are used.
+         */
+        String[] keys;
+        /**
+         * The values of the elements, of which only the first size are used.
+         */
+        Object[] values;
+        /**
+         * Whether the nested document or document list value at each position is owned by this node rather than
+         * shared with other nodes.
+         */
+        boolean[] owned;
+        /**
+         * The number of elements.
+         */
+        int size;
+
+        /**
+         * Constructs a new empty node.
+         *
+         * @param owner     The token of the document which owns the node.
+         * @param capacity  The initial number of elements the node can hold before it needs to grow.
+         */
+        Node(Object owner, int capacity) {
+            this.owner = owner;
+            this.keys = new String[capacity];
+            this.values = new Object[capacity];
+            this.owned = new boolean[capacity];
+        }
+
+        /**
+         * Returns a copy of this node. The nested document and document list values of the copy are shared with this
+         * node.
+         *
+         * @param owner The token of the document which owns the copy.
+         * @return      A copy of this node.
+         */
+        Node copy(Object owner) {
+            Node copy = new Node(owner, Math.max(size, DEFAULT_CAPACITY));
+            System.arraycopy(keys, 0, copy.keys, 0, size);
+            System.arraycopy(values, 0, copy.values, 0, size);
+            copy.size = size;
+            return copy;
+        }
+
+        /**
+         * Returns true if this node owns any nested document or document list values, which may be referenced and
+         * modified outside of this node.
+         *
+         * @return True if this node owns any nested document or document list values.
+         */
+        boolean exposed() {
+            for (int i = 0; i < size; i++) {
+                if (owned[i] && (values[i] instanceof IData || values[i] instanceof IData[])) return true;
+            }
+            return false;
+        }
+
+        /**
+         * Returns a copy of this node owned by no document, in which the nested document and document list values
+         * owned by this node are replaced with snapshots, and all other values are shared with this node.
+         *
+         * @return A copy of this node which can be shared between documents.
+         */
+        Node snapshot() {
+            Node copy = copy(null);
+            for (int i = 0; i < size; i++) {
+                if (owned[i]) copy.values[i] = PersistentIData.snapshot(values[i]);
+            }
+            return copy;
+        }
+
+        /**
+         * Inserts a new element at the given position.
+         *
+         * @param position  The position to insert the element at.
+         * @param key       The key of the new element.
+         * @param value     The value of the new element.
+         * @param owned     Whether the value is owned by this node.
+         */
+        void insert(int position, String key, Object value, boolean owned) {
+            if (key == null) throw new NullPointerException("key must not be null");
+
+            if (size == keys.length) {
+                int capacity = Math.max(size * 2, DEFAULT_CAPACITY);
+                keys = Arrays.copyOf(keys, capacity);
+                values = Arrays.copyOf(values, capacity);
+                this.owned = Arrays.copyOf(this.owned, capacity);
+            }
+
+            int moved = size - position;
+            if (moved > 0) {
+                System.arraycopy(keys, position, keys, position + 1, moved);
+                System.arraycopy(values, position, values, position + 1, moved);
+                System.arraycopy(this.owned, position, this.owned, position + 1, moved);
+            }
+
+            keys[position] = key;
+            values[position] = value;
+            this.owned[position] = owned;
+            size++;
+        }
+
+        /**
+         * Removes the element at the given position.
+         *
+         * @param position  The position of the element to be removed.
+         */
+        void delete(int position) {
+            int moved = size - position - 1;
+            if (moved > 0) {
+                System.arraycopy(keys, position + 1, keys, position, moved);
+                System.arraycopy(values, position + 1, values, position, moved);
+                System.arraycopy(owned, position + 1, owned, position, moved);
+            }
+            size--;
+            keys[size] = null;
+            values[size] = null;
+            owned[size] = false;
+        }
+
+        /**
+         * Returns the position of the nearest element with the given key after or before the given position.
+         *
+         * @param key       The key to search for.
+         * @param position  The position to search from, exclusive.
+         * @param forward   If true, searches for the next element after the given position, otherwise searches for
+         *                  the previous element before the given position.
+         * @return          The position of the element found, or -1 if there is no such element.
+         */
+        int find(String key, int position, boolean forward) {
+            if (key != null) {
+                if (forward) {
+                    for (int i = position + 1; i < size; i++) {
+                        if (key.equals(keys[i])) return i;
+                    }
+                } else {
+                    for (int i = Math.min(position, size) - 1; i >= 0; i--) {
+                        if (key.equals(keys[i])) return i;
+                    }
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * IDataCursor implementation for a PersistentIData object.
+     */
+    protected class PersistentIDataCursor implements IDataCursor {
+        /**
+         * The position of the cursor's current element, or when there is no current element, the position of the
+         * element before the cursor, which is -1 when the cursor is before the first element.
+         */
+        protected int position;
+        /**
+         * Whether the cursor is positioned on an element.
+         */
+        protected boolean positioned;
+
+        /**
+         * Constructs a new cursor.
+         *
+         * @param position      The initial position of the cursor.
+         * @param positioned    Whether the cursor is initially positioned on an element.
+         */
+        protected PersistentIDataCursor(int position, boolean positioned) {
+            this.position = position;
+            this.positioned = positioned;
+        }
+
+        /**
+         * Returns true if the cursor is positioned on an element.
+         *
+         * @return True if the cursor is positioned on an element.
+         */
+        protected boolean current() {
+            return positioned && position < root.size;
+        }
+
+        /**
+         * Positions this cursor on the element at the given position, or if there is no such element, before the
+         * first element or after the last element.
+         *
+         * @param position  The position to move to.
+         * @return          True if the cursor was positioned on an element.
+         */
+        protected boolean move(int position) {
+            int size = root.size;
+            positioned = position >= 0 && position < size;
+            this.position = positioned ? position : (position < 0 ? -1 : size - 1);
+            return positioned;
+        }
+
+        /**
+         * Not implemented, does nothing.
+         *
+         * @param mode Not used.
+         */
+        public void setErrorMode(int mode) {}
+
+        /**
+         * Not implemented, does nothing.
+         *
+         * @return Null.
+         */
+        public DataException getLastError() {
+            return null;
+        }
+
+        /**
+         * Not implemented, does nothing.
+         *
+         * @return False.
+         */
+        public boolean hasMoreErrors() {
+            return false;
+        }
+
+        /**
+         * Resets this cursor to before the first element.
+         */
+        public void home() {
+            move(-1);
+        }
+
+        /**
+         * Returns the key at the cursor's current position.
+         *
+         * @return The key at the cursor's current position.
+         */
+        public String getKey() {
+            return current() ? root.keys[position] : null;
+        }
+
+        /**
+         * Sets the key at the cursor's current position.
+         *
+         * @param key The key to be set.
+         */
+        public void setKey(String key) {
+            if (key == null) throw new NullPointerException("key must not be null");
+            if (current()) editable().keys[position] = key;
+        }
+
+        /**
+         * Returns the value at the cursor's current position.
+         *
+         * @return The value at the cursor's current position.
+         */
+        public Object getValue() {
+            return current() ? get(position) : null;
+        }
+
+        /**
+         * Sets the value at the cursor's current position.
+         *
+         * @param value The value to be set.
+         */
+        public void setValue(Object value) {
+            if (current()) {
+                Node node = editable();
+                node.values[position] = value;
+                node.owned[position] = true;
+            }
+        }
+
+        /**
+         * Deletes the element at the cursor's current position. The cursor is then positioned between the elements
+         * either side of the deleted element, so that next() moves to the element after it.
+         *
+         * @return True if the element was deleted.
+         */
+        public boolean delete() {
+            if (!current()) return false;
+
+            editable().delete(position);
+            position--;
+            positioned = false;
+            return true;
+        }
+
+        /**
+         * Inserts the key value pair before the cursor's current position, and positions the cursor on the inserted
+         * element.
+         *
+         * @param key               The key to be inserted.
+         * @param value             The value to be inserted.
+         */
+        public void insertBefore(String key, Object value) {
+            insertAt(positioned ? position : position + 1, key, value);
+        }
+
+        /**
+         * Inserts the key value pair after the cursor's current position, and positions the cursor on the inserted
+         * element.
+         *
+         * @param key               The key to be inserted.
+         * @param value             The value to be inserted.
+         */
+        public void insertAfter(String key, Object value) {
+            insertAt(position + 1, key, value);
+        }
+
+        /**
+         * Inserts the key value pair at the given position, and positions the cursor on the inserted element.
+         *
+         * @param position          The position to insert the element at.
+         * @param key               The key to be inserted.
+         * @param value             The value to be inserted.
+         */
+        private void insertAt(int position, String key, Object value) {
+            Node node = editable();
+            this.position = Math.max(0, Math.min(position, node.size));
+            this.positioned = true;
+            node.insert(this.position, key, value, true);
+        }
+
+        /**
+         * Inserts the key with a new IData document before the cursor's current position.
+         *
+         * @param key               The key to be inserted.
+         * @return                  The new IData document inserted.
+         */
+        public IData insertDataBefore(String key) {
+            IData data = new PersistentIData();
+            insertBefore(key, data);
+            return data;
+        }
+
+        /**
+         * Inserts the key with a new IData document after the cursor's current position.
+         *
+         * @param key               The key to be inserted.
+         * @return                  The new IData document inserted.
+         */
+        public IData insertDataAfter(String key) {
+            IData data = new PersistentIData();
+            insertAfter(key, data);
+            return data;
+        }
+
+        /**
+         * Repositions this cursor on the next element.
+         *
+         * @return    True if the cursor was repositioned.
+         */
+        public boolean next() {
+            return move(position + 1);
+        }
+
+        /**
+         * Repositions this cursor on the next occurrence of the given key.
+         *
+         * @param key The key to reposition the cursor to.
+         * @return    True if the key existed and the cursor was repositioned.
+         */
+        public boolean next(String key) {
+            int found = root.find(key, position, true);
+            return move(found < 0 ? root.size : found);
+        }
+
+        /**
+         * Repositions this cursor on the previous element.
+         *
+         * @return    True if the cursor was repositioned.
+         */
+        public boolean previous() {
+            return move(positioned ? position - 1 : position);
+        }
+
+        /**
+         * Repositions this cursor on the previous occurrence of the given key.
+         *
+         * @param key The key to reposition the cursor to.
+         * @return    True if the key existed and the cursor was repositioned.
+         */
+        public boolean previous(String key) {
+            return move(root.find(key, positioned ? position : position + 1, false));
+        }
+
+        /**
+         * Repositions this cursor on the first element.
+         *
+         * @return    True if the cursor was repositioned.
+         */
+        public boolean first() {
+            return move(0);
+        }
+
+        /**
+         * Repositions this cursor on the first occurrence of the given key.
+         *
+         * @param key The key to reposition the cursor to.
+         * @return    True if the key existed and the cursor was repositioned.
+         */
+        public boolean first(String key) {
+            home();
+            return next(key);
+        }
+
+        /**
+         * Repositions this cursor on the last element.
+         *
+         * @return    True if the cursor was repositioned.
+         */
+        public boolean last() {
+            return move(root.size - 1);
+        }
+
+        /**
+         * Repositions this cursor on the last occurrence of the given key.
+         *
+         * @param key The key to reposition the cursor to.
+         * @return    True if the key existed and the cursor was repositioned.
+         */
+        public boolean last(String key) {
+            return move(root.find(key, root.size, false));
+        }
+
+        /**
+         * Returns true if this cursor has more data to be iterated over.
+         *
+         * @return True if this cursor has more data to be iterated over.
+         */
+        public boolean hasMoreData() {
+            return position + 1 < root.size;
+        }
+
+        /**
+         * Destroys this cursor.
+         */
+        public void destroy() {}
+
+        /**
+         * Returns a clone of this cursor.
+         *
+         * @return A clone of this cursor.
+         */
+        public IDataCursor getCursorClone() {
+            return new PersistentIDataCursor(position, positioned);
+        }
+    }
+}
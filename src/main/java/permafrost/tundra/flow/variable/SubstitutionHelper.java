@@ -40,9 +40,11 @@ import permafrost.tundra.lang.ObjectHelper;
 import permafrost.tundra.lang.StringHelper;
 import permafrost.tundra.net.uri.URIHelper;
 import permafrost.tundra.server.ServiceHelper;
-import permafrost.tundra.util.regex.ReplacementHelper;
+import permafrost.tundra.util.BoundedCache;
 import java.net.URISyntaxException;
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -54,6 +56,23 @@ public final class SubstitutionHelper {
      * A regular expression pattern for detecting variable substitution statements in strings.
      */
     private static final Pattern SUBSTITUTION_PATTERN = Pattern.compile("%([^%]+)%|\\{\\{\\s*((?!}})(.)+?)\\s*}}");
+    /**
+     * The maximum number of times a substitution result is itself substituted, which bounds variables that refer to
+     * themselves, such as a variable whose value is "x%a%" for key "a".
+     */
+    public static final int MAXIMUM_RECURSION_DEPTH = 64;
+    /**
+     * The maximum number of cached resolutions, after which the cache is cleared.
+     */
+    public static final int DEFAULT_RESOLUTION_CACHE_CAPACITY = 4096;
+    /**
+     * The cache of invoke and global variable resolutions keyed by variable key.
+     */
+    private static final BoundedCache<String, Resolution> RESOLUTION_CACHE = new BoundedCache<String, Resolution>(DEFAULT_RESOLUTION_CACHE_CAPACITY);
+    /**
+     * How long in milliseconds invoke and global variable resolutions are cached for, or 0 if they are not cached.
+     */
+    private static volatile long resolutionCacheDuration = 0;
 
     /**
      * Disallow instantiation of this class.
@@ -72,6 +91,38 @@ public final class SubstitutionHelper {
         return SUBSTITUTION_PATTERN.matcher(substitutionString);
     }
 
+    /**
+     * Returns how long in milliseconds invoke and global variable resolutions are cached for.
+     *
+     * @return How long in milliseconds invoke and global variable resolutions are cached for, or 0 if they are not
+     *         cached.
+     */
+    public static long getResolutionCacheDuration() {
+        return resolutionCacheDuration;
+    }
+
+    /**
+     * Sets how long in milliseconds "%invoke:...%" service invocation results and global variable values are cached
+     * for, so that substituting them repeatedly, such as across a large configuration document, does not invoke the
+     * service or look up the global variable every time. Cached invocation results are shared by all callers, and
+     * therefore must not be modified. Secure global variable values are never cached decrypted, and are decrypted
+     * every time they are substituted. Caching is disabled by default.
+     *
+     * @param duration How long in milliseconds resolutions are cached for, or 0 to disable caching.
+     */
+    public static void setResolutionCacheDuration(long duration) {
+        if (duration < 0) throw new IllegalArgumentException("duration must not be negative");
+        resolutionCacheDuration = duration;
+        if (duration == 0) RESOLUTION_CACHE.clear();
+    }
+
+    /**
+     * Removes all cached invoke and global variable resolutions.
+     */
+    public static void clearResolutionCache() {
+        RESOLUTION_CACHE.clear();
+    }
+
     /**
      * Performs variable substitution on the given string by replacing all occurrences of substrings matching "%key%"
      * with the associated value from the given scope; if the key has no value, the given defaultValue (if not null) is
@@ -86,33 +137,20 @@ public final class SubstitutionHelper {
      * @param <T>                The class of value to be returned.
      * @return                   The result of the variable substitution.
      */
-    @SuppressWarnings("unchecked")
     public static <T> T substitute(String substitutionString, Class<T> valueClass, Object defaultValue, SubstitutionType substitutionType, IData... scopes) {
         if (valueClass == null) throw new NullPointerException("valueClass must not be null");
         if (substitutionString == null || scopes == null || scopes.length == 0) return null;
 
-        Matcher matcher = matcher(substitutionString);
-        T output = null;
-
-        if (matcher.matches()) {
-            String percentDelimitedValue = matcher.group(1);
-            String braceDelimitedValue = matcher.group(2);
-            output = resolve(percentDelimitedValue == null ? braceDelimitedValue : percentDelimitedValue, valueClass, defaultValue == null ? matcher.group(0) : defaultValue, substitutionType, scopes);
-        } else if (valueClass.isAssignableFrom(String.class)) {
-            StringBuffer buffer = new StringBuffer();
-            matcher.reset();
-            while (matcher.find()) {
-                String percentDelimitedValue = matcher.group(1);
-                String braceDelimitedValue = matcher.group(2);
-                matcher.appendReplacement(buffer, ReplacementHelper.quote(resolve(percentDelimitedValue == null ? braceDelimitedValue : percentDelimitedValue, String.class, defaultValue == null ? matcher.group(0) : defaultValue, substitutionType, scopes)));
-            }
-            matcher.appendTail(buffer);
-            output = (T)buffer.toString();
-        }
+        T output = SubstitutionTemplate.compile(substitutionString).substitute(valueClass, defaultValue, substitutionType, scopes);
 
         if (output instanceof String && !output.equals(substitutionString)) {
-            // support recursive substitutions
-            output = substitute((String)output, valueClass, defaultValue, substitutionType, scopes);
+            // support recursive substitutions, stopping when a previous result recurs as the variables form a cycle
+            Set<String> results = new HashSet<String>();
+            results.add(substitutionString);
+            for (int depth = 0; depth < MAXIMUM_RECURSION_DEPTH && output instanceof String && results.add((String)output); depth++) {
+                // intermediate results depend on the scopes, so are not worth caching as compiled templates
+                output = SubstitutionTemplate.parse((String)output).substitute(valueClass, defaultValue, substitutionType, scopes);
+            }
         }
 
         return output;
@@ -135,49 +173,42 @@ public final class SubstitutionHelper {
         if (valueClass == null) throw new NullPointerException("valueClass must not be null");
         if (key == null || scopes == null || scopes.length == 0) return null;
 
-        T output = null;
-
-        if (exists(key, substitutionType, scopes)) {
-            output = getValue(key, valueClass, substitutionType, scopes);
-        } else if (isInvoke(key)) {
-            output = invoke(key, valueClass);
-        }
-
-        if (output == null && defaultValue != null) {
-            output = ObjectHelper.convert(defaultValue, valueClass);
-        }
-
-        return output;
-    }
-
-    /**
-     * Returns true if the given key exists in the specified variable substitution types and scopes.
-     *
-     * @param key                The key to check existence of.
-     * @param substitutionType   The type of variable substitution being performed.
-     * @param scopes             The scopes against which local variable substitution is resolved.
-     * @return                   True if the given key exists.
-     */
-    private static boolean exists(String key, SubstitutionType substitutionType, IData... scopes) {
         substitutionType = SubstitutionType.normalize(substitutionType);
 
+        // the key is looked up in each scope and as a global variable at most once, rather than once to check it
+        // exists and again to get its value
         boolean exists = false;
+        Object value = null;
 
         if (substitutionType == SubstitutionType.ALL || substitutionType == SubstitutionType.LOCAL) {
             for (IData scope : scopes) {
-                boolean localExists = IDataHelper.exists(scope, key);
-                if (localExists) {
-                    exists = localExists;
+                value = IDataHelper.get(scope, key);
+                if (value != null) {
+                    exists = true;
                     break;
+                } else if (!exists) {
+                    exists = IDataHelper.exists(scope, key);
                 }
             }
         }
 
-        if (!exists && (substitutionType == SubstitutionType.ALL || substitutionType == SubstitutionType.GLOBAL)) {
-            exists = GlobalVariableHelper.exists(key);
+        if (value == null && (substitutionType == SubstitutionType.ALL || substitutionType == SubstitutionType.GLOBAL)) {
+            GlobalVariableElement variable = getGlobalVariable(key);
+            if (variable != null) {
+                exists = true;
+                value = variable.getValue();
+            }
+        }
+
+        if (!exists && isInvoke(key)) value = invoke(key);
+
+        T output = ObjectHelper.convert(value, valueClass);
+
+        if (output == null && defaultValue != null) {
+            output = ObjectHelper.convert(defaultValue, valueClass);
         }
 
-        return exists;
+        return output;
     }
 
     /**
@@ -194,11 +225,12 @@ public final class SubstitutionHelper {
      * Processes the given key as an invoke URI.
      *
      * @param key           The key to invoke.
-     * @param valueClass    The return class for the result.
-     * @param <T>           The return class for the result.
      * @return              The result of the service invocation.
      */
-    private static<T> T invoke(String key, Class<T> valueClass) {
+    private static Object invoke(String key) {
+        Resolution resolution = getCachedResolution(key);
+        if (resolution != null) return resolution.getValue();
+
         Object value = null;
 
         try {
@@ -247,39 +279,59 @@ public final class SubstitutionHelper {
             ExceptionHelper.raiseUnchecked(ex);
         }
 
-        return ObjectHelper.convert(value, valueClass);
+        putCachedResolution(key, value);
+
+        return value;
     }
 
     /**
-     * Returns the value for the given key based on the specified variable substitution types and scopes.
+     * Returns the global variable with the given key.
      *
-     * @param key                The key whose value is to be returned.
-     * @param valueClass         The class of value to be returned.
-     * @param substitutionType   The type of variable substitution being performed.
-     * @param scopes             The scopes against which local variable substitution is resolved.
-     * @param <T>                The class of value to be returned.
-     * @return                   The value associated with the given key.
+     * @param key   The key of the global variable.
+     * @return      The global variable, or null if it does not exist.
      */
-    private static <T> T getValue(String key, Class<T> valueClass, SubstitutionType substitutionType, IData... scopes) {
-        substitutionType = SubstitutionType.normalize(substitutionType);
+    private static GlobalVariableElement getGlobalVariable(String key) {
+        // global variable keys are cached separately from invoke keys, which they could otherwise collide with
+        String cacheKey = "global:" + key;
+        Resolution resolution = getCachedResolution(cacheKey);
+        if (resolution != null) return (GlobalVariableElement)resolution.getValue();
+
+        // the variable rather than its value is cached, so that secure values are never held in the cache decrypted,
+        // and are instead decrypted every time they are read
+        GlobalVariableElement variable = GlobalVariableHelper.getVariable(null, key);
+        putCachedResolution(cacheKey, variable);
+
+        return variable;
+    }
 
-        Object value = null;
+    /**
+     * Returns the cached resolution for the given key, if resolution caching is enabled and it has not expired.
+     *
+     * @param key   The key whose cached resolution is to be returned.
+     * @return      The cached resolution, or null if there is none.
+     */
+    private static Resolution getCachedResolution(String key) {
+        if (resolutionCacheDuration == 0) return null;
 
-        if (substitutionType == SubstitutionType.ALL || substitutionType == SubstitutionType.LOCAL) {
-            for (IData scope : scopes) {
-                Object localValue = IDataHelper.get(scope, key);
-                if (localValue != null) {
-                    value = localValue;
-                    break;
-                }
-            }
+        Resolution resolution = RESOLUTION_CACHE.get(key);
+        if (resolution != null && resolution.isExpired()) {
+            RESOLUTION_CACHE.remove(key, resolution);
+            resolution = null;
         }
+        return resolution;
+    }
 
-        if (value == null && (substitutionType == SubstitutionType.ALL || substitutionType == SubstitutionType.GLOBAL)) {
-            value = GlobalVariableHelper.get(key);
+    /**
+     * Caches the given resolved value for the given key, if resolution caching is enabled.
+     *
+     * @param key   The key which was resolved.
+     * @param value The resolved value, which may be null.
+     */
+    private static void putCachedResolution(String key, Object value) {
+        long duration = resolutionCacheDuration;
+        if (duration > 0) {
+            RESOLUTION_CACHE.put(key, new Resolution(value, System.currentTimeMillis() + duration));
         }
-
-        return ObjectHelper.convert(value, valueClass);
     }
 
     /**
@@ -412,4 +464,47 @@ public final class SubstitutionHelper {
 
         return output;
     }
+
+    /**
+     * A cached invoke or global variable resolution.
+     */
+    private static class Resolution {
+        /**
+         * The resolved value, which may be null.
+         */
+        private final Object value;
+        /**
+         * The time in milliseconds since the epoch after which this resolution has expired.
+         */
+        private final long expiryTime;
+
+        /**
+         * Constructs a new Resolution.
+         *
+         * @param value         The resolved value.
+         * @param expiryTime    The time in milliseconds since the epoch after which this resolution has expired.
+         */
+        Resolution(Object value, long expiryTime) {
+            this.value = value;
+            this.expiryTime = expiryTime;
+        }
+
+        /**
+         * Returns the resolved value.
+         *
+         * @return The resolved value.
+         */
+        Object getValue() {
+            return value;
+        }
+
+        /**
+         * Returns true if this resolution has expired.
+         *
+         * @return True if this resolution has expired.
+         */
+        boolean isExpired() {
+            return expiryTime <= System.currentTimeMillis();
+        }
+    }
 }
@@ -0,0 +1,229 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2026 Lachlan Dowding
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package permafrost.tundra.flow.variable;
+
+import com.wm.data.IData;
+import permafrost.tundra.util.BoundedCache;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+
+/**
+ * A string containing variable substitution statements such as "%key%" or "{{ key }}" which has been parsed once into
+ * its literal and variable segments, and can then be substituted repeatedly without the string being matched against
+ * the substitution regular expression again. Templates are immutable and safe to share between threads.
+ */
+public final class SubstitutionTemplate {
+    /**
+     * The maximum number of compiled templates cached, after which the cache is cleared.
+     */
+    public static final int DEFAULT_CACHE_CAPACITY = 4096;
+    /**
+     * The maximum length of a source string whose compiled template is cached; longer strings, such as whole
+     * documents, are compiled on every call rather than pinned in memory.
+     */
+    public static final int MAXIMUM_CACHED_SOURCE_LENGTH = 1024;
+    /**
+     * The cache of compiled templates keyed by source string.
+     */
+    private static final BoundedCache<String, SubstitutionTemplate> CACHE = new BoundedCache<String, SubstitutionTemplate>(DEFAULT_CACHE_CAPACITY);
+    /**
+     * The string this template was compiled from.
+     */
+    private final String source;
+    /**
+     * The variable key, if the entire source string is a single substitution statement, otherwise null.
+     */
+    private final String key;
+    /**
+     * The literal segments either side of each substitution statement, of which there is always one more than
+     * there are statements.
+     */
+    private final String[] literals;
+    /**
+     * The variable keys of each substitution statement.
+     */
+    private final String[] keys;
+    /**
+     * The substitution statements as they appear in the source string, used as the default value for variables that
+     * cannot be resolved.
+     */
+    private final String[] statements;
+
+    /**
+     * Constructs a new SubstitutionTemplate.
+     *
+     * @param source The string to be compiled.
+     */
+    private SubstitutionTemplate(String source) {
+        this.source = source;
+
+        String key = null;
+        List<String> literals = new ArrayList<String>();
+        List<String> keys = new ArrayList<String>();
+        List<String> statements = new ArrayList<String>();
+
+        // every substitution statement starts with either a percent sign or double braces
+        if (source.indexOf('%') >= 0 || source.contains("{{")) {
+            Matcher matcher = SubstitutionHelper.matcher(source);
+            if (matcher.matches()) {
+                key = key(matcher);
+            } else {
+                matcher.reset();
+                int start = 0;
+                while (matcher.find()) {
+                    literals.add(source.substring(start, matcher.start()));
+                    keys.add(key(matcher));
+                    statements.add(matcher.group(0));
+                    start = matcher.end();
+                }
+                literals.add(source.substring(start));
+            }
+        } else {
+            literals.add(source);
+        }
+
+        this.key = key;
+        this.literals = literals.toArray(new String[0]);
+        this.keys = keys.toArray(new String[0]);
+        this.statements = statements.toArray(new String[0]);
+    }
+
+    /**
+     * Returns the variable key of the substitution statement the given matcher is positioned on.
+     *
+     * @param matcher   A substitution matcher positioned on a substitution statement.
+     * @return          The variable key of the substitution statement.
+     */
+    private static String key(Matcher matcher) {
+        String percentDelimitedValue = matcher.group(1);
+        String braceDelimitedValue = matcher.group(2);
+        return percentDelimitedValue == null ? braceDelimitedValue : percentDelimitedValue;
+    }
+
+    /**
+     * Returns a compiled template for the given string. Templates containing substitution statements whose source is
+     * no longer than MAXIMUM_CACHED_SOURCE_LENGTH are interned in a bounded cache, so that the same string substituted
+     * repeatedly is only parsed once. Literal templates are not cached, as they are cheap to compile and would
+     * otherwise crowd out the templates worth keeping.
+     *
+     * @param source    The string to be compiled.
+     * @return          A compiled template for the given string.
+     */
+    public static SubstitutionTemplate compile(String source) {
+        if (source == null) return null;
+
+        if (source.length() > MAXIMUM_CACHED_SOURCE_LENGTH) return new SubstitutionTemplate(source);
+
+        SubstitutionTemplate template = CACHE.get(source);
+        if (template == null) {
+            template = new SubstitutionTemplate(source);
+            if (template.isLiteral()) return template;
+            SubstitutionTemplate existing = CACHE.putIfAbsent(source, template);
+            if (existing != null) template = existing;
+        }
+        return template;
+    }
+
+    /**
+     * Returns a compiled template for the given string without caching it, for strings such as intermediate
+     * substitution results which are unlikely to be substituted again.
+     *
+     * @param source    The string to be compiled.
+     * @return          A compiled template for the given string.
+     */
+    static SubstitutionTemplate parse(String source) {
+        if (source == null) return null;
+        return new SubstitutionTemplate(source);
+    }
+
+    /**
+     * Returns the string this template was compiled from.
+     *
+     * @return The string this template was compiled from.
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * Returns true if this template does not contain any substitution statements.
+     *
+     * @return True if this template does not contain any substitution statements.
+     */
+    public boolean isLiteral() {
+        return key == null && keys.length == 0;
+    }
+
+    /**
+     * Performs a single pass of variable substitution on this template by replacing each substitution statement with
+     * the associated value from the given scopes; if the key has no value, the given defaultValue (if not null) is
+     * used instead, otherwise the statement is left as is. Values which themselves contain substitution statements
+     * are not substituted.
+     *
+     * @param valueClass         The class of value to be returned.
+     * @param defaultValue       A default value to be substituted when the variable being substituted has a value of
+     *                           null.
+     * @param substitutionType   The type of substitution to perform.
+     * @param scopes             One or more IData documents containing the variables being substituted.
+     * @param <T>                The class of value to be returned.
+     * @return                   The result of the variable substitution.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T substitute(Class<T> valueClass, Object defaultValue, SubstitutionType substitutionType, IData... scopes) {
+        if (valueClass == null) throw new NullPointerException("valueClass must not be null");
+        if (scopes == null || scopes.length == 0) return null;
+
+        T output = null;
+
+        if (key != null) {
+            output = SubstitutionHelper.resolve(key, valueClass, defaultValue == null ? source : defaultValue, substitutionType, scopes);
+        } else if (valueClass.isAssignableFrom(String.class)) {
+            if (keys.length == 0) {
+                output = (T)source;
+            } else {
+                StringBuilder builder = new StringBuilder(source.length());
+                for (int i = 0; i < keys.length; i++) {
+                    builder.append(literals[i]);
+                    String value = SubstitutionHelper.resolve(keys[i], String.class, defaultValue == null ? statements[i] : defaultValue, substitutionType, scopes);
+                    if (value != null) builder.append(value);
+                }
+                builder.append(literals[keys.length]);
+                output = (T)builder.toString();
+            }
+        }
+
+        return output;
+    }
+
+    /**
+     * Returns the string this template was compiled from.
+     *
+     * @return The string this template was compiled from.
+     */
+    @Override
+    public String toString() {
+        return source;
+    }
+}
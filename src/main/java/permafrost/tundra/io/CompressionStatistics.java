@@ -0,0 +1,153 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2026 Lachlan Dowding
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package permafrost.tundra.io;
+
+import com.wm.data.IData;
+import com.wm.data.IDataCursor;
+import com.wm.data.IDataFactory;
+import com.wm.data.IDataUtil;
+import com.wm.util.coder.IDataCodable;
+import permafrost.tundra.time.DurationHelper;
+import permafrost.tundra.time.DurationPattern;
+
+/**
+ * Statistics describing a batch of files compressed by DirectoryHelper.
+ */
+public class CompressionStatistics implements IDataCodable {
+    /**
+     * The number of files compressed.
+     */
+    protected final long count;
+    /**
+     * The total size in bytes of the files before compression.
+     */
+    protected final long originalSize;
+    /**
+     * The total size in bytes of the files after compression.
+     */
+    protected final long compressedSize;
+    /**
+     * The elapsed time in nanoseconds taken to compress the files.
+     */
+    protected final long duration;
+
+    /**
+     * Constructs a new CompressionStatistics object.
+     *
+     * @param count             The number of files compressed.
+     * @param originalSize      The total size in bytes of the files before compression.
+     * @param compressedSize    The total size in bytes of the files after compression.
+     * @param duration          The elapsed time in nanoseconds taken to compress the files.
+     */
+    public CompressionStatistics(long count, long originalSize, long compressedSize, long duration) {
+        this.count = count;
+        this.originalSize = originalSize;
+        this.compressedSize = compressedSize;
+        this.duration = duration;
+    }
+
+    /**
+     * Returns the number of files compressed.
+     *
+     * @return The number of files compressed.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the total size in bytes of the files before compression.
+     *
+     * @return The total size in bytes of the files before compression.
+     */
+    public long getOriginalSize() {
+        return originalSize;
+    }
+
+    /**
+     * Returns the total size in bytes of the files after compression.
+     *
+     * @return The total size in bytes of the files after compression.
+     */
+    public long getCompressedSize() {
+        return compressedSize;
+    }
+
+    /**
+     * Returns the elapsed time in nanoseconds taken to compress the files.
+     *
+     * @return The elapsed time in nanoseconds taken to compress the files.
+     */
+    public long getDuration() {
+        return duration;
+    }
+
+    /**
+     * Returns the compression throughput, as original bytes compressed per second.
+     *
+     * @return The compression throughput in bytes per second.
+     */
+    public double getThroughput() {
+        return duration <= 0 ? 0 : originalSize / (duration / 1000000000.0);
+    }
+
+    /**
+     * Returns the compressed size as a proportion of the original size.
+     *
+     * @return The compression ratio, or 0 if no data was compressed.
+     */
+    public double getRatio() {
+        return originalSize <= 0 ? 0 : compressedSize / (double)originalSize;
+    }
+
+    /**
+     * Returns an IData representation of these statistics.
+     *
+     * @return An IData representation of these statistics.
+     */
+    @Override
+    public IData getIData() {
+        IData output = IDataFactory.create();
+        IDataCursor cursor = output.getCursor();
+        IDataUtil.put(cursor, "count", "" + count);
+        IDataUtil.put(cursor, "duration", DurationHelper.format(duration / 1000000000.0, DurationPattern.XML_NANOSECONDS));
+        IDataUtil.put(cursor, "size.original", "" + originalSize);
+        IDataUtil.put(cursor, "size.compressed", "" + compressedSize);
+        IDataUtil.put(cursor, "ratio", "" + getRatio());
+        IDataUtil.put(cursor, "throughput", "" + getThroughput());
+        cursor.destroy();
+        return output;
+    }
+
+    /**
+     * Not implemented: statistics are immutable.
+     *
+     * @param document The IData document to initialize this object from.
+     */
+    @Override
+    public void setIData(IData document) {
+        throw new UnsupportedOperationException("setIData method not implemented");
+    }
+}
@@ -26,10 +26,17 @@ package permafrost.tundra.io;
 
 import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
 import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.Zip64Mode;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
 import permafrost.tundra.lang.ArrayHelper;
 import permafrost.tundra.lang.ExceptionHelper;
 import permafrost.tundra.lang.IterableHelper;
 import permafrost.tundra.time.DateTimeHelper;
+import permafrost.tundra.util.concurrent.DaemonThreadFactory;
+import permafrost.tundra.util.concurrent.DirectExecutorService;
+import permafrost.tundra.util.concurrent.FutureHelper;
+import permafrost.tundra.zip.ParallelGzipOutputStream;
 import javax.xml.datatype.Duration;
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
@@ -46,9 +53,21 @@ import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
 import java.util.zip.GZIPOutputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
@@ -186,32 +205,19 @@ public final class DirectoryHelper {
      */
     public static long purge(File directory, Calendar olderThan, FilenameFilter filter, boolean recurse) throws FileNotFoundException {
         long count = 0;
+        long threshold = olderThan == null ? Long.MAX_VALUE : olderThan.getTimeInMillis();
 
-        List<Throwable> exceptions = new ArrayList<Throwable>();
-
-        for (String item : list(directory)) {
-            try {
-                File child = new File(directory, item);
-                if (child.exists()) {
-                    if (child.isFile() && (filter == null || filter.accept(directory, item))) {
-                        boolean shouldPurge = true;
-
-                        if (olderThan != null) {
-                            Calendar modified = Calendar.getInstance();
-                            modified.setTime(new Date(child.lastModified()));
-                            shouldPurge = modified.compareTo(olderThan) <= 0;
-                        }
-
-                        if (shouldPurge && child.delete()) count += 1;
-                    } else if (recurse && child.isDirectory()) {
-                        count += purge(child, olderThan, filter, recurse);
-                    }
-                }
-            } catch(IOException ex) {
-                exceptions.add(ex);
+        DirectoryWalker walker = new DirectoryWalker(directory, filter, recurse);
+        try {
+            while (walker.hasNext()) {
+                DirectoryWalker.Entry entry = walker.next();
+                if (entry.lastModified() <= threshold && entry.getFile().delete()) count += 1;
             }
+        } finally {
+            walker.close();
         }
 
+        List<IOException> exceptions = walker.getExceptions();
         if (exceptions.size() > 0) {
             ExceptionHelper.raiseUnchecked(exceptions);
         }
@@ -277,6 +283,97 @@ public final class DirectoryHelper {
         }
     }
 
+    /**
+     * Compresses the files in the given directory into a zip archive, deflating files concurrently on a bounded pool
+     * of worker threads. Each file is deflated independently, buffered in memory or a temporary file, and then added
+     * to the archive in the same order as the sequential zip method, so that the resulting archive is equivalent.
+     *
+     * @param directory             The directory to be compressed.
+     * @param filter                An optional filter to determine which files to include in the archive.
+     * @param recurse               Whether to also recursively archive subdirectories.
+     * @param includeParentInPath   Whether the parent directory should be included in the filename paths.
+     * @param parallelism           The number of files to compress concurrently; if less than or equal to 1 files
+     *                              are compressed sequentially on the current thread.
+     * @return                      An input stream from which the resulting zip archive can be read.
+     * @throws IOException          If an IO error occurs.
+     */
+    public static InputStream zip(File directory, FilenameFilter filter, boolean recurse, boolean includeParentInPath, int parallelism) throws IOException {
+        if (parallelism <= 1) return zip(directory, filter, recurse, includeParentInPath);
+
+        Deque<String> path = new ArrayDeque<String>();
+        if (includeParentInPath) path.add(directory.getName() + "/");
+
+        Map<String, File> files = new LinkedHashMap<String, File>();
+        collect(files, path, directory, filter, recurse);
+
+        File temporaryFile = FileHelper.create();
+        ZipArchiveOutputStream zipOutputStream = null;
+        ExecutorService executor = createExecutor(parallelism);
+        Deque<Future<DeflatedFile>> pending = new ArrayDeque<Future<DeflatedFile>>();
+        boolean completed = false;
+
+        try {
+            zipOutputStream = new ZipArchiveOutputStream(temporaryFile);
+            zipOutputStream.setUseZip64(Zip64Mode.AsNeeded);
+
+            for (Map.Entry<String, File> file : files.entrySet()) {
+                pending.add(executor.submit(new DeflateFileCallable(file.getKey(), file.getValue())));
+                // bound the number of deflated files buffered while awaiting their turn to be added to the archive
+                while (pending.size() > parallelism * 2) {
+                    FutureHelper.awaitIO(pending.removeFirst()).writeTo(zipOutputStream);
+                }
+            }
+            while (!pending.isEmpty()) {
+                FutureHelper.awaitIO(pending.removeFirst()).writeTo(zipOutputStream);
+            }
+
+            zipOutputStream.close();
+            completed = true;
+        } finally {
+            if (!completed) {
+                for (Future<DeflatedFile> future : pending) {
+                    if (!future.cancel(false)) {
+                        try {
+                            FutureHelper.awaitIO(future).discard();
+                        } catch(IOException ex) {
+                            // do nothing
+                        }
+                    }
+                }
+                CloseableHelper.close(zipOutputStream);
+                FileHelper.remove(temporaryFile);
+            }
+            executor.shutdown();
+        }
+
+        return new BufferedInputStream(new DeleteOnCloseFileInputStream(temporaryFile), InputOutputHelper.DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Collects the files in the given directory to be added to an archive, in the order they are archived.
+     *
+     * @param files                 The map to add the archive entry names and files to.
+     * @param path                  The path prefix for all file names.
+     * @param directory             The directory to collect.
+     * @param filter                An optional filter to determine which files to include in the archive.
+     * @param recurse               Whether to also recursively collect subdirectories.
+     * @throws IOException          If an IO error occurs.
+     */
+    private static void collect(Map<String, File> files, Deque<String> path, File directory, FilenameFilter filter, boolean recurse) throws IOException {
+        if (directory == null) return;
+
+        for (String item : list(directory)) {
+            File child = new File(directory, item);
+            if (child.isFile() && (filter == null || filter.accept(directory, item))) {
+                files.put(IterableHelper.join(path, null, false) + item, child);
+            } else if (recurse && child.isDirectory()) {
+                path.add(child.getName() + "/");
+                collect(files, path, child, filter, recurse);
+                path.removeLast();
+            }
+        }
+    }
+
     /**
      * Adds the files in the given directory to a tar archive.
      *
@@ -289,22 +386,53 @@ public final class DirectoryHelper {
      * @throws IOException          If an IO error occurs.
      */
     public static InputStream tar(File directory, FilenameFilter filter, boolean recurse, boolean includeParentInPath, boolean gzip) throws IOException {
+        return tar(directory, filter, recurse, includeParentInPath, gzip, 1);
+    }
+
+    /**
+     * Adds the files in the given directory to a tar archive, optionally gzipping the archive concurrently on a
+     * bounded pool of worker threads. When parallel, the archive is split into blocks which are compressed as
+     * separate gzip members and written in order, which standard gzip readers decompress as a single stream.
+     *
+     * @param directory             The directory to be archived.
+     * @param filter                An optional filter to determine which files to include in the archive.
+     * @param recurse               Whether to also recursively archive subdirectories.
+     * @param includeParentInPath   Whether the parent directory should be included in the filename paths.
+     * @param gzip                  Whether to gzip the resulting tar archive.
+     * @param parallelism           The number of blocks to gzip concurrently; if less than or equal to 1 the archive
+     *                              is gzipped sequentially on the current thread.
+     * @return                      An input stream from which the resulting tar archive can be read.
+     * @throws IOException          If an IO error occurs.
+     */
+    public static InputStream tar(File directory, FilenameFilter filter, boolean recurse, boolean includeParentInPath, boolean gzip, int parallelism) throws IOException {
         File temporaryFile = FileHelper.create();
+        ExecutorService executor = gzip && parallelism > 1 ? createExecutor(parallelism) : null;
+        boolean completed = false;
 
-        OutputStream outputStream = new FileOutputStream(temporaryFile);
-        if (gzip) outputStream = new GZIPOutputStream(outputStream);
-        TarArchiveOutputStream tarOutputStream = new TarArchiveOutputStream(new BufferedOutputStream(outputStream, InputOutputHelper.DEFAULT_BUFFER_SIZE));
+        try {
+            OutputStream outputStream = new FileOutputStream(temporaryFile);
+            if (executor != null) {
+                outputStream = new ParallelGzipOutputStream(new BufferedOutputStream(outputStream, InputOutputHelper.DEFAULT_BUFFER_SIZE), executor, ParallelGzipOutputStream.DEFAULT_BLOCK_SIZE, Deflater.DEFAULT_COMPRESSION, parallelism * 2);
+            } else if (gzip) {
+                outputStream = new GZIPOutputStream(outputStream);
+            }
+            TarArchiveOutputStream tarOutputStream = new TarArchiveOutputStream(new BufferedOutputStream(outputStream, InputOutputHelper.DEFAULT_BUFFER_SIZE));
 
-        tarOutputStream.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_STAR);
-        tarOutputStream.setLongFileMode(TarArchiveOutputStream.LONGFILE_GNU);
+            tarOutputStream.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_STAR);
+            tarOutputStream.setLongFileMode(TarArchiveOutputStream.LONGFILE_GNU);
 
-        Deque<String> path = new ArrayDeque<String>();
-        if (includeParentInPath) path.add(directory.getName() + "/");
+            Deque<String> path = new ArrayDeque<String>();
+            if (includeParentInPath) path.add(directory.getName() + "/");
 
-        try {
-            tar(tarOutputStream, path, directory, filter, recurse);
+            try {
+                tar(tarOutputStream, path, directory, filter, recurse);
+            } finally {
+                CloseableHelper.close(tarOutputStream);
+            }
+            completed = true;
         } finally {
-            CloseableHelper.close(tarOutputStream);
+            if (executor != null) executor.shutdown();
+            if (!completed) FileHelper.remove(temporaryFile);
         }
 
         return new BufferedInputStream(new DeleteOnCloseFileInputStream(temporaryFile), InputOutputHelper.DEFAULT_BUFFER_SIZE);
@@ -328,9 +456,15 @@ public final class DirectoryHelper {
             if (child.isFile() && (filter == null || filter.accept(directory, item))) {
                 TarArchiveEntry tarArchiveEntry = new TarArchiveEntry(child, IterableHelper.join(path, null, false) + item);
                 tarOutputStream.putArchiveEntry(tarArchiveEntry);
+                InputStream childInputStream = new FileInputStream(child);
                 try {
-                    tarOutputStream.write(InputStreamHelper.read(new FileInputStream(child)));
+                    byte[] buffer = new byte[InputOutputHelper.DEFAULT_BUFFER_SIZE];
+                    int count;
+                    while ((count = childInputStream.read(buffer)) > 0) {
+                        tarOutputStream.write(buffer, 0, count);
+                    }
                 } finally {
+                    CloseableHelper.close(childInputStream);
                     tarOutputStream.closeArchiveEntry();
                 }
             } else if (recurse && child.isDirectory()) {
@@ -429,22 +563,31 @@ public final class DirectoryHelper {
      * @throws IOException  If the given directory does not exist or is a file.
      */
     public static BigInteger size(File directory, boolean recurse) throws IOException {
-        if (!exists(directory)) throw new FileNotFoundException("Unable to calculate size of directory as it does not exist: " + FileHelper.normalize(directory));
+        return size(directory, recurse, 1);
+    }
 
-        BigInteger totalSize = BigInteger.ZERO;
-        File[] children = directory.listFiles();
+    /**
+     * Returns the total size in bytes of all files in the given directory. Child directories which cannot be listed,
+     * for example because access is denied, are skipped.
+     *
+     * @param directory     The directory to calculate the size of.
+     * @param recurse       If true, the size will include the size of all child directories recursively.
+     * @param parallelism   The number of child directory trees to size concurrently.
+     * @return              The total size in bytes of all files in the given directory.
+     * @throws IOException  If the given directory does not exist or is not a file.
+     */
+    public static BigInteger size(File directory, boolean recurse, int parallelism) throws IOException {
+        if (!exists(directory)) throw new FileNotFoundException("Unable to calculate size of directory as it does not exist: " + FileHelper.normalize(directory));
 
-        if (children != null) {
-            for (File child : children) {
-                if (FileHelper.exists(child)) {
-                    totalSize = totalSize.add(BigInteger.valueOf(child.length()));
-                } else if (recurse && exists(child)) {
-                    totalSize = totalSize.add(size(child, recurse));
-                }
+        final AtomicLong totalSize = new AtomicLong();
+        DirectoryWalker.walk(directory, null, recurse, parallelism, new DirectoryWalker.Visitor() {
+            public boolean visit(DirectoryWalker.Entry entry) {
+                totalSize.addAndGet(entry.length());
+                return true;
             }
-        }
+        }, false);
 
-        return totalSize;
+        return BigInteger.valueOf(totalSize.get());
     }
 
     /**
@@ -460,23 +603,41 @@ public final class DirectoryHelper {
      * @throws IOException  If the given directory does not exist or is not a file.
      */
     public static BigInteger squeeze(File directory, BigInteger allowedSize, FilenameFilter filter, boolean recurse) throws IOException {
-        BigInteger totalSize = size(directory, recurse);
+        if (!exists(directory)) throw new FileNotFoundException("Unable to squeeze directory as it does not exist: " + FileHelper.normalize(directory));
 
-        if (allowedSize != null && totalSize.compareTo(allowedSize) > 0) {
-            BigInteger requiredReductionSize = totalSize.subtract(allowedSize);
+        // a single walk calculates the total size and collects the deletion candidates with their attributes, so
+        // that sorting and deleting does not need to stat each file again
+        long totalSize = 0;
+        List<DirectoryWalker.Entry> candidates = new ArrayList<DirectoryWalker.Entry>();
 
-            DirectoryLister directoryLister = new DirectoryLister(directory, filter, recurse);
-            DirectoryListing directoryListing = directoryLister.list();
-            List<File> files = directoryListing.listFiles();
+        DirectoryWalker walker = new DirectoryWalker(directory, null, recurse);
+        try {
+            while (walker.hasNext()) {
+                DirectoryWalker.Entry entry = walker.next();
+                totalSize += entry.length();
+                File file = entry.getFile();
+                if (filter == null || filter.accept(file.getParentFile(), file.getName())) candidates.add(entry);
+            }
+        } finally {
+            walker.close();
+        }
+
+        if (allowedSize != null && BigInteger.valueOf(totalSize).compareTo(allowedSize) > 0) {
+            BigInteger requiredReductionSize = BigInteger.valueOf(totalSize).subtract(allowedSize);
 
-            Collections.sort(files, new FileModificationComparator(true));
+            Collections.sort(candidates, new Comparator<DirectoryWalker.Entry>() {
+                public int compare(DirectoryWalker.Entry firstEntry, DirectoryWalker.Entry secondEntry) {
+                    long lastModifiedDifference = firstEntry.lastModified() - secondEntry.lastModified();
+                    return lastModifiedDifference < 0 ? -1 : lastModifiedDifference > 0 ? 1 : 0;
+                }
+            });
 
             BigInteger totalReductionSize = BigInteger.ZERO;
 
-            for (File file : files) {
-                if (FileHelper.exists(file)) {
-                    long fileSize = file.length();
-                    if (file.delete()) totalReductionSize = totalReductionSize.add(BigInteger.valueOf(fileSize));
+            for (DirectoryWalker.Entry entry : candidates) {
+                if (entry.getFile().delete()) {
+                    totalReductionSize = totalReductionSize.add(BigInteger.valueOf(entry.length()));
+                    totalSize -= entry.length();
                 }
 
                 if (totalReductionSize.compareTo(requiredReductionSize) > 0) {
@@ -485,7 +646,7 @@ public final class DirectoryHelper {
             }
         }
 
-        return size(directory, recurse);
+        return BigInteger.valueOf(totalSize);
     }
 
     /**
@@ -553,4 +714,291 @@ public final class DirectoryHelper {
     public static long gzip(File directory, Duration duration, FilenameFilter filter, boolean recurse, boolean replace) throws IOException {
         return gzip(directory, duration == null ? null : DateTimeHelper.earlier(duration), filter, recurse, replace);
     }
+
+    /**
+     * Compresses files in the given directory, and child directories if recurse is true, older than the given
+     * datetime using gzip, compressing files concurrently on a bounded pool of worker threads.
+     *
+     * @param directory     The directory whose files are to be compressed.
+     * @param olderThan     Only files modified prior to this datetime will be compressed.
+     * @param filter        An optional FilenameFilter used to filter which files are compressed.
+     * @param recurse       If true, then child files and directories will also be recursively compressed.
+     * @param replace       Whether the original file should be deleted once compressed.
+     * @param parallelism   The number of files to compress concurrently; if less than or equal to 1 files are
+     *                      compressed sequentially on the current thread.
+     * @return              The number of files compressed, their sizes before and after compression, and the
+     *                      elapsed time and throughput.
+     * @throws IOException  If an IO error occurs.
+     */
+    public static CompressionStatistics gzip(File directory, Calendar olderThan, FilenameFilter filter, boolean recurse, boolean replace, int parallelism) throws IOException {
+        long startTime = System.nanoTime();
+
+        List<File> files = new ArrayList<File>();
+        collect(files, directory, olderThan, filter, recurse);
+
+        ExecutorService executor = createExecutor(parallelism);
+        Deque<Future<long[]>> pending = new ArrayDeque<Future<long[]>>();
+        List<Throwable> exceptions = new ArrayList<Throwable>();
+        long count = 0, originalSize = 0, compressedSize = 0;
+
+        try {
+            int bound = Math.max(parallelism, 1) * 2;
+            Iterator<File> iterator = files.iterator();
+            while (iterator.hasNext() || !pending.isEmpty()) {
+                // bound the number of compressions queued on the executor rather than submitting every file at once
+                if (iterator.hasNext() && pending.size() < bound) {
+                    pending.add(executor.submit(new GzipFileCallable(iterator.next(), replace)));
+                } else {
+                    try {
+                        long[] sizes = FutureHelper.awaitIO(pending.removeFirst());
+                        count += 1;
+                        originalSize += sizes[0];
+                        compressedSize += sizes[1];
+                    } catch(IOException ex) {
+                        exceptions.add(ex);
+                    }
+                }
+            }
+        } finally {
+            // cancel any compressions not yet started if this call failed
+            for (Future<long[]> future : pending) {
+                future.cancel(false);
+            }
+            executor.shutdown();
+        }
+
+        if (exceptions.size() > 0) {
+            ExceptionHelper.raiseUnchecked(exceptions);
+        }
+
+        return new CompressionStatistics(count, originalSize, compressedSize, System.nanoTime() - startTime);
+    }
+
+    /**
+     * Compresses files in the given directory, and child directories if recurse is true, older than the given
+     * duration using gzip, compressing files concurrently on a bounded pool of worker threads.
+     *
+     * @param directory     The directory whose files are to be compressed.
+     * @param duration      The age files must be before they are compressed.
+     * @param filter        An optional FilenameFilter used to filter which files are compressed.
+     * @param recurse       If true, then child files and directories will also be recursively compressed.
+     * @param replace       Whether the original file should be deleted once compressed.
+     * @param parallelism   The number of files to compress concurrently; if less than or equal to 1 files are
+     *                      compressed sequentially on the current thread.
+     * @return              The number of files compressed, their sizes before and after compression, and the
+     *                      elapsed time and throughput.
+     * @throws IOException  If an IO error occurs.
+     */
+    public static CompressionStatistics gzip(File directory, Duration duration, FilenameFilter filter, boolean recurse, boolean replace, int parallelism) throws IOException {
+        return gzip(directory, duration == null ? null : DateTimeHelper.earlier(duration), filter, recurse, replace, parallelism);
+    }
+
+    /**
+     * Collects the files in the given directory, and child directories if recurse is true, older than the given
+     * datetime.
+     *
+     * @param files         The list to add the collected files to.
+     * @param directory     The directory whose files are to be collected.
+     * @param olderThan     Only files modified prior to this datetime will be collected.
+     * @param filter        An optional FilenameFilter used to filter which files are collected.
+     * @param recurse       If true, then child files and directories will also be recursively collected.
+     * @throws IOException  If an IO error occurs.
+     */
+    private static void collect(List<File> files, File directory, Calendar olderThan, FilenameFilter filter, boolean recurse) throws IOException {
+        for (String item : list(directory)) {
+            File child = new File(directory, item);
+            if (child.exists()) {
+                if (child.isFile() && (filter == null || filter.accept(directory, item))) {
+                    if (olderThan == null || child.lastModified() <= olderThan.getTimeInMillis()) {
+                        files.add(child);
+                    }
+                } else if (recurse && child.isDirectory()) {
+                    collect(files, child, olderThan, filter, recurse);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns an executor for compressing files with the given parallelism.
+     *
+     * @param parallelism   The number of worker threads; if less than or equal to 1, tasks are run on the current
+     *                      thread.
+     * @return              An executor for compressing files.
+     */
+    private static ExecutorService createExecutor(int parallelism) {
+        if (parallelism <= 1) return new DirectExecutorService();
+        return Executors.newFixedThreadPool(parallelism, new DaemonThreadFactory("Tundra/DirectoryHelper"));
+    }
+
+    /**
+     * Gzips a file, returning its size before and after compression.
+     */
+    private static class GzipFileCallable implements Callable<long[]> {
+        /**
+         * The file to be compressed.
+         */
+        private final File file;
+        /**
+         * Whether the original file should be deleted once compressed.
+         */
+        private final boolean replace;
+
+        /**
+         * Constructs a new GzipFileCallable.
+         *
+         * @param file      The file to be compressed.
+         * @param replace   Whether the original file should be deleted once compressed.
+         */
+        GzipFileCallable(File file, boolean replace) {
+            this.file = file;
+            this.replace = replace;
+        }
+
+        /**
+         * Gzips the file.
+         *
+         * @return              The size of the file before and after compression.
+         * @throws IOException  If an IO error occurs.
+         */
+        public long[] call() throws IOException {
+            long originalSize = file.length();
+            File target = FileHelper.gzip(file, replace);
+            return new long[] { originalSize, target.length() };
+        }
+    }
+
+    /**
+     * Deflates a file to be added to a zip archive.
+     */
+    private static class DeflateFileCallable implements Callable<DeflatedFile> {
+        /**
+         * The archive entry name for the file.
+         */
+        private final String name;
+        /**
+         * The file to be deflated.
+         */
+        private final File file;
+
+        /**
+         * Constructs a new DeflateFileCallable.
+         *
+         * @param name  The archive entry name for the file.
+         * @param file  The file to be deflated.
+         */
+        DeflateFileCallable(String name, File file) {
+            this.name = name;
+            this.file = file;
+        }
+
+        /**
+         * Deflates the file.
+         *
+         * @return              The deflated file.
+         * @throws IOException  If an IO error occurs.
+         */
+        public DeflatedFile call() throws IOException {
+            CRC32 checksum = new CRC32();
+            Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+            SpillingOutputStream data = new SpillingOutputStream();
+            InputStream inputStream = new FileInputStream(file);
+            long size = 0;
+
+            try {
+                DeflaterOutputStream deflaterOutputStream = new DeflaterOutputStream(data, deflater, InputOutputHelper.DEFAULT_BUFFER_SIZE);
+                byte[] buffer = new byte[InputOutputHelper.DEFAULT_BUFFER_SIZE];
+                int count;
+                while ((count = inputStream.read(buffer)) > 0) {
+                    checksum.update(buffer, 0, count);
+                    deflaterOutputStream.write(buffer, 0, count);
+                    size += count;
+                }
+                deflaterOutputStream.finish();
+                data.close();
+            } catch(IOException ex) {
+                CloseableHelper.close(data.getInputStream());
+                throw ex;
+            } finally {
+                CloseableHelper.close(inputStream);
+                deflater.end();
+            }
+
+            return new DeflatedFile(name, file.lastModified(), checksum.getValue(), size, data);
+        }
+    }
+
+    /**
+     * A file which has been deflated but not yet added to a zip archive.
+     */
+    private static class DeflatedFile {
+        /**
+         * The archive entry name for the file.
+         */
+        private final String name;
+        /**
+         * The last modified time of the file.
+         */
+        private final long lastModified;
+        /**
+         * The CRC-32 checksum of the uncompressed file.
+         */
+        private final long checksum;
+        /**
+         * The uncompressed size of the file.
+         */
+        private final long size;
+        /**
+         * The deflated data.
+         */
+        private final SpillingOutputStream data;
+
+        /**
+         * Constructs a new DeflatedFile.
+         *
+         * @param name          The archive entry name for the file.
+         * @param lastModified  The last modified time of the file.
+         * @param checksum      The CRC-32 checksum of the uncompressed file.
+         * @param size          The uncompressed size of the file.
+         * @param data          The deflated data.
+         */
+        DeflatedFile(String name, long lastModified, long checksum, long size, SpillingOutputStream data) {
+            this.name = name;
+            this.lastModified = lastModified;
+            this.checksum = checksum;
+            this.size = size;
+            this.data = data;
+        }
+
+        /**
+         * Adds this file to the given zip archive, without recompressing it.
+         *
+         * @param zipOutputStream   The zip archive to add this file to.
+         * @throws IOException      If an IO error occurs.
+         */
+        void writeTo(ZipArchiveOutputStream zipOutputStream) throws IOException {
+            ZipArchiveEntry entry = new ZipArchiveEntry(name);
+            entry.setMethod(ZipEntry.DEFLATED);
+            entry.setTime(lastModified);
+            entry.setCrc(checksum);
+            entry.setSize(size);
+            entry.setCompressedSize(data.size());
+
+            InputStream inputStream = data.getInputStream();
+            try {
+                zipOutputStream.addRawArchiveEntry(entry, inputStream);
+            } finally {
+                CloseableHelper.close(inputStream);
+            }
+        }
+
+        /**
+         * Discards the deflated data.
+         *
+         * @throws IOException If an IO error occurs.
+         */
+        void discard() throws IOException {
+            CloseableHelper.close(data.getInputStream());
+        }
+    }
 }
@@ -120,15 +120,26 @@ public class DirectoryLister {
      * @throws FileNotFoundException    If the directory does not exist.
      */
     protected DirectoryListing list(File directory, boolean recurse) throws FileNotFoundException {
-        String[] listing = DirectoryHelper.list(directory);
+        List<File> files = new ArrayList<File>();
+        List<File> directories = new ArrayList<File>();
 
-        // if listing is a reasonable size, just use that for the initial capacity for our list
-        // of files and directories; otherwise set capacity to 1000 and let it grow as needed
-        int capacity = listing.length > 1000 ? 1000 : listing.length;
-        List<File> files = new ArrayList<File>(capacity);
-        List<File> directories = new ArrayList<File>(capacity);
+        list(directory, recurse, directories, files);
 
-        for (String item : listing) {
+        return new DirectoryListingImplementation(directory, directories, files);
+    }
+
+    /**
+     * Lists the given directory, appending the results directly to the given lists so that recursive listings do
+     * not build and then copy an intermediate list for every child directory.
+     *
+     * @param directory                 The directory to be listed.
+     * @param recurse                   If true, child directories will be recursively listed also.
+     * @param directories               The list to which matching directories are appended.
+     * @param files                     The list to which matching files are appended.
+     * @throws FileNotFoundException    If the directory does not exist.
+     */
+    protected void list(File directory, boolean recurse, List<File> directories, List<File> files) throws FileNotFoundException {
+        for (String item : DirectoryHelper.list(directory)) {
             File file = new File(directory, item);
             if (fileFilter.accept(directory, item)) {
                 files.add(file);
@@ -137,13 +148,9 @@ public class DirectoryLister {
             }
 
             if (recurse && DirectoryFilenameFilter.getInstance().accept(directory, item)) {
-                DirectoryListing results = list(file, recurse);
-                files.addAll(results.listFiles());
-                directories.addAll(results.listDirectories());
+                list(file, recurse, directories, files);
             }
         }
-
-        return new DirectoryListingImplementation(directory, directories, files);
     }
 
     /**
@@ -0,0 +1,402 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2026 Lachlan Dowding
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package permafrost.tundra.io;
+
+import permafrost.tundra.lang.CloseableIterator;
+import permafrost.tundra.lang.ExceptionHelper;
+import permafrost.tundra.util.concurrent.DaemonThreadFactory;
+import permafrost.tundra.util.concurrent.FutureHelper;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Lazily walks the files in a directory tree depth-first, listing each directory only when the walk reaches it
+ * rather than materializing the entire tree up front. Each file's size and last modified datetime are read once
+ * when the file is visited, and the walk can be terminated early by closing the walker.
+ */
+public class DirectoryWalker implements CloseableIterator<DirectoryWalker.Entry> {
+    /**
+     * The optional filter used to select which files are returned; directories are always descended into.
+     */
+    protected FilenameFilter filter;
+    /**
+     * Whether child directories will be walked also.
+     */
+    protected boolean recurse;
+    /**
+     * The directories currently being walked, with the innermost directory at the head.
+     */
+    protected Deque<Frame> frames = new ArrayDeque<Frame>();
+    /**
+     * The next entry to be returned, if already fetched.
+     */
+    protected Entry next;
+    /**
+     * Any errors encountered listing child directories.
+     */
+    protected List<IOException> exceptions = new ArrayList<IOException>();
+
+    /**
+     * Constructs a new DirectoryWalker.
+     *
+     * @param directory                 The directory to be walked.
+     * @param filter                    An optional FilenameFilter used to filter which files are returned.
+     * @param recurse                   If true, child directories will be recursively walked also.
+     * @throws FileNotFoundException    If the directory does not exist.
+     */
+    public DirectoryWalker(File directory, FilenameFilter filter, boolean recurse) throws FileNotFoundException {
+        if (directory == null) throw new NullPointerException("directory must not be null");
+
+        this.filter = filter;
+        this.recurse = recurse;
+        this.frames.push(new Frame(directory, DirectoryHelper.list(directory)));
+    }
+
+    /**
+     * Returns true if there are more files to be walked.
+     *
+     * @return True if there are more files to be walked.
+     */
+    public boolean hasNext() {
+        while (next == null && !frames.isEmpty()) {
+            Frame frame = frames.peek();
+            if (frame.index < frame.listing.length) {
+                String item = frame.listing[frame.index++];
+                File child = new File(frame.directory, item);
+                if (child.isFile()) {
+                    if (filter == null || filter.accept(frame.directory, item)) {
+                        next = new Entry(child, child.length(), child.lastModified());
+                    }
+                } else if (recurse && child.isDirectory()) {
+                    try {
+                        frames.push(new Frame(child, DirectoryHelper.list(child)));
+                    } catch(FileNotFoundException ex) {
+                        // directories removed since their parent was listed are silently skipped
+                        if (child.exists()) exceptions.add(ex);
+                    }
+                }
+            } else {
+                frames.pop();
+            }
+        }
+        return next != null;
+    }
+
+    /**
+     * Returns the next file in the walk.
+     *
+     * @return The next file in the walk.
+     */
+    public Entry next() {
+        if (!hasNext()) throw new NoSuchElementException("No more files in directory walk");
+        Entry entry = next;
+        next = null;
+        return entry;
+    }
+
+    /**
+     * This method is not supported.
+     */
+    public void remove() {
+        throw new UnsupportedOperationException("remove method not supported by this iterator");
+    }
+
+    /**
+     * Terminates the walk, discarding any directories not yet walked.
+     */
+    public void close() {
+        frames.clear();
+        next = null;
+    }
+
+    /**
+     * Returns any errors encountered listing child directories so far; such directories are skipped rather than
+     * terminating the walk.
+     *
+     * @return Any errors encountered listing child directories.
+     */
+    public List<IOException> getExceptions() {
+        return Collections.unmodifiableList(exceptions);
+    }
+
+    /**
+     * Walks the given directory, calling the given visitor for each file, and traversing each immediate child
+     * directory's subtree in parallel when parallelism is greater than one.
+     *
+     * @param directory     The directory to be walked.
+     * @param filter        An optional FilenameFilter used to filter which files are visited.
+     * @param recurse       If true, child directories will be recursively walked also.
+     * @param parallelism   The number of subtrees to walk concurrently; the visitor must be thread-safe when
+     *                      this is greater than one.
+     * @param visitor       The visitor called for each file.
+     * @return              True if every file was visited, false if the walk was terminated early by the visitor.
+     * @throws IOException  If the directory does not exist, or the visitor throws an exception.
+     */
+    public static boolean walk(File directory, FilenameFilter filter, boolean recurse, int parallelism, Visitor visitor) throws IOException {
+        return walk(directory, filter, recurse, parallelism, visitor, true);
+    }
+
+    /**
+     * Walks the given directory, calling the given visitor for each file, and traversing each immediate child
+     * directory's subtree in parallel when parallelism is greater than one.
+     *
+     * @param directory     The directory to be walked.
+     * @param filter        An optional FilenameFilter used to filter which files are visited.
+     * @param recurse       If true, child directories will be recursively walked also.
+     * @param parallelism   The number of subtrees to walk concurrently; the visitor must be thread-safe when
+     *                      this is greater than one.
+     * @param visitor       The visitor called for each file.
+     * @param raise         If true, an exception is thrown once the walk completes if any directory could not be
+     *                      listed, otherwise such directories are silently skipped.
+     * @return              True if every file was visited, false if the walk was terminated early by the visitor.
+     * @throws IOException  If the directory does not exist, or the visitor throws an exception.
+     */
+    public static boolean walk(File directory, FilenameFilter filter, boolean recurse, int parallelism, Visitor visitor, boolean raise) throws IOException {
+        if (visitor == null) throw new NullPointerException("visitor must not be null");
+
+        boolean sequential = !recurse || parallelism <= 1;
+        DirectoryWalker root;
+        try {
+            // when parallel, the files directly inside the root are walked by the caller while child subtrees are
+            // walked in parallel
+            root = new DirectoryWalker(directory, filter, sequential && recurse);
+        } catch(FileNotFoundException ex) {
+            // a directory which exists but cannot be listed is skipped like any other unlistable directory
+            if (raise || !directory.exists()) throw ex;
+            return true;
+        }
+
+        AtomicBoolean terminated = new AtomicBoolean(false);
+        List<IOException> exceptions = new ArrayList<IOException>();
+
+        if (sequential) {
+            exceptions.addAll(new WalkCallable(root, visitor, terminated).call());
+        } else {
+            ExecutorService executor = Executors.newFixedThreadPool(parallelism, new DaemonThreadFactory("Tundra/DirectoryWalker"));
+            List<Future<List<IOException>>> futures = new ArrayList<Future<List<IOException>>>();
+            boolean completed = false;
+
+            try {
+                for (String item : root.frames.peek().listing) {
+                    File child = new File(directory, item);
+                    if (child.isDirectory()) {
+                        try {
+                            futures.add(executor.submit(new WalkCallable(new DirectoryWalker(child, filter, true), visitor, terminated)));
+                        } catch(FileNotFoundException ex) {
+                            if (child.exists()) exceptions.add(ex);
+                        }
+                    }
+                }
+
+                exceptions.addAll(new WalkCallable(root, visitor, terminated).call());
+
+                for (Future<List<IOException>> future : futures) {
+                    exceptions.addAll(FutureHelper.awaitIO(future));
+                }
+                completed = true;
+            } finally {
+                // stop any subtrees still being walked if this walk failed
+                if (!completed) terminated.set(true);
+                executor.shutdown();
+            }
+        }
+
+        if (raise && exceptions.size() > 0) ExceptionHelper.raiseUnchecked(exceptions);
+
+        return !terminated.get();
+    }
+
+    /**
+     * A file visited by a directory walk.
+     */
+    public static class Entry {
+        /**
+         * The file visited.
+         */
+        protected final File file;
+        /**
+         * The length of the file in bytes when visited.
+         */
+        protected final long length;
+        /**
+         * The last modified datetime of the file in milliseconds since the epoch when visited.
+         */
+        protected final long lastModified;
+
+        /**
+         * Constructs a new Entry.
+         *
+         * @param file          The file visited.
+         * @param length        The length of the file in bytes.
+         * @param lastModified  The last modified datetime of the file in milliseconds since the epoch.
+         */
+        public Entry(File file, long length, long lastModified) {
+            this.file = file;
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+
+        /**
+         * Returns the file visited.
+         *
+         * @return The file visited.
+         */
+        public File getFile() {
+            return file;
+        }
+
+        /**
+         * Returns the length of the file in bytes when it was visited.
+         *
+         * @return The length of the file in bytes when it was visited.
+         */
+        public long length() {
+            return length;
+        }
+
+        /**
+         * Returns the last modified datetime of the file when it was visited.
+         *
+         * @return The last modified datetime of the file in milliseconds since the epoch.
+         */
+        public long lastModified() {
+            return lastModified;
+        }
+
+        /**
+         * Returns a string representation of this entry.
+         *
+         * @return A string representation of this entry.
+         */
+        @Override
+        public String toString() {
+            return file.toString();
+        }
+    }
+
+    /**
+     * Called for each file visited by a directory walk.
+     */
+    public interface Visitor {
+        /**
+         * Visits the given file.
+         *
+         * @param entry         The file being visited.
+         * @return              True to continue walking, or false to terminate the walk.
+         * @throws IOException  If an IO error occurs.
+         */
+        boolean visit(Entry entry) throws IOException;
+    }
+
+    /**
+     * A directory being walked and the position of the walk within its listing.
+     */
+    protected static class Frame {
+        /**
+         * The directory being walked.
+         */
+        protected final File directory;
+        /**
+         * The sorted names of the items in the directory.
+         */
+        protected final String[] listing;
+        /**
+         * The index of the next item in the listing to be walked.
+         */
+        protected int index;
+
+        /**
+         * Constructs a new Frame.
+         *
+         * @param directory The directory being walked.
+         * @param listing   The sorted names of the items in the directory.
+         */
+        protected Frame(File directory, String[] listing) {
+            this.directory = directory;
+            this.listing = listing;
+        }
+    }
+
+    /**
+     * Drives a walker, calling a visitor for each file until the walk is exhausted or terminated.
+     */
+    private static class WalkCallable implements Callable<List<IOException>> {
+        /**
+         * The walker to be driven.
+         */
+        private final DirectoryWalker walker;
+        /**
+         * The visitor called for each file.
+         */
+        private final Visitor visitor;
+        /**
+         * Flag shared by all subtree walks, set when any visitor terminates the walk.
+         */
+        private final AtomicBoolean terminated;
+
+        /**
+         * Constructs a new WalkCallable.
+         *
+         * @param walker        The walker to be driven.
+         * @param visitor       The visitor called for each file.
+         * @param terminated    Flag shared by all subtree walks, set when any visitor terminates the walk.
+         */
+        WalkCallable(DirectoryWalker walker, Visitor visitor, AtomicBoolean terminated) {
+            this.walker = walker;
+            this.visitor = visitor;
+            this.terminated = terminated;
+        }
+
+        /**
+         * Walks the files, returning any errors encountered listing child directories.
+         *
+         * @return              Any errors encountered listing child directories.
+         * @throws IOException  If the visitor throws an exception.
+         */
+        public List<IOException> call() throws IOException {
+            try {
+                while (!terminated.get() && walker.hasNext()) {
+                    if (!visitor.visit(walker.next())) terminated.set(true);
+                }
+            } finally {
+                walker.close();
+            }
+            return walker.getExceptions();
+        }
+    }
+}
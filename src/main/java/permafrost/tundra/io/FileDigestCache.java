@@ -0,0 +1,283 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2026 Lachlan Dowding
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package permafrost.tundra.io;
+
+import permafrost.tundra.util.concurrent.DaemonThreadFactory;
+import permafrost.tundra.util.concurrent.FutureHelper;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A bounded cache of file content message digests keyed by the file's path, size, and last modified datetime, so
+ * that repeatedly digesting unchanged files, such as when detecting duplicates in the same directory over and over,
+ * does not require reading their content again.
+ */
+public class FileDigestCache {
+    /**
+     * The default maximum number of digests cached.
+     */
+    public static final int DEFAULT_CAPACITY = 10000;
+    /**
+     * The cached digests, in least recently used order.
+     */
+    private final Map<Key, byte[]> cache;
+
+    /**
+     * Initialization on demand holder idiom.
+     */
+    private static class Holder {
+        /**
+         * The singleton instance of the class.
+         */
+        static final FileDigestCache INSTANCE = new FileDigestCache(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Initialization on demand holder idiom for the executor used to calculate digests concurrently.
+     */
+    private static class ExecutorHolder {
+        /**
+         * The executor used to calculate digests concurrently, bounded to one thread per processor so that digesting
+         * a large number of files does not create an unbounded number of threads competing for disk and processor.
+         */
+        static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new DaemonThreadFactory("Tundra/FileDigestCache"));
+    }
+
+    /**
+     * Constructs a new FileDigestCache.
+     *
+     * @param capacity  The maximum number of digests to be cached, after which the least recently used are evicted.
+     */
+    public FileDigestCache(final int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be greater than zero");
+
+        this.cache = new LinkedHashMap<Key, byte[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, byte[]> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the singleton instance of this class.
+     *
+     * @return The singleton instance of this class.
+     */
+    public static FileDigestCache getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * Returns the message digest of the given file's content, calculating it only if the file has not been digested
+     * before or has since changed size or modification datetime.
+     *
+     * @param file                      The file to be digested.
+     * @param algorithmName             The name of the message digest algorithm to use.
+     * @return                          The message digest of the file's content.
+     * @throws IOException              If an IO error occurs reading the file.
+     * @throws NoSuchAlgorithmException If there is no provider for the given algorithm.
+     */
+    public byte[] digest(File file, String algorithmName) throws IOException, NoSuchAlgorithmException {
+        if (file == null) throw new NullPointerException("file must not be null");
+        if (algorithmName == null) throw new NullPointerException("algorithmName must not be null");
+
+        // the key is read before the content, so a file modified while being digested is digested again next time
+        Key key = new Key(file, algorithmName);
+        byte[] digest;
+
+        synchronized (cache) {
+            digest = cache.get(key);
+        }
+
+        if (digest == null) {
+            digest = calculate(file, MessageDigest.getInstance(algorithmName));
+            synchronized (cache) {
+                cache.put(key, digest);
+            }
+        }
+
+        return digest.clone();
+    }
+
+    /**
+     * Returns the message digests of the given files' content, calculating any not already cached concurrently.
+     *
+     * @param files                     The files to be digested.
+     * @param algorithmName             The name of the message digest algorithm to use.
+     * @return                          The message digests of the files' content, in the same order as the files.
+     * @throws IOException              If an IO error occurs reading the files.
+     * @throws NoSuchAlgorithmException If there is no provider for the given algorithm.
+     */
+    public byte[][] digest(File[] files, final String algorithmName) throws IOException, NoSuchAlgorithmException {
+        if (files == null) return null;
+
+        MessageDigest.getInstance(algorithmName); // fail fast if the algorithm is not supported
+
+        byte[][] digests = new byte[files.length][];
+        List<Future<byte[]>> futures = new ArrayList<Future<byte[]>>(files.length);
+
+        try {
+            // the last file is digested by the calling thread while the others are digested in the background
+            for (int i = 0; i < files.length - 1; i++) {
+                final File file = files[i];
+                futures.add(ExecutorHolder.EXECUTOR.submit(new Callable<byte[]>() {
+                    public byte[] call() throws Exception {
+                        return digest(file, algorithmName);
+                    }
+                }));
+            }
+
+            if (files.length > 0) digests[files.length - 1] = digest(files[files.length - 1], algorithmName);
+
+            for (int i = 0; i < futures.size(); i++) {
+                digests[i] = FutureHelper.awaitIO(futures.get(i));
+            }
+        } finally {
+            for (Future<byte[]> future : futures) {
+                future.cancel(true);
+            }
+        }
+
+        return digests;
+    }
+
+    /**
+     * Removes all cached digests.
+     */
+    public void clear() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Returns the number of cached digests.
+     *
+     * @return The number of cached digests.
+     */
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    /**
+     * Calculates the message digest of the given file's content.
+     *
+     * @param file          The file to be digested.
+     * @param algorithm     The message digest algorithm to use.
+     * @return              The message digest of the file's content.
+     * @throws IOException  If an IO error occurs reading the file.
+     */
+    private static byte[] calculate(File file, MessageDigest algorithm) throws IOException {
+        FileInputStream inputStream = new FileInputStream(file);
+        try {
+            byte[] buffer = new byte[InputOutputHelper.normalizeBufferSize(-1, inputStream.getChannel().size())];
+            int length;
+            while ((length = inputStream.read(buffer)) >= 0) {
+                algorithm.update(buffer, 0, length);
+            }
+            return algorithm.digest();
+        } finally {
+            CloseableHelper.close(inputStream);
+        }
+    }
+
+    /**
+     * Identifies a specific version of a file's content digested with a specific algorithm.
+     */
+    private static class Key {
+        /**
+         * The absolute path of the file.
+         */
+        private final String path;
+        /**
+         * The upper case name of the message digest algorithm.
+         */
+        private final String algorithmName;
+        /**
+         * The size of the file in bytes.
+         */
+        private final long length;
+        /**
+         * The last modified datetime of the file in milliseconds since the epoch.
+         */
+        private final long lastModified;
+
+        /**
+         * Constructs a new Key for the current version of the given file.
+         *
+         * @param file          The file.
+         * @param algorithmName The name of the message digest algorithm.
+         */
+        Key(File file, String algorithmName) {
+            this.path = file.getAbsolutePath();
+            this.algorithmName = algorithmName.toUpperCase(Locale.ENGLISH);
+            this.length = file.length();
+            this.lastModified = file.lastModified();
+        }
+
+        /**
+         * Returns true if the given object is a key for the same file version and algorithm.
+         *
+         * @param other The object to compare to.
+         * @return      True if the given object is a key for the same file version and algorithm.
+         */
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) return true;
+            if (!(other instanceof Key)) return false;
+            Key key = (Key)other;
+            return length == key.length && lastModified == key.lastModified && path.equals(key.path) && algorithmName.equals(key.algorithmName);
+        }
+
+        /**
+         * Returns a hash code for this key.
+         *
+         * @return A hash code for this key.
+         */
+        @Override
+        public int hashCode() {
+            int result = path.hashCode();
+            result = 31 * result + algorithmName.hashCode();
+            result = 31 * result + (int)(length ^ (length >>> 32));
+            result = 31 * result + (int)(lastModified ^ (lastModified >>> 32));
+            return result;
+        }
+    }
+}
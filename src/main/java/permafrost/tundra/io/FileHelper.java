@@ -44,7 +44,6 @@ import permafrost.tundra.lang.StringHelper;
 import permafrost.tundra.math.LongHelper;
 import permafrost.tundra.mime.MIMETypeHelper;
 import permafrost.tundra.net.uri.URIHelper;
-import permafrost.tundra.security.MessageDigestHelper;
 import permafrost.tundra.server.ServiceHelper;
 import permafrost.tundra.time.DateTimeHelper;
 import javax.xml.datatype.Duration;
@@ -60,16 +59,17 @@ import java.io.FileOutputStream;
 import java.io.FilenameFilter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.RandomAccessFile;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
-import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.text.MessageFormat;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
-import java.util.Map;
 import java.util.zip.GZIPOutputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
@@ -78,6 +78,12 @@ import java.util.zip.ZipOutputStream;
  * A collection of convenience methods for working with files.
  */
 public final class FileHelper {
+    /**
+     * Files at least this size in bytes are read directly into an exactly sized array rather than streamed when read
+     * completely into memory.
+     */
+    public static final long DIRECT_READ_THRESHOLD = 1024 * 1024;
+
     /**
      * Disallow instantiation of this class.
      */
@@ -302,15 +308,29 @@ public final class FileHelper {
         byte[] content = null;
 
         if (file != null) {
-            InputStream inputStream = null;
+            FileInputStream inputStream = null;
             ByteArrayOutputStream outputStream = null;
             try {
                 inputStream = new FileInputStream(file);
-                outputStream = new ByteArrayOutputStream(InputOutputHelper.normalizeBufferSize(bufferSize));
-
-                InputOutputHelper.copy(inputStream, outputStream);
-
-                content = outputStream.toByteArray();
+                FileChannel channel = inputStream.getChannel();
+                long length = channel.size();
+
+                if (length >= DIRECT_READ_THRESHOLD && length <= Integer.MAX_VALUE) {
+                    // large files are read directly into the resulting array, avoiding the repeated buffer growth
+                    // and copying of reading via a stream; the file is not memory-mapped, as a mapping is only
+                    // released when garbage collected and keeps the file locked on Windows until then
+                    content = new byte[(int)length];
+                    ByteBuffer buffer = ByteBuffer.wrap(content);
+                    while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                        // keep reading until the array is full or the file ends early
+                    }
+                    if (buffer.hasRemaining()) content = Arrays.copyOf(content, buffer.position());
+                } else {
+                    // the reported length is only a sizing hint, as some files report a zero length
+                    outputStream = new ByteArrayOutputStream(InputOutputHelper.normalizeBufferSize(bufferSize, length));
+                    InputOutputHelper.copy(inputStream, outputStream, false, InputOutputHelper.normalizeBufferSize(bufferSize, length));
+                    content = outputStream.toByteArray();
+                }
             } finally {
                 CloseableHelper.close(inputStream, outputStream);
             }
@@ -417,8 +437,7 @@ public final class FileHelper {
                 // only needs to copy file when the paths are different
                 InputOutputHelper.copy(new FileInputStream(source), new FileOutputStream(target, append), true, bufferSize);
             } else if (append) {
-                // read fully into memory before writing to itself
-                InputOutputHelper.copy(InputStreamHelper.memoize(new FileInputStream(source)), new FileOutputStream(target, append), true, bufferSize);
+                appendToSelf(source);
             } else {
                 // otherwise update the last modified date
                 touch(source);
@@ -426,19 +445,50 @@ public final class FileHelper {
         }
     }
 
-    private static final String DEFAULT_MESSAGE_DIGEST_ALGORITHM_NAME = "SHA-1";
-    private static MessageDigest DEFAULT_MESSAGE_DIGEST_ALGORITHM;
-    static {
+    /**
+     * Appends the content of the given file to itself, by copying the file's original content to the end of the file
+     * through a reused buffer, rather than reading the entire file onto the heap first.
+     *
+     * @param file          The file to be appended to itself.
+     * @throws IOException  If there is a problem reading or writing the file.
+     */
+    private static void appendToSelf(File file) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
         try {
-            DEFAULT_MESSAGE_DIGEST_ALGORITHM = MessageDigestHelper.normalize(DEFAULT_MESSAGE_DIGEST_ALGORITHM_NAME);
-        } catch(NoSuchAlgorithmException ex) {
-            DEFAULT_MESSAGE_DIGEST_ALGORITHM = MessageDigestHelper.DEFAULT_ALGORITHM;
+            FileChannel channel = randomAccessFile.getChannel();
+            long length = channel.size();
+            ByteBuffer buffer = ByteBuffer.allocate(InputOutputHelper.normalizeBufferSize(-1, length));
+
+            for (long position = 0; position < length; ) {
+                buffer.clear();
+                if (length - position < buffer.capacity()) buffer.limit((int)(length - position));
+                int count = channel.read(buffer, position);
+                if (count < 0) break;
+
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer, length + position + buffer.position());
+                }
+                position += count;
+            }
+        } finally {
+            CloseableHelper.close(randomAccessFile);
         }
     }
 
     /**
-     * Returns true if the source file content is equal to the target file content by calculating and comparing
-     * cryptographic message digests for both files.
+     * The message digest algorithm used when comparing file contents by digest.
+     */
+    public static final String DEFAULT_MESSAGE_DIGEST_ALGORITHM_NAME = "SHA-1";
+    /**
+     * The size in bytes of the buffers used to read regions of each file when comparing file contents directly.
+     */
+    private static final int COMPARISON_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Returns true if the source file content is equal to the target file content. Files of differing lengths are
+     * never read, and otherwise the contents are compared directly region by region, stopping at the first
+     * difference.
      *
      * @param source                    The source file.
      * @param target                    The target file.
@@ -448,56 +498,143 @@ public final class FileHelper {
      * @throws NoSuchAlgorithmException If the message digest algorithm does not exist.
      */
     public static boolean equal(File source, File target, boolean raise) throws IOException, NoSuchAlgorithmException {
-        InputStream sourceStream = null, targetStream = null;
+        return equal(source, target, raise, null);
+    }
+
+    /**
+     * Returns true if the source file content is equal to the target file content. Files of differing lengths are
+     * never read. If an algorithm is specified, the contents are compared by cryptographic message digests which are
+     * calculated concurrently for both files and cached, otherwise the contents are compared directly region by
+     * region, stopping at the first difference.
+     *
+     * @param source                    The source file.
+     * @param target                    The target file.
+     * @param raise                     Whether to throw an exception if the source and target contents are not equal.
+     * @param algorithmName             The optional message digest algorithm to compare the contents with.
+     * @return                          True if the source and target contents are equal.
+     * @throws IOException              If an IO error occurs.
+     * @throws NoSuchAlgorithmException If the message digest algorithm does not exist.
+     */
+    public static boolean equal(File source, File target, boolean raise, String algorithmName) throws IOException, NoSuchAlgorithmException {
         boolean equal = false;
 
-        try {
-            boolean sourceExists = exists(source);
-            boolean sourceReadable = isReadable(source);
-            boolean targetExists = exists(target);
-            boolean targetReadable = isReadable(target);
+        boolean sourceExists = exists(source);
+        boolean sourceReadable = isReadable(source);
+        boolean targetExists = exists(target);
+        boolean targetReadable = isReadable(target);
 
-            if (sourceExists && sourceReadable && targetExists && targetReadable) {
-                if (source.length() == target.length()) {
-                    sourceStream = new MarkableFileInputStream(source);
-                    targetStream = new MarkableFileInputStream(target);
-                    Map.Entry<? extends InputStream, byte[]> sourceDigestResult = MessageDigestHelper.digest(DEFAULT_MESSAGE_DIGEST_ALGORITHM, sourceStream);
-                    Map.Entry<? extends InputStream, byte[]> targetDigestResult = MessageDigestHelper.digest(DEFAULT_MESSAGE_DIGEST_ALGORITHM, targetStream);
+        if (sourceExists && sourceReadable && targetExists && targetReadable) {
+            long sourceLength = source.length(), targetLength = target.length();
 
-                    sourceStream = sourceDigestResult.getKey();
-                    targetStream = targetDigestResult.getKey();
+            if (sourceLength == targetLength) {
+                if (algorithmName == null) {
+                    long offset = mismatch(source, target);
+                    equal = offset < 0;
 
-                    byte[] sourceDigest = sourceDigestResult.getValue();
-                    byte[] targetDigest = targetDigestResult.getValue();
+                    if (raise && !equal) {
+                        throw new IOException(MessageFormat.format("Source and target file contents are not equal from byte offset {0}:\n\tSource: {1}\n\tTarget: {2}", offset, source, target));
+                    }
+                } else {
+                    byte[][] digests = FileDigestCache.getInstance().digest(new File[] { source, target }, algorithmName);
+                    byte[] sourceDigest = digests[0];
+                    byte[] targetDigest = digests[1];
 
                     equal = Arrays.equals(sourceDigest, targetDigest);
 
                     if (raise && !equal) {
                         String sourceDigestString = BytesHelper.hexEncode(sourceDigest);
                         String targetDigestString = BytesHelper.hexEncode(targetDigest);
-                        throw new IOException(MessageFormat.format("Source and target file contents are not equal:\n\tSource: {0} = {1} {2}\n\tTarget: {0} = {3} {4}", DEFAULT_MESSAGE_DIGEST_ALGORITHM.getAlgorithm(), sourceDigestString, source, targetDigestString, target));
+                        throw new IOException(MessageFormat.format("Source and target file contents are not equal:\n\tSource: {0} = {1} {2}\n\tTarget: {0} = {3} {4}", algorithmName, sourceDigestString, source, targetDigestString, target));
                     }
-                } else if (raise) {
-                    throw new IOException(MessageFormat.format("Source and target file sizes are not equal: \n\tSource: Size (bytes) = {0} {1}\n\tTarget: Size (bytes) = {2} {3}", source.length(), source, target.length(), target));
                 }
+            } else if (raise) {
+                throw new IOException(MessageFormat.format("Source and target file sizes are not equal: \n\tSource: Size (bytes) = {0} {1}\n\tTarget: Size (bytes) = {2} {3}", sourceLength, source, targetLength, target));
+            }
+        } else {
+            String errorMessage;
+            if (!sourceExists) {
+                errorMessage = MessageFormat.format("Source file does not exist or is not reachable: {0}", source);
+            } else if (!sourceReadable) {
+                errorMessage = MessageFormat.format("Source file is not readable: {0}", source);
+            } else if (!targetExists) {
+                errorMessage = MessageFormat.format("Target file does not exist or is not reachable: {0}", target);
             } else {
-                String errorMessage;
-                if (!sourceExists) {
-                    errorMessage = MessageFormat.format("Source file does not exist or is not reachable: {0}", source);
-                } else if (!sourceReadable) {
-                    errorMessage = MessageFormat.format("Source file is not readable: {0}", source);
-                } else if (!targetExists) {
-                    errorMessage = MessageFormat.format("Target file does not exist or is not reachable: {0}", target);
-                } else {
-                    errorMessage = MessageFormat.format("Target file is not readable: {0}", target);
+                errorMessage = MessageFormat.format("Target file is not readable: {0}", target);
+            }
+            throw new IOException(errorMessage);
+        }
+
+        return equal;
+    }
+
+    /**
+     * Compares the content of the given files by reading and comparing successive regions of both into a pair of
+     * buffers which are reused for every region. The files are not memory-mapped, as mappings are only released when
+     * garbage collected, which for large files would retain many regions and keep the files locked on Windows.
+     *
+     * @param source        The source file.
+     * @param target        The target file.
+     * @return              The byte offset of the first difference between the files, or -1 if they are equal.
+     * @throws IOException  If an IO error occurs.
+     */
+    private static long mismatch(File source, File target) throws IOException {
+        FileInputStream sourceStream = null, targetStream = null;
+
+        try {
+            sourceStream = new FileInputStream(source);
+            targetStream = new FileInputStream(target);
+
+            FileChannel sourceChannel = sourceStream.getChannel(), targetChannel = targetStream.getChannel();
+            long sourceLength = sourceChannel.size(), targetLength = targetChannel.size();
+            long length = Math.min(sourceLength, targetLength);
+
+            ByteBuffer sourceBuffer = ByteBuffer.allocate(COMPARISON_BUFFER_SIZE);
+            ByteBuffer targetBuffer = ByteBuffer.allocate(COMPARISON_BUFFER_SIZE);
+
+            for (long position = 0; position < length; ) {
+                int size = (int)Math.min(length - position, COMPARISON_BUFFER_SIZE);
+                int sourceCount = read(sourceChannel, sourceBuffer, position, size);
+                int targetCount = read(targetChannel, targetBuffer, position, size);
+                int count = Math.min(sourceCount, targetCount);
+
+                if (!sourceBuffer.equals(targetBuffer)) {
+                    // only the region known to differ is scanned byte by byte to find the exact offset
+                    for (int i = 0; i < count; i++) {
+                        if (sourceBuffer.get(i) != targetBuffer.get(i)) return position + i;
+                    }
+                    // either file was truncated while being compared
+                    return position + count;
                 }
-                throw new IOException(errorMessage);
+
+                position += size;
             }
+
+            return sourceLength == targetLength ? -1 : length;
         } finally {
             CloseableHelper.close(sourceStream, targetStream);
         }
+    }
 
-        return equal;
+    /**
+     * Reads up to the given number of bytes from the given position of the given channel into the given buffer,
+     * which is then flipped ready to be read.
+     *
+     * @param channel       The channel to read from.
+     * @param buffer        The buffer to read into, whose previous content is discarded.
+     * @param position      The position in the channel to read from.
+     * @param size          The number of bytes to read.
+     * @return              The number of bytes read, which is less than the given size only if the end of the
+     *                      channel was reached.
+     * @throws IOException  If an IO error occurs.
+     */
+    private static int read(FileChannel channel, ByteBuffer buffer, long position, int size) throws IOException {
+        buffer.clear();
+        buffer.limit(size);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) break;
+        }
+        buffer.flip();
+        return buffer.limit();
     }
 
     /**
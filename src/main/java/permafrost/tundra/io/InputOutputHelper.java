@@ -24,11 +24,17 @@
 
 package permafrost.tundra.io;
 
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Reader;
 import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 
 /**
  * A collection of I/O related convenience methods.
@@ -38,6 +44,15 @@ public final class InputOutputHelper {
      * The default I/O buffer size used by Tundra.
      */
     public static final int DEFAULT_BUFFER_SIZE = 8192;
+    /**
+     * The largest I/O buffer size chosen automatically when tuning the buffer size to the length of the content.
+     */
+    public static final int MAXIMUM_BUFFER_SIZE = 1024 * 1024;
+    /**
+     * The maximum number of bytes moved by a single channel transfer call, as some platforms limit how much can be
+     * transferred at once.
+     */
+    private static final long MAXIMUM_TRANSFER_SIZE = 8L * 1024 * 1024;
 
     /**
      * Disallow instantiation of this class.
@@ -69,6 +84,8 @@ public final class InputOutputHelper {
 
     /**
      * Copies all data from the given input stream to the given output stream, then optionally closes both streams.
+     * When copying from a non-empty regular file to a file, the data is transferred directly between the underlying
+     * file channels rather than through a user-space buffer.
      *
      * @param inputStream   An input stream containing data to be copied.
      * @param outputStream  An output stream to where the copied data will be written.
@@ -80,6 +97,16 @@ public final class InputOutputHelper {
         if (inputStream == null || outputStream == null) return;
 
         try {
+            if (inputStream instanceof FileInputStream && outputStream instanceof FileOutputStream) {
+                FileChannel source = ((FileInputStream)inputStream).getChannel();
+                // pipes, devices, and special files such as those in /proc report a size of zero, and cannot be
+                // transferred from by position, so they are copied with the buffered loop below
+                if (isTransferable(source)) {
+                    transfer(source, ((FileOutputStream)outputStream).getChannel());
+                    return;
+                }
+            }
+
             bufferSize = normalizeBufferSize(bufferSize);
 
             inputStream = InputStreamHelper.normalize(inputStream, bufferSize);
@@ -110,6 +137,134 @@ public final class InputOutputHelper {
         return bufferSize;
     }
 
+    /**
+     * Normalizes the given buffer size: if the given size is less than or equal to zero, then a buffer size is
+     * chosen based on the length of the content to be buffered, such that small content is read in a single pass
+     * and large content uses a larger buffer up to a maximum of 1MB.
+     *
+     * @param bufferSize    The buffer size to normalize.
+     * @param length        The length in bytes of the content to be buffered, or a negative value if unknown.
+     * @return              The normalized buffer size.
+     */
+    public static int normalizeBufferSize(int bufferSize, long length) {
+        if (bufferSize <= 0) {
+            if (length <= DEFAULT_BUFFER_SIZE) {
+                bufferSize = DEFAULT_BUFFER_SIZE;
+            } else if (length >= MAXIMUM_BUFFER_SIZE) {
+                bufferSize = MAXIMUM_BUFFER_SIZE;
+            } else {
+                // round up to the next power of two
+                bufferSize = Integer.highestOneBit((int)length - 1) << 1;
+            }
+        }
+        return bufferSize;
+    }
+
+    /**
+     * Returns true if data can be transferred from the given file channel by position: that is, if it is a regular
+     * file with a non-zero size.
+     *
+     * @param channel   The file channel to check.
+     * @return          True if data can be transferred from the given file channel by position.
+     */
+    private static boolean isTransferable(FileChannel channel) {
+        try {
+            return channel.size() > 0;
+        } catch(IOException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Transfers all remaining data from the given file channel's current position to the given target channel, such
+     * as another file or a socket, without copying the data through a user-space buffer where the platform supports
+     * it. The source channel's position is advanced by the number of bytes transferred. Data is transferred until the
+     * end of the file is reached, including any data appended during the transfer. Channels which do not report a
+     * size, such as pipes and special files, are copied through a buffer instead.
+     *
+     * @param source        The file channel to transfer data from.
+     * @param target        The channel to transfer data to.
+     * @return              The number of bytes transferred.
+     * @throws IOException  If there is a problem reading from or writing to the channels.
+     */
+    public static long transfer(FileChannel source, WritableByteChannel target) throws IOException {
+        if (source == null || target == null) return 0;
+        if (!isTransferable(source)) return copy(source, target);
+
+        long start = source.position(), position = start, count;
+
+        // a non-blocking target may not accept any bytes, in which case the caller must retry when it is ready
+        while ((count = source.transferTo(position, MAXIMUM_TRANSFER_SIZE, target)) > 0) {
+            position += count;
+        }
+
+        source.position(position);
+
+        return position - start;
+    }
+
+    /**
+     * Copies all remaining data from the given source channel to the given target channel through a buffer.
+     *
+     * @param source        The channel to copy data from.
+     * @param target        The channel to copy data to.
+     * @return              The number of bytes copied.
+     * @throws IOException  If there is a problem reading from or writing to the channels.
+     */
+    private static long copy(ReadableByteChannel source, WritableByteChannel target) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(DEFAULT_BUFFER_SIZE);
+        long total = 0;
+
+        while (source.read(buffer) >= 0) {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                total += target.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        return total;
+    }
+
+    /**
+     * Transfers all remaining data from the given source file channel's current position to the given target file
+     * channel's current position, without copying the data through a user-space buffer where the platform supports
+     * it.
+     *
+     * @param source        The file channel to transfer data from.
+     * @param target        The file channel to transfer data to.
+     * @return              The number of bytes transferred.
+     * @throws IOException  If there is a problem reading from or writing to the channels.
+     */
+    public static long transfer(FileChannel source, FileChannel target) throws IOException {
+        return transfer(source, (WritableByteChannel)target);
+    }
+
+    /**
+     * Transfers all data from the given source channel, such as a socket, to the given file channel's current
+     * position, without copying the data through a user-space buffer where the platform supports it. The target
+     * channel's position is advanced by the number of bytes transferred.
+     *
+     * @param source        The channel to transfer data from.
+     * @param target        The file channel to transfer data to.
+     * @return              The number of bytes transferred.
+     * @throws IOException  If there is a problem reading from or writing to the channels.
+     */
+    public static long transfer(ReadableByteChannel source, FileChannel target) throws IOException {
+        if (source == null || target == null) return 0;
+        if (source instanceof FileChannel) return transfer((FileChannel)source, (WritableByteChannel)target);
+
+        long start = target.position(), position = start, count;
+
+        while ((count = target.transferFrom(source, position, MAXIMUM_TRANSFER_SIZE)) > 0) {
+            position += count;
+        }
+
+        target.position(position);
+
+        return position - start;
+    }
+
     /**
      * Copies all the data from the given reader to the given writer, then closes both.
      *
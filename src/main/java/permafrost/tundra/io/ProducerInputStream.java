@@ -0,0 +1,163 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2026 Lachlan Dowding
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package permafrost.tundra.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * An InputStream whose content is produced incrementally as it is read, by a subclass writing to an internal buffer.
+ * This allows content written by push-style APIs, such as compressing output streams, to be read on demand without
+ * buffering the entire content or using a separate producer thread.
+ */
+public abstract class ProducerInputStream extends InputStream {
+    /**
+     * The buffer containing produced content which has not yet been read.
+     */
+    private final Buffer buffer = new Buffer();
+    /**
+     * Whether all content has been produced.
+     */
+    private boolean finished;
+    /**
+     * Whether this stream has been closed.
+     */
+    private boolean closed;
+
+    /**
+     * Produces the next chunk of content by writing it to the given output stream. Implementations should write a
+     * bounded amount of content per call, so that the unread content buffered by this stream remains bounded.
+     *
+     * @param outputStream  The stream to write the produced content to.
+     * @return              True if there is more content to be produced, false if all content has been produced.
+     * @throws IOException  If an I/O error occurs.
+     */
+    protected abstract boolean produce(OutputStream outputStream) throws IOException;
+
+    /**
+     * Reads the next byte of data from the input stream. The value byte is returned as an int in the range 0 to 255.
+     * If no byte is available because the end of the stream has been reached, the value -1 is returned.
+     *
+     * @return              The next byte of data, or -1 if the end of the stream is reached.
+     * @throws IOException  If an IO error occurs.
+     */
+    @Override
+    public int read() throws IOException {
+        byte[] bytes = new byte[1];
+        int count = read(bytes, 0, 1);
+        return count > 0 ? bytes[0] & 0xFF : -1;
+    }
+
+    /**
+     * Reads up to len bytes of data from the input stream into an array of bytes, producing more content as required.
+     *
+     * @param b             The buffer into which the data is read.
+     * @param off           The start offset in array b at which the data is written.
+     * @param len           The maximum number of bytes to read.
+     * @return              The total number of bytes read into the buffer, or -1 if there is no more data because the
+     *                      end of the stream has been reached.
+     * @throws IOException  If the stream has been closed, or if some other I/O error occurs.
+     */
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (closed) throw new IOException("Stream closed");
+        if (len == 0) return 0;
+
+        while (buffer.available() == 0) {
+            if (finished) return -1;
+            finished = !produce(buffer);
+        }
+
+        return buffer.read(b, off, len);
+    }
+
+    /**
+     * Returns the number of bytes already produced which can be read without blocking.
+     *
+     * @return The number of bytes which can be read without blocking.
+     */
+    @Override
+    public int available() {
+        return buffer.available();
+    }
+
+    /**
+     * Closes this stream and discards any unread content.
+     *
+     * @throws IOException If an I/O error occurs.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        finished = true;
+        buffer.reset();
+    }
+
+    /**
+     * A byte array buffer which can be read from as it is written to.
+     */
+    private static class Buffer extends ByteArrayOutputStream {
+        /**
+         * The position of the next byte to be read.
+         */
+        private int position;
+
+        /**
+         * Returns the number of unread bytes in this buffer.
+         *
+         * @return The number of unread bytes in this buffer.
+         */
+        int available() {
+            return count - position;
+        }
+
+        /**
+         * Reads up to len unread bytes from this buffer, and resets the buffer once all bytes have been read.
+         *
+         * @param b     The array into which the data is read.
+         * @param off   The start offset in array b at which the data is written.
+         * @param len   The maximum number of bytes to read.
+         * @return      The number of bytes read.
+         */
+        int read(byte[] b, int off, int len) {
+            int length = Math.min(len, available());
+            System.arraycopy(buf, position, b, off, length);
+            position += length;
+            if (position == count) reset();
+            return length;
+        }
+
+        /**
+         * Discards all bytes in this buffer.
+         */
+        @Override
+        public void reset() {
+            super.reset();
+            position = 0;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2026 Lachlan Dowding
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package permafrost.tundra.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+
+/**
+ * A filter input stream which records the bytes read from it, so that the start of a stream can be inspected and
+ * then replayed without buffering the entire stream in memory.
+ */
+public class RecordingInputStream extends FilterInputStream {
+    /**
+     * The bytes read while recording, or null if recording has stopped.
+     */
+    protected ByteArrayOutputStream recording = new ByteArrayOutputStream(InputOutputHelper.DEFAULT_BUFFER_SIZE);
+
+    /**
+     * Creates a new RecordingInputStream.
+     *
+     * @param inputStream The stream to be wrapped.
+     */
+    public RecordingInputStream(InputStream inputStream) {
+        super(inputStream);
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = in.read();
+        if (b >= 0 && recording != null) recording.write(b);
+        return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        int count = in.read(buffer, offset, length);
+        if (count > 0 && recording != null) recording.write(buffer, offset, count);
+        return count;
+    }
+
+    @Override
+    public long skip(long count) throws IOException {
+        if (recording == null) return in.skip(count);
+
+        byte[] buffer = new byte[(int)Math.min(count, InputOutputHelper.DEFAULT_BUFFER_SIZE)];
+        long skipped = 0;
+        while (skipped < count) {
+            int read = read(buffer, 0, (int)Math.min(count - skipped, buffer.length));
+            if (read < 0) break;
+            skipped += read;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int limit) {
+        // mark is not supported
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    /**
+     * Stops recording and discards the recorded bytes.
+     */
+    public void stop() {
+        recording = null;
+    }
+
+    /**
+     * Stops recording, and returns a stream which replays the recorded bytes followed by the remainder of the
+     * wrapped stream. This stream should no longer be read from once replayed.
+     *
+     * @return A stream which replays the recorded bytes followed by the remainder of the wrapped stream.
+     */
+    public InputStream replay() {
+        if (recording == null) throw new IllegalStateException("stream is no longer recording");
+        InputStream replay = new SequenceInputStream(new ByteArrayInputStream(recording.toByteArray()), in);
+        recording = null;
+        return replay;
+    }
+}
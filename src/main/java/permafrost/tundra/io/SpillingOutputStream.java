@@ -0,0 +1,187 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2026 Lachlan Dowding
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package permafrost.tundra.io;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * An OutputStream which holds written data in memory until it exceeds a given threshold, after which all data is
+ * spilled to a temporary file, so that arbitrarily large content can be buffered in bounded memory.
+ */
+public class SpillingOutputStream extends OutputStream {
+    /**
+     * The default number of bytes held in memory before spilling to a temporary file.
+     */
+    public static final int DEFAULT_THRESHOLD = 1024 * 1024;
+    /**
+     * The number of bytes held in memory before spilling to a temporary file.
+     */
+    protected final int threshold;
+    /**
+     * The in-memory buffer, or null if the data has been spilled to a temporary file.
+     */
+    protected ByteArrayOutputStream memory;
+    /**
+     * The temporary file the data has been spilled to, if any.
+     */
+    protected File file;
+    /**
+     * The stream used to write to the temporary file, if any.
+     */
+    protected OutputStream fileStream;
+    /**
+     * The total number of bytes written.
+     */
+    protected long size;
+    /**
+     * Whether this stream has been closed.
+     */
+    protected boolean closed;
+
+    /**
+     * Constructs a new SpillingOutputStream with the default threshold.
+     */
+    public SpillingOutputStream() {
+        this(DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Constructs a new SpillingOutputStream.
+     *
+     * @param threshold The number of bytes held in memory before spilling to a temporary file; if less than zero, the
+     *                  data is never spilled.
+     */
+    public SpillingOutputStream(int threshold) {
+        this.threshold = threshold < 0 ? Integer.MAX_VALUE : threshold;
+        this.memory = new ByteArrayOutputStream(Math.min(this.threshold, InputOutputHelper.DEFAULT_BUFFER_SIZE));
+    }
+
+    /**
+     * Writes the given byte to this stream.
+     *
+     * @param b             The byte to be written.
+     * @throws IOException  If an I/O error occurs.
+     */
+    @Override
+    public void write(int b) throws IOException {
+        prepare(1).write(b);
+        size++;
+    }
+
+    /**
+     * Writes len bytes from the given array starting at offset off to this stream.
+     *
+     * @param b             The data to be written.
+     * @param off           The start offset in the data.
+     * @param len           The number of bytes to write.
+     * @throws IOException  If an I/O error occurs.
+     */
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        prepare(len).write(b, off, len);
+        size += len;
+    }
+
+    /**
+     * Returns the stream to write the given number of bytes to, spilling to a temporary file if the threshold would
+     * be exceeded.
+     *
+     * @param length        The number of bytes to be written.
+     * @return              The stream to write to.
+     * @throws IOException  If this stream is closed, or the temporary file could not be written.
+     */
+    private OutputStream prepare(int length) throws IOException {
+        if (closed) throw new IOException("Stream closed");
+
+        if (memory != null && size + length > threshold) {
+            file = FileHelper.create();
+            fileStream = new BufferedOutputStream(new FileOutputStream(file), InputOutputHelper.DEFAULT_BUFFER_SIZE);
+            memory.writeTo(fileStream);
+            memory = null;
+        }
+
+        return memory == null ? fileStream : memory;
+    }
+
+    /**
+     * Flushes this stream.
+     *
+     * @throws IOException If an I/O error occurs.
+     */
+    @Override
+    public void flush() throws IOException {
+        if (fileStream != null) fileStream.flush();
+    }
+
+    /**
+     * Closes this stream; the written data remains available via getInputStream.
+     *
+     * @throws IOException If an I/O error occurs.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            if (fileStream != null) fileStream.close();
+        }
+    }
+
+    /**
+     * Returns the total number of bytes written to this stream.
+     *
+     * @return The total number of bytes written to this stream.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Returns true if the written data has been spilled to a temporary file.
+     *
+     * @return True if the written data has been spilled to a temporary file.
+     */
+    public boolean isSpilled() {
+        return file != null;
+    }
+
+    /**
+     * Closes this stream and returns the written data as an InputStream. If the data was spilled to a temporary
+     * file, the file is deleted when the returned stream is closed.
+     *
+     * @return              The written data as an InputStream.
+     * @throws IOException  If an I/O error occurs.
+     */
+    public InputStream getInputStream() throws IOException {
+        close();
+        return file == null ? new ByteArrayInputStream(memory.toByteArray()) : new DeleteOnCloseFileInputStream(file);
+    }
+}
@@ -29,6 +29,8 @@ import permafrost.tundra.collection.CollectionHelper;
 import permafrost.tundra.collection.ListHelper;
 import permafrost.tundra.data.IDataHelper;
 import permafrost.tundra.data.IDataMap;
+import permafrost.tundra.util.concurrent.FutureHelper;
+import permafrost.tundra.util.concurrent.SharedExecutor;
 import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -38,6 +40,8 @@ import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 /**
  * A collection of convenience methods for working with arrays.
@@ -47,6 +51,10 @@ public final class ArrayHelper {
      * The default separator string used between items of an array when converting it to a string.
      */
     public final static String DEFAULT_ITEM_SEPARATOR = ", ";
+    /**
+     * The minimum length of an array before it is sorted in parallel.
+     */
+    public final static int MINIMUM_PARALLEL_SORT_LENGTH = 8192;
 
     /**
      * Disallow instantiation of this class.
@@ -91,7 +99,6 @@ public final class ArrayHelper {
         return coalesce(array, null);
     }
 
-
     /**
      * Returns the first non-null item from the given array, or defaultValue if all items are null.
      *
@@ -1095,6 +1102,145 @@ public final class ArrayHelper {
         return copy;
     }
 
+    /**
+     * Returns a new array with all elements sorted according to the given comparator, sorting large arrays in parallel
+     * by sorting contiguous runs concurrently and then merging them. The sort is stable, as with the sequential sort.
+     *
+     * @param array       The array to be sorted.
+     * @param comparator  The comparator used to determine element ordering, or null to use natural ordering.
+     * @param parallelism The maximum number of threads used to sort the array, which is also bounded by the number
+     *                    of processors; arrays shorter than MINIMUM_PARALLEL_SORT_LENGTH are always sorted by the
+     *                    calling thread.
+     * @param <T>         The class of items stored in the array.
+     * @return            A new copy of the given array but with the items sorted.
+     */
+    public static <T> T[] sort(T[] array, Comparator<T> comparator, int parallelism) {
+        if (array == null) return null;
+
+        T[] copy = Arrays.copyOf(array, array.length);
+
+        int runs = Math.min(Math.min(parallelism, SharedExecutor.getParallelism()), copy.length / (MINIMUM_PARALLEL_SORT_LENGTH / 2));
+        if (runs <= 1 || copy.length < MINIMUM_PARALLEL_SORT_LENGTH) {
+            Arrays.sort(copy, comparator);
+            return copy;
+        }
+
+        int[] bounds = new int[runs + 1];
+        for (int i = 0; i <= runs; i++) {
+            bounds[i] = (int)((long)copy.length * i / runs);
+        }
+
+        ExecutorService executor = SharedExecutor.getInstance();
+        List<Future<?>> futures = new ArrayList<Future<?>>(runs);
+        try {
+            for (int i = 0; i < runs; i++) {
+                futures.add(executor.submit(new SortRunnable<T>(copy, bounds[i], bounds[i + 1], comparator)));
+            }
+            FutureHelper.await(futures);
+
+            T[] source = copy, target = Arrays.copyOf(copy, copy.length);
+            while (bounds.length > 2) {
+                int[] merged = new int[(bounds.length / 2) + 1];
+                futures.clear();
+                int i = 0, j = 0;
+                for (; i + 2 < bounds.length; i += 2) {
+                    futures.add(executor.submit(new MergeRunnable<T>(source, target, bounds[i], bounds[i + 1], bounds[i + 2], comparator)));
+                    merged[j++] = bounds[i];
+                }
+                if (i + 1 < bounds.length) {
+                    // an odd run out is carried over to the next round unmerged
+                    System.arraycopy(source, bounds[i], target, bounds[i], bounds[i + 1] - bounds[i]);
+                    merged[j++] = bounds[i];
+                }
+                merged[j++] = copy.length;
+                FutureHelper.await(futures);
+
+                bounds = Arrays.copyOf(merged, j);
+                T[] swap = source;
+                source = target;
+                target = swap;
+            }
+            return source;
+        } finally {
+            // cancel any tasks still queued on the shared executor if this sort failed
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Sorts a contiguous run of an array.
+     *
+     * @param <T> The class of items stored in the array.
+     */
+    private static class SortRunnable<T> implements Runnable {
+        private final T[] array;
+        private final int from, to;
+        private final Comparator<T> comparator;
+
+        /**
+         * Constructs a new SortRunnable.
+         *
+         * @param array         The array containing the run to be sorted.
+         * @param from          The index of the first item in the run, inclusive.
+         * @param to            The index of the last item in the run, exclusive.
+         * @param comparator    The comparator used to determine element ordering, or null to use natural ordering.
+         */
+        SortRunnable(T[] array, int from, int to, Comparator<T> comparator) {
+            this.array = array;
+            this.from = from;
+            this.to = to;
+            this.comparator = comparator;
+        }
+
+        public void run() {
+            Arrays.sort(array, from, to, comparator);
+        }
+    }
+
+    /**
+     * Merges two adjacent sorted runs of a source array into the same position in a target array.
+     *
+     * @param <T> The class of items stored in the array.
+     */
+    private static class MergeRunnable<T> implements Runnable {
+        private final T[] source, target;
+        private final int from, middle, to;
+        private final Comparator<T> comparator;
+
+        /**
+         * Constructs a new MergeRunnable.
+         *
+         * @param source        The array containing the sorted runs to be merged.
+         * @param target        The array the merged run is written to.
+         * @param from          The index of the first item in the first run, inclusive.
+         * @param middle        The index of the first item in the second run, inclusive.
+         * @param to            The index of the last item in the second run, exclusive.
+         * @param comparator    The comparator used to determine element ordering, or null to use natural ordering.
+         */
+        MergeRunnable(T[] source, T[] target, int from, int middle, int to, Comparator<T> comparator) {
+            this.source = source;
+            this.target = target;
+            this.from = from;
+            this.middle = middle;
+            this.to = to;
+            this.comparator = comparator;
+        }
+
+        @SuppressWarnings("unchecked")
+        public void run() {
+            int i = from, j = middle, k = from;
+            while (i < middle && j < to) {
+                int result = comparator == null ? ((Comparable<T>)source[j]).compareTo(source[i]) : comparator.compare(source[j], source[i]);
+                // items from the first run win ties, which keeps the merge stable
+                target[k++] = result < 0 ? source[j++] : source[i++];
+            }
+            if (i < middle) System.arraycopy(source, i, target, k, middle - i);
+            if (j < to) System.arraycopy(source, j, target, k, to - j);
+        }
+    }
+
     /**
      * Returns a new array with all duplicate elements removed.
      *
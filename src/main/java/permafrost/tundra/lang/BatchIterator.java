@@ -0,0 +1,119 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2026 Lachlan Dowding
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package permafrost.tundra.lang;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An iterator which groups the elements of another iterator into arrays of at most a given size, so that large
+ * streams of elements can be processed in chunks.
+ *
+ * @param <T> The type of element being batched.
+ */
+public class BatchIterator<T> implements CloseableIterator<T[]> {
+    /**
+     * The iterator whose elements are batched.
+     */
+    private final Iterator<? extends T> iterator;
+    /**
+     * The component class of the returned arrays.
+     */
+    private final Class<T> klass;
+    /**
+     * The maximum number of elements in each batch.
+     */
+    private final int size;
+
+    /**
+     * Constructs a new BatchIterator.
+     *
+     * @param iterator  The iterator whose elements are to be batched.
+     * @param klass     The component class of the returned arrays.
+     * @param size      The maximum number of elements in each batch.
+     */
+    public BatchIterator(Iterator<? extends T> iterator, Class<T> klass, int size) {
+        if (iterator == null) throw new NullPointerException("iterator must not be null");
+        if (klass == null) throw new NullPointerException("klass must not be null");
+        if (size < 1) throw new IllegalArgumentException("size must be greater than zero");
+        this.iterator = iterator;
+        this.klass = klass;
+        this.size = size;
+    }
+
+    /**
+     * Returns true if the iteration has more batches.
+     *
+     * @return True if the iteration has more batches.
+     */
+    @Override
+    public boolean hasNext() {
+        return iterator.hasNext();
+    }
+
+    /**
+     * Returns the next batch of elements, which contains at least one and at most size elements.
+     *
+     * @return The next batch of elements.
+     * @throws NoSuchElementException If no more elements exist.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public T[] next() {
+        if (!iterator.hasNext()) throw new NoSuchElementException();
+
+        T[] batch = (T[])Array.newInstance(klass, size);
+        int count = 0;
+        while (count < size && iterator.hasNext()) {
+            batch[count++] = iterator.next();
+        }
+
+        return count < size ? Arrays.copyOf(batch, count) : batch;
+    }
+
+    /**
+     * Removes from the underlying collection the last element returned by this iterator (optional operation).
+     *
+     * @throws UnsupportedOperationException This method is not implemented by this class.
+     */
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("remove method is not supported");
+    }
+
+    /**
+     * Closes the batched iterator, if it is closeable.
+     *
+     * @throws IOException If an I/O error occurs.
+     */
+    @Override
+    public void close() throws IOException {
+        if (iterator instanceof Closeable) ((Closeable)iterator).close();
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2026 Lachlan Dowding
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package permafrost.tundra.math.gauss;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-memory, mergeable histogram of non-negative samples using log-linear buckets, in the style of an HDR
+ * histogram: samples are quantized to a given resolution, each power of two range of quantized values is divided into
+ * the same number of linear sub-buckets, and values below that number are counted exactly. This bounds the relative
+ * error of any reported percentile by the sub-bucket precision, regardless of the magnitude of the samples.
+ */
+public class Histogram {
+    /**
+     * The default number of bits of sub-bucket precision, which bounds relative error to about 1.6%.
+     */
+    public static final int DEFAULT_PRECISION = 5;
+    /**
+     * The value each sample is divided by and rounded to a whole number of before being counted.
+     */
+    protected final double resolution;
+    /**
+     * The highest value which can be counted, in multiples of the resolution, with higher samples counted as this
+     * value.
+     */
+    protected final long highest;
+    /**
+     * The number of bits of sub-bucket precision.
+     */
+    protected final int precision;
+    /**
+     * The number of sub-buckets per power of two range.
+     */
+    protected final int subBucketCount;
+    /**
+     * The sample count of each bucket.
+     */
+    protected final AtomicLongArray counts;
+
+    /**
+     * Constructs a new histogram with the default precision.
+     *
+     * @param resolution    The smallest difference between samples which is distinguished, such as 0.000001 to
+     *                      count samples measured in seconds with microsecond resolution.
+     * @param highest       The highest sample which can be counted, with higher samples counted as this value.
+     */
+    public Histogram(double resolution, double highest) {
+        this(resolution, highest, DEFAULT_PRECISION);
+    }
+
+    /**
+     * Constructs a new histogram.
+     *
+     * @param resolution    The smallest difference between samples which is distinguished, such as 0.000001 to
+     *                      count samples measured in seconds with microsecond resolution.
+     * @param highest       The highest sample which can be counted, with higher samples counted as this value.
+     * @param precision     The number of bits of sub-bucket precision, between 1 and 16.
+     */
+    public Histogram(double resolution, double highest, int precision) {
+        if (resolution <= 0) throw new IllegalArgumentException("resolution must be greater than zero");
+        if (highest < resolution) throw new IllegalArgumentException("highest must not be less than resolution");
+        if (precision < 1 || precision > 16) throw new IllegalArgumentException("precision must be between 1 and 16");
+
+        this.resolution = resolution;
+        this.highest = (long)Math.min(Math.ceil(highest / resolution), Long.MAX_VALUE >> 1);
+        this.precision = precision;
+        this.subBucketCount = 1 << precision;
+        this.counts = new AtomicLongArray(index(this.highest) + 1);
+    }
+
+    /**
+     * Constructs a new empty histogram with the same configuration as the given histogram.
+     *
+     * @param histogram The histogram whose configuration is to be copied.
+     */
+    protected Histogram(Histogram histogram) {
+        this.resolution = histogram.resolution;
+        this.highest = histogram.highest;
+        this.precision = histogram.precision;
+        this.subBucketCount = histogram.subBucketCount;
+        this.counts = new AtomicLongArray(histogram.counts.length());
+    }
+
+    /**
+     * Adds a new sample to this histogram.
+     *
+     * @param sample The sample to be added; negative samples are counted as zero.
+     */
+    public void add(double sample) {
+        long value = sample <= 0 ? 0 : Math.round(sample / resolution);
+        if (value > highest) value = highest;
+        counts.incrementAndGet(index(value));
+    }
+
+    /**
+     * Adds the counts of the given histogram to this histogram.
+     *
+     * @param histogram                 The histogram to be merged into this histogram.
+     * @throws IllegalArgumentException If the given histogram has a different configuration to this histogram.
+     */
+    public void merge(Histogram histogram) {
+        if (histogram.resolution != resolution || histogram.highest != highest || histogram.precision != precision) {
+            throw new IllegalArgumentException("histograms with different configurations cannot be merged");
+        }
+
+        for (int i = 0; i < counts.length(); i++) {
+            long count = histogram.counts.get(i);
+            if (count > 0) counts.addAndGet(i, count);
+        }
+    }
+
+    /**
+     * Returns a new histogram with the same configuration and counts as this histogram.
+     *
+     * @return a copy of this histogram.
+     */
+    public Histogram copy() {
+        Histogram copy = new Histogram(this);
+        copy.merge(this);
+        return copy;
+    }
+
+    /**
+     * Returns the number of samples counted by this histogram.
+     *
+     * @return the number of samples counted by this histogram.
+     */
+    public long getCount() {
+        long total = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            total += counts.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * Returns the sample value below which the given percentage of samples fall.
+     *
+     * @param percentile    The percentile to return, between 0 and 100.
+     * @return              The sample value at the given percentile, or 0 if there are no samples.
+     */
+    public double getPercentile(double percentile) {
+        return getPercentiles(percentile)[0];
+    }
+
+    /**
+     * Returns the sample values below which each of the given percentages of samples fall, in a single pass over the
+     * buckets.
+     *
+     * @param percentiles   The percentiles to return, each between 0 and 100, in ascending order.
+     * @return              The sample values at the given percentiles, or 0 if there are no samples.
+     */
+    public double[] getPercentiles(double... percentiles) {
+        long[] snapshot = new long[counts.length()];
+        long total = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+
+        double[] values = new double[percentiles.length];
+        if (total == 0) return values;
+
+        long cumulative = 0;
+        int index = 0;
+        for (int i = 0; i < percentiles.length; i++) {
+            double percentile = Math.max(0.0, Math.min(100.0, percentiles[i]));
+            long rank = Math.max(1, (long)Math.ceil(percentile / 100.0 * total));
+
+            while (cumulative + snapshot[index] < rank && index < snapshot.length - 1) {
+                cumulative += snapshot[index];
+                index++;
+            }
+
+            values[i] = value(index) * resolution;
+        }
+
+        return values;
+    }
+
+    /**
+     * Resets this histogram back to a set of zero samples.
+     */
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+    }
+
+    /**
+     * Returns the bucket index for the given quantized value.
+     *
+     * @param value The quantized value.
+     * @return      The bucket index.
+     */
+    protected int index(long value) {
+        if (value < subBucketCount) return (int)value;
+
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        int shift = magnitude - precision;
+        return subBucketCount + shift * subBucketCount + (int)((value >>> shift) - subBucketCount);
+    }
+
+    /**
+     * Returns the quantized value at the middle of the range counted by the given bucket index.
+     *
+     * @param index The bucket index.
+     * @return      The quantized value represented by the bucket.
+     */
+    protected double value(int index) {
+        if (index < subBucketCount) return index;
+
+        int shift = (index - subBucketCount) / subBucketCount;
+        long subBucket = (index - subBucketCount) % subBucketCount + subBucketCount;
+        long lower = subBucket << shift;
+        long width = 1L << shift;
+
+        return lower + (width - 1) / 2.0;
+    }
+}
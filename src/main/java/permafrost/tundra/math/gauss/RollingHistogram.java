@@ -0,0 +1,146 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2026 Lachlan Dowding
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package permafrost.tundra.math.gauss;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of the samples added within a rolling time window. The window is divided into a number of slots, each
+ * with its own histogram which is reset when the slot is reused, so that a snapshot only includes samples added within
+ * approximately the last window duration.
+ */
+public class RollingHistogram {
+    /**
+     * The default number of slots the window is divided into.
+     */
+    public static final int DEFAULT_SLOT_COUNT = 6;
+    /**
+     * The duration in milliseconds of the window, and of each slot.
+     */
+    protected final long window, slotDuration;
+    /**
+     * The histogram of each slot.
+     */
+    protected final Histogram[] slots;
+    /**
+     * The epoch of each slot, which is the start time of the slot divided by the slot duration.
+     */
+    protected final AtomicLongArray epochs;
+
+    /**
+     * Constructs a new rolling histogram with the default number of slots.
+     *
+     * @param window        The duration of the window in milliseconds.
+     * @param resolution    The smallest difference between samples which is distinguished.
+     * @param highest       The highest sample which can be counted, with higher samples counted as this value.
+     */
+    public RollingHistogram(long window, double resolution, double highest) {
+        this(window, DEFAULT_SLOT_COUNT, new Histogram(resolution, highest));
+    }
+
+    /**
+     * Constructs a new rolling histogram.
+     *
+     * @param window        The duration of the window in milliseconds.
+     * @param slotCount     The number of slots the window is divided into.
+     * @param prototype     An empty histogram whose configuration is used for each slot.
+     */
+    public RollingHistogram(long window, int slotCount, Histogram prototype) {
+        if (slotCount < 1) throw new IllegalArgumentException("slotCount must be greater than zero");
+        if (window < slotCount) throw new IllegalArgumentException("window must be at least one millisecond per slot");
+
+        this.window = window;
+        this.slotDuration = window / slotCount;
+        this.slots = new Histogram[slotCount];
+        this.epochs = new AtomicLongArray(slotCount);
+
+        for (int i = 0; i < slotCount; i++) {
+            slots[i] = new Histogram(prototype);
+            epochs.set(i, -1);
+        }
+    }
+
+    /**
+     * Returns the duration of the window in milliseconds.
+     *
+     * @return the duration of the window in milliseconds.
+     */
+    public long getWindow() {
+        return window;
+    }
+
+    /**
+     * Adds a new sample to the current slot.
+     *
+     * @param sample The sample to be added.
+     */
+    public void add(double sample) {
+        long epoch = System.currentTimeMillis() / slotDuration;
+        int index = (int)(epoch % slots.length);
+        Histogram slot = slots[index];
+
+        if (epochs.get(index) != epoch) {
+            synchronized (slot) {
+                if (epochs.get(index) != epoch) {
+                    slot.reset();
+                    epochs.set(index, epoch);
+                }
+            }
+        }
+
+        slot.add(sample);
+    }
+
+    /**
+     * Returns a histogram of the samples added within the window.
+     *
+     * @return a histogram of the samples added within the window.
+     */
+    public Histogram snapshot() {
+        long epoch = System.currentTimeMillis() / slotDuration;
+        Histogram snapshot = new Histogram(slots[0]);
+
+        for (int i = 0; i < slots.length; i++) {
+            long slotEpoch = epochs.get(i);
+            if (slotEpoch > epoch - slots.length && slotEpoch <= epoch) {
+                snapshot.merge(slots[i]);
+            }
+        }
+
+        return snapshot;
+    }
+
+    /**
+     * Resets this histogram back to a set of zero samples.
+     */
+    public void reset() {
+        for (int i = 0; i < slots.length; i++) {
+            synchronized (slots[i]) {
+                slots[i].reset();
+                epochs.set(i, -1);
+            }
+        }
+    }
+}
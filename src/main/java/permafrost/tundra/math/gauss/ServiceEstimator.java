@@ -33,7 +33,7 @@ import java.text.NumberFormat;
 /**
  * Provides service statistics collection and normal distribution estimation.
  */
-public class ServiceEstimator extends ConcurrentEstimator {
+public class ServiceEstimator extends StripedEstimator {
     /**
      * Represents a single sample.
      */
@@ -75,6 +75,14 @@ public class ServiceEstimator extends ConcurrentEstimator {
          * The count of successful and failed invocations.
          */
         protected long successes = 0, failures = 0;
+        /**
+         * The histogram of all samples, and of the samples within the rolling window if there is one.
+         */
+        protected Histogram histogram, windowHistogram;
+        /**
+         * The duration of the rolling window in milliseconds, or zero if there is no window.
+         */
+        protected long window;
 
         /**
          * Constructs a new Results object.
@@ -91,9 +99,33 @@ public class ServiceEstimator extends ConcurrentEstimator {
          * @param cumulative The measured cumulative value.
          */
         public Results(String subject, String unit, long count, long successes, long failures, double mean, double sq, double minimum, double maximum, double cumulative) {
+            this(subject, unit, count, successes, failures, mean, sq, minimum, maximum, cumulative, null, null, 0);
+        }
+
+        /**
+         * Constructs a new Results object.
+         *
+         * @param subject         The subject or description of what was estimated.
+         * @param unit            The unit of measurement related to the measured samples.
+         * @param count           The number of samples measured.
+         * @param successes       The number of successful invocations (those which did not throw an exception).
+         * @param failures        The number of failed invocations (those which did throw an exception).
+         * @param mean            The measured mean value.
+         * @param sq              The measured square value.
+         * @param minimum         The measured minimum value.
+         * @param maximum         The measured maximum value.
+         * @param cumulative      The measured cumulative value.
+         * @param histogram       The histogram of all samples, or null if not measured.
+         * @param windowHistogram The histogram of the samples within the rolling window, or null if not measured.
+         * @param window          The duration of the rolling window in milliseconds, or zero if there is no window.
+         */
+        public Results(String subject, String unit, long count, long successes, long failures, double mean, double sq, double minimum, double maximum, double cumulative, Histogram histogram, Histogram windowHistogram, long window) {
             super(subject, unit, count, mean, sq, minimum, maximum, cumulative);
             this.successes = successes;
             this.failures = failures;
+            this.histogram = histogram;
+            this.windowHistogram = windowHistogram;
+            this.window = window;
         }
 
         /**
@@ -112,6 +144,26 @@ public class ServiceEstimator extends ConcurrentEstimator {
             return failures;
         }
 
+        /**
+         * Returns the sample value below which the given percentage of samples fall, since sampling started.
+         *
+         * @param percentile    The percentile to return, between 0 and 100.
+         * @return              The sample value at the given percentile, or 0 if not measured.
+         */
+        public double getPercentile(double percentile) {
+            return histogram == null ? 0.0 : histogram.getPercentile(percentile);
+        }
+
+        /**
+         * Returns the sample value below which the given percentage of samples within the rolling window fall.
+         *
+         * @param percentile    The percentile to return, between 0 and 100.
+         * @return              The sample value at the given percentile, or 0 if there is no rolling window.
+         */
+        public double getWindowPercentile(double percentile) {
+            return windowHistogram == null ? 0.0 : windowHistogram.getPercentile(percentile);
+        }
+
         /**
          * Returns a string-based representation of the mean, standard deviation and number of samples for this estimator.
          * @return a string-based representation of this estimator.
@@ -170,18 +222,73 @@ public class ServiceEstimator extends ConcurrentEstimator {
 
                 IDataUtil.remove(cursor, "count");
                 IDataUtil.remove(cursor, "count.formatted");
+
+                if (histogram != null) {
+                    cursor.last();
+                    insertPercentiles(cursor, "percentile", histogram.getPercentiles(PERCENTILES));
+                }
+
+                if (windowHistogram != null) {
+                    cursor.last();
+                    long windowCount = windowHistogram.getCount();
+                    cursor.insertAfter("window.duration", window / 1000.0);
+                    cursor.insertAfter("window.duration.formatted", NumberFormat.getInstance().format(window / 1000.0) + " seconds");
+                    cursor.insertAfter("window.count", windowCount);
+                    cursor.insertAfter("window.count.formatted", integerFormat.format(windowCount));
+                    insertPercentiles(cursor, "window.percentile", windowHistogram.getPercentiles(PERCENTILES));
+                }
             } finally {
                 cursor.destroy();
             }
 
             return output;
         }
+
+        /**
+         * Inserts the given percentile values after the current position of the given cursor.
+         *
+         * @param cursor    The cursor to insert with.
+         * @param prefix    The prefix of the inserted keys.
+         * @param values    The percentile values, corresponding to PERCENTILES.
+         */
+        private void insertPercentiles(IDataCursor cursor, String prefix, double[] values) {
+            NumberFormat decimalFormat = NumberFormat.getInstance();
+            decimalFormat.setMinimumFractionDigits(9);
+            decimalFormat.setMaximumFractionDigits(9);
+
+            for (int i = 0; i < PERCENTILES.length; i++) {
+                String key = prefix + "." + PERCENTILE_NAMES[i];
+                cursor.insertAfter(key, values[i]);
+                cursor.insertAfter(key + ".formatted", decimalFormat.format(values[i]));
+            }
+        }
     }
 
     /**
-     * The count of successful and failed invocations.
+     * The percentiles reported by this estimator.
+     */
+    protected static final double[] PERCENTILES = { 50.0, 90.0, 99.0, 99.9 };
+    /**
+     * The names used for the reported percentiles.
+     */
+    protected static final String[] PERCENTILE_NAMES = { "50", "90", "99", "99.9" };
+    /**
+     * The resolution at which durations are counted by the histograms, relative to the unit of measurement.
+     */
+    protected static final double HISTOGRAM_RESOLUTION = 0.000001;
+    /**
+     * The highest duration counted by the histograms, relative to the unit of measurement.
+     */
+    protected static final double HISTOGRAM_HIGHEST = 24 * 60 * 60;
+    /**
+     * The histogram of all samples, which is shared by all cells rather than striped, since its buckets are
+     * incremented atomically and striping would multiply its fixed memory footprint by the number of cells.
      */
-    protected long successes = 0, failures = 0;
+    protected final Histogram histogram = new Histogram(HISTOGRAM_RESOLUTION, HISTOGRAM_HIGHEST);
+    /**
+     * The histogram of the samples within the rolling window, if any.
+     */
+    protected final RollingHistogram windowHistogram;
 
     /**
      * Constructs a new estimator object.
@@ -190,21 +297,20 @@ public class ServiceEstimator extends ConcurrentEstimator {
      * @param unit      The unit of measurement related to the measured samples.
      */
     public ServiceEstimator(String service, String unit) {
-        super(service, unit);
+        this(service, unit, 0);
     }
 
     /**
-     * Resets the estimator back to a set of zero samples.
+     * Constructs a new estimator object.
+     *
+     * @param service   The name of the service the collected statistics relate to.
+     * @param unit      The unit of measurement related to the measured samples.
+     * @param window    The duration in milliseconds of the rolling window for which percentiles are also reported, or
+     *                  zero for no rolling window.
      */
-    public void reset() {
-        lock.writeLock().lock();
-        try {
-            successes = 0;
-            failures = 0;
-            super.reset();
-        } finally {
-            lock.writeLock().unlock();
-        }
+    public ServiceEstimator(String service, String unit, long window) {
+        super(service, unit);
+        this.windowHistogram = window > 0 ? new RollingHistogram(window, HISTOGRAM_RESOLUTION, HISTOGRAM_HIGHEST) : null;
     }
 
     /**
@@ -213,35 +319,41 @@ public class ServiceEstimator extends ConcurrentEstimator {
      * @param sample  The sample to be added.
      */
     public void add(Sample sample) {
-        super.add(sample);
+        add(sample.getSuccess(), sample.getValue());
+    }
+
+    /**
+     * Adds a new sample of a successful service invocation to the set of samples used for estimating the standard
+     * deviation.
+     *
+     * @param sample  The duration of the service invocation.
+     */
+    @Override
+    public void add(double sample) {
+        add(true, sample);
     }
 
     /**
-     * Ensure all calculations are up to date, must be called once finished collecting samples.
+     * Adds a new sample to the set of samples used for estimating the standard deviation, without allocating a
+     * Sample object.
+     *
+     * @param success Whether the sample was a successful service invocation.
+     * @param value   The duration of the service invocation.
+     */
+    public void add(boolean success, double value) {
+        record(value, !success);
+        histogram.add(value);
+        if (windowHistogram != null) windowHistogram.add(value);
+    }
+
+    /**
+     * Resets the estimator back to a set of zero samples.
      */
     @Override
-    protected void quiesce() {
-        int size =  samples.size(); // snapshot size, as it can change due to other threads
-        for (int i = 0; i < size; i++) {
-            ConcurrentEstimator.Sample sample = samples.poll();
-            if (sample == null) {
-                break; // exit loop if there are no more samples
-            } else {
-                lock.writeLock().lock();
-                try {
-                    if (sample instanceof Sample) {
-                        if (((Sample)sample).getSuccess()) {
-                            successes++;
-                        } else {
-                            failures++;
-                        }
-                    }
-                    super.add(sample.getValue());
-                } finally {
-                    lock.writeLock().unlock();
-                }
-            }
-        }
+    public void reset() {
+        super.reset();
+        histogram.reset();
+        if (windowHistogram != null) windowHistogram.reset();
     }
 
     /**
@@ -251,12 +363,9 @@ public class ServiceEstimator extends ConcurrentEstimator {
      */
     @Override
     public Results getResults() {
-        quiesce();
-        lock.readLock().lock();
-        try {
-            return new Results(subject, unit, count, successes, failures, mean, sq, minimum, maximum, cumulative);
-        } finally {
-            lock.readLock().unlock();
-        }
+        Cell total = combine();
+        Histogram windowSnapshot = windowHistogram == null ? null : windowHistogram.snapshot();
+        long window = windowHistogram == null ? 0 : windowHistogram.getWindow();
+        return new Results(subject, unit, total.count, total.count - total.flagged, total.flagged, total.mean, total.sq, total.minimum, total.maximum, total.cumulative, histogram.copy(), windowSnapshot, window);
     }
 }
@@ -0,0 +1,317 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2026 Lachlan Dowding
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package permafrost.tundra.math.gauss;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Class for incrementally calculating the mean and standard deviation from many concurrent threads. Samples are
+ * recorded into one of a fixed number of cells chosen by the recording thread, so that recording a sample neither
+ * allocates nor contends with other threads, and the cells are combined when the results are requested using the
+ * parallel form of Welford's algorithm.
+ */
+public class StripedEstimator extends Estimator {
+    /**
+     * The maximum number of cells used by an estimator.
+     */
+    protected static final int MAXIMUM_CELL_COUNT = 64;
+    /**
+     * The number of cells used by each estimator: the smallest power of two at least the number of processors.
+     */
+    protected static final int CELL_COUNT = cellCount(Runtime.getRuntime().availableProcessors());
+    /**
+     * The per-thread probe used to choose a cell, shared by all estimators, which is rehashed whenever the cell it
+     * chose was in use by another thread.
+     */
+    protected static final ThreadLocal<int[]> PROBE = new ThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+            // spread the thread identifier so that consecutive threads choose different cells
+            int hash = (int)Thread.currentThread().getId() * 0x9E3779B9;
+            return new int[] { hash == 0 ? 1 : hash };
+        }
+    };
+    /**
+     * The cells samples are recorded into, which are created on first use.
+     */
+    protected final AtomicReferenceArray<Cell> cells = new AtomicReferenceArray<Cell>(CELL_COUNT);
+
+    /**
+     * Constructs a new estimator object.
+     */
+    public StripedEstimator() {
+        this(null, null);
+    }
+
+    /**
+     * Constructs a new estimator object.
+     *
+     * @param subject   The subject or description of what is being estimated.
+     * @param unit      The unit of measurement related to the measured samples.
+     */
+    public StripedEstimator(String subject, String unit) {
+        super(subject, unit);
+    }
+
+    /**
+     * Adds a new sample to the set of samples used for estimating the standard deviation.
+     *
+     * @param sample The sample to be added.
+     */
+    @Override
+    public void add(double sample) {
+        record(sample, false);
+    }
+
+    /**
+     * Adds a new sample to the set of samples used for estimating the standard deviation, optionally counting it as
+     * flagged, such as a sample of a failed operation.
+     *
+     * @param sample    The sample to be added.
+     * @param flagged   Whether the sample is counted as flagged.
+     */
+    protected void record(double sample, boolean flagged) {
+        int[] probe = PROBE.get();
+        int hash = probe[0];
+
+        while (true) {
+            int index = hash & (CELL_COUNT - 1);
+            Cell cell = cells.get(index);
+            if (cell == null) {
+                cells.compareAndSet(index, null, new Cell());
+                cell = cells.get(index);
+            }
+
+            if (cell.tryLock()) {
+                try {
+                    cell.add(sample, flagged);
+                } finally {
+                    cell.unlock();
+                }
+                break;
+            }
+
+            // the cell is in use by another thread, so move this thread to a different cell
+            hash ^= hash << 13;
+            hash ^= hash >>> 17;
+            hash ^= hash << 5;
+        }
+
+        probe[0] = hash;
+    }
+
+    /**
+     * Returns the combined state of all cells.
+     *
+     * @return the combined state of all cells.
+     */
+    protected Cell combine() {
+        Cell total = new Cell();
+        Cell snapshot = new Cell();
+
+        for (int i = 0; i < CELL_COUNT; i++) {
+            Cell cell = cells.get(i);
+            if (cell != null) {
+                cell.lock();
+                try {
+                    snapshot.set(cell);
+                } finally {
+                    cell.unlock();
+                }
+                total.merge(snapshot);
+            }
+        }
+
+        return total;
+    }
+
+    /**
+     * Returns the estimator's results.
+     *
+     * @return the estimator's results.
+     */
+    @Override
+    public Results getResults() {
+        Cell total = combine();
+        return new Results(subject, unit, total.count, total.mean, total.sq, total.minimum, total.maximum, total.cumulative);
+    }
+
+    /**
+     * Resets the estimator back to a set of zero samples.
+     */
+    @Override
+    public void reset() {
+        for (int i = 0; i < CELL_COUNT; i++) {
+            Cell cell = cells.get(i);
+            if (cell != null) {
+                cell.lock();
+                try {
+                    cell.reset();
+                } finally {
+                    cell.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the smallest power of two which is at least the given number of processors, up to the maximum cell
+     * count.
+     *
+     * @param processors    The number of processors.
+     * @return              The number of cells to use.
+     */
+    private static int cellCount(int processors) {
+        int count = 1;
+        while (count < processors && count < MAXIMUM_CELL_COUNT) {
+            count <<= 1;
+        }
+        return count;
+    }
+
+    /**
+     * The running state of the samples recorded into a single cell, guarded by a simple spin lock which is only ever
+     * contended when results are being read or when two threads briefly choose the same cell.
+     */
+    protected static class Cell {
+        /**
+         * Updater used to acquire and release the lock on a cell.
+         */
+        private static final AtomicIntegerFieldUpdater<Cell> LOCK = AtomicIntegerFieldUpdater.newUpdater(Cell.class, "locked");
+        /**
+         * Whether the cell is locked: 1 if locked, 0 if not.
+         */
+        private volatile int locked;
+        /**
+         * The number of samples, and the number of flagged samples.
+         */
+        protected long count, flagged;
+        /**
+         * The running mean, sum of squared differences from the mean, minimum, maximum, and cumulative samples.
+         */
+        protected double mean, sq, minimum, maximum, cumulative;
+
+        /**
+         * Attempts to lock this cell without waiting.
+         *
+         * @return True if the lock was acquired.
+         */
+        protected boolean tryLock() {
+            return locked == 0 && LOCK.compareAndSet(this, 0, 1);
+        }
+
+        /**
+         * Locks this cell, waiting for any other thread to release it.
+         */
+        protected void lock() {
+            while (!tryLock()) {
+                Thread.yield();
+            }
+        }
+
+        /**
+         * Unlocks this cell.
+         */
+        protected void unlock() {
+            locked = 0;
+        }
+
+        /**
+         * Adds a sample to this cell.
+         *
+         * @param sample    The sample to be added.
+         * @param flagged   Whether the sample is counted as flagged.
+         */
+        protected void add(double sample, boolean flagged) {
+            count++;
+            if (flagged) this.flagged++;
+            cumulative += sample;
+            if (count == 1) {
+                mean = minimum = maximum = sample;
+                sq = 0.0;
+            } else {
+                double previousMean = mean;
+                mean = previousMean + ((sample - previousMean) / count);
+                sq = sq + (sample - previousMean) * (sample - mean);
+
+                if (minimum > sample) minimum = sample;
+                if (maximum < sample) maximum = sample;
+            }
+        }
+
+        /**
+         * Merges the state of the given cell into this cell.
+         *
+         * @param other The cell to be merged.
+         */
+        protected void merge(Cell other) {
+            if (other.count == 0) return;
+
+            if (count == 0) {
+                set(other);
+            } else {
+                long total = count + other.count;
+                double delta = other.mean - mean;
+
+                mean = mean + delta * other.count / total;
+                sq = sq + other.sq + delta * delta * count * other.count / total;
+                if (minimum > other.minimum) minimum = other.minimum;
+                if (maximum < other.maximum) maximum = other.maximum;
+                cumulative += other.cumulative;
+                flagged += other.flagged;
+                count = total;
+            }
+        }
+
+        /**
+         * Sets the state of this cell to the state of the given cell.
+         *
+         * @param other The cell to be copied.
+         */
+        protected void set(Cell other) {
+            count = other.count;
+            flagged = other.flagged;
+            mean = other.mean;
+            sq = other.sq;
+            minimum = other.minimum;
+            maximum = other.maximum;
+            cumulative = other.cumulative;
+        }
+
+        /**
+         * Resets this cell back to a set of zero samples.
+         */
+        protected void reset() {
+            count = 0;
+            flagged = 0;
+            mean = 0.0;
+            sq = 0.0;
+            minimum = 0.0;
+            maximum = 0.0;
+            cumulative = 0.0;
+        }
+    }
+}
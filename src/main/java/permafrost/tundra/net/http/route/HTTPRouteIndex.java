@@ -0,0 +1,226 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Lachlan Dowding
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package permafrost.tundra.net.http.route;
+
+import com.wm.data.IData;
+import permafrost.tundra.net.http.HTTPMethod;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A segment trie index over a list of HTTP routes, used to find the candidate routes for a request URI in time
+ * proportional to the depth of the URI path rather than the number of routes.
+ *
+ * Each route is indexed by the literal path segments of its URI template which precede the first template variable.
+ * As template variables may match across path segment boundaries, routes are indexed no deeper than their first
+ * variable, and candidates are then matched against their URI template in their original list order, so that the
+ * first matching route is always the same route a linear scan of the list would return.
+ */
+public class HTTPRouteIndex {
+    /**
+     * The routes being indexed, in their original order.
+     */
+    protected final HTTPRoute[] routes;
+    /**
+     * The root node of the segment trie.
+     */
+    protected final Node root = new Node();
+
+    /**
+     * Constructs a new index over the given list of routes.
+     *
+     * @param routes The routes to be indexed.
+     */
+    public HTTPRouteIndex(List<HTTPRoute> routes) {
+        this.routes = routes.toArray(new HTTPRoute[0]);
+        for (int i = 0; i < this.routes.length; i++) {
+            add(i, this.routes[i]);
+        }
+    }
+
+    /**
+     * Adds the given route to the segment trie.
+     *
+     * @param ordinal   The position of the route in the original list.
+     * @param route     The route to be added.
+     */
+    private void add(int ordinal, HTTPRoute route) {
+        HTTPMethod method = route.getMethod();
+        if (method == null || route.getURI() == null) return;
+
+        String template = route.getURI().toString();
+        int variable = template.indexOf('{');
+        Node node = root;
+        int start = 0, end;
+
+        // descend through every segment which is completely literal
+        while ((end = template.indexOf('/', start)) >= 0 && (variable < 0 || end < variable)) {
+            node = node.child(template.substring(start, end), true);
+            start = end + 1;
+        }
+
+        if (variable < 0) {
+            node = node.child(template.substring(start), true);
+            node.exact = Node.add(node.exact, method, ordinal);
+        } else {
+            node.partial = Node.add(node.partial, method, ordinal);
+        }
+    }
+
+    /**
+     * Returns the first route in list order that matches the given HTTP request method and URI, or null if no route
+     * matches.
+     *
+     * @param method The HTTP method to match against.
+     * @param uri    The URI to match against.
+     * @return The route that matched the given method and uri, or null if no route matches.
+     */
+    public Map.Entry<HTTPRoute, IData> match(HTTPMethod method, String uri) {
+        if (method == null || uri == null) return null;
+
+        int[] candidates = candidates(method, uri);
+        for (int ordinal : candidates) {
+            HTTPRoute route = routes[ordinal];
+            IData parameters = route.match(method, uri);
+            if (parameters != null) {
+                return new AbstractMap.SimpleImmutableEntry<HTTPRoute, IData>(route, parameters);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the ordinals of the routes which could match the given HTTP request method and URI, in list order.
+     *
+     * @param method The HTTP method to match against.
+     * @param uri    The URI to match against.
+     * @return The ordinals of the candidate routes, in ascending order.
+     */
+    protected int[] candidates(HTTPMethod method, String uri) {
+        List<int[]> matches = new ArrayList<int[]>();
+        int count = 0;
+
+        Node node = root;
+        int start = 0, end;
+        do {
+            count += Node.collect(node.partial, method, matches);
+            end = uri.indexOf('/', start);
+            node = node.child(end < 0 ? uri.substring(start) : uri.substring(start, end), false);
+            start = end + 1;
+        } while (node != null && end >= 0);
+
+        if (node != null) {
+            count += Node.collect(node.partial, method, matches);
+            count += Node.collect(node.exact, method, matches);
+        }
+
+        int[] candidates = new int[count];
+        int offset = 0;
+        for (int[] ordinals : matches) {
+            System.arraycopy(ordinals, 0, candidates, offset, ordinals.length);
+            offset += ordinals.length;
+        }
+        if (matches.size() > 1) Arrays.sort(candidates);
+
+        return candidates;
+    }
+
+    /**
+     * A node in the segment trie.
+     */
+    protected static class Node {
+        /**
+         * Child nodes keyed by literal path segment.
+         */
+        protected Map<String, Node> children;
+        /**
+         * Routes whose URI template ends at this node, keyed by HTTP method.
+         */
+        protected Map<HTTPMethod, int[]> exact;
+        /**
+         * Routes whose URI template has a variable in the segment following this node, keyed by HTTP method.
+         */
+        protected Map<HTTPMethod, int[]> partial;
+
+        /**
+         * Returns the child node for the given literal path segment.
+         *
+         * @param segment   The literal path segment.
+         * @param create    Whether to create the child node if it does not exist.
+         * @return          The child node, or null if it does not exist and create is false.
+         */
+        protected Node child(String segment, boolean create) {
+            Node child = children == null ? null : children.get(segment);
+            if (child == null && create) {
+                if (children == null) children = new HashMap<String, Node>();
+                child = new Node();
+                children.put(segment, child);
+            }
+            return child;
+        }
+
+        /**
+         * Adds the given route ordinal to the given method dispatch map.
+         *
+         * @param dispatch  The method dispatch map, or null.
+         * @param method    The HTTP method of the route.
+         * @param ordinal   The route ordinal.
+         * @return          The method dispatch map.
+         */
+        protected static Map<HTTPMethod, int[]> add(Map<HTTPMethod, int[]> dispatch, HTTPMethod method, int ordinal) {
+            if (dispatch == null) dispatch = new EnumMap<HTTPMethod, int[]>(HTTPMethod.class);
+            int[] ordinals = dispatch.get(method);
+            if (ordinals == null) {
+                ordinals = new int[] { ordinal };
+            } else {
+                ordinals = Arrays.copyOf(ordinals, ordinals.length + 1);
+                ordinals[ordinals.length - 1] = ordinal;
+            }
+            dispatch.put(method, ordinals);
+            return dispatch;
+        }
+
+        /**
+         * Collects the route ordinals for the given method from the given method dispatch map.
+         *
+         * @param dispatch  The method dispatch map, or null.
+         * @param method    The HTTP method to collect.
+         * @param matches   The list the route ordinals are collected in.
+         * @return          The number of route ordinals collected.
+         */
+        protected static int collect(Map<HTTPMethod, int[]> dispatch, HTTPMethod method, List<int[]> matches) {
+            int[] ordinals = dispatch == null ? null : dispatch.get(method);
+            if (ordinals == null) return 0;
+            matches.add(ordinals);
+            return ordinals.length;
+        }
+    }
+}
@@ -26,6 +26,7 @@ package permafrost.tundra.net.http.route;
 
 import com.wm.data.IData;
 import permafrost.tundra.net.http.HTTPMethod;
+import java.util.AbstractList;
 import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -36,6 +37,24 @@ import java.util.Map;
  * A list of HTTP routes.
  */
 public class HTTPRouteList extends ArrayList<HTTPRoute> {
+    /**
+     * The segment trie index used to match routes, lazily rebuilt whenever this list is modified.
+     */
+    private transient volatile HTTPRouteIndex index;
+    /**
+     * The modification count of this list when the index was built.
+     */
+    private transient volatile int indexModCount;
+    /**
+     * The number of routes replaced in this list, which unlike structural modifications are not counted by modCount,
+     * including replacements made by Collections.sort and other in-place reorderings.
+     */
+    private transient volatile int replacementCount;
+    /**
+     * The replacement count of this list when the index was built.
+     */
+    private transient volatile int indexReplacementCount;
+
     /**
      * Constructs a new HTTP route list.
      */
@@ -97,6 +116,18 @@ public class HTTPRouteList extends ArrayList<HTTPRoute> {
      * @return The route that matched the given method and uri, or null if no route in the list matches.
      */
     public Map.Entry<HTTPRoute, IData> match(HTTPMethod method, String uri) {
+        return getIndex().match(method, uri);
+    }
+
+    /**
+     * Returns the route that matches the given HTTP request method and URI by testing every route in the list in
+     * order, or null if no route in the list matches.
+     *
+     * @param method The HTTP method to match against.
+     * @param uri    The URI to match against.
+     * @return The route that matched the given method and uri, or null if no route in the list matches.
+     */
+    public Map.Entry<HTTPRoute, IData> scan(HTTPMethod method, String uri) {
         for (HTTPRoute route : this) {
             IData parameters = route.match(method, uri);
             if (parameters != null) {
@@ -106,6 +137,51 @@ public class HTTPRouteList extends ArrayList<HTTPRoute> {
         return null;
     }
 
+    /**
+     * Returns the segment trie index for the routes in this list, rebuilding it if the list has been modified since
+     * it was last built.
+     *
+     * @return The segment trie index for the routes in this list.
+     */
+    protected HTTPRouteIndex getIndex() {
+        HTTPRouteIndex index = this.index;
+        if (index == null || indexModCount != modCount || indexReplacementCount != replacementCount) {
+            int expectedModCount = modCount, expectedReplacementCount = replacementCount;
+            index = new HTTPRouteIndex(this);
+            this.index = index;
+            this.indexModCount = expectedModCount;
+            this.indexReplacementCount = expectedReplacementCount;
+        }
+        return index;
+    }
+
+    /**
+     * Replaces the route at the given position in this list, invalidating the segment trie index.
+     *
+     * @param index The position of the route to replace.
+     * @param route The route to be stored at the given position.
+     * @return      The route previously at the given position.
+     */
+    @Override
+    public HTTPRoute set(int index, HTTPRoute route) {
+        HTTPRoute previous = super.set(index, route);
+        replacementCount++;
+        return previous;
+    }
+
+    /**
+     * Returns a view of the portion of this list between the given positions, through which replaced routes also
+     * invalidate the segment trie index.
+     *
+     * @param fromIndex The start position of the view, inclusive.
+     * @param toIndex   The end position of the view, exclusive.
+     * @return          A view of the portion of this list between the given positions.
+     */
+    @Override
+    public List<HTTPRoute> subList(int fromIndex, int toIndex) {
+        return new RouteSubList(super.subList(fromIndex, toIndex));
+    }
+
     /**
      * Returns the route that matches the given HTTP request method and URI, or null if no route in the list matches.
      *
@@ -116,4 +192,54 @@ public class HTTPRouteList extends ArrayList<HTTPRoute> {
     public Map.Entry<HTTPRoute, IData> match(String method, String uri) {
         return match(HTTPMethod.normalize(method), uri);
     }
+
+    /**
+     * A view of a portion of this list, which replaces routes directly in the backing array and so must also count
+     * its replacements against this list.
+     */
+    private class RouteSubList extends AbstractList<HTTPRoute> {
+        /**
+         * The view of a portion of this list being wrapped.
+         */
+        private final List<HTTPRoute> view;
+
+        /**
+         * Constructs a new RouteSubList.
+         *
+         * @param view The view of a portion of this list being wrapped.
+         */
+        RouteSubList(List<HTTPRoute> view) {
+            this.view = view;
+        }
+
+        @Override
+        public HTTPRoute get(int index) {
+            return view.get(index);
+        }
+
+        @Override
+        public int size() {
+            return view.size();
+        }
+
+        @Override
+        public HTTPRoute set(int index, HTTPRoute route) {
+            HTTPRoute previous = view.set(index, route);
+            replacementCount++;
+            return previous;
+        }
+
+        @Override
+        public void add(int index, HTTPRoute route) {
+            view.add(index, route);
+            modCount++;
+        }
+
+        @Override
+        public HTTPRoute remove(int index) {
+            HTTPRoute previous = view.remove(index);
+            modCount++;
+            return previous;
+        }
+    }
 }
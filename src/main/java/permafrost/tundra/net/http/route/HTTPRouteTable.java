@@ -30,9 +30,15 @@ import com.wm.data.IDataCursor;
 import com.wm.data.IDataFactory;
 import com.wm.data.IDataUtil;
 import permafrost.tundra.io.FileHelper;
+import permafrost.tundra.lang.CharsetHelper;
+import permafrost.tundra.lang.StringHelper;
 import permafrost.tundra.net.http.HTTPMethod;
+import permafrost.tundra.time.DurationHelper;
+import permafrost.tundra.time.DurationPattern;
 import java.io.File;
 import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedHashMap;
@@ -50,6 +56,40 @@ public class HTTPRouteTable extends TreeMap<String, HTTPRouteList> {
     protected final static Pattern ROUTE_PATTERN = Pattern.compile("(?i)(?m)^[ \\t]*(get|put|post|head|connect|options|delete|trace)[ \\t]+(\\/?([^{}\\s\\/]+)(\\/\\S+)?)[ \\t]+(\\S+)([ \\t]+(.*)[ \\t]*)?$");
     protected final static String CONFIGURATION_FILE_NAME = "http-routes.cnf";
     protected final static Set<String> PROHIBITED_DIRECTIVES = new TreeSet<String>();
+    /**
+     * The coarsest last modified time resolution of supported file systems in milliseconds; a file modified within
+     * this long of being loaded may be modified again without its last modified time changing.
+     */
+    protected final static long LAST_MODIFIED_GRANULARITY = 2000L;
+    /**
+     * The message digest algorithm used to detect whether a route configuration file's content has changed.
+     */
+    protected final static String DIGEST_ALGORITHM_NAME = "SHA-256";
+
+    /**
+     * The route configuration files this table was built from, in load order.
+     */
+    protected final Map<File, Source> sources = new LinkedHashMap<File, Source>();
+    /**
+     * The number of nanoseconds it took to build this table.
+     */
+    protected long loadDuration;
+    /**
+     * The number of route configuration files which were read and parsed when building this table.
+     */
+    protected int sourcesLoaded;
+    /**
+     * The number of route configuration files which were reused unchanged from a previous table.
+     */
+    protected int sourcesReused;
+    /**
+     * The number of route configuration files from a previous table which no longer exist.
+     */
+    protected int sourcesRemoved;
+    /**
+     * The number of directive route lists which were reused unchanged from a previous table.
+     */
+    protected int directivesReused;
 
     /**
      * Set up prohibited directives so we don't break built-in IS functionality.
@@ -97,6 +137,107 @@ public class HTTPRouteTable extends TreeMap<String, HTTPRouteList> {
      * @return The new HTTP route table.
      */
     public static HTTPRouteTable newInstance() {
+        return newInstance((HTTPRouteTable)null);
+    }
+
+    /**
+     * Creates a new HTTP route table from the the route configuration files in each package, only reading and parsing
+     * the files which have changed since the given previous table was built. The previous table is not modified, and
+     * the route lists of directives unaffected by any changed file are shared with it.
+     *
+     * @param previous  The previous HTTP route table, or null to read and parse all route configuration files.
+     * @return          The new HTTP route table.
+     */
+    public static HTTPRouteTable newInstance(HTTPRouteTable previous) {
+        return newInstance(getSourceFiles(), previous);
+    }
+
+    /**
+     * Creates a new HTTP route table from the given route configuration files, only reading and parsing the files
+     * which have changed since the given previous table was built. A file whose last modified time and length are
+     * unchanged is reused without being read, unless it was modified within LAST_MODIFIED_GRANULARITY of being
+     * loaded, in which case it is read and only reparsed if its content digest has changed.
+     *
+     * @param files     The route configuration files in load order.
+     * @param previous  The previous HTTP route table, or null to read and parse all route configuration files.
+     * @return          The new HTTP route table.
+     */
+    protected static HTTPRouteTable newInstance(List<File> files, HTTPRouteTable previous) {
+        long startTime = System.nanoTime();
+
+        HTTPRouteTable table = new HTTPRouteTable();
+        Set<String> changedDirectives = new TreeSet<String>();
+
+        for (File file : files) {
+            if (file.exists() && file.isFile()) {
+                long lastModified = file.lastModified(), length = file.length();
+                Source source = previous == null ? null : previous.sources.get(file);
+
+                if (source != null && source.isUnchanged(lastModified, length)) {
+                    table.sourcesReused++;
+                } else {
+                    try {
+                        // the load time is taken before reading, so that a write racing the read is treated as racy
+                        long loadTime = System.currentTimeMillis();
+                        byte[] content = FileHelper.readToBytes(file);
+                        byte[] digest = digest(content);
+
+                        if (source != null && Arrays.equals(source.digest, digest)) {
+                            source = new Source(lastModified, length, loadTime, digest, source.routes);
+                            table.sourcesReused++;
+                        } else {
+                            if (source != null) changedDirectives.addAll(source.getDirectives());
+                            source = new Source(lastModified, length, loadTime, digest, parse(file, StringHelper.normalize(content, CharsetHelper.DEFAULT_CHARSET)));
+                            changedDirectives.addAll(source.getDirectives());
+                            table.sourcesLoaded++;
+                        }
+                    } catch (IOException ex) {
+                        // do nothing
+                        source = null;
+                    }
+                }
+
+                if (source != null) table.sources.put(file, source);
+            }
+        }
+
+        if (previous != null) {
+            for (Map.Entry<File, Source> entry : previous.sources.entrySet()) {
+                if (!table.sources.containsKey(entry.getKey())) {
+                    changedDirectives.addAll(entry.getValue().getDirectives());
+                    table.sourcesRemoved++;
+                }
+            }
+        }
+
+        table.build(previous, changedDirectives);
+        table.loadDuration = System.nanoTime() - startTime;
+
+        return table;
+    }
+
+    /**
+     * Returns the message digest of the given route configuration file content.
+     *
+     * @param content   The route configuration file content.
+     * @return          The message digest of the given content.
+     */
+    protected static byte[] digest(byte[] content) {
+        try {
+            return MessageDigest.getInstance(DIGEST_ALGORITHM_NAME).digest(content);
+        } catch (NoSuchAlgorithmException ex) {
+            // every Java platform implementation is required to support SHA-256
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Returns the list of route configuration files in load order: the server configuration directory, followed by
+     * each enabled package in name order.
+     *
+     * @return The list of route configuration files.
+     */
+    protected static List<File> getSourceFiles() {
         List<File> files = new ArrayList<File>();
         files.add(new File(ServerAPI.getServerConfigDir(), CONFIGURATION_FILE_NAME));
 
@@ -106,16 +247,7 @@ public class HTTPRouteTable extends TreeMap<String, HTTPRouteList> {
             files.add(new File(ServerAPI.getPackageConfigDir(packageName), CONFIGURATION_FILE_NAME));
         }
 
-        Map<File, String> contents = new LinkedHashMap<File, String>();
-        for (File file : files) {
-            try {
-                if (file.exists() && file.isFile()) contents.put(file, (String)FileHelper.readToString(file));
-            } catch (IOException ex) {
-                // do nothing
-            }
-        }
-
-        return newInstance(contents);
+        return files;
     }
 
     /**
@@ -125,28 +257,72 @@ public class HTTPRouteTable extends TreeMap<String, HTTPRouteList> {
      * @return The new HTTP route table.
      */
     protected static HTTPRouteTable newInstance(Map<File, String> contents) {
+        long startTime = System.nanoTime();
         HTTPRouteTable table = new HTTPRouteTable();
 
         if (contents != null) {
             for (java.util.Map.Entry<File, String> entry : contents.entrySet()) {
-                File source = entry.getKey();
-                String content = entry.getValue();
-
-                java.util.regex.Matcher matcher = ROUTE_PATTERN.matcher(content);
-                while (matcher.find()) {
-                    String method = matcher.group(1);
-                    String uri = matcher.group(2);
-                    String target = matcher.group(5);
-                    String description = matcher.group(7);
-                    if (description != null && description.equals("")) description = null;
-                    table.put(new HTTPRoute(method, uri, target, description, source));
-                }
+                table.sources.put(entry.getKey(), new Source(-1, -1, -1, null, parse(entry.getKey(), entry.getValue())));
+                table.sourcesLoaded++;
             }
         }
 
+        table.build(null, null);
+        table.loadDuration = System.nanoTime() - startTime;
+
         return table;
     }
 
+    /**
+     * Parses the given route configuration file contents.
+     *
+     * @param source    The route configuration file.
+     * @param content   The contents of the route configuration file.
+     * @return          The routes defined in the given contents, in the order they were defined.
+     */
+    protected static List<HTTPRoute> parse(File source, String content) {
+        List<HTTPRoute> routes = new ArrayList<HTTPRoute>();
+
+        if (content != null) {
+            java.util.regex.Matcher matcher = ROUTE_PATTERN.matcher(content);
+            while (matcher.find()) {
+                String method = matcher.group(1);
+                String uri = matcher.group(2);
+                String target = matcher.group(5);
+                String description = matcher.group(7);
+                if (description != null && description.equals("")) description = null;
+                routes.add(new HTTPRoute(method, uri, target, description, source));
+            }
+        }
+
+        return routes;
+    }
+
+    /**
+     * Populates this table from its route configuration files in load order. The route list for a directive is
+     * shared with the given previous table when no route configuration file contributing to that directive changed,
+     * which preserves route order as unchanged files keep their relative load order.
+     *
+     * @param previous          The previous HTTP route table, or null.
+     * @param changedDirectives The directives affected by route configuration files which were added, changed, or
+     *                          removed since the previous table was built.
+     */
+    protected void build(HTTPRouteTable previous, Set<String> changedDirectives) {
+        for (Source source : sources.values()) {
+            for (HTTPRoute route : source.routes) {
+                String directive = route.getDirective();
+                if (previous != null && !changedDirectives.contains(directive) && previous.containsKey(directive)) {
+                    if (!containsKey(directive)) {
+                        put(directive, previous.get(directive));
+                        directivesReused++;
+                    }
+                } else {
+                    put(route);
+                }
+            }
+        }
+    }
+
     /**
      * Returns the matching route for the given HTTP request method and URI, or null if no matching route is found.
      *
@@ -175,6 +351,24 @@ public class HTTPRouteTable extends TreeMap<String, HTTPRouteList> {
         return match(HTTPMethod.normalize(method), uri);
     }
 
+    /**
+     * Returns statistics about how this HTTP route table was built.
+     *
+     * @return An IData document containing the load duration and the number of sources loaded, reused and removed.
+     */
+    public IData getStatistics() {
+        IData output = IDataFactory.create();
+        IDataCursor cursor = output.getCursor();
+        IDataUtil.put(cursor, "duration", DurationHelper.format(loadDuration / 1000000000.0, DurationPattern.XML_NANOSECONDS));
+        IDataUtil.put(cursor, "sources.loaded", "" + sourcesLoaded);
+        IDataUtil.put(cursor, "sources.reused", "" + sourcesReused);
+        IDataUtil.put(cursor, "sources.removed", "" + sourcesRemoved);
+        IDataUtil.put(cursor, "directives.length", "" + size());
+        IDataUtil.put(cursor, "directives.reused", "" + directivesReused);
+        cursor.destroy();
+        return output;
+    }
+
     /**
      * Returns an IData[] representation of this HTTP route table.
      *
@@ -199,4 +393,74 @@ public class HTTPRouteTable extends TreeMap<String, HTTPRouteList> {
 
         return output.toArray(new IData[0]);
     }
+
+    /**
+     * A parsed route configuration file.
+     */
+    protected static class Source {
+        /**
+         * The last modified time of the file when it was parsed.
+         */
+        protected final long lastModified;
+        /**
+         * The length of the file when it was parsed.
+         */
+        protected final long length;
+        /**
+         * The time the file was last read.
+         */
+        protected final long loadTime;
+        /**
+         * The message digest of the file's content when it was last read, or null if not read from a file.
+         */
+        protected final byte[] digest;
+        /**
+         * The routes defined in the file, in the order they were defined.
+         */
+        protected final List<HTTPRoute> routes;
+
+        /**
+         * Constructs a new parsed route configuration file.
+         *
+         * @param lastModified  The last modified time of the file when it was parsed.
+         * @param length        The length of the file when it was parsed.
+         * @param loadTime      The time the file was last read.
+         * @param digest        The message digest of the file's content when it was last read.
+         * @param routes        The routes defined in the file.
+         */
+        protected Source(long lastModified, long length, long loadTime, byte[] digest, List<HTTPRoute> routes) {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.loadTime = loadTime;
+            this.digest = digest;
+            this.routes = routes;
+        }
+
+        /**
+         * Returns true if the file with the given last modified time and length can be assumed unchanged without
+         * reading it: the last modified time and length must match, and the file must not have been modified within
+         * LAST_MODIFIED_GRANULARITY of being read, as a later write in the same time step would not change its last
+         * modified time.
+         *
+         * @param lastModified  The current last modified time of the file.
+         * @param length        The current length of the file.
+         * @return              True if the file can be assumed unchanged since it was read.
+         */
+        protected boolean isUnchanged(long lastModified, long length) {
+            return this.lastModified == lastModified && this.length == length && lastModified + LAST_MODIFIED_GRANULARITY < loadTime;
+        }
+
+        /**
+         * Returns the directives of the routes defined in the file.
+         *
+         * @return The directives of the routes defined in the file.
+         */
+        protected Set<String> getDirectives() {
+            Set<String> directives = new TreeSet<String>();
+            for (HTTPRoute route : routes) {
+                directives.add(route.getDirective());
+            }
+            return directives;
+        }
+    }
 }
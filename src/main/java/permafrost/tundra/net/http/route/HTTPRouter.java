@@ -309,14 +309,29 @@ public class HTTPRouter implements HTTPHandler {
     }
 
     /**
-     * Reloads the HTTP routing table from the package HTTP route configuration files.
+     * Reloads the HTTP routing table from the package HTTP route configuration files, only reading and parsing the
+     * files which have changed since the last reload.
      */
     public synchronized void refresh() {
-        HTTPRouteTable newRoutes = HTTPRouteTable.newInstance();
+        refresh(true);
+    }
+
+    /**
+     * Reloads the HTTP routing table from the package HTTP route configuration files. The new table is built
+     * completely before it replaces the current table, so that in-flight requests never observe a partial table.
+     *
+     * @param incremental   If true, only route configuration files which have changed since the last reload are
+     *                      read and parsed, otherwise all files are read and parsed.
+     * @return              Statistics about the reload, including its duration.
+     */
+    public synchronized IData refresh(boolean incremental) {
         HTTPRouteTable oldRoutes = routes;
+        HTTPRouteTable newRoutes = HTTPRouteTable.newInstance(incremental ? oldRoutes : null);
 
         routes = newRoutes;
         refreshDirectives(oldRoutes.getDirectives(), newRoutes.getDirectives());
+
+        return newRoutes.getStatistics();
     }
 
     /**
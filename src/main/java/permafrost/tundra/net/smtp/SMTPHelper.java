@@ -41,7 +41,7 @@ import permafrost.tundra.net.uri.URIHelper;
 import permafrost.tundra.server.NameHelper;
 import permafrost.tundra.server.PasswordManagerHelper;
 import permafrost.tundra.zip.GzipHelper;
-import permafrost.tundra.zip.ZipEntryWithData;
+import permafrost.tundra.zip.ZipEntryWithStream;
 import permafrost.tundra.zip.ZipHelper;
 import javax.activation.MimeType;
 import javax.activation.MimeTypeParseException;
@@ -504,8 +504,7 @@ public class SMTPHelper {
             if (compressionType == CompressionType.GZIP) {
                 compressedStream = GzipHelper.compress(contentStream);
             } else if (compressionType == CompressionType.ZIP) {
-                ZipEntryWithData entry = new ZipEntryWithData(contentName, contentStream);
-                compressedStream = ZipHelper.compress(entry);
+                compressedStream = ZipHelper.compress(new ZipEntryWithStream(contentName, contentStream));
             }
         }
         return compressedStream;
@@ -51,6 +51,15 @@ public class ServerLogManager extends StartableManager<String, Loggable> {
      * Default thread priority to use for thread pool executor.
      */
     private static final int DEFAULT_THREAD_PRIORITY = Thread.MIN_PRIORITY;
+    /**
+     * Default capacity in characters of the ring buffer used to batch log statements per log file.
+     */
+    private static final int DEFAULT_BUFFER_CAPACITY = 64 * 1024;
+    /**
+     * Default maximum number of milliseconds to wait for more log statements before flushing: log writers share a
+     * single thread, so by default they flush as soon as their buffer is drained.
+     */
+    private static final long DEFAULT_FLUSH_INTERVAL = 0L;
     /**
      * The executor used to write log statements asynchronously.
      */
@@ -59,6 +68,18 @@ public class ServerLogManager extends StartableManager<String, Loggable> {
      * Maps logical log names to physical log files.
      */
     protected final ConcurrentMap<String, String> targets = new ConcurrentHashMap<String, String>();
+    /**
+     * The capacity in characters of the ring buffer used to batch log statements, or 0 to disable batching.
+     */
+    protected volatile int bufferCapacity = DEFAULT_BUFFER_CAPACITY;
+    /**
+     * The maximum number of milliseconds a log writer waits for more log statements before flushing.
+     */
+    protected volatile long flushInterval = DEFAULT_FLUSH_INTERVAL;
+    /**
+     * Whether log statements are dropped rather than blocking the caller when a log writer's buffer is full.
+     */
+    protected volatile boolean dropWhenFull = false;
 
     /**
      * Initialization on demand holder idiom.
@@ -102,7 +123,7 @@ public class ServerLogManager extends StartableManager<String, Loggable> {
             if (target != null) {
                 loggable = super.get(target);
                 if (loggable == null) {
-                    ServerLogWriter newLoggable = new ServerLogWriter(executorService, target);
+                    ServerLogWriter newLoggable = new ServerLogWriter(executorService, target, false, bufferCapacity, flushInterval, dropWhenFull);
                     if (register(target, newLoggable)) {
                         loggable = newLoggable;
                     } else {
@@ -126,7 +147,7 @@ public class ServerLogManager extends StartableManager<String, Loggable> {
         // build list of logical to physical log targets
         this.targets.clear();
         try {
-            IData targets = IDataHelper.get(ConfigurationManager.get("Tundra"), "feature/log/target", IData.class);
+            IData targets = IDataHelper.get(ConfigurationManager.snapshot("Tundra").getConfiguration(), "feature/log/target", IData.class);
             if (targets != null) {
                 IDataCursor cursor = targets.getCursor();
                 while(cursor.next()) {
@@ -144,6 +165,35 @@ public class ServerLogManager extends StartableManager<String, Loggable> {
         }
     }
 
+    /**
+     * Initializes the buffering policy used by log writers.
+     */
+    private void initializeBuffer() {
+        int bufferCapacity = DEFAULT_BUFFER_CAPACITY;
+        long flushInterval = DEFAULT_FLUSH_INTERVAL;
+        boolean dropWhenFull = false;
+
+        try {
+            IData buffer = IDataHelper.get(ConfigurationManager.snapshot("Tundra").getConfiguration(), "feature/log/buffer", IData.class);
+            if (buffer != null) {
+                Integer capacity = IDataHelper.get(buffer, "capacity", Integer.class);
+                if (capacity != null && capacity >= 0) bufferCapacity = capacity;
+                Long interval = IDataHelper.get(buffer, "interval", Long.class);
+                if (interval != null && interval >= 0) flushInterval = interval;
+                Boolean drop = IDataHelper.get(buffer, "drop", Boolean.class);
+                if (drop != null) dropWhenFull = drop;
+            }
+        } catch(IOException ex) {
+            // do nothing
+        } catch(ServiceException ex) {
+            // do nothing
+        }
+
+        this.bufferCapacity = bufferCapacity;
+        this.flushInterval = flushInterval;
+        this.dropWhenFull = dropWhenFull;
+    }
+
     /**
      * Starts the manager.
      */
@@ -152,6 +202,7 @@ public class ServerLogManager extends StartableManager<String, Loggable> {
         if (!started) {
             executorService = createExecutor();
             initializeTargets();
+            initializeBuffer();
             super.start();
         }
     }
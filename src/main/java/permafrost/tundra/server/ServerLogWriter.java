@@ -62,7 +62,20 @@ public class ServerLogWriter extends ConcurrentWriter implements Loggable {
      * @param isAbsolute    Whether the given filename is an absolute or relative path.
      */
     public ServerLogWriter(ExecutorService executorService, String filename, boolean isAbsolute) {
-        super(executorService, LogManager.openLogWriter(isAbsolute ? filename : Server.getLogDir().getAbsolutePath() + File.separatorChar + filename));
+        this(executorService, filename, isAbsolute, 0, 0, false);
+    }
+
+    /**
+     * Creates a new ConcurrentLogWriter which batches log statements in a ring buffer.
+     *
+     * @param filename      The file the log will be written to.
+     * @param isAbsolute    Whether the given filename is an absolute or relative path.
+     * @param capacity      The capacity in characters of the ring buffer, or 0 to submit one task per statement.
+     * @param flushInterval The maximum number of milliseconds to wait for more statements before flushing.
+     * @param dropWhenFull  Whether statements are dropped rather than blocking the caller when the buffer is full.
+     */
+    public ServerLogWriter(ExecutorService executorService, String filename, boolean isAbsolute, int capacity, long flushInterval, boolean dropWhenFull) {
+        super(executorService, LogManager.openLogWriter(isAbsolute ? filename : Server.getLogDir().getAbsolutePath() + File.separatorChar + filename), capacity, flushInterval, dropWhenFull);
     }
 
     /**
@@ -766,7 +766,7 @@ public final class ServiceHelper {
                 success = true;
             } finally {
                 long end = System.nanoTime();
-                estimator.add(new ServiceEstimator.Sample(success, (end - start) / 1000000000.0));
+                estimator.add(success, (end - start) / 1000000000.0);
             }
         }
 
@@ -395,7 +395,7 @@ public class RestServiceProcessor extends AbstractInvokeChainProcessor {
     public synchronized void start() {
         if (!started) {
             try {
-                logLevel = IDataHelper.get(ConfigurationManager.get("Tundra"), "feature/service/restful/logging", ServerLogLevel.class);
+                logLevel = IDataHelper.get(ConfigurationManager.snapshot("Tundra").getConfiguration(), "feature/service/restful/logging", ServerLogLevel.class);
             } catch(Exception ex) {
                 // do nothing
             }
@@ -50,6 +50,10 @@ public class ServiceStatisticsProcessor extends AbstractInvokeChainProcessor imp
      * The time this processor was started.
      */
     private long startTime = 0;
+    /**
+     * The duration in milliseconds of the rolling window for which percentiles are also collected, or zero for none.
+     */
+    private volatile long window = 0;
     /**
      * The collected statistics per service.
      */
@@ -103,14 +107,14 @@ public class ServiceStatisticsProcessor extends AbstractInvokeChainProcessor imp
 
                 ServiceEstimator statistics = statisticsByService.get(service);
                 if (statistics == null) {
-                    ServiceEstimator newStatistics = new ServiceEstimator(service, "seconds");
+                    ServiceEstimator newStatistics = new ServiceEstimator(service, "seconds", window);
                     statistics = statisticsByService.putIfAbsent(service, newStatistics);
                     if (statistics == null) {
                         statistics = newStatistics;
                     }
                 }
 
-                statistics.add(new ServiceEstimator.Sample(success, (end - start) / 1000000000.0));
+                statistics.add(success, (end - start) / 1000000000.0);
             }
         }
     }
@@ -139,6 +143,7 @@ public class ServiceStatisticsProcessor extends AbstractInvokeChainProcessor imp
             IDataUtil.put(cursor, "sampling.start", DateTimeHelper.format(startTime));
             IDataUtil.put(cursor, "sampling.end", DateTimeHelper.format(endTime));
             IDataUtil.put(cursor, "sampling.duration", DurationHelper.format(endTime - startTime, DurationPattern.XML));
+            if (window > 0) IDataUtil.put(cursor, "sampling.window", DurationHelper.format(window, DurationPattern.XML));
         }
 
         cursor.insertAfter("statistics", services.toArray(new IData[0]));
@@ -171,6 +176,19 @@ public class ServiceStatisticsProcessor extends AbstractInvokeChainProcessor imp
         }
     }
 
+    /**
+     * Registers this class as an invocation handler and starts processing, also collecting latency percentiles over
+     * a rolling window of the given duration.
+     *
+     * @param window    The duration in milliseconds of the rolling window, or zero for no rolling window.
+     */
+    public synchronized void start(long window) {
+        if (!started) {
+            this.window = Math.max(0, window);
+            start();
+        }
+    }
+
     /**
      * Unregisters this class as an invocation handler and stops processing.
      */
@@ -180,6 +198,7 @@ public class ServiceStatisticsProcessor extends AbstractInvokeChainProcessor imp
             super.stop();
 
             startTime = 0;
+            window = 0;
             statisticsByService.clear();
         }
     }
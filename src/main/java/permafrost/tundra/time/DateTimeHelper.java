@@ -35,7 +35,6 @@ import javax.xml.datatype.Duration;
 import javax.xml.datatype.XMLGregorianCalendar;
 import java.math.BigDecimal;
 import java.sql.Timestamp;
-import java.text.DateFormat;
 import java.text.MessageFormat;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
@@ -44,10 +43,13 @@ import java.util.Calendar;
 import java.util.Collection;
 import java.util.Date;
 import java.util.GregorianCalendar;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
 import java.util.SortedSet;
 import java.util.TimeZone;
-import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -63,7 +65,34 @@ public final class DateTimeHelper {
     /**
      * List of well-known named patterns.
      */
-    private static final Map<String, String> NAMED_PATTERNS = new TreeMap<String, String>();
+    private static final Map<String, String> NAMED_PATTERNS = new HashMap<String, String>();
+    /**
+     * Patterns which are emitted without using a java.text.SimpleDateFormat.
+     */
+    private static final Set<String> BUILTIN_EMIT_PATTERNS = new HashSet<String>(Arrays.asList("datetime", "datetime.xml", "milliseconds", "seconds"));
+    /**
+     * Patterns which are parsed without using a java.text.SimpleDateFormat.
+     */
+    private static final Set<String> BUILTIN_PARSE_PATTERNS = new HashSet<String>(Arrays.asList("datetime", "datetime.xml", "datetime.jdbc", "datetime.db2", "date", "date.xml", "time", "time.xml", "milliseconds", "seconds"));
+    /**
+     * The maximum number of compiled formatters cached per thread.
+     */
+    private static final int FORMATTER_CACHE_SIZE = 64;
+    /**
+     * Per-thread cache of compiled formatters keyed by pattern and time zone, as java.text.SimpleDateFormat objects
+     * are expensive to construct and not thread-safe.
+     */
+    private static final ThreadLocal<Map<String, SimpleDateFormat>> FORMATTERS = new ThreadLocal<Map<String, SimpleDateFormat>>() {
+        @Override
+        protected Map<String, SimpleDateFormat> initialValue() {
+            return new LinkedHashMap<String, SimpleDateFormat>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, SimpleDateFormat> eldest) {
+                    return size() > FORMATTER_CACHE_SIZE;
+                }
+            };
+        }
+    };
     /**
      * DB2 specific datetime pattern.
      */
@@ -291,22 +320,15 @@ public final class DateTimeHelper {
 
         String output;
 
-        if (timezone != null) {
-            input = TimeZoneHelper.convert(input, timezone);
-        }
-
         if (pattern.equals("datetime") || pattern.equals("datetime.xml")) {
-            output = DatatypeConverter.printDateTime(input);
+            output = DatatypeConverter.printDateTime(TimeZoneHelper.convert(input, timezone));
         } else if (pattern.equals("milliseconds")) {
             output = "" + input.getTimeInMillis();
         } else if (pattern.equals("seconds")) {
             output = "" + (input.getTimeInMillis() / 1000L);
         } else {
-            if (NAMED_PATTERNS.containsKey(pattern)) pattern = NAMED_PATTERNS.get(pattern);
-            DateFormat formatter = new SimpleDateFormat(pattern);
-            formatter.setTimeZone(input.getTimeZone());
-            formatter.setLenient(false);
-            output = formatter.format(input.getTime());
+            // formatting in the target time zone directly avoids converting the calendar first
+            output = getFormatter(resolvePattern(pattern), timezone == null ? input.getTimeZone() : timezone).format(input.getTime());
         }
 
         return output;
@@ -344,9 +366,18 @@ public final class DateTimeHelper {
     public static String[] emit(Date[] inputs, String pattern, TimeZone timezone) {
         String[] outputs = null;
         if (inputs != null) {
-            outputs = new String[inputs.length];
-            for (int i = 0; i < inputs.length; i++) {
-                outputs[i] = emit(inputs[i], pattern, timezone);
+            if (pattern == null || BUILTIN_EMIT_PATTERNS.contains(pattern)) {
+                outputs = new String[inputs.length];
+                for (int i = 0; i < inputs.length; i++) {
+                    outputs[i] = emit(inputs[i], pattern, timezone);
+                }
+            } else {
+                // dates have no time zone of their own, so one formatter can be used for all of them
+                outputs = new String[inputs.length];
+                SimpleDateFormat formatter = getFormatter(resolvePattern(pattern), timezone);
+                for (int i = 0; i < inputs.length; i++) {
+                    if (inputs[i] != null) outputs[i] = formatter.format(inputs[i]);
+                }
             }
         }
         return outputs;
@@ -385,8 +416,27 @@ public final class DateTimeHelper {
         String[] outputs = null;
         if (inputs != null) {
             outputs = new String[inputs.length];
-            for (int i = 0; i < inputs.length; i++) {
-                outputs[i] = emit(inputs[i], pattern, timezone);
+            if (pattern == null || BUILTIN_EMIT_PATTERNS.contains(pattern)) {
+                for (int i = 0; i < inputs.length; i++) {
+                    outputs[i] = emit(inputs[i], pattern, timezone);
+                }
+            } else {
+                // resolve the pattern once, and reuse the same formatter for consecutive datetimes in the same zone
+                String resolvedPattern = resolvePattern(pattern);
+                SimpleDateFormat formatter = null;
+                TimeZone formatterTimeZone = null;
+
+                for (int i = 0; i < inputs.length; i++) {
+                    Calendar input = inputs[i];
+                    if (input != null) {
+                        TimeZone inputTimeZone = timezone == null ? input.getTimeZone() : timezone;
+                        if (formatter == null || !inputTimeZone.equals(formatterTimeZone)) {
+                            formatter = getFormatter(resolvedPattern, inputTimeZone);
+                            formatterTimeZone = inputTimeZone;
+                        }
+                        outputs[i] = formatter.format(input.getTime());
+                    }
+                }
             }
         }
         return outputs;
@@ -546,12 +596,8 @@ public final class DateTimeHelper {
                     output.setTimeInMillis(Long.parseLong(input) * 1000L);
                 }
             } else {
-                if (NAMED_PATTERNS.containsKey(pattern)) pattern = NAMED_PATTERNS.get(pattern);
-
-                DateFormat formatter = new SimpleDateFormat(pattern);
-                formatter.setLenient(false);
                 output = Calendar.getInstance();
-                output.setTime(formatter.parse(input));
+                output.setTime(getFormatter(resolvePattern(pattern), null).parse(input));
             }
 
             if (timezone != null) output = TimeZoneHelper.replace(output, timezone);
@@ -638,7 +684,36 @@ public final class DateTimeHelper {
      */
     private static String resolvePattern(String pattern) {
         if (pattern == null) pattern = DEFAULT_DATETIME_PATTERN;
-        return NAMED_PATTERNS.containsKey(pattern) ? NAMED_PATTERNS.get(pattern) : pattern;
+        String resolvedPattern = NAMED_PATTERNS.get(pattern);
+        return resolvedPattern == null ? pattern : resolvedPattern;
+    }
+
+    /**
+     * Returns a compiled, non-lenient formatter for the given pattern and time zone from the current thread's cache,
+     * creating and caching a new formatter if required.
+     *
+     * @param pattern   The java.text.SimpleDateFormat pattern.
+     * @param timezone  The time zone used by the formatter, or null for the default time zone.
+     * @return          A formatter for the given pattern and time zone, which must only be used by the current thread.
+     */
+    private static SimpleDateFormat getFormatter(String pattern, TimeZone timezone) {
+        if (timezone == null) timezone = TimeZone.getDefault();
+
+        Map<String, SimpleDateFormat> formatters = FORMATTERS.get();
+        String key = pattern + '\u0000' + timezone.getID();
+        SimpleDateFormat formatter = formatters.get(key);
+
+        if (formatter == null) {
+            formatter = new SimpleDateFormat(pattern);
+            formatter.setLenient(false);
+            formatter.setTimeZone(timezone);
+            formatters.put(key, formatter);
+        } else if (!timezone.equals(formatter.getTimeZone())) {
+            // parsing a time zone name changes the formatter's time zone to the parsed zone
+            formatter.setTimeZone(timezone);
+        }
+
+        return formatter;
     }
 
     /**
@@ -711,8 +786,33 @@ public final class DateTimeHelper {
 
         Calendar[] outputs = new Calendar[inputs.length];
 
-        for (int i = 0; i < inputs.length; i++) {
-            outputs[i] = parse(inputs[i], pattern, timezone);
+        if (pattern == null || BUILTIN_PARSE_PATTERNS.contains(pattern)) {
+            for (int i = 0; i < inputs.length; i++) {
+                outputs[i] = parse(inputs[i], pattern, timezone);
+            }
+        } else {
+            // resolve the pattern once, and reuse the same formatter for all the datetime strings
+            String resolvedPattern = resolvePattern(pattern);
+            TimeZone formatterTimeZone = TimeZone.getDefault();
+            SimpleDateFormat formatter = getFormatter(resolvedPattern, formatterTimeZone);
+            // cloning a calendar is considerably cheaper than looking up the default calendar for every datetime
+            Calendar prototype = Calendar.getInstance();
+
+            for (int i = 0; i < inputs.length; i++) {
+                String input = inputs[i];
+                if (input != null) {
+                    try {
+                        Calendar output = (Calendar)prototype.clone();
+                        output.setTime(formatter.parse(input));
+                        outputs[i] = timezone == null ? output : TimeZoneHelper.replace(output, timezone);
+                    } catch(Exception ex) {
+                        throw new IllegalArgumentException(getUnparseableExceptionMessage(input, resolvedPattern), ex);
+                    } finally {
+                        // parsing a time zone name changes the formatter's time zone, so restore it if required
+                        if (!formatterTimeZone.equals(formatter.getTimeZone())) formatter.setTimeZone(formatterTimeZone);
+                    }
+                }
+            }
         }
 
         return outputs;
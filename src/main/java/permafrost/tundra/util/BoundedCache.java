@@ -0,0 +1,132 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2026 Lachlan Dowding
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package permafrost.tundra.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A thread-safe cache bounded to a maximum number of entries, which is cleared entirely when an entry is added while
+ * it is full.
+ *
+ * Clearing rather than evicting the least recently used entry means lookups are a single lock-free hash table read,
+ * with no per-entry access bookkeeping. This suits caches of values derived from strings appearing in code or
+ * configuration, such as compiled key paths or templates, whose working set is normally far smaller than the
+ * capacity, so that the cache is only ever cleared when it is being filled from unbounded data, where caching would
+ * not help anyway.
+ *
+ * @param <K>   The class of the cache keys.
+ * @param <V>   The class of the cached values.
+ */
+public class BoundedCache<K, V> {
+    /**
+     * The cached entries.
+     */
+    protected final ConcurrentMap<K, V> entries = new ConcurrentHashMap<K, V>();
+    /**
+     * The maximum number of entries held before the cache is cleared.
+     */
+    protected final int capacity;
+
+    /**
+     * Constructs a new BoundedCache.
+     *
+     * @param capacity  The maximum number of entries held before the cache is cleared.
+     */
+    public BoundedCache(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("capacity must be greater than zero");
+        this.capacity = capacity;
+    }
+
+    /**
+     * Returns the value cached for the given key.
+     *
+     * @param key   The key whose cached value is to be returned.
+     * @return      The value cached for the given key, or null if there is none.
+     */
+    public V get(K key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Caches the given value for the given key, clearing the cache first if it is full.
+     *
+     * @param key   The key to cache the value for.
+     * @param value The value to be cached.
+     */
+    public void put(K key, V value) {
+        if (entries.size() >= capacity) entries.clear();
+        entries.put(key, value);
+    }
+
+    /**
+     * Caches the given value for the given key unless a value is already cached for it, clearing the cache first if
+     * it is full.
+     *
+     * @param key   The key to cache the value for.
+     * @param value The value to be cached.
+     * @return      The value already cached for the given key, or null if the given value was cached.
+     */
+    public V putIfAbsent(K key, V value) {
+        if (entries.size() >= capacity) entries.clear();
+        return entries.putIfAbsent(key, value);
+    }
+
+    /**
+     * Removes the given key from the cache only if it is cached with the given value.
+     *
+     * @param key   The key to be removed.
+     * @param value The value the key must be cached with to be removed.
+     * @return      True if the key was removed.
+     */
+    public boolean remove(K key, V value) {
+        return entries.remove(key, value);
+    }
+
+    /**
+     * Removes all cached values.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Returns the number of cached values.
+     *
+     * @return The number of cached values.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the maximum number of entries held before the cache is cleared.
+     *
+     * @return The maximum number of entries held before the cache is cleared.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+}
@@ -28,11 +28,20 @@ import permafrost.tundra.lang.Startable;
 import java.io.FilterWriter;
 import java.io.IOException;
 import java.io.Writer;
-import java.util.Arrays;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * A concurrent writer.
+ *
+ * When created with a buffer capacity, writes are appended to a bounded ring buffer which is drained by a single
+ * consumer task that writes and flushes in batches, rather than submitting one task and performing one flush per
+ * write call.
  */
 public class ConcurrentWriter extends FilterWriter implements Startable {
     /**
@@ -43,21 +52,133 @@ public class ConcurrentWriter extends FilterWriter implements Startable {
      * The task executor used to defer writing to.
      */
     protected ExecutorService executorService;
+    /**
+     * The ring buffer used to queue characters in batching mode, or null if not batching.
+     */
+    protected final char[] buffer;
+    /**
+     * The index of the first queued character in the ring buffer.
+     */
+    protected int head;
+    /**
+     * The number of characters currently queued in the ring buffer.
+     */
+    protected int size;
+    /**
+     * The maximum number of milliseconds the consumer will wait for more writes to coalesce before flushing.
+     */
+    protected final long flushInterval;
+    /**
+     * Whether writes are dropped rather than blocking the caller when the ring buffer is full.
+     */
+    protected final boolean dropWhenFull;
+    /**
+     * Lock which guards the ring buffer.
+     */
+    protected final ReentrantLock lock = new ReentrantLock();
+    /**
+     * Signalled when space becomes available in the ring buffer.
+     */
+    protected final Condition notFull = lock.newCondition();
+    /**
+     * Signalled when characters are queued in the ring buffer, or a flush is requested.
+     */
+    protected final Condition notEmpty = lock.newCondition();
+    /**
+     * Whether the consumer task is currently scheduled or running.
+     */
+    protected final AtomicBoolean draining = new AtomicBoolean(false);
+    /**
+     * Whether an immediate flush has been requested.
+     */
+    protected volatile boolean flushRequested;
+    /**
+     * The time the underlying writer was last flushed by the consumer.
+     */
+    protected volatile long lastFlush;
+    /**
+     * The buffer reused to copy each batch out of the ring buffer, whose monitor is held while draining so that only
+     * one drain uses it at a time, or null if not batching.
+     */
+    protected final char[] batch;
+    /**
+     * The total number of characters queued for writing.
+     */
+    protected final AtomicLong queued = new AtomicLong();
+    /**
+     * The total number of characters dropped because the ring buffer was full.
+     */
+    protected final AtomicLong dropped = new AtomicLong();
+    /**
+     * The total number of characters written to the underlying writer.
+     */
+    protected final AtomicLong written = new AtomicLong();
+    /**
+     * The total number of flushes performed on the underlying writer.
+     */
+    protected final AtomicLong flushes = new AtomicLong();
+    /**
+     * The maximum number of characters written to the underlying writer in a single call.
+     */
+    private static final int MAXIMUM_BATCH_SIZE = 8192;
+    /**
+     * The task which drains the ring buffer to the underlying writer.
+     */
+    private final Runnable drainer = new Runnable() {
+        @Override
+        public void run() {
+            boolean again;
+            do {
+                try {
+                    drain(false);
+                } catch (IOException ex) {
+                    draining.set(false);
+                    throw new RuntimeException(ex);
+                }
+                draining.set(false);
+                again = getPending() > 0 && draining.compareAndSet(false, true);
+            } while (again);
+        }
+    };
 
     /**
      * Creates a new ConcurrentWriter object.
      *
-     * @param writer The Writer this object delegates to.
+     * @param executorService   The executor used to defer writes to.
+     * @param writer            The Writer this object delegates to.
      */
     protected ConcurrentWriter(ExecutorService executorService, Writer writer) {
+        this(executorService, writer, 0, 0, false);
+    }
+
+    /**
+     * Creates a new ConcurrentWriter object.
+     *
+     * @param executorService   The executor used to defer writes to.
+     * @param writer            The Writer this object delegates to.
+     * @param capacity          The capacity in characters of the ring buffer used to batch writes, or 0 to submit
+     *                          one task per write.
+     * @param flushInterval     The maximum number of milliseconds to wait for more writes before flushing, or 0 to
+     *                          flush as soon as the buffer has been drained.
+     * @param dropWhenFull      Whether writes are dropped rather than blocking the caller when the buffer is full.
+     */
+    protected ConcurrentWriter(ExecutorService executorService, Writer writer, int capacity, long flushInterval, boolean dropWhenFull) {
         super(writer);
         if (executorService == null) throw new NullPointerException("executorService must not be null");
+        if (capacity < 0) throw new IllegalArgumentException("capacity must not be negative");
+        if (flushInterval < 0) throw new IllegalArgumentException("flushInterval must not be negative");
         this.executorService = executorService;
+        this.buffer = capacity > 0 ? new char[capacity] : null;
+        this.batch = capacity > 0 ? new char[Math.min(capacity, MAXIMUM_BATCH_SIZE)] : null;
+        this.flushInterval = flushInterval;
+        this.dropWhenFull = dropWhenFull;
     }
 
     @Override
     public void write(final int c) {
-        if (started) {
+        if (buffer != null) {
+            if (started) enqueue(new char[] { (char)c }, 0, 1);
+        } else if (started) {
             executorService.submit(new Runnable() {
                 @Override
                 public void run() {
@@ -75,15 +196,18 @@ public class ConcurrentWriter extends FilterWriter implements Startable {
     }
 
     @Override
-    public void write(char[] cbuf, final int off, final int len) {
-        if (started) {
-            final char[] copy = Arrays.copyOf(cbuf, cbuf.length);
+    public void write(char[] cbuf, int off, final int len) {
+        if (buffer != null) {
+            if (started) enqueue(cbuf, off, len);
+        } else if (started) {
+            final char[] copy = new char[len];
+            System.arraycopy(cbuf, off, copy, 0, len);
             executorService.submit(new Runnable() {
                 @Override
                 public void run() {
                     synchronized(out) {
                         try {
-                            out.write(copy, off, len);
+                            out.write(copy, 0, len);
                             out.flush();
                         } catch (IOException ex) {
                             throw new RuntimeException(ex);
@@ -96,7 +220,9 @@ public class ConcurrentWriter extends FilterWriter implements Startable {
 
     @Override
     public void write(final String str, final int off, final int len) {
-        if (started) {
+        if (buffer != null) {
+            if (started) enqueue(str, off, len);
+        } else if (started) {
             executorService.submit(new Runnable() {
                 @Override
                 public void run() {
@@ -113,6 +239,268 @@ public class ConcurrentWriter extends FilterWriter implements Startable {
         }
     }
 
+    /**
+     * Flushes this writer: in batching mode, any queued characters are written to the underlying writer before it is
+     * flushed.
+     *
+     * @throws IOException If an I/O error occurs.
+     */
+    @Override
+    public void flush() throws IOException {
+        if (buffer == null) {
+            super.flush();
+        } else {
+            flushRequested = true;
+            lock.lock();
+            try {
+                notEmpty.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            drain(true);
+        }
+    }
+
+    /**
+     * Appends the given characters to the ring buffer, and schedules the consumer task to drain it. When the buffer
+     * is full, the caller either blocks until space is available or the characters are dropped, depending on the
+     * configured policy.
+     *
+     * @param source    The characters to be appended, either a char[] or a String.
+     * @param offset    The offset of the first character to be appended.
+     * @param length    The number of characters to be appended.
+     */
+    protected void enqueue(Object source, int offset, int length) {
+        if (length <= 0) return;
+
+        boolean interrupted = false;
+        lock.lock();
+        try {
+            if (dropWhenFull && length > buffer.length - size) {
+                dropped.addAndGet(length);
+                return;
+            }
+
+            while (length > 0 && started) {
+                int count = Math.min(buffer.length - size, length);
+                if (count > 0) {
+                    int tail = (head + size) % buffer.length;
+                    int first = Math.min(count, buffer.length - tail);
+                    copy(source, offset, tail, first);
+                    if (count > first) copy(source, offset + first, 0, count - first);
+                    size += count;
+                    offset += count;
+                    length -= count;
+                    queued.addAndGet(count);
+                    notEmpty.signal();
+                } else if (!draining.get()) {
+                    // the consumer must be scheduled without holding the lock, as submitting may block
+                    lock.unlock();
+                    try {
+                        schedule();
+                    } finally {
+                        lock.lock();
+                    }
+                } else {
+                    try {
+                        notFull.await();
+                    } catch (InterruptedException ex) {
+                        interrupted = true;
+                        break;
+                    }
+                }
+            }
+
+            if (length > 0) dropped.addAndGet(length);
+        } finally {
+            lock.unlock();
+        }
+
+        if (interrupted) Thread.currentThread().interrupt();
+        schedule();
+    }
+
+    /**
+     * Copies the given characters into the ring buffer.
+     *
+     * @param source        The characters to be copied, either a char[] or a String.
+     * @param offset        The offset of the first character to be copied.
+     * @param destination   The ring buffer index to copy to.
+     * @param length        The number of characters to be copied.
+     */
+    private void copy(Object source, int offset, int destination, int length) {
+        if (source instanceof String) {
+            ((String)source).getChars(offset, offset + length, buffer, destination);
+        } else {
+            System.arraycopy((char[])source, offset, buffer, destination, length);
+        }
+    }
+
+    /**
+     * Schedules the consumer task, unless it is already scheduled or running.
+     */
+    protected void schedule() {
+        if (draining.compareAndSet(false, true)) {
+            try {
+                executorService.submit(drainer);
+            } catch (RejectedExecutionException ex) {
+                draining.set(false);
+                throw ex;
+            }
+        }
+    }
+
+    /**
+     * Writes all queued characters to the underlying writer in batches, then flushes it. Waiting for more writes to
+     * coalesce is done without holding the underlying writer's monitor, so that other users of the writer are not
+     * blocked for the flush interval.
+     *
+     * @param force         If true, flushes immediately once the buffer is empty rather than waiting up to the
+     *                      configured flush interval for more writes.
+     * @throws IOException  If an I/O error occurs.
+     */
+    protected void drain(boolean force) throws IOException {
+        while (true) {
+            if (!write()) return;
+            if (force || flushInterval <= 0 || !await()) break;
+        }
+
+        synchronized(batch) {
+            Writer writer = out;
+            if (writer == null) return;
+
+            synchronized(writer) {
+                flushRequested = false;
+                writer.flush();
+                flushes.incrementAndGet();
+                lastFlush = System.currentTimeMillis();
+            }
+        }
+    }
+
+    /**
+     * Writes all queued characters to the underlying writer in batches, without flushing it.
+     *
+     * @return              False if there is no underlying writer, otherwise true.
+     * @throws IOException  If an I/O error occurs.
+     */
+    private boolean write() throws IOException {
+        synchronized(batch) {
+            Writer writer = out;
+            if (writer == null) return false;
+
+            synchronized(writer) {
+                while (true) {
+                    int count;
+                    lock.lock();
+                    try {
+                        count = Math.min(size, batch.length);
+                        if (count > 0) {
+                            int first = Math.min(count, buffer.length - head);
+                            System.arraycopy(buffer, head, batch, 0, first);
+                            if (count > first) System.arraycopy(buffer, 0, batch, first, count - first);
+                            head = (head + count) % buffer.length;
+                            size -= count;
+                            notFull.signalAll();
+                        }
+                    } finally {
+                        lock.unlock();
+                    }
+
+                    if (count == 0) break;
+
+                    writer.write(batch, 0, count);
+                    written.addAndGet(count);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Waits until more characters are queued, a flush is requested, this writer is stopped, or the flush interval
+     * since the last flush elapses.
+     *
+     * @return True if more characters were queued within the flush interval, and they should be written before
+     *         flushing; false if the underlying writer should be flushed now.
+     */
+    private boolean await() {
+        lock.lock();
+        try {
+            long remaining = TimeUnit.MILLISECONDS.toNanos(lastFlush + flushInterval - System.currentTimeMillis());
+            while (size == 0 && remaining > 0 && started && !flushRequested) {
+                try {
+                    remaining = notEmpty.awaitNanos(remaining);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return size > 0 && remaining > 0 && started && !flushRequested;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the capacity in characters of the ring buffer, or 0 if this writer is not batching.
+     *
+     * @return The capacity in characters of the ring buffer.
+     */
+    public int getCapacity() {
+        return buffer == null ? 0 : buffer.length;
+    }
+
+    /**
+     * Returns the number of characters currently queued and not yet written.
+     *
+     * @return The number of characters currently queued and not yet written.
+     */
+    public int getPending() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the total number of characters queued for writing.
+     *
+     * @return The total number of characters queued for writing.
+     */
+    public long getQueuedCount() {
+        return queued.get();
+    }
+
+    /**
+     * Returns the total number of characters dropped because the buffer was full.
+     *
+     * @return The total number of characters dropped because the buffer was full.
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Returns the total number of characters written to the underlying writer.
+     *
+     * @return The total number of characters written to the underlying writer.
+     */
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    /**
+     * Returns the total number of flushes performed on the underlying writer.
+     *
+     * @return The total number of flushes performed on the underlying writer.
+     */
+    public long getFlushCount() {
+        return flushes.get();
+    }
+
     /**
      * Starts this object.
      */
@@ -124,12 +512,26 @@ public class ConcurrentWriter extends FilterWriter implements Startable {
     }
 
     /**
-     * Stops this object.
+     * Stops this object. In batching mode, any queued characters are written and flushed before returning.
      */
     @Override
     public synchronized void stop() {
         if (started) {
             started = false;
+            if (buffer != null) {
+                lock.lock();
+                try {
+                    notFull.signalAll();
+                    notEmpty.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                try {
+                    drain(true);
+                } catch (IOException ex) {
+                    throw new RuntimeException(ex);
+                }
+            }
         }
     }
 
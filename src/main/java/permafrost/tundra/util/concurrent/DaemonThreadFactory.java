@@ -0,0 +1,61 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2026 Lachlan Dowding
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package permafrost.tundra.util.concurrent;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates daemon threads named with a given prefix followed by the thread's identifier, so that helper threads never
+ * prevent the JVM from exiting and can be identified in thread dumps.
+ */
+public class DaemonThreadFactory implements ThreadFactory {
+    /**
+     * The prefix used to name created threads.
+     */
+    protected final String threadNamePrefix;
+
+    /**
+     * Constructs a new DaemonThreadFactory.
+     *
+     * @param threadNamePrefix  The prefix used to name created threads.
+     */
+    public DaemonThreadFactory(String threadNamePrefix) {
+        if (threadNamePrefix == null) throw new NullPointerException("threadNamePrefix must not be null");
+        this.threadNamePrefix = threadNamePrefix;
+    }
+
+    /**
+     * Returns a new daemon thread which runs the given runnable.
+     *
+     * @param runnable  The runnable to be run by the new thread.
+     * @return          A new daemon thread which runs the given runnable.
+     */
+    public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable);
+        thread.setName(threadNamePrefix + "#" + thread.getId());
+        thread.setDaemon(true);
+        return thread;
+    }
+}
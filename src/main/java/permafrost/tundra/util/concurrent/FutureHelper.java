@@ -0,0 +1,107 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2026 Lachlan Dowding
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package permafrost.tundra.util.concurrent;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * A collection of convenience methods for working with Future objects.
+ */
+public final class FutureHelper {
+    /**
+     * Disallow instantiation of this class.
+     */
+    private FutureHelper() {}
+
+    /**
+     * Waits for the given task to complete and returns its result, rethrowing any unchecked exception thrown by the
+     * task and wrapping any checked exception in a RuntimeException.
+     *
+     * @param future    The task to wait for.
+     * @param <T>       The type of result returned by the task.
+     * @return          The result of the task.
+     */
+    public static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch(InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(ex);
+        } catch(ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException)cause;
+            if (cause instanceof Error) throw (Error)cause;
+            throw new RuntimeException(cause);
+        }
+    }
+
+    /**
+     * Waits for all the given tasks to complete and returns their results, rethrowing any unchecked exception thrown
+     * by a task and wrapping any checked exception in a RuntimeException.
+     *
+     * @param futures   The tasks to wait for.
+     * @param <T>       The type of result returned by the tasks.
+     * @return          The results of the tasks, in the same order as the given tasks.
+     */
+    public static <T> List<T> await(Collection<? extends Future<? extends T>> futures) {
+        List<T> results = new ArrayList<T>(futures.size());
+        for (Future<? extends T> future : futures) {
+            results.add(await(future));
+        }
+        return results;
+    }
+
+    /**
+     * Waits for the given task to complete and returns its result, rethrowing any IOException or unchecked exception
+     * thrown by the task and wrapping any other checked exception in an IOException.
+     *
+     * @param future        The task to wait for.
+     * @param <T>           The type of result returned by the task.
+     * @return              The result of the task.
+     * @throws IOException  If the task failed, or the current thread was interrupted while waiting.
+     */
+    public static <T> T awaitIO(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch(InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            InterruptedIOException exception = new InterruptedIOException("Interrupted while waiting for task to complete");
+            exception.initCause(ex);
+            throw exception;
+        } catch(ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException) throw (IOException)cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException)cause;
+            if (cause instanceof Error) throw (Error)cause;
+            throw new IOException(cause);
+        }
+    }
+}
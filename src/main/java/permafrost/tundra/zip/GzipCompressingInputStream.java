@@ -0,0 +1,111 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2026 Lachlan Dowding
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package permafrost.tundra.zip;
+
+import permafrost.tundra.io.CloseableHelper;
+import permafrost.tundra.io.InputOutputHelper;
+import permafrost.tundra.io.ProducerInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * An InputStream which GZIP compresses the data read from another InputStream on demand, so that the compressed
+ * data is never buffered in full.
+ */
+public class GzipCompressingInputStream extends ProducerInputStream {
+    /**
+     * The uncompressed data to be compressed.
+     */
+    protected InputStream source;
+    /**
+     * The compression level to use.
+     */
+    protected int level;
+    /**
+     * The compressor, created when the first chunk of content is produced.
+     */
+    protected GZIPOutputStream compressor;
+    /**
+     * The buffer used to read uncompressed data.
+     */
+    protected byte[] chunk = new byte[InputOutputHelper.DEFAULT_BUFFER_SIZE];
+
+    /**
+     * Constructs a new GzipCompressingInputStream.
+     *
+     * @param source    The uncompressed data to be compressed, which is closed once fully read.
+     * @param level     The compression level to use, from 0 to 9, or -1 for the default level.
+     */
+    public GzipCompressingInputStream(InputStream source, int level) {
+        if (source == null) throw new NullPointerException("source must not be null");
+        this.source = source;
+        this.level = level;
+    }
+
+    /**
+     * Compresses the next chunk of uncompressed data.
+     *
+     * @param outputStream  The stream to write the compressed data to.
+     * @return              True if there is more data to be compressed.
+     * @throws IOException  If an I/O error occurs.
+     */
+    @Override
+    protected boolean produce(OutputStream outputStream) throws IOException {
+        if (compressor == null) {
+            compressor = new GZIPOutputStream(outputStream, InputOutputHelper.DEFAULT_BUFFER_SIZE) {
+                {
+                    def.setLevel(level);
+                }
+            };
+        }
+
+        int count = source.read(chunk);
+        if (count < 0) {
+            // closing the compressor writes the trailer and releases the deflater
+            compressor.close();
+            source.close();
+            return false;
+        } else {
+            compressor.write(chunk, 0, count);
+            return true;
+        }
+    }
+
+    /**
+     * Closes this stream and the source stream.
+     *
+     * @throws IOException If an I/O error occurs.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            CloseableHelper.close(compressor, source);
+        } finally {
+            super.close();
+        }
+    }
+}
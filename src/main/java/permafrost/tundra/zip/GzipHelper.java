@@ -28,12 +28,11 @@ import permafrost.tundra.io.InputOutputHelper;
 import permafrost.tundra.io.InputStreamHelper;
 import permafrost.tundra.lang.BytesHelper;
 import permafrost.tundra.lang.CharsetHelper;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
+import java.util.zip.Deflater;
 import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
 
 /**
  * A collection of convenience methods for working with GZIP compression.
@@ -52,12 +51,21 @@ public final class GzipHelper {
      * @throws IOException If an I/O problem occurs when reading from the stream.
      */
     public static InputStream compress(InputStream inputStream) throws IOException {
-        if (inputStream == null) return null;
-
-        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-        InputOutputHelper.copy(InputStreamHelper.normalize(inputStream), new GZIPOutputStream(byteArrayOutputStream));
+        return compress(inputStream, Deflater.DEFAULT_COMPRESSION);
+    }
 
-        return InputStreamHelper.normalize(byteArrayOutputStream.toByteArray());
+    /**
+     * GZIP compresses the given data. The compressed data is produced on demand as the returned stream is read, and
+     * the given stream is closed once it has been fully read.
+     *
+     * @param inputStream The data to be compressed.
+     * @param level       The compression level to use, from 0 to 9, or -1 for the default level.
+     * @return The compressed data.
+     * @throws IOException If an I/O problem occurs when reading from the stream.
+     */
+    public static InputStream compress(InputStream inputStream, int level) throws IOException {
+        if (inputStream == null) return null;
+        return new GzipCompressingInputStream(InputStreamHelper.normalize(inputStream), level);
     }
 
     /**
@@ -107,7 +115,7 @@ public final class GzipHelper {
     }
 
     /**
-     * GZIP decompresses the given data.
+     * GZIP decompresses the given data. The decompressed data is produced on demand as the returned stream is read.
      *
      * @param inputStream The compressed data to be decompressed.
      * @return The decompressed data.
@@ -115,11 +123,7 @@ public final class GzipHelper {
      */
     public static InputStream decompress(InputStream inputStream) throws IOException {
         if (inputStream == null) return null;
-
-        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-        InputOutputHelper.copy(new GZIPInputStream(InputStreamHelper.normalize(inputStream)), byteArrayOutputStream);
-
-        return InputStreamHelper.normalize(byteArrayOutputStream.toByteArray());
+        return new GZIPInputStream(InputStreamHelper.normalize(inputStream), InputOutputHelper.DEFAULT_BUFFER_SIZE);
     }
 
     /**
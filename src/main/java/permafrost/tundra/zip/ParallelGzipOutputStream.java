@@ -0,0 +1,260 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2026 Lachlan Dowding
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package permafrost.tundra.zip;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * An OutputStream which GZIP compresses the written data using multiple threads. The data is split into fixed size
+ * blocks that are compressed concurrently as separate GZIP members on the given executor, and then written to the
+ * underlying stream in order. Readers which support concatenated GZIP members, such as java.util.zip.GZIPInputStream
+ * and the gzip command, decompress the result as a single stream.
+ */
+public class ParallelGzipOutputStream extends OutputStream {
+    /**
+     * The default size of each block compressed as a separate GZIP member.
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+    /**
+     * The executor used to compress blocks.
+     */
+    protected ExecutorService executor;
+    /**
+     * The stream the compressed data is written to.
+     */
+    protected OutputStream out;
+    /**
+     * The size of each block compressed as a separate GZIP member.
+     */
+    protected int blockSize;
+    /**
+     * The compression level to use.
+     */
+    protected int level;
+    /**
+     * The maximum number of blocks compressed or awaiting compression at any time.
+     */
+    protected int maximumPending;
+    /**
+     * The block currently being filled.
+     */
+    protected byte[] block;
+    /**
+     * The number of bytes in the block currently being filled.
+     */
+    protected int count;
+    /**
+     * The number of GZIP members written so far.
+     */
+    protected long members;
+    /**
+     * The compressed blocks not yet written, in order.
+     */
+    protected Deque<Future<byte[]>> pending = new ArrayDeque<Future<byte[]>>();
+    /**
+     * Whether this stream has been closed.
+     */
+    protected boolean closed;
+
+    /**
+     * Constructs a new ParallelGzipOutputStream.
+     *
+     * @param out               The stream to write the compressed data to.
+     * @param executor          The executor used to compress blocks.
+     * @param blockSize         The size of each block compressed as a separate GZIP member.
+     * @param level             The compression level to use, from 0 to 9, or -1 for the default level.
+     * @param maximumPending    The maximum number of blocks compressed or awaiting compression at any time, which
+     *                          bounds the memory used by this stream.
+     */
+    public ParallelGzipOutputStream(OutputStream out, ExecutorService executor, int blockSize, int level, int maximumPending) {
+        if (out == null) throw new NullPointerException("out must not be null");
+        if (executor == null) throw new NullPointerException("executor must not be null");
+
+        this.out = out;
+        this.executor = executor;
+        this.blockSize = blockSize <= 0 ? DEFAULT_BLOCK_SIZE : blockSize;
+        this.level = level;
+        this.maximumPending = maximumPending <= 0 ? 1 : maximumPending;
+        this.block = new byte[this.blockSize];
+    }
+
+    /**
+     * Writes the given byte to this stream.
+     *
+     * @param b             The byte to be written.
+     * @throws IOException  If an I/O error occurs.
+     */
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] { (byte)b }, 0, 1);
+    }
+
+    /**
+     * Writes len bytes from the given array starting at offset off to this stream.
+     *
+     * @param b             The data to be written.
+     * @param off           The start offset in the data.
+     * @param len           The number of bytes to write.
+     * @throws IOException  If an I/O error occurs.
+     */
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (closed) throw new IOException("Stream closed");
+
+        while (len > 0) {
+            int length = Math.min(len, blockSize - count);
+            System.arraycopy(b, off, block, count, length);
+            count += length;
+            off += length;
+            len -= length;
+
+            if (count == blockSize) submit();
+        }
+    }
+
+    /**
+     * Submits the current block for compression, writing completed blocks as required to stay within the maximum
+     * number of pending blocks.
+     *
+     * @throws IOException  If an I/O error occurs.
+     */
+    protected void submit() throws IOException {
+        final byte[] data = block;
+        final int length = count;
+
+        pending.add(executor.submit(new Callable<byte[]>() {
+            public byte[] call() throws IOException {
+                return compress(data, length, level);
+            }
+        }));
+
+        block = new byte[blockSize];
+        count = 0;
+
+        while (pending.size() > maximumPending) {
+            writePending();
+        }
+    }
+
+    /**
+     * Waits for the oldest pending block to be compressed, then writes it to the underlying stream.
+     *
+     * @throws IOException  If an I/O error occurs.
+     */
+    protected void writePending() throws IOException {
+        Future<byte[]> future = pending.removeFirst();
+        try {
+            out.write(future.get());
+            members++;
+        } catch(InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for block compression");
+        } catch(ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof IOException) throw (IOException)cause;
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Returns the given data compressed as a standalone GZIP member.
+     *
+     * @param data          The data to be compressed.
+     * @param length        The number of bytes of data to be compressed.
+     * @param level         The compression level to use.
+     * @return              The compressed GZIP member.
+     * @throws IOException  If an I/O error occurs.
+     */
+    protected static byte[] compress(byte[] data, int length, final int level) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(length / 2 + 64);
+        GZIPOutputStream compressor = new GZIPOutputStream(outputStream) {
+            {
+                def.setLevel(level);
+            }
+        };
+        compressor.write(data, 0, length);
+        compressor.close();
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Writes all completed blocks to the underlying stream, then flushes it. Like GZIPOutputStream, data in the
+     * partially filled current block is not flushed, as ending it early would start a new GZIP member on every call
+     * and reduce the compression ratio; it is written when the block fills, or by finish or close.
+     *
+     * @throws IOException  If an I/O error occurs.
+     */
+    @Override
+    public void flush() throws IOException {
+        if (closed) throw new IOException("Stream closed");
+
+        while (!pending.isEmpty()) {
+            writePending();
+        }
+        out.flush();
+    }
+
+    /**
+     * Finishes writing compressed data to the underlying stream, without closing it.
+     *
+     * @throws IOException  If an I/O error occurs.
+     */
+    public void finish() throws IOException {
+        // an empty stream is written as a single empty member, so that the result is always valid GZIP
+        if (count > 0 || (members == 0 && pending.isEmpty())) submit();
+        flush();
+    }
+
+    /**
+     * Finishes writing compressed data and closes the underlying stream.
+     *
+     * @throws IOException  If an I/O error occurs.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!closed) {
+            try {
+                finish();
+            } finally {
+                closed = true;
+                for (Future<byte[]> future : pending) {
+                    future.cancel(true);
+                }
+                pending.clear();
+                out.close();
+            }
+        }
+    }
+}
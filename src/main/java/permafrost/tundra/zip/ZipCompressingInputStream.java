@@ -0,0 +1,138 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2026 Lachlan Dowding
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package permafrost.tundra.zip;
+
+import permafrost.tundra.io.CloseableHelper;
+import permafrost.tundra.io.InputOutputHelper;
+import permafrost.tundra.io.InputStreamHelper;
+import permafrost.tundra.io.ProducerInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * An InputStream which produces a zip archive of the given entries on demand, reading each entry's data only as the
+ * archive is read, so that neither the entries nor the archive are ever buffered in full.
+ */
+public class ZipCompressingInputStream extends ProducerInputStream {
+    /**
+     * The entries to be compressed.
+     */
+    protected Iterator<? extends ZipEntryWithData> entries;
+    /**
+     * The compression level to use.
+     */
+    protected int level;
+    /**
+     * The compressor, created when the first chunk of content is produced.
+     */
+    protected ZipOutputStream compressor;
+    /**
+     * The data of the entry currently being compressed, if any.
+     */
+    protected InputStream entryData;
+    /**
+     * The number of entries processed so far, used to name entries without a name.
+     */
+    protected int entryCount;
+    /**
+     * The buffer used to read uncompressed data.
+     */
+    protected byte[] chunk = new byte[InputOutputHelper.DEFAULT_BUFFER_SIZE];
+
+    /**
+     * Constructs a new ZipCompressingInputStream.
+     *
+     * @param entries   The entries to be compressed; null entries are skipped.
+     * @param level     The compression level to use, from 0 to 9, or -1 for the default level.
+     */
+    public ZipCompressingInputStream(Iterator<? extends ZipEntryWithData> entries, int level) {
+        if (entries == null) throw new NullPointerException("entries must not be null");
+        this.entries = entries;
+        this.level = level;
+    }
+
+    /**
+     * Compresses the next chunk of entry data, moving to the next entry as required.
+     *
+     * @param outputStream  The stream to write the compressed data to.
+     * @return              True if there is more data to be compressed.
+     * @throws IOException  If an I/O error occurs.
+     */
+    @Override
+    protected boolean produce(OutputStream outputStream) throws IOException {
+        if (compressor == null) {
+            compressor = new ZipOutputStream(outputStream);
+            compressor.setLevel(level);
+        }
+
+        if (entryData == null) {
+            if (entries.hasNext()) {
+                ZipEntryWithData entry = entries.next();
+                entryCount++;
+                if (entry != null) {
+                    String name = entry.getName();
+                    if (name == null) name = "Untitled " + entryCount;
+                    compressor.putNextEntry(new ZipEntry(name));
+                    entryData = InputStreamHelper.normalize(entry.getInputStream());
+                    if (entryData == null) compressor.closeEntry();
+                }
+                return true;
+            } else {
+                // closing the compressor writes the central directory and releases the deflater
+                compressor.close();
+                return false;
+            }
+        }
+
+        int count = entryData.read(chunk);
+        if (count < 0) {
+            entryData.close();
+            entryData = null;
+            compressor.closeEntry();
+        } else {
+            compressor.write(chunk, 0, count);
+        }
+
+        return true;
+    }
+
+    /**
+     * Closes this stream and the data stream of the entry currently being compressed.
+     *
+     * @throws IOException If an I/O error occurs.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            CloseableHelper.close(compressor, entryData);
+        } finally {
+            super.close();
+        }
+    }
+}
@@ -106,6 +106,15 @@ public class ZipEntryWithData extends ZipEntry implements IDataCodable {
         return data;
     }
 
+    /**
+     * Returns the data associated with this content as a stream.
+     *
+     * @return The data associated with this content as a stream.
+     */
+    public InputStream getInputStream() {
+        return InputStreamHelper.normalize(getData());
+    }
+
     /**
      * Returns an IData representation of this object.
      *
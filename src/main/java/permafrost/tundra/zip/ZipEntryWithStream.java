@@ -0,0 +1,137 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2026 Lachlan Dowding
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package permafrost.tundra.zip;
+
+import com.wm.data.IData;
+import permafrost.tundra.data.IDataMap;
+import permafrost.tundra.io.CloseableHelper;
+import permafrost.tundra.lang.BytesHelper;
+import permafrost.tundra.lang.ObjectConvertMode;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+/**
+ * A zip entry whose data is provided by a stream which is read at most once, rather than held in memory, so that
+ * large entries can be compressed or decompressed without being buffered in full.
+ */
+public class ZipEntryWithStream extends ZipEntryWithData implements Closeable {
+    /**
+     * The stream providing the data associated with this content, or null if it has been consumed.
+     */
+    protected InputStream stream;
+
+    /**
+     * Constructs a new ZipEntryWithStream object.
+     *
+     * @param name      The name associated with the content.
+     * @param stream    The stream providing the data associated with the content.
+     */
+    public ZipEntryWithStream(String name, InputStream stream) {
+        this(name, stream, -1);
+    }
+
+    /**
+     * Constructs a new ZipEntryWithStream object.
+     *
+     * @param name      The name associated with the content.
+     * @param stream    The stream providing the data associated with the content.
+     * @param size      The uncompressed size of the data in bytes, or -1 if unknown.
+     */
+    public ZipEntryWithStream(String name, InputStream stream, long size) {
+        super(name, (byte[])null);
+        this.stream = stream;
+        if (size >= 0) setSize(size);
+    }
+
+    /**
+     * Returns the data associated with this content, reading the stream into memory if it has not already been
+     * consumed.
+     *
+     * @return The data associated with this content.
+     */
+    @Override
+    public synchronized byte[] getData() {
+        if (data == null && stream != null) {
+            try {
+                data = BytesHelper.normalize(stream);
+            } catch(IOException ex) {
+                throw new RuntimeException(ex);
+            } finally {
+                close();
+            }
+        }
+        return data;
+    }
+
+    /**
+     * Returns the stream providing the data associated with this content. The stream can only be returned once, and
+     * the caller is responsible for closing it.
+     *
+     * @return The stream providing the data associated with this content.
+     */
+    @Override
+    public synchronized InputStream getInputStream() {
+        if (data != null) return super.getInputStream();
+
+        InputStream inputStream = stream;
+        stream = null;
+        return inputStream;
+    }
+
+    /**
+     * Returns an IData representation of this object. When mode is STREAM, the stream is returned as the content
+     * without being read into memory.
+     *
+     * @param charset The character set to use when mode is STRING.
+     * @param mode    Determines the type of object the data is returned as.
+     * @return An IData representation of this object.
+     */
+    @Override
+    public IData getIData(Charset charset, ObjectConvertMode mode) {
+        if (mode == null) mode = ObjectConvertMode.STREAM;
+
+        synchronized(this) {
+            if (mode != ObjectConvertMode.STREAM || data != null || stream == null) return super.getIData(charset, mode);
+        }
+
+        IDataMap map = new IDataMap();
+        map.put("name", getName());
+        map.put("content", getInputStream());
+        if (getSize() >= 0) map.put("length", getSize());
+
+        return map;
+    }
+
+    /**
+     * Closes the stream providing the data associated with this content, if it has not already been consumed.
+     */
+    @Override
+    public synchronized void close() {
+        CloseableHelper.close(stream);
+        stream = null;
+    }
+}
@@ -27,17 +27,20 @@ package permafrost.tundra.zip;
 import permafrost.tundra.io.CloseableHelper;
 import permafrost.tundra.io.InputOutputHelper;
 import permafrost.tundra.io.InputStreamHelper;
+import permafrost.tundra.io.SpillingOutputStream;
 import permafrost.tundra.lang.BytesHelper;
-import permafrost.tundra.lang.ObjectConvertMode;
-import permafrost.tundra.lang.ObjectHelper;
+import permafrost.tundra.lang.CloseableIterator;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
-import java.util.zip.ZipOutputStream;
 
 /**
  * A collection of convenience methods for working with ZIP compression.
@@ -56,34 +59,65 @@ public final class ZipHelper {
      * @throws IOException If an I/O exception occurs reading from the streams.
      */
     public static InputStream compress(ZipEntryWithData... contents) throws IOException {
+        return compress(contents, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Compresses the given contents into a zip archive. The archive is produced on demand as the returned stream is
+     * read, and the data of each entry is only read when the archive reaches that entry.
+     *
+     * @param contents The contents to be compressed.
+     * @param level    The compression level to use, from 0 to 9, or -1 for the default level.
+     * @return The zip archive containing the compressed contents.
+     * @throws IOException If an I/O exception occurs reading from the streams.
+     */
+    public static InputStream compress(ZipEntryWithData[] contents, int level) throws IOException {
         if (contents == null) return null;
+        return compress(Arrays.asList(contents).iterator(), level);
+    }
 
-        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-        ZipOutputStream zipOutputStream = null;
+    /**
+     * Compresses the given contents into a zip archive. The archive is produced on demand as the returned stream is
+     * read, and each entry is only requested from the given iterator when the archive reaches that entry.
+     *
+     * @param contents The contents to be compressed.
+     * @param level    The compression level to use, from 0 to 9, or -1 for the default level.
+     * @return The zip archive containing the compressed contents.
+     * @throws IOException If an I/O exception occurs reading from the streams.
+     */
+    public static InputStream compress(Iterator<? extends ZipEntryWithData> contents, int level) throws IOException {
+        if (contents == null) return null;
+        return new ZipCompressingInputStream(contents, level);
+    }
 
-        try {
-            zipOutputStream = new ZipOutputStream(byteArrayOutputStream);
-
-            for (int i = 0; i < contents.length; i++) {
-                if (contents[i] != null) {
-                    String name = contents[i].getName();
-                    if (name == null) name = "Untitled " + (i + 1);
-                    InputStream inputStream = InputStreamHelper.normalize(contents[i].getData());
-
-                    try {
-                        zipOutputStream.putNextEntry(new ZipEntry(name));
-                        InputOutputHelper.copy(inputStream, zipOutputStream, false);
-                    } finally {
-                        CloseableHelper.close(inputStream);
-                    }
-                }
-            }
-        } finally {
-            if (zipOutputStream != null) zipOutputStream.closeEntry();
-            CloseableHelper.close(zipOutputStream);
-        }
+    /**
+     * Returns an iterator over the entries in the given zip archive, which decompresses each entry as it is
+     * requested. Entries are buffered in memory up to the default threshold, and spilled to temporary files beyond
+     * it.
+     *
+     * @param inputStream The zip archive to decompress.
+     * @return An iterator over the decompressed entries of the zip archive.
+     * @throws IOException If an I/O problem occurs while reading from the stream.
+     */
+    public static CloseableIterator<ZipEntryWithStream> iterate(InputStream inputStream) throws IOException {
+        return iterate(inputStream, SpillingOutputStream.DEFAULT_THRESHOLD);
+    }
 
-        return (InputStream)ObjectHelper.convert(byteArrayOutputStream.toByteArray(), ObjectConvertMode.STREAM);
+    /**
+     * Returns an iterator over the entries in the given zip archive, which decompresses each entry as it is
+     * requested. Each entry is buffered so that it remains readable after the iterator advances: in memory if its
+     * decompressed size is within the given threshold, otherwise in a temporary file which is deleted when the entry
+     * stream is closed. Callers should therefore close every returned entry. The given stream is closed when the
+     * iterator is exhausted or closed.
+     *
+     * @param inputStream The zip archive to decompress.
+     * @param threshold   The number of bytes of each entry held in memory before spilling to a temporary file.
+     * @return An iterator over the decompressed entries of the zip archive.
+     * @throws IOException If an I/O problem occurs while reading from the stream.
+     */
+    public static CloseableIterator<ZipEntryWithStream> iterate(InputStream inputStream, int threshold) throws IOException {
+        if (inputStream == null) return null;
+        return new ZipEntryIterator(new ZipInputStream(InputStreamHelper.normalize(inputStream)), threshold);
     }
 
     /**
@@ -143,4 +177,104 @@ public final class ZipHelper {
     public static ZipEntryWithData[] decompress(String base64) throws IOException {
         return decompress(BytesHelper.base64Decode(base64));
     }
+
+    /**
+     * Iterates over the entries of a zip archive, decompressing each entry as it is requested.
+     */
+    private static class ZipEntryIterator implements CloseableIterator<ZipEntryWithStream> {
+        /**
+         * The zip archive being read.
+         */
+        private final ZipInputStream zipInputStream;
+        /**
+         * The number of bytes of each entry held in memory before spilling to a temporary file.
+         */
+        private final int threshold;
+        /**
+         * The next entry in the archive, if it has been read.
+         */
+        private ZipEntry nextEntry;
+        /**
+         * Whether this iterator has been closed.
+         */
+        private boolean closed;
+
+        /**
+         * Constructs a new ZipEntryIterator.
+         *
+         * @param zipInputStream    The zip archive to be read.
+         * @param threshold         The number of bytes of each entry held in memory before spilling to a temporary
+         *                          file.
+         */
+        ZipEntryIterator(ZipInputStream zipInputStream, int threshold) {
+            this.zipInputStream = zipInputStream;
+            this.threshold = threshold;
+        }
+
+        /**
+         * Returns true if there are more entries in the archive.
+         *
+         * @return True if there are more entries in the archive.
+         */
+        @Override
+        public boolean hasNext() {
+            if (nextEntry == null && !closed) {
+                try {
+                    nextEntry = zipInputStream.getNextEntry();
+                } catch(IOException ex) {
+                    close();
+                    throw new RuntimeException(ex);
+                }
+                if (nextEntry == null) close();
+            }
+            return nextEntry != null;
+        }
+
+        /**
+         * Returns the next entry in the archive, decompressing its data to memory or a temporary file.
+         *
+         * @return The next entry in the archive.
+         * @throws NoSuchElementException If there are no more entries.
+         */
+        @Override
+        public ZipEntryWithStream next() {
+            if (!hasNext()) throw new NoSuchElementException();
+
+            ZipEntry entry = nextEntry;
+            nextEntry = null;
+
+            SpillingOutputStream outputStream = new SpillingOutputStream(threshold);
+            try {
+                InputOutputHelper.copy(zipInputStream, outputStream, false);
+                ZipEntryWithStream output = new ZipEntryWithStream(entry.getName(), outputStream.getInputStream(), outputStream.size());
+                if (entry.getTime() != -1) output.setTime(entry.getTime());
+                return output;
+            } catch(IOException ex) {
+                CloseableHelper.close(outputStream);
+                close();
+                throw new RuntimeException(ex);
+            }
+        }
+
+        /**
+         * Removing entries is not supported.
+         *
+         * @throws UnsupportedOperationException This method is not implemented by this class.
+         */
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("remove method is not supported");
+        }
+
+        /**
+         * Closes the underlying zip archive stream.
+         */
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                CloseableHelper.close(zipInputStream);
+            }
+        }
+    }
 }
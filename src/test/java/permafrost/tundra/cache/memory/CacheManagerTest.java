@@ -0,0 +1,166 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2026 Lachlan Dowding
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package permafrost.tundra.cache.memory;
+
+import org.junit.After;
+import org.junit.Test;
+import javax.xml.datatype.DatatypeFactory;
+import javax.xml.datatype.Duration;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CacheManagerTest {
+    private final CacheManager<String, Object> manager = new CacheManager<String, Object>();
+
+    @After
+    public void tearDown() {
+        manager.clear();
+    }
+
+    @Test
+    public void testConcurrentMissesInvokeLoaderOnce() throws Exception {
+        final AtomicInteger invocations = new AtomicInteger();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        final Callable<Object> loader = new Callable<Object>() {
+            public Object call() throws Exception {
+                invocations.incrementAndGet();
+                started.countDown();
+                release.await(10, TimeUnit.SECONDS);
+                return "loaded";
+            }
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<CacheManager.ExpiringValue<Object>>> results = new ArrayList<Future<CacheManager.ExpiringValue<Object>>>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(new Callable<CacheManager.ExpiringValue<Object>>() {
+                    public CacheManager.ExpiringValue<Object> call() throws Exception {
+                        return manager.get("test", "key", loader, null, null);
+                    }
+                }));
+            }
+
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            // give the other threads time to miss and join the in-flight load
+            Thread.sleep(100);
+            release.countDown();
+
+            for (Future<CacheManager.ExpiringValue<Object>> result : results) {
+                assertEquals("loaded", result.get(10, TimeUnit.SECONDS).getValue());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, invocations.get());
+    }
+
+    @Test
+    public void testLoaderFailureIsNotCached() throws Exception {
+        Callable<Object> failing = new Callable<Object>() {
+            public Object call() throws Exception {
+                throw new IllegalArgumentException("failed");
+            }
+        };
+
+        try {
+            manager.get("test", "key", failing, null, null);
+            fail("expected ExecutionException");
+        } catch(ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof IllegalArgumentException);
+        }
+
+        assertNull(manager.get("test", "key"));
+    }
+
+    @Test
+    public void testRecursiveLoadFailsFast() throws Exception {
+        Callable<Object> recursive = new Callable<Object>() {
+            public Object call() throws Exception {
+                return manager.get("test", "key", this, null, null).getValue();
+            }
+        };
+
+        try {
+            manager.get("test", "key", recursive, null, null);
+            fail("expected ExecutionException");
+        } catch(ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    @Test
+    public void testRefreshAheadServesStaleValueAndReplacesIt() throws Exception {
+        final AtomicInteger invocations = new AtomicInteger();
+        Callable<Object> loader = new Callable<Object>() {
+            public Object call() throws Exception {
+                return invocations.incrementAndGet();
+            }
+        };
+        Duration refresh = DatatypeFactory.newInstance().newDuration(1);
+
+        assertEquals(1, manager.get("test", "key", loader, null, refresh).getValue());
+        Thread.sleep(10);
+        assertEquals(1, manager.get("test", "key", loader, null, refresh).getValue());
+
+        long deadline = System.currentTimeMillis() + 10000;
+        while (invocations.get() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        manager.shutdown();
+
+        assertEquals(2, manager.get("test", "key").getValue());
+    }
+
+    @Test
+    public void testAccessSweepsOtherCachesPeriodically() throws Exception {
+        Calendar expiry = Calendar.getInstance();
+        expiry.add(Calendar.MILLISECOND, 10);
+        manager.put("expiring", "key", "value", expiry, false);
+        assertEquals(1, manager.caches.get("expiring").size());
+
+        // wait until the value's expiry index bucket has passed and the periodic sweep is due again
+        Thread.sleep(2 * Cache.EXPIRY_INDEX_RESOLUTION_MILLISECONDS + 100);
+        manager.get("other", "key");
+
+        assertEquals(0, manager.caches.get("expiring").size());
+    }
+}
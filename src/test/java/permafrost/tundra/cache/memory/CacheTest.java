@@ -0,0 +1,113 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2026 Lachlan Dowding
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package permafrost.tundra.cache.memory;
+
+import org.junit.Test;
+import java.util.Calendar;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CacheTest {
+    private static CacheManager.ExpiringValue<Object> value(Object value) {
+        return new CacheManager.ExpiringValue<Object>(value);
+    }
+
+    private static CacheManager.ExpiringValue<Object> value(Object value, long expiresIn) {
+        Calendar expiry = Calendar.getInstance();
+        expiry.setTimeInMillis(System.currentTimeMillis() + expiresIn);
+        return new CacheManager.ExpiringValue<Object>(value, expiry);
+    }
+
+    @Test
+    public void testEntryBoundEvictsLeastRecentlyUsed() {
+        Cache<String, Object> cache = new Cache<String, Object>("test", 2, 0);
+        cache.put("a", value("1"));
+        cache.put("b", value("2"));
+        assertNotNull(cache.get("a"));
+        cache.put("c", value("3"));
+
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+    }
+
+    @Test
+    public void testByteBoundEvictsUntilWithinBound() {
+        Cache<String, Object> cache = new Cache<String, Object>("test", 0, 200);
+        cache.put("a", value("0123456789012345678901234567890123456789"));
+        cache.put("b", value("0123456789012345678901234567890123456789"));
+
+        assertEquals(1, cache.size());
+        assertNull(cache.get("a"));
+        assertNotNull(cache.get("b"));
+        assertTrue(cache.getEstimatedBytes() > 0);
+        assertTrue(cache.getEstimatedBytes() <= 200);
+    }
+
+    @Test
+    public void testValuesOnlyWeighedWhenByteBounded() {
+        Cache<String, Object> cache = new Cache<String, Object>("test");
+        cache.put("a", value("0123456789"));
+        assertEquals(0, cache.getEstimatedBytes());
+
+        cache.setBounds(0, 1024 * 1024);
+        long weighed = cache.getEstimatedBytes();
+        assertTrue(weighed > 0);
+
+        cache.remove("a");
+        assertEquals(0, cache.getEstimatedBytes());
+    }
+
+    @Test
+    public void testExpiredValueIsNotReturned() {
+        Cache<String, Object> cache = new Cache<String, Object>("test");
+        cache.put("a", value("1", -1000));
+        cache.put("b", value("2", 60000));
+
+        assertNull(cache.get("a"));
+        assertNotNull(cache.get("b"));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testExpireRemovesOnlyExpiredEntries() {
+        Cache<String, Object> cache = new Cache<String, Object>("test");
+        cache.put("a", value("1", -2000));
+        cache.put("b", value("2", -2000));
+        cache.put("c", value("3", 60000));
+        cache.put("d", value("4"));
+
+        cache.expire();
+
+        assertEquals(2, cache.size());
+        assertNull(cache.peek("a"));
+        assertNull(cache.peek("b"));
+        assertNotNull(cache.peek("c"));
+        assertNotNull(cache.peek("d"));
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2026 Lachlan Dowding
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package permafrost.tundra.cache.memory;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class MappedCacheStoreTest {
+    private static final int CAPACITY = 4096;
+    private File file;
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("tundra-cache-store", ".dat");
+        file.delete();
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+        new File(file.getPath() + MappedCacheStore.COMPACTION_JOURNAL_SUFFIX).delete();
+    }
+
+    private static void fill(MappedCacheStore<Object> store) throws IOException {
+        // repeatedly overwriting the same keys supersedes earlier records, so the store must compact to keep going
+        for (int i = 0; i < 200; i++) {
+            assertTrue(store.put("key" + (i % 4), new CacheManager.ExpiringValue<Object>("value" + i)));
+        }
+        store.remove("key3");
+    }
+
+    private static void verify(MappedCacheStore<Object> store) throws IOException {
+        assertEquals(3, store.size());
+        assertEquals("value196", store.get("key0").getValue());
+        assertEquals("value197", store.get("key1").getValue());
+        assertEquals("value198", store.get("key2").getValue());
+        assertNull(store.get("key3"));
+    }
+
+    @Test
+    public void testPutCompactReopen() throws Exception {
+        MappedCacheStore<Object> store = new MappedCacheStore<Object>(file, CAPACITY);
+        try {
+            fill(store);
+            assertTrue(store.getUsed() < CAPACITY);
+            verify(store);
+        } finally {
+            store.close();
+        }
+
+        store = new MappedCacheStore<Object>(file, CAPACITY);
+        try {
+            verify(store);
+        } finally {
+            store.close();
+        }
+    }
+
+    @Test
+    public void testInterruptedCompactionIsRecoveredOnReopen() throws Exception {
+        MappedCacheStore<Object> store = new MappedCacheStore<Object>(file, CAPACITY);
+        try {
+            fill(store);
+        } finally {
+            store.close();
+        }
+
+        store = new MappedCacheStore<Object>(file, CAPACITY) {
+            @Override
+            protected void writeCompactionJournal(File journal, List<Integer> offsets, int length, byte[] chunk) throws IOException {
+                super.writeCompactionJournal(journal, offsets, length, chunk);
+                throw new IllegalStateException("simulated crash after the journal was written");
+            }
+        };
+        try {
+            store.compact();
+            fail("expected simulated crash");
+        } catch(IllegalStateException ex) {
+            // expected
+        } finally {
+            store.close();
+        }
+
+        File journal = new File(file.getPath() + MappedCacheStore.COMPACTION_JOURNAL_SUFFIX);
+        assertTrue(journal.exists());
+
+        store = new MappedCacheStore<Object>(file, CAPACITY);
+        try {
+            assertFalse(journal.exists());
+            verify(store);
+        } finally {
+            store.close();
+        }
+    }
+
+    @Test
+    public void testIncompleteJournalIsDiscarded() throws Exception {
+        MappedCacheStore<Object> store = new MappedCacheStore<Object>(file, CAPACITY);
+        try {
+            fill(store);
+        } finally {
+            store.close();
+        }
+
+        File journal = new File(file.getPath() + MappedCacheStore.COMPACTION_JOURNAL_SUFFIX);
+        assertTrue(journal.createNewFile());
+
+        store = new MappedCacheStore<Object>(file, CAPACITY);
+        try {
+            assertFalse(journal.exists());
+            verify(store);
+        } finally {
+            store.close();
+        }
+    }
+}
@@ -73,4 +73,45 @@ public class CopyOnWriteIDataMapTest {
         assertEquals(1, IDataHelper.size(child));
         assertEquals(6, IDataHelper.size(copyOnWrite));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testCloneAfterWriteSharesNestedDocuments() throws Exception {
+        IDataMap grandchild = new IDataMap();
+        grandchild.put("e", "5");
+
+        IDataMap child = new IDataMap();
+        child.put("c", "3");
+        child.put("grandchild", grandchild);
+
+        IDataMap document = new IDataMap();
+        document.put("a", "1");
+        document.put("child", child);
+        document.put("other", new IDataMap());
+
+        CopyOnWriteIDataMap copyOnWrite = CopyOnWriteIDataMap.of((IData)document);
+        copyOnWrite.put("a", "2");
+
+        CopyOnWriteIDataMap clone = (CopyOnWriteIDataMap)copyOnWrite.clone();
+        PersistentIData.Node root = ((PersistentIData)copyOnWrite.document).root;
+        assertSame("untouched documents are shared by the clone", root, ((PersistentIData)clone.document).root);
+
+        ((IDataMap)copyOnWrite.get("child")).put("c", "4");
+
+        clone = (CopyOnWriteIDataMap)copyOnWrite.clone();
+        PersistentIData.Node cloneRoot = ((PersistentIData)clone.document).root;
+        root = ((PersistentIData)copyOnWrite.document).root;
+        assertSame("untouched nested documents are shared by the clone", root.values[2], cloneRoot.values[2]);
+
+        PersistentIData.Node childRoot = ((PersistentIData)((CopyOnWriteIDataMap)root.values[1]).document).root;
+        PersistentIData.Node cloneChildRoot = ((PersistentIData)((CopyOnWriteIDataMap)cloneRoot.values[1]).document).root;
+        assertSame("written nested documents are shared by the clone until written again", childRoot, cloneChildRoot);
+
+        ((IDataMap)clone.get("child")).put("c", "5");
+
+        assertEquals("4", ((IDataMap)copyOnWrite.get("child")).get("c"));
+        assertEquals("5", ((IDataMap)clone.get("child")).get("c"));
+        assertEquals("3", child.get("c"));
+        assertEquals("2", clone.get("a"));
+        assertEquals("1", document.get("a"));
+    }
+}
@@ -30,8 +30,14 @@ import com.wm.data.IDataFactory;
 import com.wm.data.IDataUtil;
 import org.junit.Test;
 import permafrost.tundra.lang.StringHelper;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Iterator;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 public class IDataCSVParserTest {
@@ -164,4 +170,53 @@ public class IDataCSVParserTest {
         assertEquals("bill@example.org", IDataUtil.getString(cursor, "email"));
         cursor.destroy();
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testIterate() throws Exception {
+        String content = "name,email\nJohn,john@example.org\nJean,jean@example.org\nBill,bill@example.org\n";
+
+        Iterator<IData> records = new IDataCSVParser().iterate(new ByteArrayInputStream(content.getBytes("UTF-8")), Charset.forName("UTF-8"));
+
+        assertTrue(records.hasNext());
+        assertEquals("John", IDataHelper.get(records.next(), "name"));
+        assertEquals("jean@example.org", IDataHelper.get(records.next(), "email"));
+        assertEquals("Bill", IDataHelper.get(records.next(), "name"));
+        assertFalse(records.hasNext());
+    }
+
+    @Test
+    public void testIterateWithBatchSize() throws Exception {
+        String content = "name\nJohn\nJean\nBill\n";
+
+        Iterator<IData[]> batches = new IDataCSVParser().iterate(new ByteArrayInputStream(content.getBytes("UTF-8")), Charset.forName("UTF-8"), 2);
+
+        assertEquals(2, batches.next().length);
+        IData[] last = batches.next();
+        assertEquals(1, last.length);
+        assertEquals("Bill", IDataHelper.get(last[0], "name"));
+        assertFalse(batches.hasNext());
+    }
+
+    @Test
+    public void testEmitIterator() throws Exception {
+        String expected = "name,email\nJohn,john@example.org\nJean,jean@example.org\n";
+
+        IData[] records = new IData[2];
+        records[0] = IDataFactory.create();
+        IDataCursor cursor = records[0].getCursor();
+        IDataUtil.put(cursor, "name", "John");
+        IDataUtil.put(cursor, "email", "john@example.org");
+        cursor.destroy();
+
+        records[1] = IDataFactory.create();
+        cursor = records[1].getCursor();
+        IDataUtil.put(cursor, "email", "jean@example.org");
+        IDataUtil.put(cursor, "name", "Jean");
+        cursor.destroy();
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        new IDataCSVParser().emit(outputStream, Arrays.asList(records).iterator(), Charset.forName("UTF-8"));
+
+        assertArrayEquals(StringHelper.lines(expected), StringHelper.lines(outputStream.toString("UTF-8")));
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2026 Lachlan Dowding
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package permafrost.tundra.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import com.wm.data.IData;
+import org.junit.Test;
+import permafrost.tundra.lang.CloseableIterator;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+public class IDataExcelParserTest {
+
+    private static byte[] emit(IDataExcelParser parser, Object rows) throws Exception {
+        IDataMap document = new IDataMap();
+        document.put("Sheet1", rows);
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        parser.emit(outputStream, document, null);
+        return outputStream.toByteArray();
+    }
+
+    private static IData row(Object... values) {
+        IDataMap row = new IDataMap();
+        for (int i = 0; i < values.length; i++) {
+            row.put(IDataExcelParser.getKey(i), values[i]);
+        }
+        return row;
+    }
+
+    @Test
+    public void testStreamingRoundTrip() throws Exception {
+        List<IData> rows = new ArrayList<IData>();
+        for (int i = 0; i < 250; i++) {
+            rows.add(row("row" + i, i, i % 2 == 0));
+        }
+
+        byte[] content = emit(new IDataExcelParser(true, 10), rows.iterator());
+
+        IDataMap document = IDataMap.of(new IDataExcelParser(true, 10).parse(new ByteArrayInputStream(content), null));
+        IData[] sheet = (IData[])document.get("Sheet1");
+
+        assertEquals(250, sheet.length);
+        assertEquals("row249", IDataMap.of(sheet[249]).get("A"));
+        assertEquals(249.0, IDataMap.of(sheet[249]).get("B"));
+        assertEquals(Boolean.FALSE, IDataMap.of(sheet[249]).get("C"));
+    }
+
+    @Test
+    public void testStreamingParseMatchesWorkbookParse() throws Exception {
+        byte[] content = emit(new IDataExcelParser(), new IData[] { row("a", "1.5", "true"), null, row("b", null, "2020-01-02") });
+
+        IData[] expected = (IData[])IDataMap.of(new IDataExcelParser().parse(new ByteArrayInputStream(content), null)).get("Sheet1");
+        IData[] actual = (IData[])IDataMap.of(new IDataExcelParser(true, 10).parse(new ByteArrayInputStream(content), null)).get("Sheet1");
+
+        assertEquals(expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(IDataMap.of(expected[i]), IDataMap.of(actual[i]));
+        }
+    }
+
+    @Test
+    public void testIterate() throws Exception {
+        byte[] content = emit(new IDataExcelParser(true, 10), new IData[] { row("a"), null, row("b", "c") });
+
+        CloseableIterator<IData> iterator = new IDataExcelParser().iterate(new ByteArrayInputStream(content), null, "Sheet1");
+
+        assertTrue(iterator.hasNext());
+        assertEquals("a", IDataMap.of(iterator.next()).get("A"));
+        assertEquals(0, IDataHelper.size(iterator.next()));
+        IDataMap last = IDataMap.of(iterator.next());
+        assertEquals("b", last.get("A"));
+        assertEquals("c", last.get("B"));
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void testIterateMissingSheet() throws Exception {
+        byte[] content = emit(new IDataExcelParser(), new IData[] { row("a") });
+        assertNull(new IDataExcelParser().iterate(new ByteArrayInputStream(content), null, "Sheet2"));
+    }
+}
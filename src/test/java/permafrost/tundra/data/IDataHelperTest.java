@@ -11,6 +11,7 @@ import permafrost.tundra.lang.Sanitization;
 import permafrost.tundra.server.SystemHelper;
 import permafrost.tundra.xml.dom.DocumentHelper;
 import permafrost.tundra.xml.sax.InputSourceHelper;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.regex.Pattern;
@@ -765,6 +766,36 @@ public class IDataHelperTest {
         assertEquals("99", third.get("integer"));
     }
 
+    @Test
+    public void testSortInParallelWithUnparseableIntegers() throws Exception {
+        IData[] array = new IData[20000];
+        for (int i = 0; i < array.length; i++) {
+            IDataMap document = new IDataMap();
+            document.put("integer", i % 10 == 0 ? "not a number" : Integer.toString(array.length - i));
+            document.put("index", i);
+            array[i] = document;
+        }
+
+        IData[] result = IDataHelper.sort(array, 4, new IDataComparisonCriterion("integer", "integer", false));
+
+        assertEquals(array.length, result.length);
+        assertEquals("1", new IDataMap(result[0]).get("integer"));
+
+        int previousIndex = -1;
+        for (int i = 0; i < result.length; i++) {
+            IDataMap document = new IDataMap(result[i]);
+            if (i < result.length - (array.length / 10)) {
+                assertFalse("not a number".equals(document.get("integer")));
+            } else {
+                // unparseable values sort last, and the sort is stable
+                assertEquals("not a number", document.get("integer"));
+                int index = (Integer)document.get("index");
+                assertTrue(index > previousIndex);
+                previousIndex = index;
+            }
+        }
+    }
+
     @Test
     public void testSortWithMultipleStringKeysAscending() throws Exception {
         IData[] array = new IData[6];
@@ -1624,6 +1655,48 @@ public class IDataHelperTest {
         assertEquals(3, groups.size());
     }
 
+    @Test
+    public void testGroupDecimalsWithDifferentScale() throws Exception {
+        IDataJSONParser parser = new IDataJSONParser();
+        IData[] array = new IData[3];
+        array[0] = parser.parse("{ \"a\": \"1.00\" }");
+        array[1] = parser.parse("{ \"a\": \"0.5\" }");
+        array[2] = parser.parse("{ \"a\": \"1.0\" }");
+
+        IDataComparisonCriterion[] criteria = new IDataComparisonCriterion[1];
+        criteria[0] = new IDataComparisonCriterion("a", "decimal");
+
+        Map<IDataHelper.CompoundKey, List<IData>> groups = IDataHelper.group(array, criteria, IDataHelper.IDataArrayGroupSortType.ASCENDING);
+
+        assertEquals(2, groups.size());
+        List<List<IData>> items = new ArrayList<List<IData>>(groups.values());
+        assertEquals(1, items.get(0).size());
+        assertEquals(2, items.get(1).size());
+    }
+
+    @Test
+    public void testGroupInParallelNoSort() throws Exception {
+        IData[] array = new IData[20000];
+        for (int i = 0; i < array.length; i++) {
+            IDataMap document = new IDataMap();
+            document.put("a", "rec" + ((array.length - i) % 100));
+            array[i] = document;
+        }
+
+        IDataComparisonCriterion[] criteria = new IDataComparisonCriterion[1];
+        criteria[0] = new IDataComparisonCriterion("a");
+
+        Map<IDataHelper.CompoundKey, List<IData>> groups = IDataHelper.group(array, criteria, IDataHelper.IDataArrayGroupSortType.NONE, 4);
+
+        assertEquals(100, groups.size());
+        int i = 0;
+        for (Map.Entry<IDataHelper.CompoundKey, List<IData>> entry : groups.entrySet()) {
+            // groups are returned in the order they first occur
+            assertEquals(new IDataMap(array[i++]).get("a"), new IDataMap(entry.getKey().getDocument()).get("a"));
+            assertEquals(200, entry.getValue().size());
+        }
+    }
+
     @Test
     public void testExistsWithIData() throws Exception {
         String[] keys = { "a", "b", "c" };
@@ -1763,4 +1836,25 @@ public class IDataHelperTest {
             assertTrue("key `" + key + "` exists in document", exists);
         }
     }
+
+    @Test
+    public void testPivotOnMultipleKeysCreatesIndexedLevels() throws Exception {
+        IData[] array = new IData[3];
+        String[][] values = { { "a", "x", "1" }, { "a", "y", "2" }, { "a", "x", "3" } };
+        for (int i = 0; i < array.length; i++) {
+            array[i] = IDataFactory.create();
+            IDataCursor cursor = array[i].getCursor();
+            IDataUtil.put(cursor, "first", values[i][0]);
+            IDataUtil.put(cursor, "second", values[i][1]);
+            IDataUtil.put(cursor, "value", values[i][2]);
+            cursor.destroy();
+        }
+
+        IData pivot = IDataHelper.pivot(array, "/", "first", "second");
+
+        assertTrue(pivot instanceof IndexedIData);
+        assertTrue(IDataHelper.get(pivot, "a") instanceof IndexedIData);
+        assertEquals("1", IDataHelper.get(pivot, "a/x/value"));
+        assertEquals("2", IDataHelper.get(pivot, "a/y/value"));
+    }
 }
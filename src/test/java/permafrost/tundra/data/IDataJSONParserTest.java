@@ -28,8 +28,16 @@ import com.wm.data.IData;
 import com.wm.data.IDataCursor;
 import com.wm.data.IDataUtil;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import org.junit.Test;
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import javax.json.JsonNumber;
+import javax.json.JsonString;
 
 public class IDataJSONParserTest {
 
@@ -63,4 +71,77 @@ public class IDataJSONParserTest {
         assertEquals("789", IDataUtil.getString(cursor, "ghi"));
         cursor.destroy();
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testEncodeToStringWithoutLeadingWhitespace() throws Exception {
+        IDataMap document = new IDataMap();
+        document.put("abc", "123");
+
+        String json = new IDataJSONParser().emit(document, String.class);
+
+        assertTrue(json.startsWith("{"));
+        assertTrue(json.endsWith("}"));
+    }
+
+    @Test
+    public void testDecodeNestedFromString() throws Exception {
+        String json = "{ \"abc\": { \"def\": [1, 2.5, true, null, \"x\"] } }";
+
+        IData document = new IDataJSONParser().parse(json);
+        IData child = (IData)IDataHelper.get(document, "abc");
+        Object[] array = (Object[])IDataHelper.get(child, "def");
+        assertEquals(5, array.length);
+        assertEquals(1L, array[0]);
+        assertEquals(2.5, array[1]);
+        assertEquals(Boolean.TRUE, array[2]);
+        assertNull(array[3]);
+        assertEquals("x", array[4]);
+    }
+
+    @Test
+    public void testIterateWithPath() throws Exception {
+        String json = "{ \"meta\": { \"items\": [0] }, \"data\": { \"count\": 2, \"items\": [{ \"id\": 1 }, { \"id\": 2 }] } }";
+
+        Iterator<Object> iterator = new IDataJSONParser().iterate(new ByteArrayInputStream(json.getBytes("UTF-8")), Charset.forName("UTF-8"), "data/items");
+
+        assertTrue(iterator.hasNext());
+        assertEquals(1L, IDataHelper.get((IData)iterator.next(), "id"));
+        assertEquals(2L, IDataHelper.get((IData)iterator.next(), "id"));
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void testIterateWithMissingPath() throws Exception {
+        String json = "{ \"data\": { \"count\": 2 } }";
+
+        Iterator<Object> iterator = new IDataJSONParser().iterate(new ByteArrayInputStream(json.getBytes("UTF-8")), Charset.forName("UTF-8"), "data/items");
+
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void testOverriddenConversionHooksAreUsed() throws Exception {
+        IDataJSONParser parser = new IDataJSONParser() {
+            @Override
+            protected Object fromJsonString(JsonString input) {
+                return input.getString().toUpperCase();
+            }
+
+            @Override
+            protected Object fromJsonNumber(JsonNumber input) {
+                return input.bigDecimalValue();
+            }
+        };
+
+        IData document = parser.parse("{ \"abc\": { \"def\": [\"x\", 2.5] } }");
+        Object[] array = (Object[])IDataHelper.get((IData)IDataHelper.get(document, "abc"), "def");
+        assertEquals("X", array[0]);
+        assertEquals(new BigDecimal("2.5"), array[1]);
+
+        String json = "{ \"items\": [\"y\", 3] }";
+        Iterator<Object> iterator = parser.iterate(new ByteArrayInputStream(json.getBytes("UTF-8")), Charset.forName("UTF-8"), "items");
+        assertEquals("Y", iterator.next());
+        assertEquals(new BigDecimal("3"), iterator.next());
+        assertFalse(iterator.hasNext());
+    }
+}
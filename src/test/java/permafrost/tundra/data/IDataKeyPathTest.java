@@ -0,0 +1,75 @@
+package permafrost.tundra.data;
+
+import com.wm.data.IData;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class IDataKeyPathTest {
+    @Test
+    public void testCompileIsInterned() throws Exception {
+        assertSame(IDataKeyPath.compile("a/b[0]/c"), IDataKeyPath.compile("a/b[0]/c"));
+    }
+
+    @Test
+    public void testCompileParts() throws Exception {
+        IDataKeyPath path = IDataKeyPath.compile("a/b[1]/c(2)");
+
+        assertTrue(path.isFullyQualified());
+        assertEquals(3, path.length());
+        assertEquals("a/b[1]/c(2)", path.toKey().toString());
+    }
+
+    @Test
+    public void testCompileLiteral() throws Exception {
+        IDataKeyPath path = IDataKeyPath.compile("a/b[1]", true);
+
+        assertFalse(path.isFullyQualified());
+        assertEquals(1, path.length());
+    }
+
+    @Test
+    public void testPutAndGetDeepPath() throws Exception {
+        IDataKeyPath path = IDataKeyPath.compile("a/b[1]/c");
+        IData document = path.put(null, "1");
+
+        assertEquals("1", path.get(document));
+        assertEquals("1", IDataHelper.get(document, "a/b[1]/c"));
+        assertTrue(path.exists(document));
+        assertEquals(1, path.size(document));
+    }
+
+    @Test
+    public void testGetArrayOfValues() throws Exception {
+        IDataMap first = new IDataMap();
+        first.put("c", "1");
+        IDataMap second = new IDataMap();
+        second.put("c", "2");
+        IDataMap document = new IDataMap();
+        document.put("b", new IData[] { first, second });
+
+        assertEquals(2, IDataKeyPath.compile("b/c").get(document, String[].class).length);
+    }
+
+    @Test
+    public void testGetPrefersLiteralKey() throws Exception {
+        IDataMap document = new IDataMap();
+        document.put("a/b", "1");
+
+        assertEquals("1", IDataKeyPath.compile("a/b").get(document));
+    }
+
+    @Test
+    public void testDrop() throws Exception {
+        IDataKeyPath path = IDataKeyPath.compile("a/b");
+        IData document = path.put(null, "1");
+        path.drop(document);
+
+        assertFalse(path.exists(document));
+        assertNull(path.get(document));
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2026 Lachlan Dowding
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package permafrost.tundra.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import com.wm.app.b2b.server.ServiceException;
+import com.wm.data.IData;
+import org.junit.Test;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+
+public class IDataXMLParserTest {
+
+    @Test
+    public void testParse() throws Exception {
+        String xml = "<?xml version=\"1.0\"?><!-- comment --><a z=\"1\" b=\"2\">text<c>3</c><d e=\"4\">5</d><c><![CDATA[6]]></c></a>";
+
+        IDataMap document = IDataMap.of(new IDataXMLParser().parse(xml));
+        IDataMap root = IDataMap.of((IData)document.get("a"));
+
+        assertEquals("2", root.get("@b"));
+        assertEquals("1", root.get("@z"));
+        assertEquals("text", root.get("*body"));
+
+        IDataMap d = IDataMap.of((IData)root.get("d"));
+        assertEquals("4", d.get("@e"));
+        assertEquals("5", d.get("*body"));
+
+        Object[] c = IDataHelper.getAsArray(root, "c");
+        assertEquals(2, c.length);
+        assertEquals("3", c[0]);
+        assertEquals("6", c[1]);
+    }
+
+    @Test
+    public void testParseDoesNotResolveExternalEntities() throws Exception {
+        File file = File.createTempFile("tundra", ".txt");
+        try {
+            FileOutputStream outputStream = new FileOutputStream(file);
+            try {
+                outputStream.write("secret".getBytes("UTF-8"));
+            } finally {
+                outputStream.close();
+            }
+
+            String xml = "<!DOCTYPE a [<!ENTITY x SYSTEM \"" + file.toURI() + "\">]><a>&x;</a>";
+            try {
+                IDataMap document = IDataMap.of(new IDataXMLParser().parse(xml));
+                assertFalse("secret".equals(document.get("a")));
+            } catch(ServiceException ex) {
+                // an unresolved entity reference is also an acceptable outcome
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testParseLeafRoot() throws Exception {
+        IDataMap document = IDataMap.of(new IDataXMLParser().parse("<a>text</a>"));
+        assertEquals("text", IDataMap.of((IData)document.get("a")).get("*body"));
+    }
+
+    @Test
+    public void testParseIgnoresWhitespaceBetweenChildElements() throws Exception {
+        IDataMap document = IDataMap.of(new IDataXMLParser().parse("<a>\n  <b>1</b>\n</a>"));
+        IDataMap root = IDataMap.of((IData)document.get("a"));
+        assertNull(root.get("*body"));
+        assertEquals("1", root.get("b"));
+    }
+
+    @Test
+    public void testIterate() throws Exception {
+        String xml = "<batch><header>x</header><item id=\"1\"><name>one</name></item><items><item id=\"2\"/></items></batch>";
+
+        Iterator<IData> iterator = new IDataXMLParser().iterate(new ByteArrayInputStream(xml.getBytes("UTF-8")), Charset.forName("UTF-8"), "item");
+
+        assertTrue(iterator.hasNext());
+        IDataMap first = IDataMap.of(iterator.next());
+        assertEquals("1", first.get("@id"));
+        assertEquals("one", first.get("name"));
+        assertTrue(iterator.hasNext());
+        assertEquals("2", IDataMap.of(iterator.next()).get("@id"));
+        assertFalse(iterator.hasNext());
+    }
+}
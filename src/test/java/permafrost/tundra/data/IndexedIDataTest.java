@@ -0,0 +1,206 @@
+package permafrost.tundra.data;
+
+import com.wm.data.IData;
+import com.wm.data.IDataCursor;
+import com.wm.data.IDataFactory;
+import com.wm.data.IDataUtil;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class IndexedIDataTest {
+    @Test
+    public void testPreservesInsertionOrderAndDuplicateKeys() throws Exception {
+        IData document = new IndexedIData();
+        IDataCursor cursor = document.getCursor();
+        cursor.insertAfter("a", "1");
+        cursor.insertAfter("b", "2");
+        cursor.insertAfter("a", "3");
+        cursor.destroy();
+
+        cursor = document.getCursor();
+        assertTrue(cursor.next());
+        assertEquals("a", cursor.getKey());
+        assertEquals("1", cursor.getValue());
+        assertTrue(cursor.next("a"));
+        assertEquals("3", cursor.getValue());
+        assertFalse(cursor.next("a"));
+        assertTrue(cursor.last("a"));
+        assertEquals("3", cursor.getValue());
+        assertTrue(cursor.previous("a"));
+        assertEquals("1", cursor.getValue());
+        cursor.destroy();
+    }
+
+    @Test
+    public void testLookupsInLargeDocument() throws Exception {
+        IData document = new IndexedIData();
+        IDataCursor cursor = document.getCursor();
+        for (int i = 0; i < 10000; i++) {
+            IDataUtil.put(cursor, "key" + i, i);
+        }
+
+        for (int i = 0; i < 10000; i++) {
+            assertEquals(i, IDataUtil.get(cursor, "key" + i));
+        }
+        assertNull(IDataUtil.get(cursor, "missing"));
+        cursor.destroy();
+
+        assertEquals(10000, ((IndexedIData)document).size());
+    }
+
+    @Test
+    public void testLookupsAfterInsertAndDeleteInMiddle() throws Exception {
+        IData document = new IndexedIData();
+        IDataCursor cursor = document.getCursor();
+        for (int i = 0; i < 100; i++) {
+            cursor.insertAfter("key" + i, i);
+        }
+
+        assertTrue(cursor.first("key50"));
+        assertTrue(cursor.delete());
+        assertTrue(cursor.next());
+        assertEquals("key51", cursor.getKey());
+        cursor.insertBefore("key50", "inserted");
+
+        assertTrue(cursor.first("key50"));
+        assertEquals("inserted", cursor.getValue());
+        assertTrue(cursor.first("key99"));
+        assertEquals(99, cursor.getValue());
+        cursor.destroy();
+    }
+
+    @Test
+    public void testLookupsWhileInsertingInMiddleOfLargeDocument() throws Exception {
+        IData document = new IndexedIData();
+        IDataCursor cursor = document.getCursor();
+        for (int i = 0; i < 1000; i++) {
+            cursor.insertAfter("key" + i, i);
+        }
+
+        IDataCursor other = document.getCursor();
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(other.first("key" + i));
+            other.insertBefore("before" + i, i);
+            assertTrue(cursor.first("key" + (999 - i)));
+            assertEquals(999 - i, cursor.getValue());
+            assertTrue(cursor.first("before" + i));
+            assertEquals(i, cursor.getValue());
+        }
+        other.destroy();
+
+        cursor.home();
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(cursor.next());
+            assertEquals("before" + i, cursor.getKey());
+            assertTrue(cursor.next());
+            assertEquals("key" + i, cursor.getKey());
+        }
+        assertFalse(cursor.next());
+        cursor.destroy();
+    }
+
+    @Test
+    public void testLookupsAfterRenameInLargeDocument() throws Exception {
+        IData document = new IndexedIData();
+        IDataCursor cursor = document.getCursor();
+        for (int i = 0; i < 100; i++) {
+            cursor.insertAfter("key" + i, i);
+        }
+
+        assertTrue(cursor.first("key50"));
+        cursor.setKey("renamed");
+
+        assertFalse(cursor.first("key50"));
+        assertTrue(cursor.first("renamed"));
+        assertEquals(50, cursor.getValue());
+        assertTrue(cursor.next());
+        assertEquals("key51", cursor.getKey());
+        cursor.destroy();
+    }
+
+    @Test
+    public void testCursorStaysOnElementWhenOtherCursorDeletesInLargeDocument() throws Exception {
+        IData document = new IndexedIData();
+        IDataCursor cursor = document.getCursor();
+        for (int i = 0; i < 100; i++) {
+            cursor.insertAfter("key" + i, i);
+        }
+        assertTrue(cursor.first("key75"));
+
+        IDataCursor other = document.getCursor();
+        for (int i = 0; i < 50; i++) {
+            assertTrue(other.first("key" + i));
+            assertTrue(other.delete());
+        }
+        other.destroy();
+
+        assertEquals("key75", cursor.getKey());
+        assertTrue(cursor.previous());
+        assertEquals("key74", cursor.getKey());
+        cursor.destroy();
+    }
+
+    @Test
+    public void testCursorStaysOnElementWhenOtherCursorInserts() throws Exception {
+        IData document = new IndexedIData();
+        IDataCursor cursor = document.getCursor();
+        cursor.insertAfter("a", "1");
+        cursor.insertAfter("b", "2");
+        cursor.insertAfter("c", "3");
+        assertTrue(cursor.first("b"));
+
+        IDataCursor other = document.getCursor();
+        other.insertBefore("z", "0");
+        other.destroy();
+
+        assertEquals("b", cursor.getKey());
+        assertTrue(cursor.previous());
+        assertEquals("a", cursor.getKey());
+        assertTrue(cursor.previous());
+        assertEquals("z", cursor.getKey());
+        cursor.destroy();
+    }
+
+    @Test
+    public void testDeleteWhileIterating() throws Exception {
+        IData document = new IndexedIData();
+        IDataCursor cursor = document.getCursor();
+        for (int i = 0; i < 10; i++) {
+            cursor.insertAfter(i % 2 == 0 ? "even" : "odd", i);
+        }
+
+        cursor.home();
+        while (cursor.next("even")) {
+            cursor.delete();
+        }
+
+        int count = 0;
+        cursor.home();
+        while (cursor.next()) {
+            assertEquals("odd", cursor.getKey());
+            count++;
+        }
+        cursor.destroy();
+
+        assertEquals(5, count);
+    }
+
+    @Test
+    public void testCopiesDocument() throws Exception {
+        IData source = IDataFactory.create();
+        IDataCursor cursor = source.getCursor();
+        IDataUtil.put(cursor, "a", "1");
+        IDataUtil.put(cursor, "b", "2");
+        cursor.destroy();
+
+        IData document = IndexedIData.of(source);
+        cursor = document.getCursor();
+        assertEquals("1", IDataUtil.getString(cursor, "a"));
+        assertEquals("2", IDataUtil.getString(cursor, "b"));
+        cursor.destroy();
+    }
+}
@@ -0,0 +1,190 @@
+package permafrost.tundra.data;
+
+import com.wm.data.IData;
+import com.wm.data.IDataCursor;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PersistentIDataTest {
+    private static PersistentIData create() {
+        PersistentIData document = new PersistentIData();
+        IDataCursor cursor = document.getCursor();
+        cursor.insertAfter("a", "1");
+        IData child = cursor.insertDataAfter("child");
+        cursor.insertAfter("list", new IData[] { new PersistentIData(), null });
+        cursor.destroy();
+
+        cursor = child.getCursor();
+        cursor.insertAfter("b", "2");
+        cursor.destroy();
+
+        return document;
+    }
+
+    private static Object get(IData document, String key) {
+        IDataCursor cursor = document.getCursor();
+        try {
+            return cursor.first(key) ? cursor.getValue() : null;
+        } finally {
+            cursor.destroy();
+        }
+    }
+
+    private static void put(IData document, String key, Object value) {
+        IDataCursor cursor = document.getCursor();
+        try {
+            if (cursor.first(key)) {
+                cursor.setValue(value);
+            } else {
+                cursor.last();
+                cursor.insertAfter(key, value);
+            }
+        } finally {
+            cursor.destroy();
+        }
+    }
+
+    @Test
+    public void testDuplicateIsIndependent() throws Exception {
+        PersistentIData original = create();
+        PersistentIData duplicate = original.duplicate();
+
+        put(duplicate, "a", "x");
+        put(duplicate, "c", "3");
+        put((IData)get(duplicate, "child"), "b", "y");
+
+        assertEquals("1", get(original, "a"));
+        assertNull(get(original, "c"));
+        assertEquals("2", get((IData)get(original, "child"), "b"));
+        assertEquals(3, original.size());
+
+        assertEquals("x", get(duplicate, "a"));
+        assertEquals("3", get(duplicate, "c"));
+        assertEquals("y", get((IData)get(duplicate, "child"), "b"));
+        assertEquals(4, duplicate.size());
+
+        put((IData)get(original, "child"), "b", "z");
+        assertEquals("y", get((IData)get(duplicate, "child"), "b"));
+    }
+
+    @Test
+    public void testDuplicateDocumentListIsIndependent() throws Exception {
+        PersistentIData original = create();
+        PersistentIData duplicate = original.duplicate();
+
+        IData[] list = (IData[])get(duplicate, "list");
+        put(list[0], "d", "4");
+        list[1] = new PersistentIData();
+
+        IData[] originalList = (IData[])get(original, "list");
+        assertEquals(0, ((PersistentIData)originalList[0]).size());
+        assertNull(originalList[1]);
+        assertEquals("4", get(((IData[])get(duplicate, "list"))[0], "d"));
+    }
+
+    @Test
+    public void testWriteAfterReadInOwnerIsVisible() throws Exception {
+        PersistentIData document = create();
+        document.duplicate();
+
+        IData child = (IData)get(document, "child");
+        put(child, "e", "5");
+
+        assertTrue(child == get(document, "child"));
+        assertEquals("5", get((IData)get(document, "child"), "e"));
+    }
+
+    @Test
+    public void testChangesToHeldNestedDocumentsAfterDuplicateAreNotShared() throws Exception {
+        IData foreign = new IndexedIData();
+        IData grandchild = foreign.getCursor().insertDataAfter("grandchild");
+
+        PersistentIData original = new PersistentIData();
+        IDataCursor cursor = original.getCursor();
+        cursor.insertAfter("foreign", foreign);
+        IData child = cursor.insertDataAfter("child");
+        cursor.destroy();
+
+        PersistentIData duplicate = original.duplicate();
+
+        put(foreign, "b", "2");
+        put(grandchild, "c", "3");
+        put(child, "d", "4");
+
+        assertNull(get((IData)get(duplicate, "foreign"), "b"));
+        assertNull(get((IData)get((IData)get(duplicate, "foreign"), "grandchild"), "c"));
+        assertNull(get((IData)get(duplicate, "child"), "d"));
+    }
+
+    @Test
+    public void testHeldNestedDocumentsRemainAttachedAfterDuplicate() throws Exception {
+        IData foreign = new IndexedIData();
+
+        PersistentIData original = new PersistentIData();
+        IDataCursor cursor = original.getCursor();
+        cursor.insertAfter("foreign", foreign);
+        IData child = cursor.insertDataAfter("child");
+        cursor.destroy();
+
+        original.duplicate();
+
+        put(foreign, "b", "2");
+        put(child, "d", "4");
+
+        assertTrue(foreign == get(original, "foreign"));
+        assertTrue(child == get(original, "child"));
+        assertEquals("2", get((IData)get(original, "foreign"), "b"));
+        assertEquals("4", get((IData)get(original, "child"), "d"));
+    }
+
+    @Test
+    public void testSnapshotOfForeignDocument() throws Exception {
+        IData foreign = new IndexedIData();
+        IDataCursor cursor = foreign.getCursor();
+        cursor.insertAfter("a", "1");
+        cursor.insertDataAfter("child").getCursor().insertAfter("b", "2");
+        cursor.destroy();
+
+        PersistentIData snapshot = PersistentIData.of(foreign);
+
+        put(snapshot, "a", "x");
+        put((IData)get(snapshot, "child"), "b", "y");
+
+        assertEquals("1", get(foreign, "a"));
+        assertEquals("2", get((IData)get(foreign, "child"), "b"));
+    }
+
+    @Test
+    public void testCursorDeleteAndInsert() throws Exception {
+        PersistentIData document = new PersistentIData(2);
+        IDataCursor cursor = document.getCursor();
+        for (int i = 0; i < 5; i++) {
+            cursor.insertAfter("k" + i, i);
+        }
+
+        cursor.first("k2");
+        assertTrue(cursor.delete());
+        assertNull(cursor.getKey());
+        assertTrue(cursor.next());
+        assertEquals("k3", cursor.getKey());
+
+        cursor.insertBefore("k2", 2);
+        assertEquals("k2", cursor.getKey());
+        assertTrue(cursor.previous());
+        assertEquals("k1", cursor.getKey());
+
+        assertTrue(cursor.last("k0"));
+        assertEquals(0, cursor.getValue());
+        assertFalse(cursor.previous());
+        assertTrue(cursor.last());
+        assertEquals("k4", cursor.getKey());
+        assertFalse(cursor.hasMoreData());
+        assertFalse(cursor.next("k0"));
+        assertEquals(5, document.size());
+        cursor.destroy();
+    }
+}
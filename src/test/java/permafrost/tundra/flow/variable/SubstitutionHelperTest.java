@@ -148,4 +148,42 @@ public class SubstitutionHelperTest {
         Object result = SubstitutionHelper.substitute(testCase, Object.class, null, null, scope);
         assertEquals(testCase, result);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testCyclicSubstitution() {
+        IDataHelper.put(scope, "x", "%y%");
+        IDataHelper.put(scope, "y", "%x%");
+        String result = SubstitutionHelper.substitute("Testing cycle %x% substitution", String.class, null, null, scope);
+        assertEquals("Testing cycle %x% substitution", result);
+    }
+
+    @Test
+    public void testSelfReferencingSubstitution() {
+        IDataHelper.put(scope, "z", "a%z%");
+        String result = SubstitutionHelper.substitute("%z%", String.class, null, null, scope);
+        assertTrue(result.startsWith("aaaa"));
+        assertTrue(result.endsWith("%z%"));
+    }
+
+    @Test
+    public void testCompiledTemplateSubstitution() {
+        SubstitutionTemplate template = SubstitutionTemplate.compile("Testing template %a% and {{ b }} substitution");
+        assertTrue(template == SubstitutionTemplate.compile("Testing template %a% and {{ b }} substitution"));
+        assertFalse(template.isLiteral());
+        assertEquals("Testing template 1 and 2 substitution", template.substitute(String.class, null, null, scope));
+        assertTrue(SubstitutionTemplate.compile("Testing 100% literal").isLiteral());
+    }
+
+    @Test
+    public void testCompiledTemplatesNotCachedWhenLiteralOrLong() {
+        assertFalse(SubstitutionTemplate.compile("Testing literal") == SubstitutionTemplate.compile("Testing literal"));
+
+        StringBuilder builder = new StringBuilder("%a%");
+        while (builder.length() <= SubstitutionTemplate.MAXIMUM_CACHED_SOURCE_LENGTH) builder.append(' ');
+        String source = builder.toString();
+
+        SubstitutionTemplate template = SubstitutionTemplate.compile(source);
+        assertFalse(template == SubstitutionTemplate.compile(source));
+        assertTrue(template.substitute(String.class, null, null, scope).startsWith("1 "));
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2026 Lachlan Dowding
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package permafrost.tundra.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import permafrost.tundra.lang.BytesHelper;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Calendar;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+public class DirectoryHelperTest {
+    private File directory;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = FileHelper.create();
+        directory.delete();
+        new File(directory, "a/b").mkdirs();
+        new File(directory, "c").mkdirs();
+
+        // include a file larger than a parallel gzip block, so that the archive spans several gzip members
+        write("a/b/one.log", 3 * 1024 * 1024 + 17);
+        write("a/two.txt", 2000);
+        write("c/three.log", 0);
+        write("four.txt", 40000);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        DirectoryHelper.remove(directory, true);
+    }
+
+    private void write(String name, int length) throws IOException {
+        write(new File(directory, name), content(name, length));
+    }
+
+    private static void write(File file, byte[] content) throws IOException {
+        FileOutputStream outputStream = new FileOutputStream(file);
+        try {
+            outputStream.write(content);
+        } finally {
+            outputStream.close();
+        }
+    }
+
+    private static byte[] content(String name, int length) {
+        // compressible but not trivially repetitive content
+        Random random = new Random(name.hashCode());
+        byte[] content = new byte[length];
+        for (int i = 0; i < length; i++) content[i] = (byte)('a' + random.nextInt(8));
+        return content;
+    }
+
+    private static byte[] read(InputStream inputStream) throws IOException {
+        return BytesHelper.normalize(inputStream);
+    }
+
+    private static Map<String, byte[]> unzip(InputStream inputStream) throws IOException {
+        Map<String, byte[]> entries = new TreeMap<String, byte[]>();
+        ZipInputStream zipInputStream = new ZipInputStream(inputStream);
+        try {
+            ZipEntry entry;
+            while ((entry = zipInputStream.getNextEntry()) != null) {
+                ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                InputOutputHelper.copy(zipInputStream, outputStream, false);
+                entries.put(entry.getName(), outputStream.toByteArray());
+            }
+        } finally {
+            zipInputStream.close();
+        }
+        return entries;
+    }
+
+    private static void copy(File source, File target) throws IOException {
+        target.mkdirs();
+        for (String item : DirectoryHelper.list(source)) {
+            File child = new File(source, item);
+            if (child.isDirectory()) {
+                copy(child, new File(target, item));
+            } else {
+                write(new File(target, item), read(new FileInputStream(child)));
+            }
+        }
+    }
+
+    @Test
+    public void testParallelZipMatchesSequentialZip() throws Exception {
+        Map<String, byte[]> sequential = unzip(DirectoryHelper.zip(directory, null, true, false));
+        Map<String, byte[]> parallel = unzip(DirectoryHelper.zip(directory, null, true, false, 4));
+
+        assertEquals(sequential.keySet(), parallel.keySet());
+        assertEquals(4, parallel.size());
+        for (Map.Entry<String, byte[]> entry : sequential.entrySet()) {
+            assertArrayEquals(entry.getKey(), entry.getValue(), parallel.get(entry.getKey()));
+            assertArrayEquals(entry.getKey(), read(new FileInputStream(new File(directory, entry.getKey()))), parallel.get(entry.getKey()));
+        }
+    }
+
+    @Test
+    public void testParallelTarGzipMatchesSequentialTarGzip() throws Exception {
+        byte[] sequential = read(new GZIPInputStream(DirectoryHelper.tar(directory, null, true, true, true, 1)));
+        byte[] parallel = read(new GZIPInputStream(DirectoryHelper.tar(directory, null, true, true, true, 4)));
+
+        assertTrue(sequential.length > 3 * 1024 * 1024);
+        assertArrayEquals(sequential, parallel);
+    }
+
+    @Test
+    public void testParallelGzipMatchesSequentialGzip() throws Exception {
+        File sequentialDirectory = new File(directory, "sequential");
+        File parallelDirectory = new File(directory, "parallel");
+        copy(new File(directory, "a"), sequentialDirectory);
+        copy(new File(directory, "a"), parallelDirectory);
+
+        long sequentialCount = DirectoryHelper.gzip(sequentialDirectory, (Calendar)null, null, true, true);
+        CompressionStatistics statistics = DirectoryHelper.gzip(parallelDirectory, (Calendar)null, null, true, true, 4);
+
+        assertEquals(sequentialCount, statistics.getCount());
+        assertEquals(3 * 1024 * 1024 + 17 + 2000, statistics.getOriginalSize());
+
+        for (String name : new String[] { "b/one.log", "two.txt" }) {
+            byte[] expected = read(new FileInputStream(new File(directory, "a/" + name)));
+            assertArrayEquals(name, expected, read(new GZIPInputStream(new FileInputStream(new File(sequentialDirectory, name + ".gz")))));
+            assertArrayEquals(name, expected, read(new GZIPInputStream(new FileInputStream(new File(parallelDirectory, name + ".gz")))));
+        }
+    }
+
+    @Test
+    public void testParallelGzipCompressesMoreFilesThanArePending() throws Exception {
+        File logs = new File(directory, "logs");
+        logs.mkdirs();
+        for (int i = 0; i < 25; i++) {
+            write(new File(logs, i + ".log"), content(i + ".log", 100 + i));
+        }
+
+        CompressionStatistics statistics = DirectoryHelper.gzip(logs, (Calendar)null, null, false, true, 2);
+
+        assertEquals(25, statistics.getCount());
+        for (int i = 0; i < 25; i++) {
+            assertTrue(new File(logs, i + ".log.gz").exists());
+            assertFalse(new File(logs, i + ".log").exists());
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2026 Lachlan Dowding
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package permafrost.tundra.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class DirectoryWalkerTest {
+    private File directory;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = FileHelper.create();
+        directory.delete();
+        new File(directory, "a/b").mkdirs();
+        new File(directory, "c").mkdirs();
+
+        write("a/b/one.log", 1000);
+        write("a/two.txt", 2000);
+        write("c/three.log", 3000);
+        write("four.txt", 4000);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        DirectoryHelper.remove(directory, true);
+    }
+
+    private void write(String name, int length) throws IOException {
+        FileOutputStream outputStream = new FileOutputStream(new File(directory, name));
+        try {
+            outputStream.write(new byte[length]);
+        } finally {
+            outputStream.close();
+        }
+    }
+
+    @Test
+    public void testWalkRecursive() throws Exception {
+        List<String> names = new ArrayList<String>();
+        long length = 0;
+
+        DirectoryWalker walker = new DirectoryWalker(directory, null, true);
+        while (walker.hasNext()) {
+            DirectoryWalker.Entry entry = walker.next();
+            names.add(entry.getFile().getName());
+            length += entry.length();
+        }
+        walker.close();
+
+        assertEquals("[one.log, two.txt, three.log, four.txt]", names.toString());
+        assertEquals(10000, length);
+    }
+
+    @Test
+    public void testWalkNonRecursiveWithFilter() throws Exception {
+        DirectoryWalker walker = new DirectoryWalker(directory, new FilenameFilter() {
+            public boolean accept(File dir, String name) {
+                return name.endsWith(".txt");
+            }
+        }, false);
+
+        assertTrue(walker.hasNext());
+        assertEquals("four.txt", walker.next().getFile().getName());
+        assertFalse(walker.hasNext());
+    }
+
+    @Test
+    public void testWalkTerminatedEarly() throws Exception {
+        final AtomicInteger count = new AtomicInteger();
+        boolean completed = DirectoryWalker.walk(directory, null, true, 1, new DirectoryWalker.Visitor() {
+            public boolean visit(DirectoryWalker.Entry entry) {
+                return count.incrementAndGet() < 2;
+            }
+        });
+
+        assertFalse(completed);
+        assertEquals(2, count.get());
+    }
+
+    @Test
+    public void testSize() throws Exception {
+        assertEquals(BigInteger.valueOf(10000), DirectoryHelper.size(directory, true));
+        assertEquals(BigInteger.valueOf(10000), DirectoryHelper.size(directory, true, 4));
+        assertEquals(BigInteger.valueOf(4000), DirectoryHelper.size(directory, false));
+    }
+
+    @Test
+    public void testSizeSkipsUnreadableDirectories() throws Exception {
+        File unreadable = new File(directory, "c");
+        unreadable.setReadable(false);
+        try {
+            // permissions are not enforced for some users, such as root, in which case there is nothing to test
+            Assume.assumeTrue(unreadable.list() == null);
+
+            assertEquals(BigInteger.valueOf(7000), DirectoryHelper.size(directory, true));
+            assertEquals(BigInteger.valueOf(7000), DirectoryHelper.size(directory, true, 4));
+        } finally {
+            unreadable.setReadable(true);
+        }
+    }
+}
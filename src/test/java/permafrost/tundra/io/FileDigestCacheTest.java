@@ -0,0 +1,97 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2026 Lachlan Dowding
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package permafrost.tundra.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import org.junit.Test;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+public class FileDigestCacheTest {
+    private static File write(String content) throws IOException {
+        File file = File.createTempFile("tundra", null);
+        FileOutputStream outputStream = new FileOutputStream(file);
+        try {
+            outputStream.write(content.getBytes("UTF-8"));
+        } finally {
+            outputStream.close();
+        }
+        return file;
+    }
+
+    @Test
+    public void testDigest() throws Exception {
+        File file = write("this is a test");
+        try {
+            FileDigestCache cache = new FileDigestCache(10);
+            byte[] expected = MessageDigest.getInstance("SHA-1").digest("this is a test".getBytes("UTF-8"));
+
+            assertArrayEquals(expected, cache.digest(file, "SHA-1"));
+            assertArrayEquals(expected, cache.digest(file, "sha-1"));
+            assertEquals(1, cache.size());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testDigestRecalculatedWhenFileChanges() throws Exception {
+        File file = write("this is a test");
+        try {
+            FileDigestCache cache = new FileDigestCache(10);
+            byte[] first = cache.digest(file, "SHA-1");
+
+            FileOutputStream outputStream = new FileOutputStream(file, true);
+            outputStream.write('!');
+            outputStream.close();
+
+            assertFalse(Arrays.equals(first, cache.digest(file, "SHA-1")));
+            assertEquals(2, cache.size());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testDigestConcurrently() throws Exception {
+        File first = write("first"), second = write("second"), third = write("first");
+        try {
+            byte[][] digests = new FileDigestCache(1).digest(new File[] { first, second, third }, "SHA-1");
+
+            assertEquals(3, digests.length);
+            assertArrayEquals(digests[0], digests[2]);
+            assertFalse(Arrays.equals(digests[0], digests[1]));
+        } finally {
+            first.delete();
+            second.delete();
+            third.delete();
+        }
+    }
+}
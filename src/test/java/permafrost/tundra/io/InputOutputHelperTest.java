@@ -0,0 +1,127 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2026 Lachlan Dowding
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package permafrost.tundra.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Assume;
+import org.junit.Test;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+import java.util.Random;
+
+public class InputOutputHelperTest {
+    @Test
+    public void testCopyFileToFile() throws Exception {
+        byte[] content = new byte[100000];
+        new Random(1).nextBytes(content);
+
+        File source = File.createTempFile("tundra", null);
+        File target = File.createTempFile("tundra", null);
+        try {
+            FileOutputStream outputStream = new FileOutputStream(source);
+            outputStream.write(content);
+            outputStream.close();
+
+            InputOutputHelper.copy(new FileInputStream(source), new FileOutputStream(target, false));
+            InputOutputHelper.copy(new FileInputStream(source), new FileOutputStream(target, true));
+
+            byte[] copied = new byte[(int)target.length()];
+            DataInputStream inputStream = new DataInputStream(new FileInputStream(target));
+            inputStream.readFully(copied);
+            inputStream.close();
+
+            assertEquals(content.length * 2, copied.length);
+            assertArrayEquals(content, Arrays.copyOfRange(copied, 0, content.length));
+            assertArrayEquals(content, Arrays.copyOfRange(copied, content.length, copied.length));
+        } finally {
+            source.delete();
+            target.delete();
+        }
+    }
+
+    @Test
+    public void testTransferFromCurrentPosition() throws Exception {
+        byte[] content = new byte[50000];
+        new Random(2).nextBytes(content);
+
+        File source = File.createTempFile("tundra", null);
+        try {
+            FileOutputStream outputStream = new FileOutputStream(source);
+            outputStream.write(content);
+            outputStream.close();
+
+            FileInputStream inputStream = new FileInputStream(source);
+            inputStream.skip(10);
+            ByteArrayOutputStream target = new ByteArrayOutputStream();
+            long count = InputOutputHelper.transfer(inputStream.getChannel(), Channels.newChannel(target));
+            inputStream.close();
+
+            assertEquals(content.length - 10, count);
+            assertArrayEquals(Arrays.copyOfRange(content, 10, content.length), target.toByteArray());
+        } finally {
+            source.delete();
+        }
+    }
+
+    @Test
+    public void testNormalizeBufferSize() throws Exception {
+        assertEquals(1024, InputOutputHelper.normalizeBufferSize(1024, 5000000));
+        assertEquals(InputOutputHelper.DEFAULT_BUFFER_SIZE, InputOutputHelper.normalizeBufferSize(-1, -1));
+        assertEquals(InputOutputHelper.DEFAULT_BUFFER_SIZE, InputOutputHelper.normalizeBufferSize(-1, 100));
+        assertEquals(131072, InputOutputHelper.normalizeBufferSize(-1, 100000));
+        assertEquals(InputOutputHelper.MAXIMUM_BUFFER_SIZE, InputOutputHelper.normalizeBufferSize(-1, 5000000));
+    }
+
+    @Test
+    public void testCopyFileWithoutSizeToFile() throws Exception {
+        // special files such as those in /proc report a size of zero, but still have content to be read
+        File source = new File("/proc/self/status");
+        Assume.assumeTrue(source.canRead());
+
+        File target = File.createTempFile("tundra", null);
+        try {
+            InputOutputHelper.copy(new FileInputStream(source), new FileOutputStream(target));
+            assertTrue(target.length() > 0);
+
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            FileInputStream inputStream = new FileInputStream(source);
+            try {
+                assertTrue(InputOutputHelper.transfer(inputStream.getChannel(), Channels.newChannel(outputStream)) > 0);
+            } finally {
+                inputStream.close();
+            }
+            assertTrue(outputStream.size() > 0);
+        } finally {
+            target.delete();
+        }
+    }
+}
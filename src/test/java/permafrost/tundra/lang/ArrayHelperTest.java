@@ -28,6 +28,8 @@ import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import org.junit.Test;
+import java.util.Arrays;
+import java.util.Random;
 
 public class ArrayHelperTest {
     @Test
@@ -260,4 +262,18 @@ public class ArrayHelperTest {
     public void testInsertAtMinusFour() throws Exception {
         assertArrayEquals(new String[] { "c", null, "a", "b" }, ArrayHelper.insert(new String[] { "a", "b" }, "c", -4, String.class));
     }
+
+    @Test
+    public void testSortInParallel() throws Exception {
+        Integer[] array = new Integer[100000];
+        Random random = new Random(42);
+        for (int i = 0; i < array.length; i++) {
+            array[i] = random.nextInt();
+        }
+
+        Integer[] expected = Arrays.copyOf(array, array.length);
+        Arrays.sort(expected);
+
+        assertArrayEquals(expected, ArrayHelper.sort(array, null, 4));
+    }
 }
@@ -0,0 +1,135 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2026 Lachlan Dowding
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package permafrost.tundra.math.gauss;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import java.util.ArrayList;
+import java.util.List;
+
+public class HistogramTest {
+    @Test
+    public void testPercentiles() throws Exception {
+        Histogram histogram = new Histogram(0.001, 3600);
+        for (int i = 1; i <= 10000; i++) {
+            histogram.add(i / 1000.0);
+        }
+
+        assertEquals("count", 10000L, histogram.getCount());
+        assertEquals("p50", 5.0, histogram.getPercentile(50), 5.0 * 0.02);
+        assertEquals("p90", 9.0, histogram.getPercentile(90), 9.0 * 0.02);
+        assertEquals("p99", 9.9, histogram.getPercentile(99), 9.9 * 0.02);
+        assertEquals("p99.9", 9.99, histogram.getPercentile(99.9), 9.99 * 0.02);
+    }
+
+    @Test
+    public void testSmallValuesAreExact() throws Exception {
+        Histogram histogram = new Histogram(1, 1000);
+        histogram.add(1);
+        histogram.add(2);
+        histogram.add(3);
+        histogram.add(4);
+
+        assertEquals("p50", 2.0, histogram.getPercentile(50), 0.0);
+        assertEquals("p100", 4.0, histogram.getPercentile(100), 0.0);
+    }
+
+    @Test
+    public void testHighestIsClamped() throws Exception {
+        Histogram histogram = new Histogram(1, 1000);
+        histogram.add(1000000);
+
+        assertEquals("p100", 1000.0, histogram.getPercentile(100), 1000 * 0.02);
+    }
+
+    @Test
+    public void testMerge() throws Exception {
+        Histogram first = new Histogram(0.001, 3600);
+        Histogram second = new Histogram(0.001, 3600);
+        for (int i = 1; i <= 500; i++) {
+            first.add(i);
+            second.add(i + 500);
+        }
+
+        Histogram merged = first.copy();
+        merged.merge(second);
+
+        assertEquals("count", 1000L, merged.getCount());
+        assertEquals("p50", 500.0, merged.getPercentile(50), 500 * 0.02);
+        assertEquals("first count unchanged", 500L, first.getCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMergeDifferentConfigurations() throws Exception {
+        new Histogram(0.001, 3600).merge(new Histogram(1, 3600));
+    }
+
+    @Test
+    public void testRollingWindow() throws Exception {
+        RollingHistogram histogram = new RollingHistogram(60000, 0.001, 3600);
+        histogram.add(1.0);
+        histogram.add(2.0);
+
+        Histogram snapshot = histogram.snapshot();
+        assertEquals("count", 2L, snapshot.getCount());
+        assertTrue("p100", snapshot.getPercentile(100) >= 1.9);
+
+        histogram.reset();
+        assertEquals("count after reset", 0L, histogram.snapshot().getCount());
+    }
+
+    @Test
+    public void testConcurrentServiceEstimatorPercentiles() throws Exception {
+        final ServiceEstimator estimator = new ServiceEstimator("test", "seconds", 60000);
+        final int threadCount = 8, sampleCount = 10000;
+
+        List<Thread> threads = new ArrayList<Thread>(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            Thread thread = new Thread(new Runnable() {
+                public void run() {
+                    for (int j = 1; j <= sampleCount; j++) {
+                        estimator.add(j % 10 != 0, j / 1000.0);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        ServiceEstimator.Results results = estimator.getResults();
+        assertEquals("count", (long)threadCount * sampleCount, results.getCount());
+        assertEquals("failures", (long)threadCount * sampleCount / 10, results.getFailures());
+        assertEquals("p50", 5.0, results.getPercentile(50), 5.0 * 0.02);
+        assertEquals("p99", 9.9, results.getPercentile(99), 9.9 * 0.02);
+        assertEquals("window p90", 9.0, results.getWindowPercentile(90), 9.0 * 0.02);
+
+        estimator.reset();
+        assertEquals("p50 after reset", 0.0, estimator.getResults().getPercentile(50), 0.0);
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2026 Lachlan Dowding
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package permafrost.tundra.math.gauss;
+
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+import java.util.ArrayList;
+import java.util.List;
+
+public class StripedEstimatorTest {
+    @Test
+    public void testEstimation() throws Exception {
+        StripedEstimator estimator = new StripedEstimator(null, null);
+        estimator.add(30.5, 5, 10.2, 8.6, 4.9);
+        Estimator.Results results = estimator.getResults();
+
+        assertEquals("count", 5L, results.getCount());
+        assertEquals("mean", 11.84, results.getMean(), 0.1);
+        assertEquals("minimum", 4.9, results.getMinimum(), 0.1);
+        assertEquals("maximum", 30.5, results.getMaximum(), 0.1);
+        assertEquals("standard deviation", 10.68, results.getStandardDeviation(), 0.1);
+
+        estimator.add(6.5);
+        results = estimator.getResults();
+
+        assertEquals("count", 6L, results.getCount());
+        assertEquals("mean", 10.95, results.getMean(), 0.1);
+        assertEquals("minimum", 4.9, results.getMinimum(), 0.1);
+        assertEquals("maximum", 30.5, results.getMaximum(), 0.1);
+        assertEquals("standard deviation", 9.799, results.getStandardDeviation(), 0.1);
+
+        estimator.reset();
+        assertEquals("count", 0L, estimator.getResults().getCount());
+    }
+
+    @Test
+    public void testConcurrentEstimation() throws Exception {
+        final StripedEstimator striped = new StripedEstimator(null, null);
+        final int threadCount = 8, sampleCount = 10000;
+
+        List<Thread> threads = new ArrayList<Thread>(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            final int offset = i;
+            Thread thread = new Thread(new Runnable() {
+                public void run() {
+                    for (int j = 0; j < sampleCount; j++) {
+                        striped.add((j % 100) + offset);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Estimator estimator = new Estimator(null, null);
+        for (int i = 0; i < threadCount; i++) {
+            for (int j = 0; j < sampleCount; j++) {
+                estimator.add((j % 100) + i);
+            }
+        }
+
+        Estimator.Results expected = estimator.getResults();
+        Estimator.Results actual = striped.getResults();
+
+        assertEquals("count", expected.getCount(), actual.getCount());
+        assertEquals("mean", expected.getMean(), actual.getMean(), 1e-9);
+        assertEquals("minimum", expected.getMinimum(), actual.getMinimum(), 1e-9);
+        assertEquals("maximum", expected.getMaximum(), actual.getMaximum(), 1e-9);
+        assertEquals("cumulative", expected.getCumulative(), actual.getCumulative(), 1e-6);
+        assertEquals("standard deviation", expected.getStandardDeviation(), actual.getStandardDeviation(), 1e-9);
+    }
+
+    @Test
+    public void testServiceEstimation() throws Exception {
+        ServiceEstimator estimator = new ServiceEstimator("example:service", "seconds");
+        estimator.add(true, 1.0);
+        estimator.add(true, 2.0);
+        estimator.add(false, 3.0);
+        estimator.add(new ServiceEstimator.Sample(false, 4.0));
+
+        ServiceEstimator.Results results = estimator.getResults();
+
+        assertEquals("count", 4L, results.getCount());
+        assertEquals("successes", 2L, results.getSuccesses());
+        assertEquals("failures", 2L, results.getFailures());
+        assertEquals("mean", 2.5, results.getMean(), 1e-9);
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2015 Lachlan Dowding
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package permafrost.tundra.net.http.route;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import com.wm.data.IData;
+import org.junit.Test;
+import permafrost.tundra.data.IDataMap;
+import permafrost.tundra.net.http.HTTPMethod;
+import java.io.File;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Map;
+
+public class HTTPRouteIndexTest {
+    private static HTTPRouteList routes(String... templates) {
+        HTTPRouteList list = new HTTPRouteList();
+        for (int i = 0; i < templates.length; i += 2) {
+            list.add(new HTTPRoute(templates[i], templates[i + 1], "service:route" + (i / 2), null, new File("source file")));
+        }
+        return list;
+    }
+
+    private static String target(Map.Entry<HTTPRoute, IData> result) {
+        return result == null ? null : result.getKey().getTarget();
+    }
+
+    @Test
+    public void testMatchLiteralRoute() throws Exception {
+        HTTPRouteList list = routes("get", "/api/users", "get", "/api/users/{id}", "post", "/api/users");
+
+        assertEquals("service:route0", target(list.match(HTTPMethod.GET, "/api/users")));
+        assertEquals("service:route2", target(list.match(HTTPMethod.POST, "/api/users")));
+        assertNull(list.match(HTTPMethod.DELETE, "/api/users"));
+        assertNull(list.match(HTTPMethod.GET, "/api/groups"));
+    }
+
+    @Test
+    public void testMatchTemplateRoute() throws Exception {
+        HTTPRouteList list = routes("get", "/api/users/{id}", "get", "/api/users/{id}/roles/{role}");
+
+        Map.Entry<HTTPRoute, IData> result = list.match(HTTPMethod.GET, "/api/users/42");
+        assertEquals("service:route0", target(result));
+        assertEquals("42", IDataMap.of(result.getValue()).get("id"));
+    }
+
+    @Test
+    public void testMatchPreservesListOrder() throws Exception {
+        // template variables match across segments, so the earlier, shallower route wins just like a linear scan
+        HTTPRouteList list = routes("get", "/api/{path}", "get", "/api/users/{id}", "get", "/api/users/42");
+
+        assertEquals("service:route0", target(list.match(HTTPMethod.GET, "/api/users/42")));
+        assertEquals("service:route0", target(list.scan(HTTPMethod.GET, "/api/users/42")));
+    }
+
+    @Test
+    public void testMatchAgreesWithScan() throws Exception {
+        HTTPRouteList list = routes(
+            "get", "/api/users", "get", "/api/users/{id}", "put", "/api/users/{id}", "get", "/api/users/{id}/roles",
+            "get", "/api/users/{id:\\d+}/groups", "get", "/api/groups/{id}", "get", "/api/{resource}/count",
+            "delete", "/api/users/{id}", "get", "api/relative", "get", "/api/users/", "get", "/api/u{prefix}"
+        );
+
+        String[] uris = new String[] {
+            "/api/users", "/api/users/", "/api/users/1", "/api/users/1/roles", "/api/users/1/groups",
+            "/api/users/x/groups", "/api/groups/2", "/api/groups/2/count", "/api/things/count", "api/relative",
+            "/api/relative", "/api", "/", "", "/api/users?x=1", "/api/u"
+        };
+
+        for (HTTPMethod method : new HTTPMethod[] { HTTPMethod.GET, HTTPMethod.PUT, HTTPMethod.DELETE, HTTPMethod.POST }) {
+            for (String uri : uris) {
+                assertEquals(method + " " + uri, target(list.scan(method, uri)), target(list.match(method, uri)));
+            }
+        }
+    }
+
+    @Test
+    public void testMatchAfterModification() throws Exception {
+        HTTPRouteList list = routes("get", "/api/users");
+        assertNull(list.match(HTTPMethod.GET, "/api/groups"));
+
+        list.add(new HTTPRoute("get", "/api/groups", "service:groups", null, new File("source file")));
+        assertEquals("service:groups", target(list.match(HTTPMethod.GET, "/api/groups")));
+    }
+
+    @Test
+    public void testMatchAfterReplacement() throws Exception {
+        HTTPRouteList list = routes("get", "/api/users");
+        assertEquals("service:route0", target(list.match(HTTPMethod.GET, "/api/users")));
+
+        list.set(0, new HTTPRoute("get", "/api/groups", "service:groups", null, new File("source file")));
+        assertNull(list.match(HTTPMethod.GET, "/api/users"));
+        assertEquals("service:groups", target(list.match(HTTPMethod.GET, "/api/groups")));
+
+        list.subList(0, 1).set(0, new HTTPRoute("get", "/api/roles", "service:roles", null, new File("source file")));
+        assertNull(list.match(HTTPMethod.GET, "/api/groups"));
+        assertEquals("service:roles", target(list.match(HTTPMethod.GET, "/api/roles")));
+    }
+
+    @Test
+    public void testMatchAfterSort() throws Exception {
+        HTTPRouteList list = routes("get", "/api/{path}", "get", "/api/users");
+        assertEquals("service:route0", target(list.match(HTTPMethod.GET, "/api/users")));
+
+        Collections.sort(list, new Comparator<HTTPRoute>() {
+            public int compare(HTTPRoute first, HTTPRoute second) {
+                return second.getTarget().compareTo(first.getTarget());
+            }
+        });
+        assertEquals("service:route1", target(list.match(HTTPMethod.GET, "/api/users")));
+    }
+}
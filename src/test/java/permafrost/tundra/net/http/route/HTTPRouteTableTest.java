@@ -0,0 +1,143 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2026 Lachlan Dowding
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package permafrost.tundra.net.http.route;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import permafrost.tundra.io.DirectoryHelper;
+import permafrost.tundra.io.FileHelper;
+import permafrost.tundra.net.http.HTTPMethod;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class HTTPRouteTableTest {
+    private File directory, alpha, beta;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = FileHelper.create();
+        directory.delete();
+        directory.mkdirs();
+
+        // files last modified well before they are loaded can be reused without being read
+        long lastModified = System.currentTimeMillis() - 60000L;
+        alpha = write("alpha.cnf", "get /alpha/users service:alpha", lastModified);
+        beta = write("beta.cnf", "get /beta/users service:beta1", lastModified);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        DirectoryHelper.remove(directory, true);
+    }
+
+    private File write(String name, String content, long lastModified) throws IOException {
+        File file = new File(directory, name);
+        FileOutputStream outputStream = new FileOutputStream(file);
+        try {
+            outputStream.write(content.getBytes("UTF-8"));
+        } finally {
+            outputStream.close();
+        }
+        file.setLastModified(lastModified);
+        return file;
+    }
+
+    private static String target(HTTPRouteTable table, String uri) {
+        return table.match(HTTPMethod.GET, uri).getKey().getTarget();
+    }
+
+    @Test
+    public void testUnchangedSourcesAreReused() throws Exception {
+        HTTPRouteTable first = HTTPRouteTable.newInstance(Arrays.asList(alpha, beta), null);
+        HTTPRouteTable second = HTTPRouteTable.newInstance(Arrays.asList(alpha, beta), first);
+
+        assertEquals(0, second.sourcesLoaded);
+        assertEquals(2, second.sourcesReused);
+        assertEquals(2, second.directivesReused);
+        assertSame(first.get("alpha"), second.get("alpha"));
+        assertSame(first.get("beta"), second.get("beta"));
+    }
+
+    @Test
+    public void testChangedSourceIsReloaded() throws Exception {
+        HTTPRouteTable first = HTTPRouteTable.newInstance(Arrays.asList(alpha, beta), null);
+        write("beta.cnf", "get /beta/users service:beta2\nget /beta/groups service:beta3", System.currentTimeMillis() - 30000L);
+        HTTPRouteTable second = HTTPRouteTable.newInstance(Arrays.asList(alpha, beta), first);
+
+        assertEquals(1, second.sourcesLoaded);
+        assertEquals(1, second.sourcesReused);
+        assertSame(first.get("alpha"), second.get("alpha"));
+        assertNotSame(first.get("beta"), second.get("beta"));
+        assertEquals("service:beta1", target(first, "/beta/users"));
+        assertEquals("service:beta2", target(second, "/beta/users"));
+        assertEquals("service:beta3", target(second, "/beta/groups"));
+    }
+
+    @Test
+    public void testSameLengthEditWithinLastModifiedGranularityIsReloaded() throws Exception {
+        long lastModified = (System.currentTimeMillis() / 1000L) * 1000L;
+        write("beta.cnf", "get /beta/users service:beta1", lastModified);
+        HTTPRouteTable first = HTTPRouteTable.newInstance(Arrays.asList(alpha, beta), null);
+
+        // rewrite the file with content of the same length without its last modified time changing
+        write("beta.cnf", "get /beta/users service:beta2", lastModified);
+        HTTPRouteTable second = HTTPRouteTable.newInstance(Arrays.asList(alpha, beta), first);
+
+        assertEquals(1, second.sourcesLoaded);
+        assertEquals("service:beta2", target(second, "/beta/users"));
+        assertSame(first.get("alpha"), second.get("alpha"));
+    }
+
+    @Test
+    public void testTouchedSourceWithUnchangedContentIsReused() throws Exception {
+        HTTPRouteTable first = HTTPRouteTable.newInstance(Arrays.asList(alpha, beta), null);
+        beta.setLastModified(System.currentTimeMillis() - 30000L);
+        HTTPRouteTable second = HTTPRouteTable.newInstance(Arrays.asList(alpha, beta), first);
+
+        assertEquals(0, second.sourcesLoaded);
+        assertEquals(2, second.sourcesReused);
+        assertSame(first.get("beta"), second.get("beta"));
+    }
+
+    @Test
+    public void testRemovedSourceRemovesItsRoutes() throws Exception {
+        HTTPRouteTable first = HTTPRouteTable.newInstance(Arrays.asList(alpha, beta), null);
+        HTTPRouteTable second = HTTPRouteTable.newInstance(Collections.singletonList(alpha), first);
+
+        assertEquals(1, second.sourcesRemoved);
+        assertSame(first.get("alpha"), second.get("alpha"));
+        assertNull(second.get("beta"));
+        assertNull(second.match(HTTPMethod.GET, "/beta/users"));
+        assertEquals("service:beta1", target(first, "/beta/users"));
+    }
+}
@@ -24,10 +24,12 @@
 
 package permafrost.tundra.time;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import org.junit.Test;
 import java.util.Calendar;
+import java.util.TimeZone;
 
 public class DateTimeHelperTest {
 
@@ -111,4 +113,40 @@ public class DateTimeHelperTest {
 
         assertEquals(expected, actual);
     }
+
+    @Test
+    public void testEmitArrayWithCustomPattern() throws Exception {
+        Calendar[] datetimes = new Calendar[] { DateTimeHelper.parse("2020-02-03T04:05:06.789Z"), null, DateTimeHelper.parse("2021-06-01T00:00:00Z") };
+        String[] expected = new String[] { "03/02/2020 15:05", null, "01/06/2021 10:00" };
+
+        String[] actual = DateTimeHelper.emit(datetimes, "dd/MM/yyyy HH:mm", TimeZoneHelper.get("Australia/Sydney"));
+
+        assertArrayEquals(expected, actual);
+    }
+
+    @Test
+    public void testParseArrayWithCustomPattern() throws Exception {
+        String[] datetimes = new String[] { "2020-02-03 04:05:06 UTC", null, "2020-02-03 04:05:06 PST" };
+
+        Calendar[] actual = DateTimeHelper.parse(datetimes, "yyyy-MM-dd HH:mm:ss z", (TimeZone)null);
+
+        assertEquals(DateTimeHelper.parse("2020-02-03T04:05:06Z").getTimeInMillis(), actual[0].getTimeInMillis());
+        assertNull(actual[1]);
+        assertEquals(DateTimeHelper.parse("2020-02-03T12:05:06Z").getTimeInMillis(), actual[2].getTimeInMillis());
+    }
+
+    @Test
+    public void testCachedFormatterTimeZoneNotChangedByParse() throws Exception {
+        String pattern = "yyyy-MM-dd HH:mm z";
+        TimeZone timezone = TimeZoneHelper.get("UTC");
+
+        DateTimeHelper.parse("2020-02-03 04:05 PST", pattern, timezone);
+
+        assertEquals("2020-02-03 04:05 UTC", DateTimeHelper.emit(DateTimeHelper.parse("2020-02-03T04:05:00Z"), pattern, timezone));
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testParseArrayWithInvalidDatetime() throws Exception {
+        DateTimeHelper.parse(new String[] { "2020-02-03", "invalid" }, "yyyy-MM-dd", (TimeZone)null);
+    }
 }
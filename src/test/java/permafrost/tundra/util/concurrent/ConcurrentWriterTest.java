@@ -0,0 +1,163 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2026 Lachlan Dowding
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package permafrost.tundra.util.concurrent;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import java.io.StringWriter;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ConcurrentWriterTest {
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * A writer which blocks every write until it is released.
+     */
+    private static class BlockingWriter extends StringWriter {
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            super.write(cbuf, off, len);
+        }
+    }
+
+    @Test
+    public void testWritesAreOrdered() throws Exception {
+        StringWriter output = new StringWriter();
+        ConcurrentWriter writer = new ConcurrentWriter(executor, output, 64, 0, false);
+        writer.start();
+
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            String line = i + "\n";
+            writer.write(line);
+            expected.append(line);
+        }
+        writer.flush();
+
+        assertEquals(expected.toString(), output.toString());
+        assertEquals(expected.length(), writer.getWrittenCount());
+        assertEquals(0, writer.getDroppedCount());
+        writer.stop();
+    }
+
+    @Test
+    public void testStopFlushesQueuedWrites() throws Exception {
+        final CountDownLatch flushed = new CountDownLatch(1);
+        StringWriter output = new StringWriter() {
+            @Override
+            public void flush() {
+                super.flush();
+                flushed.countDown();
+            }
+        };
+
+        // a long flush interval means the consumer will hold the characters until it is stopped
+        ConcurrentWriter writer = new ConcurrentWriter(executor, output, 1024, 60000, false);
+        writer.start();
+        writer.write("first\n");
+        writer.write("second\n");
+        writer.stop();
+
+        assertTrue(flushed.await(5, TimeUnit.SECONDS));
+        assertEquals("first\nsecond\n", output.toString());
+        assertEquals(0, writer.getPending());
+        assertFalse(writer.isStarted());
+    }
+
+    @Test
+    public void testFullBufferBlocksWriter() throws Exception {
+        BlockingWriter output = new BlockingWriter();
+        final ConcurrentWriter writer = new ConcurrentWriter(executor, output, 8, 0, false);
+        writer.start();
+
+        final StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 8; i++) expected.append("0123456789");
+
+        Thread producer = new Thread(new Runnable() {
+            public void run() {
+                writer.write(expected.toString(), 0, expected.length());
+            }
+        });
+        producer.start();
+        producer.join(200);
+
+        assertTrue("producer should be blocked while the buffer is full", producer.isAlive());
+        assertTrue(writer.getPending() <= writer.getCapacity());
+
+        output.release.countDown();
+        producer.join(5000);
+        assertFalse(producer.isAlive());
+
+        writer.flush();
+        assertEquals(expected.toString(), output.toString());
+        assertEquals(0, writer.getDroppedCount());
+        writer.stop();
+    }
+
+    @Test
+    public void testFullBufferDropsWhenConfigured() throws Exception {
+        BlockingWriter output = new BlockingWriter();
+        ConcurrentWriter writer = new ConcurrentWriter(executor, output, 8, 0, true);
+        writer.start();
+
+        // wait for the consumer to take the first write and block on the underlying writer
+        writer.write("abc");
+        for (int i = 0; i < 500 && writer.getPending() > 0; i++) Thread.sleep(10);
+        assertEquals(0, writer.getPending());
+
+        writer.write("01234567");
+        writer.write("89");
+
+        assertEquals(2, writer.getDroppedCount());
+        output.release.countDown();
+        writer.flush();
+        assertEquals("abc01234567", output.toString());
+        writer.stop();
+    }
+}
@@ -31,6 +31,7 @@ import static org.junit.Assert.assertTrue;
 import org.junit.Before;
 import org.junit.Test;
 import permafrost.tundra.lang.BytesHelper;
+import java.io.ByteArrayInputStream;
 
 public class GzipHelperTest {
     byte[] expectedCompressedContent, expectedDecompressedContent;
@@ -58,4 +59,18 @@ public class GzipHelperTest {
         assertTrue("decompressed length > 0", decompressedContent.length > 0);
         assertArrayEquals(expectedDecompressedContent, decompressedContent);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testCompressWithLevel() throws Exception {
+        byte[] content = new byte[1024 * 1024];
+        for (int i = 0; i < content.length; i++) content[i] = (byte)('a' + (i % 7));
+
+        byte[] stored = BytesHelper.normalize(GzipHelper.compress(new ByteArrayInputStream(content), 0));
+        byte[] compressed = BytesHelper.normalize(GzipHelper.compress(new ByteArrayInputStream(content), 9));
+
+        assertTrue("stored length > content length", stored.length > content.length);
+        assertTrue("compressed length < content length", compressed.length < content.length);
+        assertArrayEquals(content, BytesHelper.normalize(GzipHelper.decompress(stored)));
+        assertArrayEquals(content, BytesHelper.normalize(GzipHelper.decompress(compressed)));
+    }
+}
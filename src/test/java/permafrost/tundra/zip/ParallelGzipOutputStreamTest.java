@@ -0,0 +1,100 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2026 Lachlan Dowding
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package permafrost.tundra.zip;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import permafrost.tundra.lang.BytesHelper;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+public class ParallelGzipOutputStreamTest {
+    ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    private byte[] compress(byte[] content, int blockSize) throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ParallelGzipOutputStream gzipOutputStream = new ParallelGzipOutputStream(outputStream, executor, blockSize, Deflater.DEFAULT_COMPRESSION, 2);
+        gzipOutputStream.write(content);
+        gzipOutputStream.close();
+        return outputStream.toByteArray();
+    }
+
+    @Test
+    public void testCompressMultipleBlocks() throws Exception {
+        byte[] content = new byte[100000];
+        for (int i = 0; i < content.length; i++) content[i] = (byte)('a' + (i % 17));
+
+        byte[] compressed = compress(content, 4096);
+
+        assertArrayEquals(content, BytesHelper.normalize(new GZIPInputStream(new ByteArrayInputStream(compressed))));
+    }
+
+    @Test
+    public void testCompressEmpty() throws Exception {
+        byte[] compressed = compress(new byte[0], 4096);
+
+        assertArrayEquals(new byte[0], BytesHelper.normalize(new GZIPInputStream(new ByteArrayInputStream(compressed))));
+    }
+
+    @Test
+    public void testFlushWritesOnlyCompletedBlocks() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ParallelGzipOutputStream gzipOutputStream = new ParallelGzipOutputStream(outputStream, executor, 4096, Deflater.DEFAULT_COMPRESSION, 2);
+
+        byte[] content = new byte[4096 + 10];
+        for (int i = 0; i < content.length; i++) content[i] = (byte)('a' + (i % 17));
+
+        gzipOutputStream.write(content, 0, 10);
+        gzipOutputStream.flush();
+        assertEquals("partial block is not flushed", 0, outputStream.size());
+
+        gzipOutputStream.write(content, 10, content.length - 10);
+        gzipOutputStream.flush();
+        assertTrue("completed block is flushed", outputStream.size() > 0);
+        assertEquals(1, gzipOutputStream.members);
+
+        gzipOutputStream.close();
+        assertEquals(2, gzipOutputStream.members);
+        assertArrayEquals(content, BytesHelper.normalize(new GZIPInputStream(new ByteArrayInputStream(outputStream.toByteArray()))));
+    }
+}
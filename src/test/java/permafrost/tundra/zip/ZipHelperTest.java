@@ -24,12 +24,16 @@
 
 package permafrost.tundra.zip;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import org.junit.Test;
 import permafrost.tundra.lang.BytesHelper;
+import permafrost.tundra.lang.CloseableIterator;
 import permafrost.tundra.lang.StringHelper;
+import java.io.ByteArrayInputStream;
 
 public class ZipHelperTest {
 
@@ -56,4 +60,29 @@ public class ZipHelperTest {
         assertEquals("this is the first zip entry", StringHelper.normalize(contents[0].getData()));
         assertEquals("this is the second zip entry", StringHelper.normalize(contents[1].getData()));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testIterateSpillsLargeEntries() throws Exception {
+        byte[] large = new byte[64 * 1024];
+        for (int i = 0; i < large.length; i++) large[i] = (byte)('a' + (i % 13));
+
+        ZipEntryWithData[] contents = new ZipEntryWithData[2];
+        contents[0] = new ZipEntryWithStream("large.txt", new ByteArrayInputStream(large));
+        contents[1] = new ZipEntryWithData("small.txt", "small");
+
+        CloseableIterator<ZipEntryWithStream> iterator = ZipHelper.iterate(ZipHelper.compress(contents, 9), 1024);
+
+        assertTrue(iterator.hasNext());
+        ZipEntryWithStream first = iterator.next();
+        assertTrue(iterator.hasNext());
+        ZipEntryWithStream second = iterator.next();
+        assertFalse(iterator.hasNext());
+
+        // entries remain readable after the iterator has advanced past them
+        assertEquals("large.txt", first.getName());
+        assertEquals(large.length, first.getSize());
+        assertArrayEquals(large, BytesHelper.normalize(first.getInputStream()));
+        assertEquals("small.txt", second.getName());
+        assertEquals("small", StringHelper.normalize(second.getData()));
+    }
+}